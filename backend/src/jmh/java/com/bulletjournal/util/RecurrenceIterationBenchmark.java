@@ -0,0 +1,59 @@
+package com.bulletjournal.util;
+
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares iterating one week of occurrences from DTSTART against seeking to the week first.
+ * Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecurrenceIterationBenchmark {
+
+    private static final String TIMEZONE = "America/Los_Angeles";
+    private static final long WINDOW_START = new DateTime(2020, 2, 2).getTimestamp();
+    private static final long WINDOW_END = WINDOW_START + TimeUnit.DAYS.toMillis(7);
+
+    @Param({"DAILY", "WEEKLY", "MONTHLY"})
+    public String freq;
+
+    @Param({"1", "5", "10"})
+    public int ageInYears;
+
+    private BuJoRecurrenceRule rule;
+
+    @Setup
+    public void setup() throws Exception {
+        String recurrenceRule = "DTSTART:" + (2020 - this.ageInYears) + "0302T093000Z RRULE:FREQ="
+                + this.freq + ";INTERVAL=1";
+        this.rule = new BuJoRecurrenceRule(recurrenceRule, TIMEZONE);
+    }
+
+    @Benchmark
+    public void iterateFromStart(Blackhole blackhole) {
+        consumeWindow(this.rule.getIterator(), blackhole);
+    }
+
+    @Benchmark
+    public void iterateFromWindow(Blackhole blackhole) {
+        consumeWindow(this.rule.getIterator(WINDOW_START), blackhole);
+    }
+
+    private static void consumeWindow(RecurrenceRuleIterator it, Blackhole blackhole) {
+        while (it.hasNext()) {
+            long occurrence = it.nextMillis();
+            if (occurrence > WINDOW_END) {
+                break;
+            }
+            if (occurrence >= WINDOW_START) {
+                blackhole.consume(occurrence);
+            }
+        }
+    }
+}
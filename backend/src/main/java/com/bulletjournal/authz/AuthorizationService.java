@@ -2,6 +2,7 @@ package com.bulletjournal.authz;
 
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.exceptions.UnAuthorizedException;
+import com.bulletjournal.repository.GroupMembershipCache;
 import com.bulletjournal.repository.SharedProjectItemDaoJpa;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.ProjectItemModel;
@@ -10,11 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Component
 public class AuthorizationService {
@@ -27,8 +26,11 @@ public class AuthorizationService {
     @Lazy
     private SharedProjectItemDaoJpa sharedProjectItemDaoJpa;
 
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+
     public <T extends ProjectItemModel> void validateRequesterInProjectGroup(String requester, T projectItem) {
-        if (this.sharedProjectItemDaoJpa.getSharedProjectItems(requester).contains(projectItem)) {
+        if (this.sharedProjectItemDaoJpa.isSharedWith(requester, projectItem)) {
             return;
         }
         validateRequesterInProjectGroup(requester, projectItem.getProject());
@@ -39,9 +41,7 @@ public class AuthorizationService {
             return;
         }
 
-        List<String> projectGroupUsers = project.getGroup()
-                .getUsers().stream().map(u -> u.getUser().getName()).collect(Collectors.toList());
-        if (!projectGroupUsers.stream().anyMatch(u -> Objects.equals(requester, u))) {
+        if (!this.groupMembershipCache.isAcceptedUser(project.getGroup().getId(), requester)) {
             throw new UnAuthorizedException("User " + requester + " not in Project "
                     + project.getName());
         }
@@ -137,7 +137,7 @@ public class AuthorizationService {
         switch (operation) {
             case DELETE:
             case UPDATE:
-                if (this.sharedProjectItemDaoJpa.getSharedProjectItems(requester).contains(projectItem)) {
+                if (this.sharedProjectItemDaoJpa.isSharedWith(requester, projectItem)) {
                     return;
                 }
                 if (!Objects.equals(owner, requester) && !Objects.equals(projectOwner, requester)
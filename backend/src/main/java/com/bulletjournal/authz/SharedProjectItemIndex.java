@@ -0,0 +1,71 @@
+package com.bulletjournal.authz;
+
+import com.bulletjournal.contents.ContentType;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.SetMultimap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches the (contentType, itemId) pairs shared with each user.
+ * <p>
+ * Entries are loaded on first lookup and dropped by {@link #invalidate(String)} once a share or
+ * revoke commits. A load racing with an invalidation is not cached, so a committed change is
+ * never hidden by an older load. Entries also expire a while after loading, in case an
+ * invalidation is missed.
+ */
+public class SharedProjectItemIndex {
+
+    private final Cache<String, SetMultimap<ContentType, Long>> cache;
+    private final Function<String, SetMultimap<ContentType, Long>> loader;
+    private final AtomicLong generation = new AtomicLong();
+
+    public SharedProjectItemIndex(long maximumSize, long expireAfterWriteSeconds,
+                                  Function<String, SetMultimap<ContentType, Long>> loader) {
+        this(maximumSize, expireAfterWriteSeconds, Ticker.systemTicker(), loader);
+    }
+
+    SharedProjectItemIndex(long maximumSize, long expireAfterWriteSeconds, Ticker ticker,
+                           Function<String, SetMultimap<ContentType, Long>> loader) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
+        this.loader = loader;
+    }
+
+    /**
+     * @param username    the username
+     * @param contentType the content type of project item
+     * @param itemId      the project item id
+     * @return true if project item is shared with user
+     */
+    public boolean contains(String username, ContentType contentType, Long itemId) {
+        return get(username).containsEntry(contentType, itemId);
+    }
+
+    private SetMultimap<ContentType, Long> get(String username) {
+        SetMultimap<ContentType, Long> items = this.cache.getIfPresent(username);
+        if (items != null) {
+            return items;
+        }
+        long loadedAt = this.generation.get();
+        items = this.loader.apply(username);
+        this.cache.put(username, items);
+        if (this.generation.get() != loadedAt) {
+            // invalidated while loading, may be stale
+            this.cache.invalidate(username);
+        }
+        return items;
+    }
+
+    public void invalidate(String username) {
+        this.generation.incrementAndGet();
+        this.cache.invalidate(username);
+    }
+}
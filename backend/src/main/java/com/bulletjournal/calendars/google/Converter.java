@@ -12,6 +12,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.dmfs.rfc5545.DateTime;
 import org.slf4j.MDC;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -21,8 +22,13 @@ public class Converter {
     private static final int DEFAULT_REMINDER_SETTING = 30;
 
     public static GoogleCalendarEvent toTask(Event event, String timezone) {
-        String username = MDC.get(UserClient.USER_NAME_KEY);
+        return toTask(event, timezone, MDC.get(UserClient.USER_NAME_KEY));
+    }
 
+    /**
+     * @param username owner and assignee of the task
+     */
+    public static GoogleCalendarEvent toTask(Event event, String timezone, String username) {
         Task task = new Task();
         task.setOwner(username);
         task.setAssignees(ImmutableList.of(new User(username)));
@@ -77,7 +83,7 @@ public class Converter {
         content.setText(text.toString());
         content.setOwner(username);
 
-        return new GoogleCalendarEvent(task, content, event.getICalUID());
+        return new GoogleCalendarEvent(task, content, event.getICalUID(), event.getId());
     }
 
     private static Long getValue(EventDateTime eventDateTime) {
@@ -130,6 +136,14 @@ public class Converter {
         }
     }
 
+    /**
+     * @return text of event content as html paragraphs, one per line
+     */
+    public static String toHtml(String text) {
+        return Arrays.stream(text.split(System.lineSeparator()))
+                .map(s -> "<p>" + s + "</p>").collect(Collectors.joining());
+    }
+
     public static CreateTaskParams toCreateTaskParams(GoogleCalendarEvent event) {
         Task task = event.getTask();
         return new CreateTaskParams(task.getName(), task.getDueDate(),
@@ -11,13 +11,17 @@ public class GoogleCalendarEvent {
 
     private String iCalUID;
 
+    // id of the event in its calendar
+    private String eventId;
+
     public GoogleCalendarEvent() {
     }
 
-    public GoogleCalendarEvent(Task task, Content content, String iCalUID) {
+    public GoogleCalendarEvent(Task task, Content content, String iCalUID, String eventId) {
         this.task = task;
         this.content = content;
         this.iCalUID = iCalUID;
+        this.eventId = eventId;
     }
 
     public Task getTask() {
@@ -43,4 +47,12 @@ public class GoogleCalendarEvent {
     public void setiCalUID(String iCalUID) {
         this.iCalUID = iCalUID;
     }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
 }
@@ -0,0 +1,210 @@
+package com.bulletjournal.calendars.google;
+
+import com.bulletjournal.clients.GoogleCalClient;
+import com.bulletjournal.repository.GoogleCalendarProjectDaoJpa;
+import com.bulletjournal.repository.TaskDaoJpa;
+import com.bulletjournal.repository.models.GoogleCalendarProject;
+import com.bulletjournal.util.CustomThreadFactory;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.Events;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps tasks of watched Google Calendars in sync with their events.
+ * <p>
+ * Each watched calendar keeps the nextSyncToken of its last listing. On a channel notification
+ * only events changed since are listed. Each page of them is applied in one transaction: changed
+ * events are upserted as tasks and cancelled events delete their tasks. Notifications arriving
+ * while a sync is pending are coalesced into that sync.
+ * <p>
+ * An expired token is recovered by listing the whole calendar again. Like watching, this never
+ * imports events untouched since the watch: only events updated after it are upserted, and tasks
+ * of events no longer in the calendar are deleted.
+ */
+@Service
+public class GoogleCalendarSyncService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleCalendarSyncService.class);
+    private static final int MAX_RESULTS = 500;
+    private static final int SYNC_TOKEN_EXPIRED = 410;
+    private static final String CANCELLED = "cancelled";
+    // resource state of the notification sent once when a channel is created
+    private static final String SYNC_STATE = "sync";
+    private static final String DEFAULT_TIMEZONE = "UTC";
+
+    private final ExecutorService executorService =
+            Executors.newSingleThreadExecutor(new CustomThreadFactory("google-calendar-sync"));
+    private final Set<String> pendingChannels = ConcurrentHashMap.newKeySet();
+
+    private final GoogleCalClient googleCalClient;
+
+    private final GoogleCalendarProjectDaoJpa googleCalendarProjectDaoJpa;
+
+    private final TaskDaoJpa taskDaoJpa;
+
+    @Autowired
+    public GoogleCalendarSyncService(GoogleCalClient googleCalClient,
+                                     GoogleCalendarProjectDaoJpa googleCalendarProjectDaoJpa,
+                                     TaskDaoJpa taskDaoJpa) {
+        this.googleCalClient = googleCalClient;
+        this.googleCalendarProjectDaoJpa = googleCalendarProjectDaoJpa;
+        this.taskDaoJpa = taskDaoJpa;
+    }
+
+    /**
+     * Sync calendar of channel in background
+     *
+     * @param resourceState X-Goog-Resource-State of the notification
+     */
+    public void onNotification(String channelId, String resourceState) {
+        if (SYNC_STATE.equals(resourceState) || !this.pendingChannels.add(channelId)) {
+            return;
+        }
+        this.executorService.execute(() -> {
+            // notifications from now on need another sync
+            this.pendingChannels.remove(channelId);
+            try {
+                sync(channelId);
+            } catch (Exception ex) {
+                LOGGER.error("Unable to sync calendar of channel {}", channelId, ex);
+            }
+        });
+    }
+
+    /**
+     * @return nextSyncToken of calendar as of now, without transferring its events
+     */
+    public String getSyncToken(Calendar service, String calendarId) throws IOException {
+        return listEvents(service, calendarId, null, null);
+    }
+
+    public void sync(String channelId) throws IOException {
+        GoogleCalendarProject calendarProject = this.googleCalendarProjectDaoJpa.getByChannelId(channelId);
+        String calendarId = calendarProject.getId();
+        if (calendarProject.getOwner() == null || calendarProject.getSyncToken() == null) {
+            LOGGER.warn("Calendar {} was watched without sync token, watch it again to sync", calendarId);
+            return;
+        }
+        Calendar service = this.googleCalClient.getCalendarService(calendarProject.getOwner());
+        String syncToken;
+        try {
+            syncToken = listEvents(service, calendarId, calendarProject.getSyncToken(),
+                    events -> apply(calendarProject, events));
+        } catch (GoogleJsonResponseException ex) {
+            if (ex.getStatusCode() != SYNC_TOKEN_EXPIRED) {
+                throw ex;
+            }
+            LOGGER.warn("Sync token of calendar {} expired, syncing the whole calendar", calendarId);
+            syncToken = resync(service, calendarProject);
+        }
+        this.googleCalendarProjectDaoJpa.setSyncToken(calendarId, syncToken);
+    }
+
+    /**
+     * Full sync of calendar, applying changes since the watch and deleting tasks of events gone since
+     *
+     * @return nextSyncToken of the listing
+     */
+    private String resync(Calendar service, GoogleCalendarProject calendarProject) throws IOException {
+        long watchedAt = calendarProject.getCreatedAt().getTime();
+        Set<String> eventIds = new HashSet<>();
+        String syncToken = listEvents(service, calendarProject.getId(), null, events -> {
+            if (events.getItems() == null) {
+                return;
+            }
+            events.getItems().stream()
+                    .filter(event -> event.getRecurringEventId() == null && !CANCELLED.equals(event.getStatus()))
+                    .forEach(event -> eventIds.add(event.getId()));
+            // events untouched since the watch were never imported
+            events.setItems(events.getItems().stream()
+                    .filter(event -> event.getUpdated() == null || event.getUpdated().getValue() >= watchedAt)
+                    .collect(Collectors.toList()));
+            apply(calendarProject, events);
+        });
+        this.taskDaoJpa.deleteGoogleCalendarTasksExcept(calendarProject.getProject().getId(),
+                calendarProject.getOwner(), eventIds);
+        return syncToken;
+    }
+
+    private void apply(GoogleCalendarProject calendarProject, Events events) {
+        List<GoogleCalendarEvent> changed = new ArrayList<>();
+        List<String> cancelled = new ArrayList<>();
+        classify(events, calendarProject.getOwner(), changed, cancelled);
+        this.taskDaoJpa.applyGoogleCalendarChanges(calendarProject.getProject().getId(), calendarProject.getOwner(),
+                changed, cancelled);
+        LOGGER.info("Synced calendar {}: {} changed, {} cancelled", calendarProject.getId(),
+                changed.size(), cancelled.size());
+    }
+
+    /**
+     * List events of calendar page by page
+     *
+     * @param syncToken   token of the last listing to list only events changed since, null to list all
+     * @param pageHandler receives each page, null to only fetch the token
+     * @return nextSyncToken of the listing
+     */
+    static String listEvents(Calendar service, String calendarId, String syncToken,
+                             Consumer<Events> pageHandler) throws IOException {
+        String pageToken = null;
+        Events events;
+        do {
+            Calendar.Events.List list = service.events().list(calendarId)
+                    .setMaxResults(MAX_RESULTS)
+                    .setPageToken(pageToken)
+                    .setSyncToken(syncToken);
+            if (pageHandler == null) {
+                list.setFields("nextPageToken,nextSyncToken");
+            }
+            events = list.execute();
+            if (pageHandler != null) {
+                pageHandler.accept(events);
+            }
+            pageToken = events.getNextPageToken();
+        } while (pageToken != null);
+        return events.getNextSyncToken();
+    }
+
+    /**
+     * Split page of events into changed events, as tasks of owner, and ids of cancelled events
+     */
+    static void classify(Events events, String owner, List<GoogleCalendarEvent> changed, List<String> cancelled) {
+        if (events.getItems() == null) {
+            return;
+        }
+        String timezone = events.getTimeZone() == null ? DEFAULT_TIMEZONE : events.getTimeZone();
+        for (Event event : events.getItems()) {
+            if (event.getRecurringEventId() != null) {
+                // modified or cancelled occurrence, tasks of recurring events only follow the recurrence rule
+                continue;
+            }
+            if (CANCELLED.equals(event.getStatus())) {
+                // cancelled events may carry only their id
+                cancelled.add(event.getId());
+            } else {
+                changed.add(Converter.toTask(event, timezone, owner));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.executorService.shutdownNow();
+    }
+}
@@ -1,8 +1,11 @@
 package com.bulletjournal.clients;
 
 import com.bulletjournal.config.GoogleCalConfig;
+import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.repository.GoogleCredentialRepository;
 import com.bulletjournal.repository.utils.GoogleCalendarDataStoreFactory;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.auth.oauth2.StoredCredential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
@@ -10,6 +13,7 @@ import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.DataStoreFactory;
+import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.CalendarScopes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,7 +27,7 @@ import java.util.Collections;
 public class GoogleCalClient {
 
     private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
-
+    private static final String APPLICATION_NAME = "Bullet Journal";
 
     private GoogleAuthorizationCodeFlow flow;
 
@@ -63,4 +67,24 @@ public class GoogleCalClient {
         return flow;
     }
 
+    /**
+     * @return Calendar API client acting with the stored credential of username, refreshed if expired
+     */
+    public Calendar getCalendarService(String username) throws IOException {
+        Credential credential = this.flow.loadCredential(username);
+        if (credential == null) {
+            throw new BadRequestException("User not logged in");
+        }
+
+        if (credential.getExpiresInSeconds() <= 0) {
+            credential.refreshToken();
+            StoredCredential storedCredential = new StoredCredential(credential);
+            this.flow.getCredentialDataStore().set(username, storedCredential);
+        }
+
+        // Initialize Calendar service with valid OAuth credentials
+        return new Calendar.Builder(this.httpTransport, JSON_FACTORY, credential)
+                .setApplicationName(APPLICATION_NAME).build();
+    }
+
 }
@@ -1,14 +1,23 @@
 package com.bulletjournal.clients;
 
 import com.bulletjournal.config.SSOConfig;
+import com.bulletjournal.config.UserCacheConfig;
 import com.bulletjournal.controller.models.User;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
-import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserDaoJpa;
+import com.bulletjournal.util.CustomThreadFactory;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -16,11 +25,29 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PreDestroy;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.LinkedHashMap;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Resolves user profiles through two cache levels: an in-process cache (L1) in front of Redis (L2),
+ * in front of SSO.
+ * <p>
+ * L1 misses of a bulk lookup are read from Redis with a single MGET. Concurrent misses of the same
+ * username wait for one load. Profiles past user.cache.refreshMinutes are reloaded in background
+ * while the cached one is still served.
+ * <p>
+ * Only users not in database yet are fetched from SSO on the request path, as they are created there.
+ * Known users missing from Redis get a placeholder avatar while {@link UserProvisioner} fetches them
+ * in background. Recently updated users are loaded into cache on startup.
+ */
 @Component
 public class UserClient {
     public static final String USER_NAME_KEY = "discourse-user-name";
@@ -29,21 +56,73 @@ public class UserClient {
     private static final String THUMBNAIL_SIZE = "37";
     private static final String SIZE_HOLDER = "{size}";
     private static final String DEFAULT_USER_TIME_ZONE = "America/Los_Angeles";
+    private static final String LETTER_HOLDER = "{letter}";
+    private static final String REDIS_KEY_PREFIX = "user-profile:";
+    private static final int WARM_UP_BATCH_SIZE = 100;
+    private static final Gson GSON = new Gson();
 
     private final RestTemplate restClient;
     private final URI ssoEndPoint;
     private final String ssoAPIKey;
-    private final RedisUserRepository redisUserRepository;
+    private final StringRedisTemplate redisTemplate;
     private final UserDaoJpa userDaoJpa;
+    private final long redisTtlMinutes;
+    private final int warmUpSize;
+    private final String placeholderAvatarTemplate;
+    private final ExecutorService warmUpExecutor =
+            Executors.newSingleThreadExecutor(new CustomThreadFactory("user-cache-warm-up"));
+    private final UserProvisioner userProvisioner;
+    private final LoadingCache<String, User> users;
 
     @Autowired
-    public UserClient(SSOConfig ssoConfig, RedisUserRepository redisUserRepository, UserDaoJpa userDaoJpa)
+    public UserClient(SSOConfig ssoConfig, UserCacheConfig userCacheConfig,
+                      StringRedisTemplate redisTemplate, UserDaoJpa userDaoJpa)
             throws URISyntaxException {
         this.restClient = new RestTemplate();
         this.ssoEndPoint = new URI(ssoConfig.getEndpoint());
         this.ssoAPIKey = ssoConfig.getAPIKey();
-        this.redisUserRepository = redisUserRepository;
+        this.redisTemplate = redisTemplate;
         this.userDaoJpa = userDaoJpa;
+        this.redisTtlMinutes = userCacheConfig.getRedisTtlMinutes();
+        this.warmUpSize = userCacheConfig.getWarmUpSize();
+        this.placeholderAvatarTemplate = userCacheConfig.getPlaceholderAvatarTemplate();
+        this.userProvisioner = new UserProvisioner(
+                userCacheConfig.getProvisionThreads(), userCacheConfig.getProvisionQueueCapacity(),
+                this::fetchUser, user -> this.users.put(user.getName(), user));
+        this.users = CacheBuilder.newBuilder()
+                .maximumSize(userCacheConfig.getMaxSize())
+                .refreshAfterWrite(userCacheConfig.getRefreshMinutes(), TimeUnit.MINUTES)
+                .expireAfterWrite(userCacheConfig.getExpireMinutes(), TimeUnit.MINUTES)
+                .build(CacheLoader.asyncReloading(new CacheLoader<String, User>() {
+                    @Override
+                    public User load(String username) {
+                        return loadUsers(Collections.singletonList(username)).get(username);
+                    }
+
+                    @Override
+                    public Map<String, User> loadAll(Iterable<? extends String> usernames) {
+                        List<String> names = new ArrayList<>();
+                        usernames.forEach(names::add);
+                        return loadUsers(names);
+                    }
+                }, this.userProvisioner.getExecutor()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        this.warmUpExecutor.execute(() -> {
+            try {
+                warmUp();
+            } catch (Exception ex) {
+                LOGGER.error("Error on warming up user cache", ex);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.warmUpExecutor.shutdownNow();
+        this.userProvisioner.shutdown();
     }
 
     public void logout(String username) {
@@ -53,6 +132,13 @@ public class UserClient {
         // build the request
         HttpEntity<?> request = buildHeaders();
         User user = getUser(username);
+        if (isPlaceholder(user)) {
+            try {
+                user = this.userProvisioner.provision(username).join();
+            } catch (CompletionException ex) {
+                throw unwrap(ex);
+            }
+        }
         String url = this.ssoEndPoint.resolve("/admin/users/" + user.getId() + "/log_out").toString();
         this.restClient
                 .exchange(url, HttpMethod.POST, request, Void.class);
@@ -61,15 +147,144 @@ public class UserClient {
     /**
      * DO NOT wrap this function inside @Transactional
      */
-    @SuppressWarnings("rawtypes")
     public User getUser(String username) {
         User user;
-        Optional<User> userOptional = redisUserRepository.findById(username);
-        if (userOptional.isPresent()) {
-            user = userOptional.get();
-            return user;
+        try {
+            user = this.users.get(username);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            throw unwrap(ex);
         }
+        checkPlaceholder(user);
+        return user;
+    }
 
+    /**
+     * Get users in bulk, costing at most one Redis round trip for the ones not cached in memory.
+     * DO NOT wrap this function inside @Transactional
+     *
+     * @param usernames the usernames, nulls are skipped
+     * @return username -> user
+     */
+    public Map<String, User> getUsers(Collection<String> usernames) {
+        Set<String> names = usernames.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, User> result;
+        try {
+            result = this.users.getAll(names);
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            throw unwrap(ex);
+        }
+        result.values().forEach(this::checkPlaceholder);
+        return result;
+    }
+
+    /**
+     * Drop cached profile of user from both levels
+     */
+    public void evict(String username) {
+        this.redisTemplate.delete(REDIS_KEY_PREFIX + username);
+        this.users.invalidate(username);
+    }
+
+    private static RuntimeException unwrap(Exception ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+            return (RuntimeException) ex.getCause();
+        }
+        return new IllegalStateException(ex.getCause());
+    }
+
+    private Map<String, User> loadUsers(List<String> usernames) {
+        Map<String, User> result = readRedis(usernames);
+        List<String> misses = usernames.stream()
+                .filter(username -> !result.containsKey(username))
+                .collect(Collectors.toList());
+        if (misses.isEmpty()) {
+            return result;
+        }
+        Set<String> existing = this.userDaoJpa.getExistingNames(misses);
+        for (String username : misses) {
+            if (existing.contains(username)) {
+                this.userProvisioner.provision(username);
+                result.put(username, placeholder(username));
+            } else {
+                result.put(username, fetchUser(username));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return users found in Redis
+     */
+    private Map<String, User> readRedis(List<String> usernames) {
+        List<String> keys = usernames.stream().map(name -> REDIS_KEY_PREFIX + name).collect(Collectors.toList());
+        List<String> values = this.redisTemplate.opsForValue().multiGet(keys);
+        Map<String, User> result = new HashMap<>();
+        for (int i = 0; i < usernames.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            if (value != null) {
+                result.put(usernames.get(i), GSON.fromJson(value, User.class));
+            }
+        }
+        return result;
+    }
+
+    private User placeholder(String username) {
+        String template = this.placeholderAvatarTemplate
+                .replace(LETTER_HOLDER, username.substring(0, 1).toLowerCase());
+        String avatar = this.ssoEndPoint.resolve(template.replace(SIZE_HOLDER, AVATAR_SIZE)).toString();
+        String thumbnail = this.ssoEndPoint.resolve(template.replace(SIZE_HOLDER, THUMBNAIL_SIZE)).toString();
+        return new User(null, username, thumbnail, avatar);
+    }
+
+    /**
+     * A bulk load may store its placeholder after the fetch already put the real profile,
+     * reload it if no fetch is in flight anymore
+     */
+    private void checkPlaceholder(User user) {
+        if (isPlaceholder(user) && !this.userProvisioner.isInFlight(user.getName())) {
+            this.users.refresh(user.getName());
+        }
+    }
+
+    /**
+     * Placeholders carry no SSO id
+     */
+    private static boolean isPlaceholder(User user) {
+        return user.getId() == null;
+    }
+
+    private void warmUp() {
+        List<String> usernames = this.userDaoJpa.getRecentNames(this.warmUpSize);
+        int loaded = 0;
+        for (int i = 0; i < usernames.size(); i += WARM_UP_BATCH_SIZE) {
+            List<String> batch = usernames.subList(i, Math.min(i + WARM_UP_BATCH_SIZE, usernames.size()));
+            Map<String, User> found = readRedis(batch);
+            this.users.putAll(found);
+            loaded += found.size();
+            for (String username : batch) {
+                if (found.containsKey(username)) {
+                    continue;
+                }
+                // one at a time, leaving other provisioner threads to requests
+                try {
+                    this.userProvisioner.provision(username).get();
+                    loaded++;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException ex) {
+                    LOGGER.warn("Unable to warm up user " + username, ex.getCause());
+                }
+            }
+        }
+        LOGGER.info("User cache warmed up with " + loaded + " users");
+    }
+
+    @SuppressWarnings("rawtypes")
+    private User fetchUser(String username) {
+        User user;
         LinkedHashMap userInfo;
         try {
             userInfo = getSSOUserInfo(username);
@@ -84,7 +299,8 @@ public class UserClient {
             LOGGER.info(username + " already exists");
         }
 
-        redisUserRepository.save(user);
+        this.redisTemplate.opsForValue().set(
+                REDIS_KEY_PREFIX + username, GSON.toJson(user), this.redisTtlMinutes, TimeUnit.MINUTES);
         return user;
     }
 
@@ -0,0 +1,80 @@
+package com.bulletjournal.clients;
+
+import com.bulletjournal.controller.models.User;
+import com.bulletjournal.util.CustomThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fetches user profiles off the request path on a bounded executor.
+ * <p>
+ * Concurrent requests for the same user share one fetch. When the queue is full the request
+ * fails right away instead of piling up, and a later request tries again.
+ */
+public class UserProvisioner {
+
+    private final Map<String, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Function<String, User> fetcher;
+    private final Consumer<User> onProvisioned;
+
+    public UserProvisioner(int threads, int queueCapacity,
+                           Function<String, User> fetcher, Consumer<User> onProvisioned) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomThreadFactory("user-provisioner"));
+        this.fetcher = fetcher;
+        this.onProvisioned = onProvisioned;
+    }
+
+    /**
+     * Fetch user in background, joining the fetch already in flight if any
+     *
+     * @param username the username
+     * @return future completed with the fetched user
+     */
+    public CompletableFuture<User> provision(String username) {
+        CompletableFuture<User> future = new CompletableFuture<>();
+        CompletableFuture<User> existing = this.inFlight.putIfAbsent(username, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            this.executor.execute(() -> {
+                User user;
+                try {
+                    user = this.fetcher.apply(username);
+                    this.onProvisioned.accept(user);
+                } catch (Throwable ex) {
+                    this.inFlight.remove(username, future);
+                    future.completeExceptionally(ex);
+                    return;
+                }
+                // no longer in flight once waiters see the result
+                this.inFlight.remove(username, future);
+                future.complete(user);
+            });
+        } catch (RejectedExecutionException ex) {
+            this.inFlight.remove(username, future);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    public boolean isInFlight(String username) {
+        return this.inFlight.containsKey(username);
+    }
+
+    /**
+     * Executor for other background user cache work, sharing the same bound
+     */
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+}
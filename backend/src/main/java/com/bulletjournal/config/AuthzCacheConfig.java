@@ -0,0 +1,35 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "authz.cache")
+public class AuthzCacheConfig {
+
+    /**
+     * Time a user's shared project items stay cached, bounds staleness if an invalidation is missed
+     */
+    private int sharedItemsExpireSeconds = 60;
+
+    /**
+     * Time accepted members of a group stay cached, bounds staleness if an invalidation is missed
+     */
+    private int groupMembersExpireSeconds = 60;
+
+    public int getSharedItemsExpireSeconds() {
+        return sharedItemsExpireSeconds;
+    }
+
+    public void setSharedItemsExpireSeconds(int sharedItemsExpireSeconds) {
+        this.sharedItemsExpireSeconds = sharedItemsExpireSeconds;
+    }
+
+    public int getGroupMembersExpireSeconds() {
+        return groupMembersExpireSeconds;
+    }
+
+    public void setGroupMembersExpireSeconds(int groupMembersExpireSeconds) {
+        this.groupMembersExpireSeconds = groupMembersExpireSeconds;
+    }
+}
@@ -8,6 +8,27 @@ import org.springframework.context.annotation.Configuration;
 public class ContentRevisionConfig {
     private Integer maxRevisionNumber;
 
+    /**
+     * A full snapshot is stored every keyframeInterval revisions,
+     * so reading any revision applies less than keyframeInterval diffs
+     */
+    private Integer keyframeInterval = 10;
+
+    /**
+     * Time limit of a single diff computation, after which the diff found so far is used
+     */
+    private Integer diffTimeoutMillis = 500;
+
+    /**
+     * Texts longer than this are stored as full snapshot without computing diff
+     */
+    private Integer maxDiffInputLength = 200000;
+
+    /**
+     * Texts longer than this are diffed line by line first
+     */
+    private Integer diffLineModeThreshold = 10000;
+
     public Integer getMaxRevisionNumber() {
         return maxRevisionNumber;
     }
@@ -15,4 +36,36 @@ public class ContentRevisionConfig {
     public void setMaxRevisionNumber(Integer maxRevisionNumber) {
         this.maxRevisionNumber = maxRevisionNumber;
     }
+
+    public Integer getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    public void setKeyframeInterval(Integer keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public Integer getDiffTimeoutMillis() {
+        return diffTimeoutMillis;
+    }
+
+    public void setDiffTimeoutMillis(Integer diffTimeoutMillis) {
+        this.diffTimeoutMillis = diffTimeoutMillis;
+    }
+
+    public Integer getMaxDiffInputLength() {
+        return maxDiffInputLength;
+    }
+
+    public void setMaxDiffInputLength(Integer maxDiffInputLength) {
+        this.maxDiffInputLength = maxDiffInputLength;
+    }
+
+    public Integer getDiffLineModeThreshold() {
+        return diffLineModeThreshold;
+    }
+
+    public void setDiffLineModeThreshold(Integer diffLineModeThreshold) {
+        this.diffLineModeThreshold = diffLineModeThreshold;
+    }
 }
@@ -0,0 +1,41 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "hierarchy")
+public class HierarchyConfig {
+
+    /**
+     * json: tasks/notes hierarchy is stored as one JSON document per project, rewritten on every change
+     * columns: tasks/notes hierarchy is stored in their parent_id and position columns, a change only
+     * writes the affected rows
+     */
+    private String storage = "json";
+
+    /**
+     * Migrate JSON hierarchies into parent_id/position columns on startup
+     */
+    private boolean migrate;
+
+    public String getStorage() {
+        return storage;
+    }
+
+    public void setStorage(String storage) {
+        this.storage = storage;
+    }
+
+    public boolean isMigrate() {
+        return migrate;
+    }
+
+    public void setMigrate(boolean migrate) {
+        this.migrate = migrate;
+    }
+
+    public boolean isColumnStorage() {
+        return "columns".equalsIgnoreCase(this.storage);
+    }
+}
@@ -0,0 +1,35 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "label.cleaner")
+public class LabelCleanerConfig {
+
+    /**
+     * Maximum number of project items updated per statement when removing a deleted label
+     */
+    private int batchSize = 500;
+
+    /**
+     * Interval of the sweep that picks up deleted labels not cleaned yet, e.g. after a restart
+     */
+    private int intervalInSeconds = 600;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getIntervalInSeconds() {
+        return intervalInSeconds;
+    }
+
+    public void setIntervalInSeconds(int intervalInSeconds) {
+        this.intervalInSeconds = intervalInSeconds;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "search.lucene")
+public class LuceneSearchConfig {
+
+    /**
+     * Local directory of the index when search.engine is lucene
+     */
+    private String directory;
+
+    /**
+     * Delete the directory on shutdown, for throwaway indexes e.g. in tests
+     */
+    private boolean deleteOnClose;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public boolean isDeleteOnClose() {
+        return deleteOnClose;
+    }
+
+    public void setDeleteOnClose(boolean deleteOnClose) {
+        this.deleteOnClose = deleteOnClose;
+    }
+}
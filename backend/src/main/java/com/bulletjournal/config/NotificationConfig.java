@@ -9,6 +9,8 @@ public class NotificationConfig {
 
     private Cleaner cleaner = new Cleaner();
 
+    private Pipeline pipeline = new Pipeline();
+
     public NotificationConfig() {
     }
 
@@ -20,6 +22,82 @@ public class NotificationConfig {
         this.cleaner = cleaner;
     }
 
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Wait up to offerTimeoutMillis for space, then drop the event
+         */
+        BLOCK,
+        /**
+         * Drop the event right away
+         */
+        DROP
+    }
+
+    public static class Pipeline {
+        private int queueCapacity = 10000;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private int offerTimeoutMillis = 100;
+        private int batchSize = 50;
+        private int flushIntervalMillis = 200;
+        private int shutdownTimeoutSeconds = 30;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getOfferTimeoutMillis() {
+            return offerTimeoutMillis;
+        }
+
+        public void setOfferTimeoutMillis(int offerTimeoutMillis) {
+            this.offerTimeoutMillis = offerTimeoutMillis;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(int flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public int getShutdownTimeoutSeconds() {
+            return shutdownTimeoutSeconds;
+        }
+
+        public void setShutdownTimeoutSeconds(int shutdownTimeoutSeconds) {
+            this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        }
+    }
+
     public static class Cleaner {
         private int maxRetentionTimeInDays;
         private int intervalInSeconds;
@@ -0,0 +1,61 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "reminder")
+public class ReminderConfig {
+
+    /**
+     * Resolution of the timing wheel, reminders fire at most one tick late
+     */
+    private int tickMillis = 1000;
+
+    /**
+     * Buckets per timing wheel level
+     */
+    private int wheelSize = 60;
+
+    /**
+     * Reminders are loaded from database one window ahead of time
+     */
+    private int loadWindowMinutes = 60;
+
+    /**
+     * Timeout of reminder streams, clients reconnect after it
+     */
+    private int streamTimeoutMinutes = 30;
+
+    public int getTickMillis() {
+        return tickMillis;
+    }
+
+    public void setTickMillis(int tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    public int getLoadWindowMinutes() {
+        return loadWindowMinutes;
+    }
+
+    public void setLoadWindowMinutes(int loadWindowMinutes) {
+        this.loadWindowMinutes = loadWindowMinutes;
+    }
+
+    public int getStreamTimeoutMinutes() {
+        return streamTimeoutMinutes;
+    }
+
+    public void setStreamTimeoutMinutes(int streamTimeoutMinutes) {
+        this.streamTimeoutMinutes = streamTimeoutMinutes;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "search.indexer")
+public class SearchIndexerConfig {
+
+    /**
+     * Maximum number of outbox entries sent in one bulk request
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Delay between drains of the outbox
+     */
+    private int intervalInSeconds = 5;
+
+    /**
+     * Entries failing this many times are dropped, a full reindex picks their items up again
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Time claimed entries are hidden from other instances, after which entries of a crashed drain are retried
+     */
+    private int leaseSeconds = 300;
+
+    /**
+     * Delay before the first retry of a failed entry, doubled on each further failure
+     */
+    private int retryBackoffSeconds = 5;
+
+    /**
+     * Upper bound of the retry delay
+     */
+    private int maxRetryBackoffSeconds = 3600;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getIntervalInSeconds() {
+        return intervalInSeconds;
+    }
+
+    public void setIntervalInSeconds(int intervalInSeconds) {
+        this.intervalInSeconds = intervalInSeconds;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(int leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public int getRetryBackoffSeconds() {
+        return retryBackoffSeconds;
+    }
+
+    public void setRetryBackoffSeconds(int retryBackoffSeconds) {
+        this.retryBackoffSeconds = retryBackoffSeconds;
+    }
+
+    public int getMaxRetryBackoffSeconds() {
+        return maxRetryBackoffSeconds;
+    }
+
+    public void setMaxRetryBackoffSeconds(int maxRetryBackoffSeconds) {
+        this.maxRetryBackoffSeconds = maxRetryBackoffSeconds;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bulletjournal.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "user.cache")
+public class UserCacheConfig {
+
+    /**
+     * Maximum number of user profiles kept in memory
+     */
+    private long maxSize = 10000;
+
+    /**
+     * In-memory profiles older than this are reloaded in background on next access
+     */
+    private int refreshMinutes = 10;
+
+    /**
+     * In-memory profiles older than this are dropped
+     */
+    private int expireMinutes = 60;
+
+    /**
+     * Time to live of profiles in Redis, after which they are fetched from SSO again
+     */
+    private int redisTtlMinutes = 1000;
+
+    /**
+     * Threads fetching profiles from SSO in background
+     */
+    private int provisionThreads = 2;
+
+    /**
+     * Pending background fetches beyond which new ones are dropped until the queue drains
+     */
+    private int provisionQueueCapacity = 1000;
+
+    /**
+     * Number of most recently updated users loaded into cache on startup
+     */
+    private int warmUpSize = 1000;
+
+    /**
+     * Avatar served while profile of a known user is fetched, relative to sso.endpoint
+     */
+    private String placeholderAvatarTemplate = "/letter_avatar_proxy/v4/letter/{letter}/8c91a6/{size}.png";
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getRefreshMinutes() {
+        return refreshMinutes;
+    }
+
+    public void setRefreshMinutes(int refreshMinutes) {
+        this.refreshMinutes = refreshMinutes;
+    }
+
+    public int getExpireMinutes() {
+        return expireMinutes;
+    }
+
+    public void setExpireMinutes(int expireMinutes) {
+        this.expireMinutes = expireMinutes;
+    }
+
+    public int getRedisTtlMinutes() {
+        return redisTtlMinutes;
+    }
+
+    public void setRedisTtlMinutes(int redisTtlMinutes) {
+        this.redisTtlMinutes = redisTtlMinutes;
+    }
+
+    public int getProvisionThreads() {
+        return provisionThreads;
+    }
+
+    public void setProvisionThreads(int provisionThreads) {
+        this.provisionThreads = provisionThreads;
+    }
+
+    public int getProvisionQueueCapacity() {
+        return provisionQueueCapacity;
+    }
+
+    public void setProvisionQueueCapacity(int provisionQueueCapacity) {
+        this.provisionQueueCapacity = provisionQueueCapacity;
+    }
+
+    public int getWarmUpSize() {
+        return warmUpSize;
+    }
+
+    public void setWarmUpSize(int warmUpSize) {
+        this.warmUpSize = warmUpSize;
+    }
+
+    public String getPlaceholderAvatarTemplate() {
+        return placeholderAvatarTemplate;
+    }
+
+    public void setPlaceholderAvatarTemplate(String placeholderAvatarTemplate) {
+        this.placeholderAvatarTemplate = placeholderAvatarTemplate;
+    }
+}
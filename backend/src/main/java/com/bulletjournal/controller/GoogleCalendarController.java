@@ -3,6 +3,7 @@ package com.bulletjournal.controller;
 import com.bulletjournal.calendars.google.Converter;
 import com.bulletjournal.calendars.google.CreateGoogleCalendarEventsParams;
 import com.bulletjournal.calendars.google.GoogleCalendarEvent;
+import com.bulletjournal.calendars.google.GoogleCalendarSyncService;
 import com.bulletjournal.calendars.google.WatchCalendarParams;
 import com.bulletjournal.clients.GoogleCalClient;
 import com.bulletjournal.clients.UserClient;
@@ -10,24 +11,20 @@ import com.bulletjournal.config.GoogleCalConfig;
 import com.bulletjournal.controller.models.LoginStatus;
 import com.bulletjournal.controller.models.Project;
 import com.bulletjournal.controller.models.Task;
-import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.controller.models.User;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.repository.GoogleCalendarProjectDaoJpa;
 import com.bulletjournal.repository.TaskDaoJpa;
 import com.bulletjournal.repository.models.GoogleCalendarProject;
 import com.google.api.client.auth.oauth2.AuthorizationCodeRequestUrl;
 import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.auth.oauth2.StoredCredential;
 import com.google.api.client.auth.oauth2.TokenResponse;
-import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
-import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.CalendarList;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import com.google.api.services.calendar.model.Channel;
-import com.google.api.services.calendar.model.Event;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -56,11 +53,13 @@ public class GoogleCalendarController {
 
     private static final GsonFactory GSON = new GsonFactory();
     private static final String WATCH_CHANNEL_TOKEN = "BuJo";
-    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
     private static final Logger LOGGER = LoggerFactory.getLogger(GoogleCalendarController.class);
-    private static final String APPLICATION_NAME = "Bullet Journal";
     private static final String GOOGLE_CALENDAR_PAGE_PATH = "/settings#google";
     protected static final String CHANNEL_NOTIFICATIONS_ROUTE = "/api/calendar/google/channel/notifications";
+    // https://developers.google.com/calendar/v3/push#understanding-the-notification-message-format
+    private static final String CHANNEL_ID_HEADER = "X-Goog-Channel-ID";
+    private static final String CHANNEL_TOKEN_HEADER = "X-Goog-Channel-Token";
+    private static final String RESOURCE_STATE_HEADER = "X-Goog-Resource-State";
 
     @Autowired
     private GoogleCalConfig googleCalConfig;
@@ -74,6 +73,9 @@ public class GoogleCalendarController {
     @Autowired
     private GoogleCalendarProjectDaoJpa googleCalendarProjectDaoJpa;
 
+    @Autowired
+    private GoogleCalendarSyncService googleCalendarSyncService;
+
     @Autowired
     private UserClient userClient;
 
@@ -151,31 +153,31 @@ public class GoogleCalendarController {
             endDate += "T23:59:59" + ZoneId.of(timezone).getRules().getStandardOffset(utc.toInstant());
             list.setTimeMax(DateTime.parseRfc3339(endDate));
         }
-        List<Event> events = list.execute().getItems();
-        return events.stream()
-                .map(e -> {
-                    GoogleCalendarEvent event = Converter.toTask(e, timezone);
-                    Task task = event.getTask();
-                    task.setOwnerAvatar(this.userClient.getUser(task.getOwner()).getAvatar());
-                    task.getAssignees().forEach((assignee) -> {
-                        assignee.setAvatar(this.userClient.getUser(assignee.getName()).getAvatar());
-                    });
-                    return event;
-                })
+        List<GoogleCalendarEvent> events = list.execute().getItems().stream()
+                .map(e -> Converter.toTask(e, timezone))
                 .collect(Collectors.toList());
+        Set<String> usernames = new HashSet<>();
+        events.forEach(event -> {
+            usernames.add(event.getTask().getOwner());
+            event.getTask().getAssignees().forEach(assignee -> usernames.add(assignee.getName()));
+        });
+        Map<String, User> users = this.userClient.getUsers(usernames);
+        events.forEach(event -> {
+            Task task = event.getTask();
+            task.setOwnerAvatar(users.get(task.getOwner()).getAvatar());
+            task.getAssignees().forEach((assignee) -> {
+                assignee.setAvatar(users.get(assignee.getName()).getAvatar());
+            });
+        });
+        return events;
     }
 
     @PostMapping("/api/calendar/google/events")
     public void createEvents(
             @Valid @RequestBody @NotNull CreateGoogleCalendarEventsParams createGoogleCalendarEventsParams) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        createGoogleCalendarEventsParams.getEvents().forEach((e -> {
-            List<String> l = Arrays.stream(e.getContent().getText().split(System.lineSeparator()))
-                    .map(s -> "<p>" + s + "</p>").collect(Collectors.toList());
-
-            taskDaoJpa.create(createGoogleCalendarEventsParams.getProjectId(), username,
-                    Converter.toCreateTaskParams(e), e.getiCalUID(), StringUtils.join(l, ""));
-        }));
+        this.taskDaoJpa.upsertGoogleCalendarTasks(createGoogleCalendarEventsParams.getProjectId(), username,
+                createGoogleCalendarEventsParams.getEvents(), false);
     }
 
     @GetMapping("/api/calendar/google/calendarList")
@@ -205,6 +207,7 @@ public class GoogleCalendarController {
         String channelId = UUID.randomUUID().toString();
         Channel createdChannel;
         Channel channel = getChannel(channelId);
+        String syncToken = null;
 
         if (isProd()) {
             Calendar service = getCalendarService();
@@ -213,12 +216,15 @@ public class GoogleCalendarController {
             Calendar.Events.Watch watch = service.events().watch(calendarId, channel);
             LOGGER.info("Created watch {}", watch);
             createdChannel = watch.execute();
+            // changes are listed from now on, events before are imported through createEvents
+            syncToken = this.googleCalendarSyncService.getSyncToken(service, calendarId);
         } else {
             createdChannel = channel;
         }
         LOGGER.info("Created channel {}", createdChannel);
         GoogleCalendarProject googleCalendarProject = this.googleCalendarProjectDaoJpa.create(
-                calendarId, watchCalendarParams.getProjectId(), channelId, GSON.toString(createdChannel), username);
+                calendarId, watchCalendarParams.getProjectId(), channelId, GSON.toString(createdChannel), syncToken,
+                username);
         LOGGER.info("Created GoogleCalendarProject {}", googleCalendarProject);
         return googleCalendarProject.getProject().toPresentationModel();
     }
@@ -234,10 +240,14 @@ public class GoogleCalendarController {
     }
 
     @PostMapping(CHANNEL_NOTIFICATIONS_ROUTE)
-    public void getChannelNotifications(@RequestHeader Map<String, String> headers) {
-        headers.forEach((key, value) -> {
-            LOGGER.info("Header {} = {}", key, value);
-        });
+    public void getChannelNotifications(@RequestHeader HttpHeaders headers) {
+        String channelId = headers.getFirst(CHANNEL_ID_HEADER);
+        if (channelId == null || !WATCH_CHANNEL_TOKEN.equals(headers.getFirst(CHANNEL_TOKEN_HEADER))) {
+            LOGGER.warn("Ignoring channel notification with headers {}", headers);
+            return;
+        }
+        // acknowledge right away, events are fetched in background
+        this.googleCalendarSyncService.onNotification(channelId, headers.getFirst(RESOURCE_STATE_HEADER));
     }
 
     @GetMapping("/api/calendar/google/calendars/{calendarId}/watchedProject")
@@ -266,21 +276,7 @@ public class GoogleCalendarController {
 
     private Calendar getCalendarService() throws IOException {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        Credential credential = this.googleCalClient.getFlow().loadCredential(username);
-        if (credential == null) {
-            throw new BadRequestException("User not logged in");
-        }
-
-        if (credential.getExpiresInSeconds() <= 0) {
-            credential.refreshToken();
-            StoredCredential storedCredential = new StoredCredential(credential);
-            this.googleCalClient.getFlow().getCredentialDataStore().set(username, storedCredential);
-        }
-
-        // Initialize Calendar service with valid OAuth credentials
-        return new Calendar.Builder(
-                this.googleCalClient.getHttpTransport(), JSON_FACTORY, credential)
-                .setApplicationName(APPLICATION_NAME).build();
+        return this.googleCalClient.getCalendarService(username);
     }
 
     private String authorize() {
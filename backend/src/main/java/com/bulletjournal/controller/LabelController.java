@@ -19,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 public class LabelController {
@@ -59,9 +58,7 @@ public class LabelController {
     @GetMapping(LABELS_ROUTE)
     public ResponseEntity<List<Label>> getLabels() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        List<Label> labels = this.labelDaoJpa.getLabels(username)
-                .stream().map(label -> label.toPresentationModel())
-                .collect(Collectors.toList());
+        List<Label> labels = this.labelDaoJpa.getLabels(username);
         String labelsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
                 EtagGenerator.HashType.TO_HASHCODE,
                 labels);
@@ -3,7 +3,6 @@ package com.bulletjournal.controller;
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.EtagGenerator;
-import com.bulletjournal.es.SearchService;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.Informed;
@@ -51,9 +50,6 @@ public class NoteController {
     @Autowired
     private UserClient userClient;
 
-    @Autowired
-    private SearchService searchService;
-
     @GetMapping(NOTES_ROUTE)
     public ResponseEntity<List<Note>> getNotes(@NotNull @PathVariable Long projectId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
@@ -83,9 +79,7 @@ public class NoteController {
     public Note createNote(@NotNull @PathVariable Long projectId,
                            @Valid @RequestBody CreateNoteParams note) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        Note createdNote = noteDaoJpa.create(projectId, username, note).toPresentationModel();
-        searchService.saveToES(createdNote);
-        return createdNote;
+        return noteDaoJpa.create(projectId, username, note).toPresentationModel();
     }
 
     @GetMapping(NOTE_ROUTE)
@@ -190,9 +184,8 @@ public class NoteController {
     @GetMapping(CONTENTS_ROUTE)
     public List<Content> getContents(@NotNull @PathVariable Long noteId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        return this.noteDaoJpa.getContents(noteId, username).stream()
-                .map(t -> {
-                    Content content = t.toPresentationModel();
+        return this.noteDaoJpa.getContentsWithRevisions(noteId, username).stream()
+                .map(content -> {
                     content.setOwnerAvatar(this.userClient.getUser(content.getOwner()).getAvatar());
                     for (Revision revision : content.getRevisions()) {
                         revision.setUserAvatar(this.userClient.getUser(revision.getUser()).getAvatar());
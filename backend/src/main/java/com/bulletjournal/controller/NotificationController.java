@@ -4,6 +4,7 @@ import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.AnswerNotificationParams;
 import com.bulletjournal.controller.models.Notification;
 import com.bulletjournal.controller.utils.EtagGenerator;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.*;
 import com.bulletjournal.repository.*;
@@ -24,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.Collections;
 import java.util.List;
 
 @RestController
@@ -49,6 +51,15 @@ public class NotificationController {
     @Autowired
     private GroupRepository groupRepository;
 
+    @Autowired
+    private GroupDaoJpa groupDaoJpa;
+
+    @Autowired
+    private EtagRegistry etagRegistry;
+
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+
     @GetMapping(NOTIFICATIONS_ROUTE)
     public ResponseEntity<List<Notification>> getNotification() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
@@ -84,6 +95,7 @@ public class NotificationController {
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     void deleteNotification(com.bulletjournal.repository.models.Notification notification) {
         this.notificationRepository.delete(notification);
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTIFICATIONS, notification.getTargetUser());
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -109,6 +121,9 @@ public class NotificationController {
                     // remove UserGroup
                     this.userGroupRepository.delete(userGroup);
                 }
+                this.groupMembershipCache.invalidate(notification.getContentId());
+                this.groupDaoJpa.bumpMembershipEtags(notification.getContentId(),
+                        Collections.singletonList(notification.getTargetUser()));
 
                 Group group = this.groupRepository.findById(notification.getContentId()).orElseThrow(() ->
                         new ResourceNotFoundException("Group " + notification.getContentId() + " not found"));
@@ -1,24 +1,10 @@
 package com.bulletjournal.controller;
 
 import com.bulletjournal.clients.UserClient;
-import com.bulletjournal.es.SearchService;
-import com.bulletjournal.repository.UserGroupRepository;
-import com.bulletjournal.repository.UserRepository;
-import com.bulletjournal.repository.models.Group;
-import com.bulletjournal.repository.models.User;
-import com.bulletjournal.repository.models.UserGroup;
-import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.common.unit.Fuzziness;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.search.builder.SearchSourceBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.bulletjournal.controller.models.SearchResultItem;
+import com.bulletjournal.repository.SearchDaoJpa;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,7 +12,6 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @RestController
@@ -34,54 +19,14 @@ public class QueryController {
 
     protected static final String SEARCH_ROUTE = "/api/query";
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(NoteController.class);
     @Autowired
-    UserGroupRepository userGroupRepository;
-    //    @Autowired
-//    ProjectItemEsDaoJpa projectItemESDaoJpa;
-    @Autowired
-    private UserRepository userRepository;
-    @Qualifier("client")
-    @Autowired(required = false)
-    private RestHighLevelClient highLevelClient;
+    private SearchDaoJpa searchDaoJpa;
 
     @CrossOrigin(origins = "http://localhost:3000")
     @GetMapping(SEARCH_ROUTE)
     @ResponseStatus(HttpStatus.OK)
-    public SearchResponse searchItems(@Valid @RequestParam @NotBlank String term) throws IOException {
-
-        if (highLevelClient == null) {
-            LOGGER.info("ES is not enabled.");
-            return null;
-        }
-
-        // TODO return List<ProjectItems>
+    public List<SearchResultItem> searchItems(@Valid @RequestParam @NotBlank String term) throws IOException {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        List<User> userList = this.userRepository.findByName(username);
-        List<Long> userIdList = userList.stream().map(User::getId).collect(Collectors.toList());
-        List<Long> groupIdList = userGroupRepository.findAllByUserId(userIdList.get(0))
-                .stream().map(UserGroup::getGroup).map(Group::getId).collect(Collectors.toList());
-
-        SearchRequest searchRequest = new SearchRequest(SearchService.PROJECT_ITEM);
-        searchRequest.source(new SearchSourceBuilder().query(
-                QueryBuilders.boolQuery()
-                        .filter(QueryBuilders.termsQuery("group_id", groupIdList))
-                        .must(QueryBuilders.matchQuery("project_item_name", term)
-                                .fuzziness(Fuzziness.AUTO)
-                                .prefixLength(3)
-                                .maxExpansions(10))
-
-        ));
-
-        SearchResponse response = highLevelClient.search(searchRequest, RequestOptions.DEFAULT);
-        LOGGER.info(response.toString());
-        return response;
+        return this.searchDaoJpa.search(username, term);
     }
-
-//    @GetMapping(SEARCH_ROUTE)
-//    @ResponseStatus(HttpStatus.OK)
-//    public List<ProjectItem> search(@Valid @RequestParam @NotBlank String term) throws IOException {
-//        return projectItemESDaoJpa.search(term);
-//    }
-
 }
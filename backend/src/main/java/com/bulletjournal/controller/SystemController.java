@@ -5,18 +5,22 @@ import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.EtagGenerator;
-import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.UnAuthorizedException;
+import com.bulletjournal.reminders.ReminderScheduler;
 import com.bulletjournal.repository.*;
 import com.bulletjournal.repository.models.ProjectItemModel;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.constraints.NotNull;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 
@@ -24,6 +28,7 @@ import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 public class SystemController {
 
     public static final String UPDATES_ROUTE = "/api/system/updates";
+    public static final String REMINDERS_STREAM_ROUTE = "/api/system/reminders/stream";
     public static final String PUBLIC_ITEM_ROUTE_PREFIX = "/api/public/items/";
     public static final String PUBLIC_ITEM_ROUTE = PUBLIC_ITEM_ROUTE_PREFIX + "{itemId}";
 
@@ -54,6 +59,12 @@ public class SystemController {
     @Autowired
     private TaskController taskController;
 
+    @Autowired
+    private EtagRegistry etagRegistry;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
     @GetMapping(UPDATES_ROUTE)
     public SystemUpdates getUpdates(@RequestParam(name = "targets", required = false) String targets,
                                     @RequestParam(name = "projectId", required = false) Long projectId,
@@ -72,36 +83,42 @@ public class SystemController {
         String remindingTaskEtag = null;
         List<Task> remindingTasks = null;
 
+        // Etags are recomputed only when resource changed since last poll
         if (targetEtags == null || targetEtags.contains("projectsEtag")) {
-            Projects projects = this.projectDaoJpa.getProjects(username);
-            ownedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    projects.getOwned());
-            sharedProjectsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    projects.getShared());
+            ProjectsEtags projectsEtags = this.etagRegistry.getEtag(EtagRegistry.Resource.PROJECTS, username, () -> {
+                Projects projects = this.projectDaoJpa.getProjects(username);
+                return new ProjectsEtags(
+                        EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                                EtagGenerator.HashType.TO_HASHCODE,
+                                projects.getOwned()),
+                        EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                                EtagGenerator.HashType.TO_HASHCODE,
+                                projects.getShared()));
+            });
+            ownedProjectsEtag = projectsEtags.owned;
+            sharedProjectsEtag = projectsEtags.shared;
         }
         if (targetEtags == null || targetEtags.contains("notificationsEtag")) {
-            List<Notification> notificationList = this.notificationDaoJpa.getNotifications(username);
-            notificationsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    notificationList);
+            notificationsEtag = this.etagRegistry.getEtag(EtagRegistry.Resource.NOTIFICATIONS, username,
+                    () -> EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                            EtagGenerator.HashType.TO_HASHCODE,
+                            this.notificationDaoJpa.getNotifications(username)));
         }
 
         if (projectId != null) {
             Project project = this.projectDaoJpa.getProject(projectId, username).toPresentationModel();
             switch (project.getProjectType()) {
                 case TODO:
-                    List<Task> taskList = this.taskDaoJpa.getTasks(projectId, username);
-                    tasksEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                            EtagGenerator.HashType.TO_HASHCODE,
-                            taskList);
+                    tasksEtag = getProjectEtag(project, EtagRegistry.Resource.TASKS,
+                            () -> EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                                    EtagGenerator.HashType.TO_HASHCODE,
+                                    this.taskDaoJpa.getTasks(projectId, username)));
                     break;
                 case NOTE:
-                    List<Note> noteList = this.noteDaoJpa.getNotes(projectId, username);
-                    notesEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                            EtagGenerator.HashType.TO_HASHCODE,
-                            noteList);
+                    notesEtag = getProjectEtag(project, EtagRegistry.Resource.NOTES,
+                            () -> EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                                    EtagGenerator.HashType.TO_HASHCODE,
+                                    this.noteDaoJpa.getNotes(projectId, username)));
                     break;
                 default:
                     throw new IllegalArgumentException();
@@ -109,13 +126,13 @@ public class SystemController {
         }
 
         if (targetEtags == null || targetEtags.contains("groupsEtag")) {
-            List<Group> groupList = this.groupDaoJpa.getGroups(username);
-            groupsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
-                    EtagGenerator.HashType.TO_HASHCODE,
-                    groupList);
+            groupsEtag = this.etagRegistry.getEtag(EtagRegistry.Resource.GROUPS, username,
+                    () -> EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
+                            EtagGenerator.HashType.TO_HASHCODE,
+                            this.groupDaoJpa.getGroups(username)));
         }
         if (targetEtags == null || targetEtags.contains("taskReminders")) {
-            remindingTasks = this.taskDaoJpa.getRemindingTasks(username, ZonedDateTimeHelper.getNow());
+            remindingTasks = this.reminderScheduler.getReminders(username);
             remindingTaskEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
                     EtagGenerator.HashType.TO_HASHCODE,
                     remindingTasks);
@@ -136,6 +153,23 @@ public class SystemController {
         return systemUpdates;
     }
 
+    /**
+     * Push reminders of current user as they become due, as an alternative to polling taskReminders
+     */
+    @GetMapping(value = REMINDERS_STREAM_ROUTE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamReminders() {
+        String username = MDC.get(UserClient.USER_NAME_KEY);
+        return this.reminderScheduler.subscribe(username);
+    }
+
+    private String getProjectEtag(Project project, EtagRegistry.Resource resource, Supplier<String> loader) {
+        if (project.isShared()) {
+            // shared project lists items of other projects, which do not bump it
+            return loader.get();
+        }
+        return this.etagRegistry.getEtag(resource, project.getId(), loader);
+    }
+
     @GetMapping(PUBLIC_ITEM_ROUTE)
     public <T extends ProjectItemModel> PublicProjectItem getPublicProjectItem(
             @NotNull @PathVariable String itemId) {
@@ -150,14 +184,12 @@ public class SystemController {
             }
             Long id = Long.parseLong(itemId.substring(4));
             if (itemId.startsWith(ProjectItemType.TASK.name())) {
-                if (!this.sharedProjectItemDaoJpa.getSharedProjectItems(originalUser, ProjectType.TODO)
-                        .stream().anyMatch(m -> m.getId().equals(id))) {
+                if (!this.sharedProjectItemDaoJpa.isSharedWith(originalUser, ContentType.TASK, id)) {
                     throw new UnAuthorizedException("Task not shared with user " + originalUser);
                 }
                 item = this.taskDaoJpa.getProjectItem(id, username);
             } else if (itemId.startsWith(ProjectItemType.NOTE.name())) {
-                if (!this.sharedProjectItemDaoJpa.getSharedProjectItems(originalUser, ProjectType.NOTE)
-                        .stream().anyMatch(m -> m.getId().equals(id))) {
+                if (!this.sharedProjectItemDaoJpa.isSharedWith(originalUser, ContentType.NOTE, id)) {
                     throw new UnAuthorizedException("Note not shared with user " + originalUser);
                 }
                 item = this.noteDaoJpa.getProjectItem(id, username);
@@ -203,4 +235,17 @@ public class SystemController {
 
         return true;
     }
+
+    /**
+     * Etags of owned and shared projects, computed from one load of projects
+     */
+    private static class ProjectsEtags {
+        private final String owned;
+        private final String shared;
+
+        ProjectsEtags(String owned, String shared) {
+            this.owned = owned;
+            this.shared = shared;
+        }
+    }
 }
@@ -239,9 +239,8 @@ public class TaskController {
     @GetMapping(CONTENTS_ROUTE)
     public List<Content> getContents(@NotNull @PathVariable Long taskId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        return this.taskDaoJpa.getContents(taskId, username).stream()
-                .map(t -> {
-                    Content content = t.toPresentationModel();
+        return this.taskDaoJpa.getContentsWithRevisions(taskId, username).stream()
+                .map(content -> {
                     content.setOwnerAvatar(this.userClient.getUser(content.getOwner()).getAvatar());
                     for (Revision revision : content.getRevisions()) {
                         revision.setUserAvatar(this.userClient.getUser(revision.getUser()).getAvatar());
@@ -6,10 +6,12 @@ import com.bulletjournal.controller.utils.EtagGenerator;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.ledger.FrequencyType;
+import com.bulletjournal.ledger.LedgerAggregator;
 import com.bulletjournal.ledger.LedgerSummary;
 import com.bulletjournal.ledger.LedgerSummaryCalculator;
 import com.bulletjournal.ledger.LedgerSummaryType;
 import com.bulletjournal.notifications.*;
+import com.bulletjournal.repository.LedgerRollupDaoJpa;
 import com.bulletjournal.repository.TransactionDaoJpa;
 import com.bulletjournal.repository.models.TransactionContent;
 import org.apache.commons.lang3.StringUtils;
@@ -25,12 +27,17 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.ZonedDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 public class TransactionController {
     protected static final String TRANSACTIONS_ROUTE = "/api/projects/{projectId}/transactions";
+    protected static final String TRANSACTIONS_SUMMARY_ROUTE = "/api/projects/{projectId}/transactionsSummary";
+    protected static final String REBUILD_TRANSACTIONS_SUMMARY_ROUTE = "/api/projects/{projectId}/transactionsSummary/rebuild";
     protected static final String TRANSACTION_ROUTE = "/api/transactions/{transactionId}";
     protected static final String TRANSACTION_SET_LABELS_ROUTE = "/api/transactions/{transactionId}/setLabels";
     protected static final String MOVE_TRANSACTION_ROUTE = "/api/transactions/{transactionId}/move";
@@ -46,6 +53,9 @@ public class TransactionController {
     @Autowired
     private TransactionDaoJpa transactionDaoJpa;
 
+    @Autowired
+    private LedgerRollupDaoJpa ledgerRollupDaoJpa;
+
     @Autowired
     private NotificationService notificationService;
 
@@ -66,8 +76,8 @@ public class TransactionController {
         ZonedDateTime endTime = startEndTime.getRight();
 
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        List<Transaction> transactions = this.transactionDaoJpa.getTransactions(projectId, startTime, endTime, username)
-                .stream().map(t -> addAvatar(t)).collect(Collectors.toList());
+        List<Transaction> transactions = addAvatars(
+                this.transactionDaoJpa.getTransactions(projectId, startTime, endTime, username));
 
         String transactionsEtag = EtagGenerator.generateEtag(EtagGenerator.HashAlgorithm.MD5,
                 EtagGenerator.HashType.TO_HASHCODE, transactions);
@@ -81,10 +91,47 @@ public class TransactionController {
         return ResponseEntity.ok().headers(responseHeader).body(ledgerSummary);
     }
 
-    private Transaction addAvatar(Transaction transaction) {
-        transaction.setOwnerAvatar(this.userClient.getUser(transaction.getOwner()).getAvatar());
-        transaction.setPayerAvatar(this.userClient.getUser(transaction.getPayer()).getAvatar());
-        return transaction;
+    /**
+     * MONTHLY or YEARLY summary from ledger rollups, without the transactions. Periods overlapping
+     * the date range are counted in full.
+     */
+    @GetMapping(TRANSACTIONS_SUMMARY_ROUTE)
+    public LedgerSummary getTransactionsSummary(
+            @NotNull @PathVariable Long projectId,
+            @NotNull @RequestParam FrequencyType frequencyType,
+            @NotBlank @RequestParam String timezone,
+            @NotNull @RequestParam LedgerSummaryType ledgerSummaryType,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+
+        Pair<ZonedDateTime, ZonedDateTime> startEndTime = getStartEndTime(frequencyType, timezone, startDate, endDate);
+        ZonedDateTime startTime = startEndTime.getLeft();
+        ZonedDateTime endTime = startEndTime.getRight();
+
+        String username = MDC.get(UserClient.USER_NAME_KEY);
+        LedgerAggregator aggregator = this.ledgerRollupDaoJpa.aggregate(username, projectId, ledgerSummaryType,
+                frequencyType, ZonedDateTimeHelper.getDate(startTime), ZonedDateTimeHelper.getDate(endTime));
+        return this.ledgerSummaryCalculator.getLedgerSummary(ledgerSummaryType, startTime, endTime, aggregator);
+    }
+
+    @PostMapping(REBUILD_TRANSACTIONS_SUMMARY_ROUTE)
+    public void rebuildTransactionsSummary(@NotNull @PathVariable Long projectId) {
+        String username = MDC.get(UserClient.USER_NAME_KEY);
+        this.ledgerRollupDaoJpa.rebuild(username, projectId);
+    }
+
+    private List<Transaction> addAvatars(List<Transaction> transactions) {
+        Set<String> usernames = new HashSet<>();
+        transactions.forEach(t -> {
+            usernames.add(t.getOwner());
+            usernames.add(t.getPayer());
+        });
+        Map<String, User> users = this.userClient.getUsers(usernames);
+        transactions.forEach(t -> {
+            t.setOwnerAvatar(users.get(t.getOwner()).getAvatar());
+            t.setPayerAvatar(users.get(t.getPayer()).getAvatar());
+        });
+        return transactions;
     }
 
     @PostMapping(TRANSACTIONS_ROUTE)
@@ -182,9 +229,8 @@ public class TransactionController {
     @GetMapping(CONTENTS_ROUTE)
     public List<Content> getContents(@NotNull @PathVariable Long transactionId) {
         String username = MDC.get(UserClient.USER_NAME_KEY);
-        return this.transactionDaoJpa.getContents(transactionId, username).stream()
-                .map(t -> {
-                    Content content = t.toPresentationModel();
+        return this.transactionDaoJpa.getContentsWithRevisions(transactionId, username).stream()
+                .map(content -> {
                     content.setOwnerAvatar(this.userClient.getUser(content.getOwner()).getAvatar());
                     for (Revision revision : content.getRevisions()) {
                         revision.setUserAvatar(this.userClient.getUser(revision.getUser()).getAvatar());
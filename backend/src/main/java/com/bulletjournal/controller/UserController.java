@@ -2,7 +2,6 @@ package com.bulletjournal.controller;
 
 import com.bulletjournal.clients.UserClient;
 import com.bulletjournal.controller.models.*;
-import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserDaoJpa;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +13,6 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Objects;
-import java.util.Optional;
 
 @RestController
 public class UserController {
@@ -30,9 +28,6 @@ public class UserController {
     @Autowired
     private UserDaoJpa userDaoJpa;
 
-    @Autowired
-    private RedisUserRepository redisUserRepository;
-
     @GetMapping("/api/users/{username}")
     public User getUser(@NotNull @PathVariable String username) {
         return userClient.getUser(username);
@@ -77,10 +72,7 @@ public class UserController {
     public ResponseEntity<?> clear() {
         String username = MDC.get(UserClient.USER_NAME_KEY);
         LOGGER.info("Clearing " + username + " cache");
-        Optional<User> userOptional = redisUserRepository.findById(username);
-        if (userOptional.isPresent()) {
-            this.redisUserRepository.delete(userOptional.get());
-        }
+        this.userClient.evict(username);
 
         return ResponseEntity.ok().build();
     }
@@ -7,7 +7,10 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.DayOfWeek;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ProjectItems {
 
@@ -32,23 +35,36 @@ public class ProjectItems {
 
     public static List<ProjectItems> addOwnerAvatar(
             List<ProjectItems> projectItems, final UserClient userClient) {
+        Set<String> usernames = new HashSet<>();
         projectItems.forEach(items -> {
-            items.getNotes().forEach(item -> addOwnerAvatar(item, userClient));
-            items.getTransactions().forEach(item -> addOwnerAvatar(item, userClient));
-            items.getTasks().forEach(item -> addOwnerAvatar(item, userClient));
+            items.getNotes().forEach(item -> usernames.add(item.getOwner()));
+            items.getTransactions().forEach(item -> {
+                usernames.add(item.getOwner());
+                usernames.add(item.getPayer());
+            });
+            items.getTasks().forEach(item -> {
+                usernames.add(item.getOwner());
+                item.getAssignees().forEach(assignee -> usernames.add(assignee.getName()));
+            });
+        });
+        Map<String, User> users = userClient.getUsers(usernames);
+        projectItems.forEach(items -> {
+            items.getNotes().forEach(item -> addOwnerAvatar(item, users));
+            items.getTransactions().forEach(item -> addOwnerAvatar(item, users));
+            items.getTasks().forEach(item -> addOwnerAvatar(item, users));
         });
         return projectItems;
     }
 
-    private static void addOwnerAvatar(ProjectItem projectItem, UserClient userClient) {
-        projectItem.setOwnerAvatar(userClient.getUser(projectItem.getOwner()).getAvatar());
+    private static void addOwnerAvatar(ProjectItem projectItem, Map<String, User> users) {
+        projectItem.setOwnerAvatar(users.get(projectItem.getOwner()).getAvatar());
         if (projectItem instanceof Transaction) {
             Transaction transaction = ((Transaction) projectItem);
-            transaction.setPayerAvatar(userClient.getUser(transaction.getPayer()).getAvatar());
+            transaction.setPayerAvatar(users.get(transaction.getPayer()).getAvatar());
         } else if (projectItem instanceof Task) {
             Task task = ((Task) projectItem);
             task.getAssignees().forEach((assignee) -> {
-                assignee.setAvatar(userClient.getUser(assignee.getName()).getAvatar());
+                assignee.setAvatar(users.get(assignee.getName()).getAvatar());
             });
         }
     }
@@ -0,0 +1,40 @@
+package com.bulletjournal.controller.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Project item matching a search, with the fragments of its name or contents that matched
+ */
+public class SearchResultItem {
+
+    private ProjectItem projectItem;
+
+    /**
+     * Html escaped fragments with matched terms wrapped in &lt;em&gt;
+     */
+    private List<String> highlights = new ArrayList<>();
+
+    public SearchResultItem() {
+    }
+
+    public SearchResultItem(ProjectItem projectItem) {
+        this.projectItem = projectItem;
+    }
+
+    public ProjectItem getProjectItem() {
+        return projectItem;
+    }
+
+    public void setProjectItem(ProjectItem projectItem) {
+        this.projectItem = projectItem;
+    }
+
+    public List<String> getHighlights() {
+        return highlights;
+    }
+
+    public void setHighlights(List<String> highlights) {
+        this.highlights = highlights;
+    }
+}
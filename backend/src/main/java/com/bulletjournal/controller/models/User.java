@@ -1,19 +1,15 @@
 package com.bulletjournal.controller.models;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.redis.core.RedisHash;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 
-@RedisHash(value = "User", timeToLive = 60000)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class User implements Serializable {
 
     private Integer id;
-    @Id
     private String name;
     private String thumbnail;
     private String avatar;
@@ -0,0 +1,121 @@
+package com.bulletjournal.controller.utils;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version counters of polled resources, used to serve Etags without reloading data.
+ * <p>
+ * Each resource is versioned per scope: username for projects, groups and notifications,
+ * project id for tasks and notes. DAO write paths bump the counter after commit. An Etag
+ * computed at some version is reused until that version changes, or until it expires as a
+ * safety net for changes made outside of DAO write paths (e.g. user avatars).
+ */
+@Component
+public class EtagRegistry {
+
+    private static final int MAX_CACHED_ETAGS = 100000;
+    private static final long ETAG_TTL_MINUTES = 10;
+
+    public enum Resource {
+        PROJECTS, GROUPS, NOTIFICATIONS, TASKS, NOTES;
+
+        /**
+         * @return resource listing project items of contentType, null if not polled
+         */
+        public static Resource of(ContentType contentType) {
+            switch (contentType) {
+                case TASK:
+                    return TASKS;
+                case NOTE:
+                    return NOTES;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final Map<Resource, AtomicLong> epochs = new EnumMap<>(Resource.class);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Cache<String, VersionedEtag> etags = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_ETAGS)
+            .expireAfterWrite(ETAG_TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public EtagRegistry() {
+        for (Resource resource : Resource.values()) {
+            this.epochs.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * Get Etag of resource, computing it only if resource changed since last computed
+     *
+     * @param resource resource kind
+     * @param scope    username or project id
+     * @param loader   computes Etag from current data, or a value holding several Etags of the resource
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getEtag(Resource resource, Object scope, Supplier<T> loader) {
+        String key = key(resource, scope);
+        // read version before loading, so a concurrent bump makes the result stale instead of lost
+        long version = getVersion(resource, key);
+        VersionedEtag cached = this.etags.getIfPresent(key);
+        if (cached != null && cached.version == version) {
+            return (T) cached.etag;
+        }
+        T etag = loader.get();
+        this.etags.put(key, new VersionedEtag(version, etag));
+        return etag;
+    }
+
+    public void bump(Resource resource, Object scope) {
+        // after commit, so readers never cache an Etag of uncommitted data under a new version
+        DaoHelper.afterCommit(() -> counter(key(resource, scope)).incrementAndGet());
+    }
+
+    public void bump(Resource resource, Collection<?> scopes) {
+        DaoHelper.afterCommit(() -> scopes.forEach(scope -> counter(key(resource, scope)).incrementAndGet()));
+    }
+
+    /**
+     * Bump resource of all scopes, for changes whose affected users are not known
+     */
+    public void bumpAll(Resource resource) {
+        DaoHelper.afterCommit(() -> this.epochs.get(resource).incrementAndGet());
+    }
+
+    private long getVersion(Resource resource, String key) {
+        // both are only incremented, so their sum changes on every bump
+        return this.epochs.get(resource).get() + counter(key).get();
+    }
+
+    private AtomicLong counter(String key) {
+        return this.versions.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private static String key(Resource resource, Object scope) {
+        return resource.name() + ":" + scope;
+    }
+
+    private static class VersionedEtag {
+        private final long version;
+        private final Object etag;
+
+        VersionedEtag(long version, Object etag) {
+            this.version = version;
+            this.etag = etag;
+        }
+    }
+}
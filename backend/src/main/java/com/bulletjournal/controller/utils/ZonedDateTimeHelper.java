@@ -251,24 +251,6 @@ public class ZonedDateTimeHelper {
         return targetSet;
     }
 
-    /**
-     * Parse DateTime set string to a set of DateTime
-     *
-     * @param string the string of the completed slots list. Each slot is splitted by comma.
-     *               Format: slot1,slot2,slot3
-     * @return List<String> - a list of Date Time
-     */
-    public static List<DateTime> parseDateTimeList(String string) {
-        List<DateTime> targetList = new ArrayList<>();
-        if (StringUtils.isNoneEmpty(string) || StringUtils.isEmpty(string))
-            return targetList;
-        for (String s : string.split(",")) {
-            targetList.add(DateTime.parse(s));
-        }
-        return targetList;
-    }
-
-
     /**
      * 1. Get now ZonedDateTime.
      * 2. Remove second and nano second.
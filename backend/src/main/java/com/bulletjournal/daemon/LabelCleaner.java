@@ -0,0 +1,125 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.config.LabelCleanerConfig;
+import com.bulletjournal.controller.utils.EtagRegistry;
+import com.bulletjournal.repository.LabelTombstoneRepository;
+import com.bulletjournal.repository.LedgerRollupRepository;
+import com.bulletjournal.repository.NoteRepository;
+import com.bulletjournal.repository.TaskRepository;
+import com.bulletjournal.repository.TransactionRepository;
+import com.bulletjournal.repository.models.LabelTombstone;
+import com.bulletjournal.util.CustomThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Removes deleted labels from the tasks, notes and transactions still carrying them.
+ * <p>
+ * Label deletion only leaves a {@link LabelTombstone}. Until it is cleaned, readers skip the
+ * label id because it no longer resolves to a label.
+ */
+@Service
+public class LabelCleaner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LabelCleaner.class);
+    private final ScheduledExecutorService executorService =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("label-cleaner"));
+
+    private final LabelCleanerConfig labelCleanerConfig;
+    private final LabelTombstoneRepository labelTombstoneRepository;
+    private final TaskRepository taskRepository;
+    private final NoteRepository noteRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerRollupRepository ledgerRollupRepository;
+    private final EtagRegistry etagRegistry;
+
+    @Autowired
+    public LabelCleaner(LabelCleanerConfig labelCleanerConfig, LabelTombstoneRepository labelTombstoneRepository,
+                        TaskRepository taskRepository, NoteRepository noteRepository,
+                        TransactionRepository transactionRepository, LedgerRollupRepository ledgerRollupRepository,
+                        EtagRegistry etagRegistry) {
+        this.labelCleanerConfig = labelCleanerConfig;
+        this.labelTombstoneRepository = labelTombstoneRepository;
+        this.taskRepository = taskRepository;
+        this.noteRepository = noteRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerRollupRepository = ledgerRollupRepository;
+        this.etagRegistry = etagRegistry;
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        int intervalInSeconds = this.labelCleanerConfig.getIntervalInSeconds();
+        if (intervalInSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid intervalInSeconds: " + intervalInSeconds);
+        }
+        if (this.labelCleanerConfig.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Invalid batchSize: " + this.labelCleanerConfig.getBatchSize());
+        }
+        this.executorService.scheduleWithFixedDelay(this::clean, 0, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Clean pending tombstones in background now instead of waiting for next sweep
+     */
+    public void schedule() {
+        this.executorService.execute(this::clean);
+    }
+
+    public void clean() {
+        try {
+            for (LabelTombstone tombstone : this.labelTombstoneRepository.findAll()) {
+                clean(tombstone);
+            }
+        } catch (Exception ex) {
+            // keep periodic sweep alive, the tombstone is retried next time
+            LOGGER.error("Label cleaning failed", ex);
+        }
+    }
+
+    private void clean(LabelTombstone tombstone) {
+        Long labelId = tombstone.getLabelId();
+        long cleaned = removeLabel(labelId, this.taskRepository::removeLabel)
+                + removeLabel(labelId, this.noteRepository::removeLabel)
+                + removeLabel(labelId, this.transactionRepository::removeLabel);
+        this.ledgerRollupRepository.deleteLabel(String.valueOf(labelId));
+        this.labelTombstoneRepository.delete(tombstone);
+        if (cleaned > 0) {
+            this.etagRegistry.bumpAll(EtagRegistry.Resource.TASKS);
+            this.etagRegistry.bumpAll(EtagRegistry.Resource.NOTES);
+        }
+        LOGGER.info("Label {} removed from {} project items", labelId, tombstone.getCleanedItems() + cleaned);
+    }
+
+    /**
+     * Each batch commits on its own so a large label never holds one long transaction.
+     * A batch short of the limit means no item carries the label anymore.
+     */
+    private long removeLabel(Long labelId, BiFunction<Long, Integer, Integer> remover) {
+        int batchSize = this.labelCleanerConfig.getBatchSize();
+        long total = 0;
+        int updated;
+        do {
+            updated = remover.apply(labelId, batchSize);
+            if (updated > 0) {
+                this.labelTombstoneRepository.addCleanedItems(labelId, updated);
+                total += updated;
+            }
+        } while (updated >= batchSize);
+        return total;
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,132 @@
+package com.bulletjournal.es;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+
+@Component
+@ConditionalOnExpression("${spring.elasticsearch.rest.enable:false} and '${search.engine:elasticsearch}' == 'elasticsearch'")
+public class ElasticSearchEngine implements SearchEngine {
+
+    public static final String PROJECT_ITEM = "project_item";
+
+    private static final String DOCUMENT_TYPE = "default";
+    private static final String NAME = "project_item_name";
+    private static final String TEXT = "text";
+    private static final String PARENT_ID = "parent_id";
+    private static final int MAX_FRAGMENTS = 3;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSearchEngine.class);
+
+    @Qualifier("client")
+    @Autowired
+    private RestHighLevelClient highLevelClient;
+
+    @Override
+    public Set<String> write(Collection<SearchDocument> documents, Collection<String> deletedIds) throws IOException {
+        deleteContentsOf(deletedIds);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (SearchDocument document : documents) {
+            Map<String, Object> json = new HashMap<>();
+            json.put(PARENT_ID, document.getParentId());
+            json.put("project_id", document.getProjectId());
+            json.put("group_id", document.getGroupId());
+            if (document.isContent()) {
+                json.put(TEXT, document.getText());
+            } else {
+                json.put(NAME, document.getName());
+                json.put("labels", document.getLabels());
+            }
+            bulkRequest.add(new IndexRequest(PROJECT_ITEM, DOCUMENT_TYPE, document.getId()).source(json));
+        }
+        for (String id : deletedIds) {
+            bulkRequest.add(new DeleteRequest(PROJECT_ITEM, DOCUMENT_TYPE, id));
+        }
+        if (bulkRequest.numberOfActions() == 0) {
+            return Collections.emptySet();
+        }
+
+        BulkResponse response = this.highLevelClient.bulk(bulkRequest, RequestOptions.DEFAULT);
+        if (!response.hasFailures()) {
+            return Collections.emptySet();
+        }
+        LOGGER.error("Search indexing partially failed: {}", response.buildFailureMessage());
+        Set<String> failed = new HashSet<>();
+        for (BulkItemResponse item : response) {
+            // deleting a document never indexed is not a failure
+            if (item.isFailed()) {
+                failed.add(item.getId());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Delete content documents of deleted project items, their content rows are already gone
+     */
+    private void deleteContentsOf(Collection<String> deletedIds) throws IOException {
+        if (deletedIds.isEmpty()) {
+            return;
+        }
+        // parent_id is dynamically mapped as text with a keyword sub-field
+        DeleteByQueryRequest request = new DeleteByQueryRequest(PROJECT_ITEM)
+                .setQuery(QueryBuilders.termsQuery(PARENT_ID + ".keyword", deletedIds));
+        BulkByScrollResponse response = this.highLevelClient.deleteByQuery(request, RequestOptions.DEFAULT);
+        if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+            throw new IOException("Unable to delete contents of " + deletedIds);
+        }
+    }
+
+    @Override
+    public List<SearchMatch> search(String term, Collection<Long> groupIds, int limit) throws IOException {
+        SearchRequest searchRequest = new SearchRequest(PROJECT_ITEM);
+        searchRequest.source(new SearchSourceBuilder().size(limit).query(
+                QueryBuilders.boolQuery()
+                        .filter(QueryBuilders.termsQuery("group_id", groupIds))
+                        .must(QueryBuilders.multiMatchQuery(term, NAME + "^2", "labels", TEXT)
+                                .fuzziness(Fuzziness.AUTO)
+                                .prefixLength(3)
+                                .maxExpansions(10)))
+                .highlighter(new HighlightBuilder().field(NAME).field(TEXT)
+                        .numOfFragments(MAX_FRAGMENTS).encoder("html")));
+
+        SearchResponse response = this.highLevelClient.search(searchRequest, RequestOptions.DEFAULT);
+        List<SearchMatch> matches = new ArrayList<>();
+        for (SearchHit hit : response.getHits()) {
+            List<String> highlights = new ArrayList<>();
+            for (HighlightField field : hit.getHighlightFields().values()) {
+                for (Text fragment : field.getFragments()) {
+                    highlights.add(fragment.string());
+                }
+            }
+            // documents indexed before contents were split out have no parent id
+            String parentId = (String) hit.getSourceAsMap().getOrDefault(PARENT_ID, hit.getId());
+            matches.add(new SearchMatch(parentId, hit.getScore(), highlights));
+        }
+        return matches;
+    }
+}
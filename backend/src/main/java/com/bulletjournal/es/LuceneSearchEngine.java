@@ -0,0 +1,223 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.config.LuceneSearchConfig;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.highlight.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * In-process search engine over a Lucene index on local disk, for deployments without Elasticsearch.
+ * <p>
+ * Groups are filtered through doc values when the text query is selective. Searches see writes
+ * once {@link #write(Collection, Collection)} returns, through near-real-time readers of the writer.
+ * Names and content texts are stored to highlight matches. A new index, e.g. on a fresh directory,
+ * is filled by reindexing all project items once the application is ready.
+ */
+@Component
+@ConditionalOnProperty(value = "search.engine", havingValue = "lucene")
+public class LuceneSearchEngine implements SearchEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LuceneSearchEngine.class);
+    private static final String ID = "id";
+    private static final String PARENT_ID = "parent_id";
+    private static final String GROUP_ID = "group_id";
+    private static final String NAME = "name";
+    private static final String LABELS = "labels";
+    private static final String TEXT = "text";
+    private static final float NAME_BOOST = 2f;
+    // same fuzziness as the Elasticsearch query
+    private static final int PREFIX_LENGTH = 3;
+    private static final int MAX_EXPANSIONS = 10;
+    private static final int MAX_FRAGMENTS = 3;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    @Autowired
+    private LuceneSearchConfig luceneSearchConfig;
+
+    @Autowired
+    @Lazy
+    private SearchIndexer searchIndexer;
+
+    private Path path;
+    private boolean created;
+    private Directory directory;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void postConstruct() throws IOException {
+        open(Paths.get(this.luceneSearchConfig.getDirectory()));
+    }
+
+    void open(Path path) throws IOException {
+        Files.createDirectories(path);
+        this.path = path;
+        this.directory = new MMapDirectory(path);
+        this.created = !DirectoryReader.indexExists(this.directory);
+        this.indexWriter = new IndexWriter(this.directory, new IndexWriterConfig(this.analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(this.indexWriter, null);
+    }
+
+    /**
+     * @return whether the index did not exist before {@link #open(Path)}
+     */
+    boolean isCreated() {
+        return this.created;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (this.created) {
+            LOGGER.warn("Search index {} is new, reindexing all project items", this.path);
+            this.searchIndexer.reindex();
+        }
+    }
+
+    @Override
+    public Set<String> write(Collection<SearchDocument> documents, Collection<String> deletedIds) throws IOException {
+        for (String id : deletedIds) {
+            this.indexWriter.deleteDocuments(new Term(ID, id), new Term(PARENT_ID, id));
+        }
+        for (SearchDocument document : documents) {
+            this.indexWriter.updateDocument(new Term(ID, document.getId()), toDocument(document));
+        }
+        // callers drop their outbox entries once written, so changes have to be durable
+        this.indexWriter.commit();
+        this.searcherManager.maybeRefresh();
+        return Collections.emptySet();
+    }
+
+    private static Document toDocument(SearchDocument searchDocument) {
+        Document document = new Document();
+        document.add(new StringField(ID, searchDocument.getId(), Field.Store.YES));
+        document.add(new StringField(PARENT_ID, searchDocument.getParentId(), Field.Store.YES));
+        document.add(new LongPoint(GROUP_ID, searchDocument.getGroupId()));
+        document.add(new NumericDocValuesField(GROUP_ID, searchDocument.getGroupId()));
+        if (searchDocument.isContent()) {
+            document.add(new TextField(TEXT, searchDocument.getText(), Field.Store.YES));
+            return document;
+        }
+        document.add(new TextField(NAME, searchDocument.getName(), Field.Store.YES));
+        for (String label : searchDocument.getLabels()) {
+            document.add(new TextField(LABELS, label, Field.Store.NO));
+        }
+        return document;
+    }
+
+    @Override
+    public List<SearchMatch> search(String term, Collection<Long> groupIds, int limit) throws IOException {
+        Query textQuery = getTextQuery(term);
+        if (textQuery == null || groupIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(textQuery, BooleanClause.Occur.MUST)
+                .add(getGroupQuery(groupIds), BooleanClause.Occur.FILTER)
+                .build();
+
+        Highlighter nameHighlighter = getHighlighter(textQuery, NAME);
+        Highlighter textHighlighter = getHighlighter(textQuery, TEXT);
+        IndexSearcher searcher = this.searcherManager.acquire();
+        try {
+            List<SearchMatch> matches = new ArrayList<>();
+            for (ScoreDoc scoreDoc : searcher.search(query, limit).scoreDocs) {
+                Document document = searcher.doc(scoreDoc.doc);
+                List<String> highlights = document.get(TEXT) == null
+                        ? highlight(nameHighlighter, NAME, document.get(NAME))
+                        : highlight(textHighlighter, TEXT, document.get(TEXT));
+                matches.add(new SearchMatch(document.get(PARENT_ID), scoreDoc.score, highlights));
+            }
+            return matches;
+        } finally {
+            this.searcherManager.release(searcher);
+        }
+    }
+
+    private static Highlighter getHighlighter(Query textQuery, String field) {
+        // same tags as Elasticsearch, fuzzy terms are expanded against the highlighted text itself
+        return new Highlighter(new SimpleHTMLFormatter("<em>", "</em>"), new SimpleHTMLEncoder(),
+                new QueryScorer(textQuery, field));
+    }
+
+    private List<String> highlight(Highlighter highlighter, String field, String text) throws IOException {
+        try {
+            return Arrays.asList(highlighter.getBestFragments(this.analyzer, field, text, MAX_FRAGMENTS));
+        } catch (InvalidTokenOffsetsException ex) {
+            throw new IOException("Unable to highlight " + field, ex);
+        }
+    }
+
+    /**
+     * @return query matching any analyzed token of term in any text field, or null if term has no token
+     */
+    private Query getTextQuery(String term) throws IOException {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        boolean empty = true;
+        try (TokenStream tokenStream = this.analyzer.tokenStream(NAME, term)) {
+            CharTermAttribute attribute = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                String token = attribute.toString();
+                builder.add(new BoostQuery(getFuzzyQuery(NAME, token), NAME_BOOST), BooleanClause.Occur.SHOULD);
+                builder.add(getFuzzyQuery(LABELS, token), BooleanClause.Occur.SHOULD);
+                builder.add(getFuzzyQuery(TEXT, token), BooleanClause.Occur.SHOULD);
+                empty = false;
+            }
+            tokenStream.end();
+        }
+        return empty ? null : builder.build();
+    }
+
+    private static Query getFuzzyQuery(String field, String token) {
+        // Elasticsearch AUTO fuzziness: exact up to 2 chars, 1 edit up to 5, 2 edits beyond
+        int maxEdits = token.length() <= 2 ? 0 : token.length() <= 5 ? 1 : 2;
+        return new FuzzyQuery(new Term(field, token), maxEdits, PREFIX_LENGTH, MAX_EXPANSIONS, true);
+    }
+
+    private static Query getGroupQuery(Collection<Long> groupIds) {
+        BooleanQuery.Builder docValuesQuery = new BooleanQuery.Builder();
+        for (Long groupId : groupIds) {
+            docValuesQuery.add(NumericDocValuesField.newSlowExactQuery(GROUP_ID, groupId), BooleanClause.Occur.SHOULD);
+        }
+        return new IndexOrDocValuesQuery(LongPoint.newSetQuery(GROUP_ID, groupIds), docValuesQuery.build());
+    }
+
+    @PreDestroy
+    public void preDestroy() throws IOException {
+        this.searcherManager.close();
+        this.indexWriter.close();
+        this.directory.close();
+        if (this.luceneSearchConfig != null && this.luceneSearchConfig.isDeleteOnClose()) {
+            FileSystemUtils.deleteRecursively(this.path);
+        }
+    }
+}
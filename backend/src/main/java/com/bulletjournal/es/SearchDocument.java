@@ -0,0 +1,152 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.contents.ContentType;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.charfilter.HTMLStripCharFilter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Searchable text of a task, note or transaction, or of one of their contents.
+ * <p>
+ * Contents are separate documents pointing to their project item through the parent id, so
+ * editing one content rewrites only its document.
+ */
+public class SearchDocument {
+
+    private static final String ID_SEPARATOR = "@";
+    private static final String CONTENT_SUFFIX = "Content";
+
+    private final ContentType contentType;
+    private final Long itemId;
+    private final Long contentId;
+    private final Long projectId;
+    private final Long groupId;
+    private final String name;
+    private final List<String> labels = new ArrayList<>();
+    private final String text;
+
+    private SearchDocument(ContentType contentType, Long itemId, Long contentId, Long projectId, Long groupId,
+                           String name, String text) {
+        this.contentType = contentType;
+        this.itemId = itemId;
+        this.contentId = contentId;
+        this.projectId = projectId;
+        this.groupId = groupId;
+        this.name = name;
+        this.text = text;
+    }
+
+    public SearchDocument(ContentType contentType, Long itemId, Long projectId, Long groupId, String name) {
+        this(contentType, itemId, null, projectId, groupId, name, null);
+    }
+
+    /**
+     * @param html content text as written by the editor
+     */
+    public static SearchDocument ofContent(ContentType contentType, Long contentId, Long itemId, Long projectId,
+                                           Long groupId, String html) {
+        return new SearchDocument(contentType, itemId, contentId, projectId, groupId, null, toPlainText(html));
+    }
+
+    /**
+     * @return document id of project item, e.g. "Note@12"
+     */
+    public static String getId(ContentType contentType, Long itemId) {
+        return StringUtils.capitalize(contentType.name().toLowerCase()) + ID_SEPARATOR + itemId;
+    }
+
+    /**
+     * @return document id of content of project item, e.g. "NoteContent@5"
+     */
+    public static String getContentDocumentId(ContentType contentType, Long contentId) {
+        return StringUtils.capitalize(contentType.name().toLowerCase()) + CONTENT_SUFFIX + ID_SEPARATOR + contentId;
+    }
+
+    public static ContentType getContentType(String id) {
+        return ContentType.valueOf(StringUtils.removeEnd(
+                StringUtils.substringBefore(id, ID_SEPARATOR), CONTENT_SUFFIX).toUpperCase());
+    }
+
+    public static Long getItemId(String id) {
+        return Long.valueOf(StringUtils.substringAfter(id, ID_SEPARATOR));
+    }
+
+    /**
+     * @return text of html with tags and scripts removed, entities decoded and whitespace collapsed
+     */
+    public static String toPlainText(String html) {
+        if (html == null) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[4096];
+        try (Reader reader = new HTMLStripCharFilter(new StringReader(html))) {
+            for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+                text.append(buffer, 0, n);
+            }
+        } catch (IOException ex) {
+            // not thrown by StringReader
+            throw new UncheckedIOException(ex);
+        }
+        return StringUtils.normalizeSpace(text.toString());
+    }
+
+    public String getId() {
+        return isContent() ? getContentDocumentId(this.contentType, this.contentId) : getParentId();
+    }
+
+    /**
+     * @return document id of the project item, the document itself unless it is a content
+     */
+    public String getParentId() {
+        return getId(this.contentType, this.itemId);
+    }
+
+    public boolean isContent() {
+        return this.contentId != null;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * @return name of project item, null for contents
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return plain text of content, null for project items
+     */
+    public String getText() {
+        return text;
+    }
+}
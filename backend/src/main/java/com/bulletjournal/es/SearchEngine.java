@@ -0,0 +1,31 @@
+package com.bulletjournal.es;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Full-text index of project items, backed by Elasticsearch or by an embedded Lucene index
+ * depending on search.engine
+ */
+public interface SearchEngine {
+
+    /**
+     * Index documents, replacing the ones with the same ids, and delete documents by id. Deleting
+     * a project item also deletes the documents of its contents.
+     *
+     * @return ids of documents not written, to be retried
+     * @throws IOException if the index could not be reached
+     */
+    Set<String> write(Collection<SearchDocument> documents, Collection<String> deletedIds) throws IOException;
+
+    /**
+     * @param term     text matched against names, labels and contents
+     * @param groupIds groups of requester, only documents of their projects match
+     * @param limit    maximum number of matching documents
+     * @return matches by descending score, one per matching document so an item matching through
+     * several contents appears several times
+     */
+    List<SearchMatch> search(String term, Collection<Long> groupIds, int limit) throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.bulletjournal.es;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Operator endpoint of the search index, only reachable once added to management.endpoints.web.exposure.include
+ */
+@Component
+@Endpoint(id = "searchindex")
+public class SearchIndexEndpoint {
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", this.searchIndexer.isEnabled());
+        status.put("pending", this.searchIndexer.getPending());
+        return status;
+    }
+
+    /**
+     * Rebuild documents of all project items
+     */
+    @WriteOperation
+    public void reindex() {
+        this.searchIndexer.reindex();
+    }
+}
@@ -0,0 +1,283 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.config.SearchIndexerConfig;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.SearchIndexRepository;
+import com.bulletjournal.repository.models.ProjectItemModel;
+import com.bulletjournal.repository.models.SearchIndexEntry;
+import com.bulletjournal.util.CustomThreadFactory;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@link SearchEngine} index in sync through the search_index_outbox table.
+ * <p>
+ * Item changes only add outbox rows in their own transaction. A background thread drains the
+ * outbox in batches, indexing the current state of each item once however often it changed,
+ * and deleting documents of items that no longer exist. Indexing an item also rewrites the
+ * documents of its contents, while a content change only rewrites its own document. Batches are
+ * claimed with FOR UPDATE SKIP LOCKED under a lease, so several instances drain disjoint entries.
+ * Failed entries stay in the outbox and are retried after an exponential backoff, behind newer entries.
+ */
+@Service
+public class SearchIndexer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndexer.class);
+    private final ScheduledExecutorService executorService =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("search-indexer"));
+
+    private final SearchEngine searchEngine;
+    private final SearchIndexerConfig searchIndexerConfig;
+    private final SearchIndexRepository searchIndexRepository;
+
+    @Autowired
+    public SearchIndexer(@Nullable SearchEngine searchEngine, SearchIndexerConfig searchIndexerConfig,
+                         SearchIndexRepository searchIndexRepository) {
+        this.searchEngine = searchEngine;
+        this.searchIndexerConfig = searchIndexerConfig;
+        this.searchIndexRepository = searchIndexRepository;
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!isEnabled()) {
+            return;
+        }
+        int intervalInSeconds = this.searchIndexerConfig.getIntervalInSeconds();
+        if (intervalInSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid intervalInSeconds: " + intervalInSeconds);
+        }
+        if (this.searchIndexerConfig.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Invalid batchSize: " + this.searchIndexerConfig.getBatchSize());
+        }
+        if (this.searchIndexerConfig.getLeaseSeconds() <= 0) {
+            throw new IllegalArgumentException("Invalid leaseSeconds: " + this.searchIndexerConfig.getLeaseSeconds());
+        }
+        this.executorService.scheduleWithFixedDelay(this::drain, intervalInSeconds, intervalInSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return this.searchEngine != null;
+    }
+
+    /**
+     * Queue project items for indexing, as part of the transaction changing them
+     */
+    public <T extends ProjectItemModel> void enqueue(Collection<T> projectItems) {
+        if (!isEnabled()) {
+            return;
+        }
+        projectItems.stream()
+                .collect(Collectors.groupingBy(ProjectItemModel::getContentType,
+                        Collectors.mapping(ProjectItemModel::getId, Collectors.toList())))
+                .forEach(this.searchIndexRepository::enqueue);
+    }
+
+    public <T extends ProjectItemModel> void enqueue(T projectItem) {
+        enqueue(Collections.singletonList(projectItem));
+    }
+
+    /**
+     * Queue content of project item for indexing, as part of the transaction changing it
+     */
+    public void enqueueContent(ContentType contentType, Long contentId) {
+        if (!isEnabled()) {
+            return;
+        }
+        this.searchIndexRepository.enqueueContents(contentType, Collections.singletonList(contentId));
+    }
+
+    /**
+     * Queue all project items of projects for indexing, e.g. when projects move to another group
+     */
+    public void enqueueProjects(Collection<Long> projectIds) {
+        if (!isEnabled()) {
+            return;
+        }
+        this.searchIndexRepository.enqueueProjects(projectIds);
+    }
+
+    /**
+     * Queue project items carrying label for indexing, e.g. when the label is renamed
+     */
+    public void enqueueLabel(Long labelId) {
+        if (!isEnabled()) {
+            return;
+        }
+        this.searchIndexRepository.enqueueLabel(labelId);
+    }
+
+    /**
+     * Queue every project item for indexing and start draining in background
+     */
+    public void reindex() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Search is not enabled");
+        }
+        this.searchIndexRepository.enqueueAll();
+        this.executorService.execute(this::drain);
+    }
+
+    /**
+     * @return number of outbox entries not indexed yet
+     */
+    public long getPending() {
+        return this.searchIndexRepository.count();
+    }
+
+    public void drain() {
+        try {
+            while (drainBatch()) {
+            }
+        } catch (Exception ex) {
+            // keep periodic drain alive, entries stay in outbox
+            LOGGER.error("Search indexing failed", ex);
+        }
+    }
+
+    /**
+     * @return whether more entries may be pending
+     */
+    private boolean drainBatch() {
+        int batchSize = this.searchIndexerConfig.getBatchSize();
+        List<SearchIndexEntry> entries = this.searchIndexRepository.claim(
+                batchSize, this.searchIndexerConfig.getLeaseSeconds());
+        if (entries.isEmpty()) {
+            return false;
+        }
+
+        // document id -> entries, repeated changes of an item collapse into one request
+        Map<String, List<SearchIndexEntry>> entriesByDocument = new LinkedHashMap<>();
+        Map<ContentType, Set<Long>> itemIds = new EnumMap<>(ContentType.class);
+        Map<ContentType, Set<Long>> contentIds = new EnumMap<>(ContentType.class);
+        for (SearchIndexEntry entry : entries) {
+            ContentType contentType = ContentType.valueOf(entry.getContentType());
+            (entry.isContent() ? contentIds : itemIds)
+                    .computeIfAbsent(contentType, k -> new LinkedHashSet<>()).add(entry.getContentId());
+            String documentId = entry.isContent()
+                    ? SearchDocument.getContentDocumentId(contentType, entry.getContentId())
+                    : SearchDocument.getId(contentType, entry.getContentId());
+            entriesByDocument.computeIfAbsent(documentId, k -> new ArrayList<>()).add(entry);
+        }
+
+        List<SearchDocument> documents = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        itemIds.forEach((contentType, ids) -> loadDocuments(contentType, ids, documents, deletedIds));
+        contentIds.forEach((contentType, ids) -> loadContentDocuments(contentType, ids, documents, deletedIds));
+
+        List<SearchIndexEntry> done = new ArrayList<>();
+        List<SearchIndexEntry> failed = new ArrayList<>();
+        boolean writeFailed = false;
+        try {
+            Set<String> failedIds = new HashSet<>(this.searchEngine.write(documents, deletedIds));
+            // contents written along with their item are retried through the item entry
+            documents.stream().filter(document -> failedIds.contains(document.getId()))
+                    .map(SearchDocument::getParentId).collect(Collectors.toList())
+                    .forEach(failedIds::add);
+            entriesByDocument.forEach((id, documentEntries) -> {
+                if (failedIds.contains(id)) {
+                    failed.addAll(documentEntries);
+                } else {
+                    done.addAll(documentEntries);
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.error("Search index write failed", ex);
+            failed.addAll(entries);
+            writeFailed = true;
+        }
+
+        if (!done.isEmpty()) {
+            this.searchIndexRepository.deleteByIds(
+                    done.stream().map(SearchIndexEntry::getId).collect(Collectors.toList()));
+        }
+        retry(failed);
+        // failed entries back off, but if the engine is down wait for next drain
+        return !writeFailed && entries.size() == batchSize;
+    }
+
+    private void loadDocuments(ContentType contentType, Set<Long> itemIds,
+                               List<SearchDocument> documents, List<String> deletedIds) {
+        Map<Long, SearchDocument> found = new HashMap<>();
+        for (Object[] row : this.searchIndexRepository.findDocuments(contentType, itemIds)) {
+            SearchDocument document = new SearchDocument(contentType, ((Number) row[0]).longValue(),
+                    ((Number) row[2]).longValue(), ((Number) row[3]).longValue(), (String) row[1]);
+            if (row[4] != null) {
+                document.getLabels().addAll(Arrays.asList(StringUtils.split((String) row[4], '\n')));
+            }
+            found.put(document.getItemId(), document);
+        }
+        documents.addAll(found.values());
+        for (Object[] row : this.searchIndexRepository.findContents(contentType, found.keySet())) {
+            SearchDocument item = found.get(((Number) row[1]).longValue());
+            addContentDocument(SearchDocument.ofContent(contentType, ((Number) row[0]).longValue(),
+                    item.getItemId(), item.getProjectId(), item.getGroupId(), (String) row[2]), documents, deletedIds);
+        }
+        // deleting an item document also deletes its content documents
+        itemIds.stream().filter(id -> !found.containsKey(id))
+                .forEach(id -> deletedIds.add(SearchDocument.getId(contentType, id)));
+    }
+
+    private void loadContentDocuments(ContentType contentType, Set<Long> contentIds,
+                                      List<SearchDocument> documents, List<String> deletedIds) {
+        Set<Long> found = new HashSet<>();
+        for (Object[] row : this.searchIndexRepository.findContentDocuments(contentType, contentIds)) {
+            SearchDocument document = SearchDocument.ofContent(contentType, ((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), ((Number) row[3]).longValue(),
+                    (String) row[4]);
+            addContentDocument(document, documents, deletedIds);
+            found.add(document.getContentId());
+        }
+        contentIds.stream().filter(id -> !found.contains(id))
+                .forEach(id -> deletedIds.add(SearchDocument.getContentDocumentId(contentType, id)));
+    }
+
+    private static void addContentDocument(SearchDocument document,
+                                           List<SearchDocument> documents, List<String> deletedIds) {
+        // nothing to find in contents without text, e.g. only images
+        if (document.getText().isEmpty()) {
+            deletedIds.add(document.getId());
+        } else {
+            documents.add(document);
+        }
+    }
+
+    private void retry(List<SearchIndexEntry> failed) {
+        List<Long> retried = new ArrayList<>();
+        List<Long> dropped = new ArrayList<>();
+        for (SearchIndexEntry entry : failed) {
+            if (entry.getAttempts() + 1 >= this.searchIndexerConfig.getMaxAttempts()) {
+                LOGGER.error("Dropping search index entry of {} {} after {} attempts",
+                        entry.getContentType(), entry.getContentId(), entry.getAttempts() + 1);
+                dropped.add(entry.getId());
+            } else {
+                retried.add(entry.getId());
+            }
+        }
+        if (!retried.isEmpty()) {
+            this.searchIndexRepository.addAttempt(retried, this.searchIndexerConfig.getRetryBackoffSeconds(),
+                    this.searchIndexerConfig.getMaxRetryBackoffSeconds());
+        }
+        if (!dropped.isEmpty()) {
+            this.searchIndexRepository.deleteByIds(dropped);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.executorService.shutdownNow();
+    }
+}
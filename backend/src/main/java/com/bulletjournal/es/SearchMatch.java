@@ -0,0 +1,43 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.contents.ContentType;
+
+import java.util.List;
+
+/**
+ * Project item matching a search, through its name or labels or through one of its contents
+ */
+public class SearchMatch {
+
+    private final ContentType contentType;
+    private final Long itemId;
+    private final float score;
+    private final List<String> highlights;
+
+    /**
+     * @param parentId   document id of the project item
+     * @param highlights matching fragments of name or content text, matched terms wrapped in &lt;em&gt;
+     */
+    public SearchMatch(String parentId, float score, List<String> highlights) {
+        this.contentType = SearchDocument.getContentType(parentId);
+        this.itemId = SearchDocument.getItemId(parentId);
+        this.score = score;
+        this.highlights = highlights;
+    }
+
+    public ContentType getContentType() {
+        return contentType;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public List<String> getHighlights() {
+        return highlights;
+    }
+}
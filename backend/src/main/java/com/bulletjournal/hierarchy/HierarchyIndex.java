@@ -0,0 +1,148 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.exceptions.BadRequestException;
+import com.google.gson.Gson;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index over a project's item hierarchy.
+ * <p>
+ * Keeps id -> node and id -> parent maps next to the tree, so locating an item, its
+ * parent and its subtree does not require walking the whole hierarchy.
+ * Each index remembers the version of the relations row it was built from.
+ */
+public class HierarchyIndex {
+
+    private static final Gson GSON = new Gson();
+
+    private final List<HierarchyItem> roots;
+
+    private final Map<Long, HierarchyItem> nodes = new HashMap<>();
+
+    // item id -> parent item, null for root level items
+    private final Map<Long, HierarchyItem> parents = new HashMap<>();
+
+    private Long version;
+
+    public HierarchyIndex(List<HierarchyItem> roots, Long version) {
+        this.roots = new ArrayList<>(roots);
+        this.version = version;
+        for (HierarchyItem root : this.roots) {
+            index(root, null);
+        }
+    }
+
+    public static HierarchyIndex fromJson(String relations, Long version) {
+        if (StringUtils.isBlank(relations)) {
+            return new HierarchyIndex(new ArrayList<>(), version);
+        }
+        return new HierarchyIndex(Arrays.asList(GSON.fromJson(relations, HierarchyItem[].class)), version);
+    }
+
+    private void index(HierarchyItem cur, HierarchyItem parent) {
+        if (!(cur.getS() instanceof ArrayList)) {
+            cur.setS(new ArrayList<>(cur.getS()));
+        }
+        this.nodes.put(cur.getId(), cur);
+        this.parents.put(cur.getId(), parent);
+        for (HierarchyItem item : cur.getS()) {
+            index(item, cur);
+        }
+    }
+
+    private void unindex(HierarchyItem cur) {
+        this.nodes.remove(cur.getId());
+        this.parents.remove(cur.getId());
+        for (HierarchyItem item : cur.getS()) {
+            unindex(item);
+        }
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public boolean contains(Long id) {
+        return this.nodes.containsKey(id);
+    }
+
+    public int size() {
+        return this.nodes.size();
+    }
+
+    public List<HierarchyItem> getRoots() {
+        return roots;
+    }
+
+    private HierarchyItem getTarget(Long targetId) {
+        HierarchyItem target = this.nodes.get(targetId);
+        if (target == null) {
+            throw new BadRequestException("Target " + targetId + " not found ");
+        }
+        return target;
+    }
+
+    /**
+     * @return parent of target item, null if target is at root level
+     */
+    public HierarchyItem getParent(Long targetId) {
+        getTarget(targetId);
+        return this.parents.get(targetId);
+    }
+
+    /**
+     * @return ids of target parent and all its descendants
+     */
+    public List<Long> getSubItems(Long targetId) {
+        List<Long> result = new ArrayList<>();
+        collect(getTarget(targetId), result);
+        return result;
+    }
+
+    private static void collect(HierarchyItem cur, List<Long> result) {
+        result.add(cur.getId());
+        for (HierarchyItem subItem : cur.getS()) {
+            collect(subItem, result);
+        }
+    }
+
+    /**
+     * Add item (and its descendants) at root level
+     */
+    public void addItem(HierarchyItem hierarchyItem) {
+        this.roots.add(hierarchyItem);
+        index(hierarchyItem, null);
+    }
+
+    public void addItem(Long id) {
+        addItem(new HierarchyItem(id));
+    }
+
+    /**
+     * Delete target item and all its descendants
+     *
+     * @return removed target item with its descendants
+     */
+    public HierarchyItem removeTargetItem(Long targetId) {
+        HierarchyItem target = getTarget(targetId);
+        HierarchyItem parent = this.parents.get(targetId);
+        List<HierarchyItem> siblings = parent == null ? this.roots : parent.getS();
+        siblings.remove(target);
+        unindex(target);
+        return target;
+    }
+
+    public String toJson() {
+        return GSON.toJson(this.roots);
+    }
+}
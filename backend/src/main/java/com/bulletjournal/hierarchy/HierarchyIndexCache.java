@@ -0,0 +1,68 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Caches {@link HierarchyIndex} per project.
+ * <p>
+ * An index is checked out exclusively by the transaction that mutates it and only
+ * published back once that transaction commits, tagged with the version of the
+ * relations row it was saved as. A cached index whose version differs from the row
+ * is treated as stale and rebuilt from the JSON relations.
+ * <p>
+ * This only saves re-parsing. Each mutation still serializes the whole index and saves the
+ * relations row, so writes stay O(n) in JSON storage. Writes touching only the affected items
+ * need hierarchy.storage=columns.
+ */
+public class HierarchyIndexCache {
+
+    private final Cache<Long, HierarchyIndex> cache;
+
+    public HierarchyIndexCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Take ownership of project's index, rebuilding it if missing or stale
+     *
+     * @param projectId the project id
+     * @param version   version of the relations row
+     * @param relations the JSON relations stored in the row
+     * @return HierarchyIndex
+     */
+    public HierarchyIndex checkout(Long projectId, Long version, String relations) {
+        HierarchyIndex index = this.cache.asMap().remove(projectId);
+        if (index == null || version == null || !Objects.equals(index.getVersion(), version)) {
+            index = HierarchyIndex.fromJson(relations, version);
+        }
+        return index;
+    }
+
+    /**
+     * Publish index after its relations row is saved
+     *
+     * @param projectId the project id
+     * @param index     the index checked out by {@link #checkout(Long, Long, String)}
+     * @param version   supplies version of the relations row once it is flushed
+     */
+    public void checkin(Long projectId, HierarchyIndex index, Supplier<Long> version) {
+        DaoHelper.afterCommit(() -> put(projectId, index, version.get()));
+    }
+
+    private void put(Long projectId, HierarchyIndex index, Long version) {
+        if (version == null) {
+            return;
+        }
+        index.setVersion(version);
+        this.cache.put(projectId, index);
+    }
+
+    public void invalidate(Long projectId) {
+        this.cache.invalidate(projectId);
+    }
+}
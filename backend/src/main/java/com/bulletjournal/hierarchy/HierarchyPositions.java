@@ -0,0 +1,193 @@
+package com.bulletjournal.hierarchy;
+
+import java.util.*;
+
+/**
+ * Converts between {@link HierarchyItem} trees and parent_id/position columns.
+ * <p>
+ * Positions are fractional: an item moved between two siblings gets a position in
+ * between, so reordering only rewrites the rows that actually moved.
+ */
+public class HierarchyPositions {
+
+    public static final double FIRST_POSITION = 1.0;
+
+    private static final double POSITION_STEP = 1.0;
+
+    /**
+     * @param maxPosition max position among siblings, null if there is none
+     * @return position after all siblings
+     */
+    public static double nextPosition(Double maxPosition) {
+        return maxPosition == null ? FIRST_POSITION : maxPosition + POSITION_STEP;
+    }
+
+    /**
+     * Build hierarchy from items. Items whose parent is missing are placed at root level.
+     *
+     * @param items items ordered by position
+     * @return hierarchyItems
+     */
+    public static <T extends PositionedItem> List<HierarchyItem> buildHierarchy(List<T> items) {
+        Map<Long, HierarchyItem> nodes = new HashMap<>();
+        for (T item : items) {
+            nodes.put(item.getId(), new HierarchyItem(item.getId()));
+        }
+
+        List<HierarchyItem> roots = new ArrayList<>();
+        for (T item : items) {
+            HierarchyItem parent = item.getParentId() == null ? null : nodes.get(item.getParentId());
+            if (parent == null) {
+                roots.add(nodes.get(item.getId()));
+            } else {
+                parent.getS().add(nodes.get(item.getId()));
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Append items left out of hierarchy after it, so a partial hierarchy loses no item.
+     * Omitted items stay under their parent if it is omitted too, otherwise go to root level.
+     *
+     * @param hierarchy hierarchy sent by client
+     * @param items     all items ordered by position
+     * @return hierarchy holding every item
+     */
+    public static <T extends PositionedItem> List<HierarchyItem> appendOmitted(
+            List<HierarchyItem> hierarchy, List<T> items) {
+        HierarchyIndex index = new HierarchyIndex(hierarchy, null);
+        List<T> omitted = new ArrayList<>();
+        for (T item : items) {
+            if (!index.contains(item.getId())) {
+                omitted.add(item);
+            }
+        }
+        buildHierarchy(omitted).forEach(index::addItem);
+        return index.getRoots();
+    }
+
+    /**
+     * Set parent and position of items to match hierarchy, keeping as many existing positions as possible
+     *
+     * @param hierarchy target hierarchy
+     * @param items     item id -> item
+     * @return items whose parent or position changed
+     */
+    public static <T extends PositionedItem> List<T> assignPositions(
+            List<HierarchyItem> hierarchy, Map<Long, T> items) {
+        List<T> changed = new ArrayList<>();
+        assignSiblings(hierarchy, null, items, changed);
+        return changed;
+    }
+
+    private static <T extends PositionedItem> void assignSiblings(
+            List<HierarchyItem> siblings, Long parentId, Map<Long, T> items, List<T> changed) {
+        List<T> list = new ArrayList<>();
+        for (HierarchyItem sibling : siblings) {
+            T item = items.get(sibling.getId());
+            if (item != null) {
+                list.add(item);
+            }
+        }
+
+        boolean[] keep = longestIncreasingPositions(list, parentId);
+        Double[] positions = new Double[list.size()];
+        Double lower = null;
+        for (int i = 0; i < list.size(); i++) {
+            if (keep[i]) {
+                positions[i] = list.get(i).getPosition();
+            } else {
+                positions[i] = between(lower, nextKept(list, keep, i));
+                if (positions[i] == null) {
+                    // no room left between neighbours, renumber all siblings
+                    for (int j = 0; j < list.size(); j++) {
+                        positions[j] = FIRST_POSITION + j * POSITION_STEP;
+                    }
+                    break;
+                }
+            }
+            lower = positions[i];
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            T item = list.get(i);
+            if (!Objects.equals(item.getParentId(), parentId) || !Objects.equals(item.getPosition(), positions[i])) {
+                item.setParentId(parentId);
+                item.setPosition(positions[i]);
+                changed.add(item);
+            }
+        }
+
+        for (HierarchyItem sibling : siblings) {
+            if (items.containsKey(sibling.getId())) {
+                assignSiblings(sibling.getS(), sibling.getId(), items, changed);
+            }
+        }
+    }
+
+    private static <T extends PositionedItem> Double nextKept(List<T> list, boolean[] keep, int i) {
+        for (int j = i + 1; j < list.size(); j++) {
+            if (keep[j]) {
+                return list.get(j).getPosition();
+            }
+        }
+        return null;
+    }
+
+    private static Double between(Double lower, Double upper) {
+        if (lower == null && upper == null) {
+            return FIRST_POSITION;
+        }
+        if (lower == null) {
+            return upper - POSITION_STEP;
+        }
+        if (upper == null) {
+            return lower + POSITION_STEP;
+        }
+        double mid = lower + (upper - lower) / 2;
+        if (mid <= lower || mid >= upper) {
+            return null;
+        }
+        return mid;
+    }
+
+    /**
+     * Find longest subsequence of items already under parent whose positions are strictly increasing
+     */
+    private static <T extends PositionedItem> boolean[] longestIncreasingPositions(List<T> list, Long parentId) {
+        int n = list.size();
+        boolean[] keep = new boolean[n];
+        // tails[k]: index of smallest tail of increasing subsequence with length k + 1
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            T item = list.get(i);
+            if (item.getPosition() == null || !Objects.equals(item.getParentId(), parentId)) {
+                continue;
+            }
+            double position = item.getPosition();
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (list.get(tails[mid]).getPosition() < position) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) {
+                length++;
+            }
+        }
+
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            keep[i] = true;
+        }
+        return keep;
+    }
+}
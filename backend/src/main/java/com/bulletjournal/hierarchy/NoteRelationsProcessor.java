@@ -25,6 +25,23 @@ public class NoteRelationsProcessor {
         return notes;
     }
 
+    public static List<Note> processRelations(
+            Map<Long, com.bulletjournal.repository.models.Note> noteMap, List<HierarchyItem> hierarchy) {
+        List<Note> result = new ArrayList<>();
+        for (HierarchyItem item : hierarchy) {
+            result.add(merge(noteMap, item));
+        }
+        return result;
+    }
+
+    private static Note merge(Map<Long, com.bulletjournal.repository.models.Note> noteMap, HierarchyItem cur) {
+        Note note = noteMap.get(cur.getId()).toPresentationModel();
+        for (HierarchyItem subItem : cur.getS()) {
+            note.addSubNote(merge(noteMap, subItem));
+        }
+        return note;
+    }
+
     private static Note merge(Map<Long, com.bulletjournal.repository.models.Note> noteMap, Note cur) {
         cur.clone(noteMap.get(cur.getId()).toPresentationModel());
         for (Note subNote : cur.getSubNotes()) {
@@ -38,4 +55,14 @@ public class NoteRelationsProcessor {
         // replace "subNotes" with "s" to save space
         return jsonString.replace(SUB_NOTES_KEY, HierarchyItem.SUB_ITEMS_KEY_REPLACEMENT);
     }
-}
\ No newline at end of file
+
+    public static List<HierarchyItem> toHierarchy(List<Note> notes) {
+        List<HierarchyItem> hierarchy = new ArrayList<>();
+        for (Note note : notes) {
+            HierarchyItem item = new HierarchyItem(note.getId());
+            item.setS(toHierarchy(note.getSubNotes()));
+            hierarchy.add(item);
+        }
+        return hierarchy;
+    }
+}
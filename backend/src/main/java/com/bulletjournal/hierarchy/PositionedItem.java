@@ -0,0 +1,17 @@
+package com.bulletjournal.hierarchy;
+
+/**
+ * Item whose place in the hierarchy is stored as its parent id and its position among siblings
+ */
+public interface PositionedItem {
+
+    Long getId();
+
+    Long getParentId();
+
+    void setParentId(Long parentId);
+
+    Double getPosition();
+
+    void setPosition(Double position);
+}
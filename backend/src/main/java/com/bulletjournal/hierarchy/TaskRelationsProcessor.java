@@ -25,6 +25,23 @@ public class TaskRelationsProcessor {
         return tasks;
     }
 
+    public static List<Task> processRelations(
+            Map<Long, com.bulletjournal.repository.models.Task> taskMap, List<HierarchyItem> hierarchy) {
+        List<Task> result = new ArrayList<>();
+        for (HierarchyItem item : hierarchy) {
+            result.add(merge(taskMap, item));
+        }
+        return result;
+    }
+
+    private static Task merge(Map<Long, com.bulletjournal.repository.models.Task> taskMap, HierarchyItem cur) {
+        Task task = taskMap.get(cur.getId()).toPresentationModel();
+        for (HierarchyItem subItem : cur.getS()) {
+            task.addSubTask(merge(taskMap, subItem));
+        }
+        return task;
+    }
+
     private static Task merge(Map<Long, com.bulletjournal.repository.models.Task> taskMap, Task cur) {
         cur.clone(taskMap.get(cur.getId()).toPresentationModel());
         for (Task subNote : cur.getSubTasks()) {
@@ -38,4 +55,14 @@ public class TaskRelationsProcessor {
         // replace "subTasks" with "s" to save space
         return jsonString.replace(SUB_TASKS_KEY, HierarchyItem.SUB_ITEMS_KEY_REPLACEMENT);
     }
-}
\ No newline at end of file
+
+    public static List<HierarchyItem> toHierarchy(List<Task> tasks) {
+        List<HierarchyItem> hierarchy = new ArrayList<>();
+        for (Task task : tasks) {
+            HierarchyItem item = new HierarchyItem(task.getId());
+            item.setS(toHierarchy(task.getSubTasks()));
+            hierarchy.add(item);
+        }
+        return hierarchy;
+    }
+}
@@ -0,0 +1,247 @@
+package com.bulletjournal.ledger;
+
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.TransactionsSummary;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.WeekFields;
+import java.util.*;
+
+/**
+ * Single-pass aggregation of transactions into ledger summaries.
+ * <p>
+ * Each transaction is added once and updates every requested summary type. Periods are keyed by
+ * numbers derived from the "yyyy-MM-dd" date, and names are only formatted once per bucket when
+ * summaries are built. Amounts are summed exactly in {@link Money} minor units.
+ */
+public class LedgerAggregator {
+
+    // Sunday-first weeks with ISO minimal days, as the Calendar based week names used
+    private static final WeekFields WEEK_FIELDS = WeekFields.of(DayOfWeek.SUNDAY, 4);
+
+    private static final Comparator<TransactionsSummary> BY_NAME = Comparator.comparing(
+            TransactionsSummary::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Set<LedgerSummaryType> types;
+    private final FrequencyType frequencyType;
+    private final Map<Long, Bucket> periods = new HashMap<>();
+    private final Map<String, Bucket> labels = new HashMap<>();
+    private final Map<String, Bucket> payers = new HashMap<>();
+    private long totalIncome = 0;
+    private long totalExpense = 0;
+
+    /**
+     * @param types         summary types to compute
+     * @param frequencyType period of DEFAULT summary, unused otherwise
+     */
+    public LedgerAggregator(Set<LedgerSummaryType> types, FrequencyType frequencyType) {
+        if (types.contains(LedgerSummaryType.DEFAULT) && frequencyType == null) {
+            throw new IllegalArgumentException("FrequencyType required for DEFAULT ledger summary");
+        }
+        this.types = EnumSet.copyOf(types);
+        this.frequencyType = frequencyType;
+    }
+
+    /**
+     * @param transactionType   transaction type value
+     * @param amount            transaction amount in minor units
+     * @param date              transaction date in "yyyy-MM-dd"
+     * @param payer             transaction payer
+     * @param transactionLabels transaction labels
+     */
+    public void add(int transactionType, long amount, String date, String payer, List<Label> transactionLabels) {
+        addTotal(transactionType, amount);
+        if (this.types.contains(LedgerSummaryType.DEFAULT)) {
+            long key = getPeriodKey(this.frequencyType, date);
+            Bucket bucket = this.periods.get(key);
+            if (bucket == null) {
+                bucket = getPeriod(key);
+                if (this.frequencyType == FrequencyType.WEEKLY) {
+                    // same for every day of the bucket
+                    long day = LocalDate.parse(date).toEpochDay();
+                    bucket.weekStart = day - Math.floorMod(day + 4, 7);
+                }
+            }
+            bucket.add(isIncome(transactionType), amount, 1);
+        }
+        if (this.types.contains(LedgerSummaryType.LABEL)) {
+            for (Label label : transactionLabels) {
+                addLabel(label.getValue(), transactionType, amount, 1);
+            }
+        }
+        if (this.types.contains(LedgerSummaryType.PAYER)) {
+            addPayer(payer, transactionType, amount, 1);
+        }
+    }
+
+    /**
+     * Add pre-aggregated amounts, e.g. from ledger rollups. Totals are only counted by
+     * {@link #addTotal(int, long)}.
+     */
+    public void addTotal(int transactionType, long amount) {
+        if (isIncome(transactionType)) {
+            this.totalIncome = Money.add(this.totalIncome, amount);
+        } else {
+            this.totalExpense = Money.add(this.totalExpense, amount);
+        }
+    }
+
+    public void addPeriod(long periodKey, int transactionType, long amount, int count) {
+        if (this.frequencyType == FrequencyType.WEEKLY) {
+            throw new IllegalArgumentException("Weekly periods are only aggregated from transactions");
+        }
+        getPeriod(periodKey).add(isIncome(transactionType), amount, count);
+    }
+
+    public void addLabel(String label, int transactionType, long amount, int count) {
+        this.labels.computeIfAbsent(label, k -> new Bucket()).add(isIncome(transactionType), amount, count);
+    }
+
+    public void addPayer(String payer, int transactionType, long amount, int count) {
+        this.payers.computeIfAbsent(payer, k -> new Bucket()).add(isIncome(transactionType), amount, count);
+    }
+
+    private Bucket getPeriod(long periodKey) {
+        return this.periods.computeIfAbsent(periodKey, k -> new Bucket());
+    }
+
+    private static boolean isIncome(int transactionType) {
+        return TransactionType.getType(transactionType) == TransactionType.INCOME;
+    }
+
+    /**
+     * @param frequencyType the period type
+     * @param date          date in "yyyy-MM-dd"
+     * @return year for YEARLY, year * 12 + month - 1 for MONTHLY and
+     * (year * 12 + month - 1) * 8 + week of month for WEEKLY
+     */
+    public static long getPeriodKey(FrequencyType frequencyType, String date) {
+        int year = parse(date, 0, 4);
+        int month = parse(date, 5, 7);
+        switch (frequencyType) {
+            case YEARLY:
+                return year;
+            case MONTHLY:
+                return year * 12L + month - 1;
+            case WEEKLY:
+                LocalDate day = LocalDate.of(year, month, parse(date, 8, 10));
+                // weeks crossing months are split, one bucket per (month, week of month)
+                return (year * 12L + month - 1) * 8 + day.get(WEEK_FIELDS.weekOfMonth());
+            default:
+                throw new IllegalArgumentException("Invalid FrequencyType " + frequencyType);
+        }
+    }
+
+    private static int parse(String s, int begin, int end) {
+        int result = 0;
+        for (int i = begin; i < end; i++) {
+            result = result * 10 + (s.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    /**
+     * @return total income in minor units
+     */
+    public long getTotalIncome() {
+        return totalIncome;
+    }
+
+    /**
+     * @return total expense in minor units
+     */
+    public long getTotalExpense() {
+        return totalExpense;
+    }
+
+    /**
+     * @param type one of the summary types this aggregator computes
+     * @return summaries sorted by metadata for DEFAULT and by name otherwise
+     */
+    public List<TransactionsSummary> getTransactionsSummaries(LedgerSummaryType type) {
+        if (!this.types.contains(type)) {
+            throw new IllegalArgumentException("LedgerSummaryType " + type + " not aggregated");
+        }
+        List<TransactionsSummary> result = new ArrayList<>();
+        switch (type) {
+            case DEFAULT:
+                this.periods.forEach((k, v) -> result.add(toSummary(periodName(k), periodMetadata(k, v), v)));
+                result.sort(Comparator.comparing(TransactionsSummary::getMetadata));
+                break;
+            case LABEL:
+                this.labels.forEach((k, v) -> result.add(toSummary(k, null, v)));
+                result.sort(BY_NAME);
+                break;
+            case PAYER:
+                this.payers.forEach((k, v) -> result.add(toSummary(k, null, v)));
+                result.sort(BY_NAME);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid LedgerSummaryType " + type);
+        }
+        return result;
+    }
+
+    private String periodName(long key) {
+        switch (this.frequencyType) {
+            case YEARLY:
+                return String.valueOf(key);
+            case MONTHLY:
+                return (key / 12) + " " + Month.of((int) (key % 12) + 1).name();
+            case WEEKLY:
+                long month = key / 8;
+                return (month / 12) + " " + Month.of((int) (month % 12) + 1).name() + " Week " + (key % 8);
+            default:
+                throw new IllegalArgumentException("Invalid FrequencyType " + this.frequencyType);
+        }
+    }
+
+    private String periodMetadata(long key, Bucket bucket) {
+        switch (this.frequencyType) {
+            case YEARLY:
+                return String.valueOf(key);
+            case MONTHLY:
+                return String.format("%04d-%02d", key / 12, key % 12 + 1);
+            case WEEKLY:
+                return LocalDate.ofEpochDay(bucket.weekStart) + " " + LocalDate.ofEpochDay(bucket.weekStart + 6);
+            default:
+                throw new IllegalArgumentException("Invalid FrequencyType " + this.frequencyType);
+        }
+    }
+
+    private TransactionsSummary toSummary(String name, String metadata, Bucket bucket) {
+        long balance = Math.subtractExact(bucket.income, bucket.expense);
+        long totalBalance = Math.subtractExact(this.totalIncome, this.totalExpense);
+        return new TransactionsSummary(
+                name,
+                metadata,
+                Money.toDouble(bucket.income),
+                Money.percentage(bucket.income, this.totalIncome),
+                Money.toDouble(bucket.expense),
+                Money.percentage(bucket.expense, this.totalExpense),
+                Money.toDouble(balance),
+                Money.percentage(balance, totalBalance),
+                bucket.incomeCount,
+                bucket.expenseCount);
+    }
+
+    private static class Bucket {
+        long income = 0;
+        long expense = 0;
+        int incomeCount = 0;
+        int expenseCount = 0;
+        long weekStart;
+
+        void add(boolean income, long amount, int count) {
+            if (income) {
+                this.income = Money.add(this.income, amount);
+                this.incomeCount += count;
+            } else {
+                this.expense = Money.add(this.expense, amount);
+                this.expenseCount += count;
+            }
+        }
+    }
+}
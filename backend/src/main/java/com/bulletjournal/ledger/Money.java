@@ -0,0 +1,69 @@
+package com.bulletjournal.ledger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts as a long count of minor units, e.g. cents, at a fixed scale.
+ * <p>
+ * Amounts are stored as NUMERIC with {@link #SCALE} digits, so sums are exact and only converted
+ * to double when presented. Arithmetic throws {@link ArithmeticException} on overflow.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private static final long ONE = 100;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    // above this doubles no longer hold every minor unit exactly
+    private static final double MAX_EXACT = 1e15;
+
+    private Money() {
+    }
+
+    /**
+     * @param amount amount, rounded half up to {@link #SCALE} digits
+     * @return amount in minor units
+     */
+    public static long toMinorUnits(double amount) {
+        double scaled = amount * ONE;
+        if (Math.abs(scaled) < MAX_EXACT) {
+            long rounded = Math.round(scaled);
+            if (Math.abs(scaled - rounded) < 1e-6) {
+                // already at scale, e.g. read from a NUMERIC column
+                return rounded;
+            }
+        }
+        return toMinorUnits(BigDecimal.valueOf(amount));
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static double toDouble(long minorUnits) {
+        return (double) minorUnits / ONE;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * @return part / total in percent, rounded half up to 2 digits, or 0 if total is 0
+     */
+    public static double percentage(long part, long total) {
+        if (total == 0) {
+            return 0.0;
+        }
+        // part * 100 overflows long for amounts users can reach, e.g. sums over many years
+        return BigDecimal.valueOf(part).multiply(HUNDRED)
+                .divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -1,7 +1,10 @@
 package com.bulletjournal.notifications;
 
+import com.bulletjournal.config.NotificationConfig;
 import com.bulletjournal.repository.NotificationDaoJpa;
 import com.bulletjournal.util.CustomThreadFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,19 +16,33 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
 
+/**
+ * Persists notifications of {@link Informed} events in the background.
+ * <p>
+ * Events go through a bounded queue. A single worker groups them into batches of
+ * notification.pipeline.batchSize notifications, flushing a partial batch after
+ * notification.pipeline.flushIntervalMillis. On shutdown, queued events are drained before the worker exits.
+ */
 @Service
 public class NotificationService {
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationService.class);
     private final ExecutorService executorService;
-    private final BlockingQueue<Informed> eventQueue;
+    private final BlockingQueue<QueuedInformed> eventQueue;
     private final NotificationDaoJpa notificationDaoJpa;
+    private final NotificationConfig.Pipeline pipelineConfig;
+    private final MeterRegistry meterRegistry;
     private volatile boolean stop = false;
 
     @Autowired
-    public NotificationService(NotificationDaoJpa notificationDaoJpa) {
+    public NotificationService(NotificationDaoJpa notificationDaoJpa,
+                               NotificationConfig notificationConfig,
+                               MeterRegistry meterRegistry) {
         this.notificationDaoJpa = notificationDaoJpa;
+        this.pipelineConfig = notificationConfig.getPipeline();
+        this.meterRegistry = meterRegistry;
         this.executorService = Executors.newSingleThreadExecutor(new CustomThreadFactory("notification-service"));
-        this.eventQueue = new LinkedBlockingQueue<>();
+        this.eventQueue = new LinkedBlockingQueue<>(this.pipelineConfig.getQueueCapacity());
+        this.meterRegistry.gaugeCollectionSize("notification.queue.depth", Tags.empty(), this.eventQueue);
     }
 
     @PostConstruct
@@ -38,44 +55,104 @@ public class NotificationService {
         if (informed.getEvents().isEmpty()) {
             return;
         }
-        this.eventQueue.offer(informed);
+        if (this.stop) {
+            LOGGER.error("NotificationService is stopped, dropping informed: " + informed);
+            this.meterRegistry.counter("notification.queue.dropped").increment();
+            return;
+        }
+
+        QueuedInformed queued = new QueuedInformed(informed);
+        boolean accepted;
+        try {
+            accepted = this.pipelineConfig.getOverflowPolicy() == NotificationConfig.OverflowPolicy.BLOCK
+                    ? this.eventQueue.offer(queued, this.pipelineConfig.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)
+                    : this.eventQueue.offer(queued);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            LOGGER.error("eventQueue is full, dropping informed: " + informed);
+            this.meterRegistry.counter("notification.queue.dropped").increment();
+        }
     }
 
     public void handleNotifications() {
         Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-        List<Informed> events = new ArrayList<>();
+        List<QueuedInformed> batch = new ArrayList<>();
+        int batchNotifications = 0;
+        long flushDeadline = 0;
 
-        while (!stop) {
+        while (!this.stop || !this.eventQueue.isEmpty() || !batch.isEmpty()) {
+            QueuedInformed queued = null;
             try {
-                // waiting until an element becomes available
-                events.add(this.eventQueue.take());
+                long timeout = batch.isEmpty()
+                        ? this.pipelineConfig.getFlushIntervalMillis()
+                        : TimeUnit.NANOSECONDS.toMillis(flushDeadline - System.nanoTime());
+                queued = this.eventQueue.poll(Math.max(timeout, 0), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                LOGGER.error("Interrupted on polling from eventQueue", ex);
             } catch (Exception ex) {
-                LOGGER.error("Error on taking from eventQueue", ex);
+                LOGGER.error("Error on polling from eventQueue", ex);
             }
-            try {
-                this.eventQueue.drainTo(events);
-            } catch (Exception ex) {
-                LOGGER.error("Error on draining from eventQueue", ex);
+
+            if (queued != null) {
+                if (batch.isEmpty()) {
+                    flushDeadline = System.nanoTime()
+                            + TimeUnit.MILLISECONDS.toNanos(this.pipelineConfig.getFlushIntervalMillis());
+                }
+                batch.add(queued);
+                batchNotifications += queued.informed.getEvents().size();
             }
-            try {
-                this.notificationDaoJpa.create(events);
-            } catch (Exception ex) {
-                LOGGER.error("Error on creating records in notificationDaoJpa", ex);
+
+            boolean full = batchNotifications >= this.pipelineConfig.getBatchSize();
+            boolean due = System.nanoTime() - flushDeadline >= 0 || (this.stop && this.eventQueue.isEmpty());
+            if (!batch.isEmpty() && (full || due)) {
+                flush(batch, batchNotifications);
+                batch = new ArrayList<>();
+                batchNotifications = 0;
             }
-            events = new ArrayList<>();
         }
     }
 
+    private void flush(List<QueuedInformed> batch, int batchNotifications) {
+        List<Informed> events = new ArrayList<>(batch.size());
+        for (QueuedInformed queued : batch) {
+            events.add(queued.informed);
+        }
+        try {
+            this.notificationDaoJpa.create(events);
+        } catch (Exception ex) {
+            LOGGER.error("Error on creating records in notificationDaoJpa", ex);
+        }
+        this.meterRegistry.summary("notification.batch.size").record(batchNotifications);
+        // time the oldest event in batch waited until persisted
+        this.meterRegistry.timer("notification.drain.latency")
+                .record(System.nanoTime() - batch.get(0).enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
     @PreDestroy
     public void preDestroy() {
         this.stop = true;
         if (executorService != null) {
+            executorService.shutdown();
             try {
-                // wait 5 seconds for closing all threads
-                executorService.awaitTermination(5, TimeUnit.SECONDS);
+                // wait for worker to drain queued events
+                if (!executorService.awaitTermination(this.pipelineConfig.getShutdownTimeoutSeconds(), TimeUnit.SECONDS)) {
+                    LOGGER.error("NotificationService shut down with {} informed not persisted", this.eventQueue.size());
+                }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         }
     }
+
+    private static class QueuedInformed {
+        private final Informed informed;
+        private final long enqueuedAt = System.nanoTime();
+
+        QueuedInformed(Informed informed) {
+            this.informed = informed;
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package com.bulletjournal.reminders;
+
+import com.bulletjournal.controller.models.Task;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reminder of a task, or of one occurrence of a recurring task
+ */
+public class Reminder {
+
+    private final Long taskId;
+    private final List<String> assignees;
+    private final long startTime;
+    private final long reminderTime;
+    private final Task task;
+
+    public Reminder(Long taskId, List<String> assignees, long startTime, long reminderTime, Task task) {
+        this.taskId = taskId;
+        this.assignees = assignees;
+        this.startTime = startTime;
+        this.reminderTime = reminderTime;
+        this.task = task;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public List<String> getAssignees() {
+        return assignees;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getReminderTime() {
+        return reminderTime;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Reminder reminder = (Reminder) o;
+        return startTime == reminder.startTime && Objects.equals(taskId, reminder.taskId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(taskId, startTime);
+    }
+
+    @Override
+    public String toString() {
+        return "Reminder{" +
+                "taskId=" + taskId +
+                ", startTime=" + startTime +
+                ", reminderTime=" + reminderTime +
+                '}';
+    }
+}
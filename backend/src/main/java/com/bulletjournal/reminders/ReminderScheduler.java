@@ -0,0 +1,243 @@
+package com.bulletjournal.reminders;
+
+import com.bulletjournal.config.ReminderConfig;
+import com.bulletjournal.controller.models.Task;
+import com.bulletjournal.repository.TaskDaoJpa;
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.bulletjournal.util.CustomThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps upcoming task reminders in a {@link TimingWheel} and moves them into per-user ready sets once due.
+ * <p>
+ * Reminders are loaded from database one window (reminder.loadWindowMinutes) ahead of time, and the whole
+ * state is rebuilt on startup. Task writes reschedule their tasks after commit by reading them again.
+ * Loading and rescheduling are serialized, so the latest committed state of a task always wins. A ready
+ * reminder stays until its task starts, and is also pushed to the streams of its assignees.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReminderScheduler.class);
+    private static final String REMINDER_EVENT = "reminder";
+
+    private final ScheduledExecutorService executorService =
+            Executors.newSingleThreadScheduledExecutor(new CustomThreadFactory("reminder-scheduler"));
+    private final Map<String, Set<Reminder>> readyReminders = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private final Map<Long, List<TimingWheel.Entry<Reminder>>> scheduledReminders = new HashMap<>();
+    private TimingWheel<Reminder> wheel;
+    private long loadedUntil;
+
+    @Autowired
+    private TaskDaoJpa taskDaoJpa;
+
+    @Autowired
+    private ReminderConfig reminderConfig;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        publish(rebuild());
+        int tickMillis = this.reminderConfig.getTickMillis();
+        this.executorService.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        this.executorService.shutdownNow();
+        this.emitters.values().forEach(userEmitters -> userEmitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * Get reminders of tasks that are due and not started yet
+     *
+     * @param username the username of task assignee
+     * @return tasks ordered by start time
+     */
+    public List<Task> getReminders(String username) {
+        Set<Reminder> reminders = this.readyReminders.get(username);
+        if (reminders == null) {
+            return new ArrayList<>();
+        }
+        long now = System.currentTimeMillis();
+        return reminders.stream()
+                .filter(reminder -> reminder.getStartTime() > now)
+                .sorted(Comparator.comparingLong(Reminder::getStartTime).thenComparing(Reminder::getTaskId))
+                .map(Reminder::getTask)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Open a stream of reminders, starting with the ones already due
+     *
+     * @param username the username of task assignee
+     * @return SseEmitter sending a "reminder" event per due task
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(this.reminderConfig.getStreamTimeoutMinutes()));
+        List<SseEmitter> userEmitters = this.emitters.computeIfAbsent(username, k -> new CopyOnWriteArrayList<>());
+        userEmitters.add(emitter);
+        emitter.onCompletion(() -> userEmitters.remove(emitter));
+        emitter.onTimeout(() -> userEmitters.remove(emitter));
+        for (Task task : getReminders(username)) {
+            if (!send(emitter, task)) {
+                userEmitters.remove(emitter);
+                break;
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Reschedule reminders of tasks once current transaction commits
+     *
+     * @param taskIds ids of created, updated, completed or deleted tasks
+     */
+    public void reschedule(Collection<Long> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(taskIds);
+        DaoHelper.afterCommit(() -> publish(doReschedule(ids)));
+    }
+
+    private synchronized List<Reminder> rebuild() {
+        long now = System.currentTimeMillis();
+        this.wheel = new TimingWheel<>(this.reminderConfig.getTickMillis(), this.reminderConfig.getWheelSize(), now);
+        this.scheduledReminders.clear();
+        this.readyReminders.clear();
+        this.loadedUntil = now + TimeUnit.MINUTES.toMillis(this.reminderConfig.getLoadWindowMinutes());
+
+        List<Reminder> fired = new ArrayList<>();
+        List<Reminder> reminders = this.taskDaoJpa.getRemindersBetween(0, this.loadedUntil, now);
+        reminders.forEach(reminder -> schedule(reminder, now, fired));
+        LOGGER.info("Reminders rebuilt: {} loaded, {} due", reminders.size(), fired.size());
+        return fired;
+    }
+
+    private void tick() {
+        try {
+            publish(advance());
+        } catch (Exception ex) {
+            LOGGER.error("Error on advancing reminders", ex);
+        }
+    }
+
+    private synchronized List<Reminder> advance() {
+        long now = System.currentTimeMillis();
+        List<Reminder> fired = new ArrayList<>();
+        this.wheel.advance(now, reminder -> {
+            unlink(reminder);
+            fire(reminder, now, fired);
+        });
+
+        // keep at least half a window loaded ahead
+        long window = TimeUnit.MINUTES.toMillis(this.reminderConfig.getLoadWindowMinutes());
+        while (this.loadedUntil - window / 2 <= now) {
+            long from = this.loadedUntil;
+            this.taskDaoJpa.getRemindersBetween(from, from + window, now)
+                    .forEach(reminder -> schedule(reminder, now, fired));
+            this.loadedUntil = from + window;
+        }
+
+        // drop reminders of started tasks
+        this.readyReminders.values().forEach(reminders -> reminders.removeIf(r -> r.getStartTime() <= now));
+        this.readyReminders.values().removeIf(Set::isEmpty);
+        return fired;
+    }
+
+    private synchronized List<Reminder> doReschedule(List<Long> taskIds) {
+        if (this.wheel == null) {
+            // not started yet, rebuild loads them
+            return Collections.emptyList();
+        }
+        for (Long taskId : taskIds) {
+            List<TimingWheel.Entry<Reminder>> entries = this.scheduledReminders.remove(taskId);
+            if (entries != null) {
+                entries.forEach(TimingWheel.Entry::cancel);
+            }
+        }
+        Set<Long> ids = new HashSet<>(taskIds);
+        this.readyReminders.values().forEach(reminders -> reminders.removeIf(r -> ids.contains(r.getTaskId())));
+
+        long now = System.currentTimeMillis();
+        List<Reminder> fired = new ArrayList<>();
+        this.taskDaoJpa.getRemindersBetween(taskIds, 0, this.loadedUntil, now)
+                .forEach(reminder -> schedule(reminder, now, fired));
+        return fired;
+    }
+
+    private void schedule(Reminder reminder, long now, List<Reminder> fired) {
+        TimingWheel.Entry<Reminder> entry = new TimingWheel.Entry<>(reminder.getReminderTime(), reminder);
+        if (reminder.getReminderTime() <= now || !this.wheel.add(entry)) {
+            fire(reminder, now, fired);
+            return;
+        }
+        this.scheduledReminders.computeIfAbsent(reminder.getTaskId(), k -> new ArrayList<>()).add(entry);
+    }
+
+    private void unlink(Reminder reminder) {
+        List<TimingWheel.Entry<Reminder>> entries = this.scheduledReminders.get(reminder.getTaskId());
+        if (entries == null) {
+            return;
+        }
+        entries.removeIf(entry -> entry.getItem() == reminder);
+        if (entries.isEmpty()) {
+            this.scheduledReminders.remove(reminder.getTaskId());
+        }
+    }
+
+    private void fire(Reminder reminder, long now, List<Reminder> fired) {
+        if (reminder.getStartTime() <= now) {
+            return;
+        }
+        for (String assignee : reminder.getAssignees()) {
+            this.readyReminders.computeIfAbsent(assignee, k -> ConcurrentHashMap.newKeySet()).add(reminder);
+        }
+        fired.add(reminder);
+    }
+
+    /**
+     * Push fired reminders to streams of their assignees, outside of lock as clients may be slow
+     */
+    private void publish(List<Reminder> fired) {
+        for (Reminder reminder : fired) {
+            for (String assignee : reminder.getAssignees()) {
+                List<SseEmitter> userEmitters = this.emitters.get(assignee);
+                if (userEmitters == null) {
+                    continue;
+                }
+                for (SseEmitter emitter : userEmitters) {
+                    if (!send(emitter, reminder.getTask())) {
+                        userEmitters.remove(emitter);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, Task task) {
+        try {
+            emitter.send(SseEmitter.event().name(REMINDER_EVENT).data(task, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bulletjournal.reminders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, not thread safe.
+ * <p>
+ * The lowest level has wheelSize buckets of tickMillis each. Entries further out go to an
+ * overflow level whose buckets span a whole lower level, created on demand. When the lower
+ * level starts a new round, the matching overflow bucket is moved down. Adding and cancelling
+ * are O(1), advancing costs one bucket per tick plus the entries moved down.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTime;
+    private TimingWheel<T> overflowWheel;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("Invalid tickMillis " + tickMillis + " or wheelSize " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+
+    /**
+     * Add entry to wheel
+     *
+     * @return false if entry is already due, in which case it is not added
+     */
+    public boolean add(Entry<T> entry) {
+        long expiration = entry.expiration;
+        if (expiration < this.currentTime) {
+            return false;
+        }
+        if (expiration < this.currentTime + this.interval) {
+            bucket(expiration).add(entry);
+            return true;
+        }
+        if (this.overflowWheel == null) {
+            this.overflowWheel = new TimingWheel<>(this.interval, this.wheelSize, this.currentTime);
+        }
+        return this.overflowWheel.add(entry);
+    }
+
+    /**
+     * Advance wheel to now, passing items of entries that became due to consumer
+     */
+    public void advance(long now, Consumer<T> consumer) {
+        while (this.currentTime + this.tickMillis <= now) {
+            List<Entry<T>> bucket = bucket(this.currentTime);
+            for (Entry<T> entry : bucket) {
+                if (!entry.cancelled) {
+                    consumer.accept(entry.item);
+                }
+            }
+            bucket.clear();
+            this.currentTime += this.tickMillis;
+            if (this.overflowWheel != null && Math.floorMod(this.currentTime, this.interval) == 0) {
+                this.overflowWheel.startRound(this.currentTime, this);
+            }
+        }
+    }
+
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * Move entries of the round starting at time down to root
+     */
+    private void startRound(long time, TimingWheel<T> root) {
+        this.currentTime = time;
+        if (this.overflowWheel != null && Math.floorMod(time, this.interval) == 0) {
+            this.overflowWheel.startRound(time, root);
+        }
+        List<Entry<T>> bucket = bucket(time);
+        List<Entry<T>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<T> entry : entries) {
+            if (!entry.cancelled) {
+                root.add(entry);
+            }
+        }
+    }
+
+    private List<Entry<T>> bucket(long expiration) {
+        return this.buckets.get((int) Math.floorMod(expiration / this.tickMillis, (long) this.wheelSize));
+    }
+
+    public static class Entry<T> {
+        private final long expiration;
+        private final T item;
+        private volatile boolean cancelled;
+
+        public Entry(long expiration, T item) {
+            this.expiration = expiration;
+            this.item = item;
+        }
+
+        public long getExpiration() {
+            return expiration;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancelled entries stay in their bucket and are skipped once reached
+         */
+        public void cancel() {
+            this.cancelled = true;
+        }
+    }
+}
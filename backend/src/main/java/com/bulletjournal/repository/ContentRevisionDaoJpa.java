@@ -0,0 +1,230 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.config.ContentRevisionConfig;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Revision;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.repository.models.ContentModel;
+import com.bulletjournal.repository.models.ContentRevision;
+import com.bulletjournal.util.ContentDiffTool;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revision store of contents: periodic keyframe snapshots plus forward diffs, one row per revision.
+ * <p>
+ * Saving appends one row. Reading revision N loads its keyframe and the diffs after it,
+ * so it applies at most revision.keyframeInterval - 1 diffs regardless of content age.
+ */
+@Repository
+public class ContentRevisionDaoJpa {
+
+    private static final Gson GSON = new Gson();
+
+    @Autowired
+    private ContentRevisionRepository contentRevisionRepository;
+
+    @Autowired
+    private ContentRevisionConfig revisionConfig;
+
+    @Autowired
+    private ContentDiffTool contentDiffTool;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Append revision for content being changed from oldText to newText
+     *
+     * @param contentType type of project item owning the content
+     * @param content     the content, already persisted
+     * @param oldText     text of latest revision, null for new content
+     * @param newText     text of the revision to append
+     * @param requester   the username of action requester
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <K extends ContentModel> void appendRevision(
+            ContentType contentType, K content, String oldText, String newText, String requester) {
+        String type = contentType.name();
+        ContentRevision last = this.contentRevisionRepository
+                .findTopByContentTypeAndContentIdOrderByRevisionIdDesc(type, content.getId())
+                .orElse(null);
+        if (last == null && content.getRevisions() != null) {
+            last = importLegacyRevisions(type, content);
+        }
+
+        long revisionId = last == null ? 1 : last.getRevisionId() + 1;
+        ContentRevision revision = new ContentRevision(
+                type, content.getId(), revisionId, Instant.now().toEpochMilli(), requester);
+        boolean keyframe = last == null || revisionId - last.getKeyframeId() >= this.revisionConfig.getKeyframeInterval();
+        String diff = keyframe ? null : computeDiff(type, oldText, newText);
+        if (diff == null) {
+            keyframe = true;
+            revision.setKeyframeId(revisionId);
+            revision.setSnapshot(newText);
+        } else {
+            revision.setKeyframeId(last.getKeyframeId());
+            revision.setDiff(diff);
+        }
+        this.contentRevisionRepository.save(revision);
+
+        if (keyframe) {
+            deleteExpiredRevisions(type, content.getId(), revisionId);
+        }
+    }
+
+    /**
+     * Compute diff within budget of revision config, recording diff time and sizes per content type
+     *
+     * @return diff, or null if revision should be stored as full snapshot
+     */
+    private String computeDiff(String type, String oldText, String newText) {
+        long start = System.nanoTime();
+        String diff = this.contentDiffTool.computeDiff(oldText, newText,
+                this.revisionConfig.getDiffTimeoutMillis(),
+                this.revisionConfig.getMaxDiffInputLength(),
+                this.revisionConfig.getDiffLineModeThreshold());
+        this.meterRegistry.timer("content.revision.diff.time", "contentType", type)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        this.meterRegistry.summary("content.revision.text.size", "contentType", type)
+                .record(newText == null ? 0 : newText.length());
+        if (diff == null) {
+            this.meterRegistry.counter("content.revision.snapshot.fallback", "contentType", type).increment();
+        } else {
+            this.meterRegistry.summary("content.revision.diff.size", "contentType", type).record(diff.length());
+        }
+        return diff;
+    }
+
+    /**
+     * Keep the latest maxRevisionNumber revisions, plus the keyframe the oldest of them is replayed from
+     */
+    private void deleteExpiredRevisions(String type, Long contentId, long latestRevisionId) {
+        long oldestRevisionId = latestRevisionId - this.revisionConfig.getMaxRevisionNumber() + 1;
+        if (oldestRevisionId <= 1) {
+            return;
+        }
+        this.contentRevisionRepository.findByContentTypeAndContentIdAndRevisionId(type, contentId, oldestRevisionId)
+                .ifPresent(oldest -> this.contentRevisionRepository.deleteRevisionsBefore(
+                        type, contentId, oldest.getKeyframeId()));
+    }
+
+    /**
+     * Move revisions stored as JSON in content into the revision store
+     *
+     * @return the latest imported revision
+     */
+    private <K extends ContentModel> ContentRevision importLegacyRevisions(String type, K content) {
+        Revision[] revisions = GSON.fromJson(content.getRevisions(), Revision[].class);
+        ContentRevision last = null;
+        String text = content.getBaseText();
+        for (Revision revision : revisions) {
+            String newText = this.contentDiffTool.applyDiff(text, revision.getDiff());
+            ContentRevision imported = new ContentRevision(
+                    type, content.getId(), revision.getId(), revision.getCreatedAt(), revision.getUser());
+            String diff = last == null
+                    || revision.getId() - last.getKeyframeId() >= this.revisionConfig.getKeyframeInterval()
+                    ? null : computeDiff(type, text, newText);
+            if (diff == null) {
+                imported.setKeyframeId(revision.getId());
+                imported.setSnapshot(newText);
+            } else {
+                imported.setKeyframeId(last.getKeyframeId());
+                imported.setDiff(diff);
+            }
+            last = this.contentRevisionRepository.save(imported);
+            text = newText;
+        }
+        content.setRevisions(null);
+        content.setBaseText(null);
+        return last;
+    }
+
+    /**
+     * Get revision with its full content
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Revision getRevision(ContentType contentType, Long contentId, Long revisionId) {
+        String type = contentType.name();
+        ContentRevision target = this.contentRevisionRepository
+                .findByContentTypeAndContentIdAndRevisionId(type, contentId, revisionId)
+                .orElseThrow(() -> new BadRequestException(
+                        "Invalid revisionId: " + revisionId + " for content: " + contentId));
+
+        Revision revision = target.toPresentationModel();
+        if (target.isKeyframe()) {
+            revision.setContent(target.getSnapshot());
+            return revision;
+        }
+
+        List<ContentRevision> chain = this.contentRevisionRepository
+                .findByContentTypeAndContentIdAndRevisionIdBetweenOrderByRevisionIdAsc(
+                        type, contentId, target.getKeyframeId(), revisionId);
+        String text = chain.get(0).getSnapshot();
+        for (ContentRevision diff : chain.subList(1, chain.size())) {
+            text = this.contentDiffTool.applyDiff(text, diff.getDiff());
+        }
+        revision.setContent(text);
+        return revision;
+    }
+
+    public boolean hasRevision(ContentType contentType, Long contentId) {
+        return this.contentRevisionRepository
+                .findTopByContentTypeAndContentIdOrderByRevisionIdDesc(contentType.name(), contentId).isPresent();
+    }
+
+    /**
+     * Get the latest maxRevisionNumber revisions of contents, without content and diff
+     *
+     * @return content id -> revisions ordered by revision id
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Map<Long, List<Revision>> getRevisions(ContentType contentType, Collection<Long> contentIds) {
+        Map<Long, List<Revision>> result = new HashMap<>();
+        if (contentIds.isEmpty()) {
+            return result;
+        }
+        for (Object[] row : this.contentRevisionRepository.findRevisionHeaders(contentType.name(), contentIds)) {
+            result.computeIfAbsent((Long) row[0], k -> new ArrayList<>())
+                    .add(new Revision((Long) row[1], null, (Long) row[2], (String) row[3]));
+        }
+        int maxRevisionNumber = this.revisionConfig.getMaxRevisionNumber();
+        for (Map.Entry<Long, List<Revision>> entry : result.entrySet()) {
+            List<Revision> revisions = entry.getValue();
+            if (revisions.size() > maxRevisionNumber) {
+                entry.setValue(new ArrayList<>(revisions.subList(revisions.size() - maxRevisionNumber, revisions.size())));
+            }
+        }
+        return result;
+    }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteRevisions(ContentType contentType, Long contentId) {
+        this.contentRevisionRepository.deleteRevisions(contentType.name(), contentId);
+    }
+
+    /**
+     * Delete revisions of all contents of project items, before deleting the project items
+     * since revisions do not cascade with their contents
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteProjectItemRevisions(ContentType contentType, Collection<Long> projectItemIds) {
+        this.contentRevisionRepository.deleteByProjectItems(contentType, projectItemIds);
+    }
+
+    /**
+     * Delete revisions of all contents in projects, before deleting the projects
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteProjectRevisions(Collection<Long> projectIds) {
+        this.contentRevisionRepository.deleteByProjects(projectIds);
+    }
+}
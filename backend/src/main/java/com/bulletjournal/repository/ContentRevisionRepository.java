@@ -0,0 +1,47 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.repository.models.ContentRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ContentRevisionRepository extends JpaRepository<ContentRevision, Long>, ContentRevisionRepositoryCustom {
+
+    Optional<ContentRevision> findTopByContentTypeAndContentIdOrderByRevisionIdDesc(
+            String contentType, Long contentId);
+
+    Optional<ContentRevision> findByContentTypeAndContentIdAndRevisionId(
+            String contentType, Long contentId, Long revisionId);
+
+    List<ContentRevision> findByContentTypeAndContentIdAndRevisionIdBetweenOrderByRevisionIdAsc(
+            String contentType, Long contentId, Long fromRevisionId, Long toRevisionId);
+
+    /**
+     * @return rows of [contentId, revisionId, createdAt, username], without snapshot and diff
+     */
+    @Query("SELECT r.contentId, r.revisionId, r.createdAt, r.username FROM ContentRevision r " +
+            "WHERE r.contentType = :contentType AND r.contentId IN :contentIds ORDER BY r.contentId, r.revisionId")
+    List<Object[]> findRevisionHeaders(@Param("contentType") String contentType,
+                                       @Param("contentIds") Collection<Long> contentIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentRevision r WHERE r.contentType = :contentType AND r.contentId = :contentId " +
+            "AND r.revisionId < :revisionId")
+    void deleteRevisionsBefore(@Param("contentType") String contentType,
+                               @Param("contentId") Long contentId,
+                               @Param("revisionId") Long revisionId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ContentRevision r WHERE r.contentType = :contentType AND r.contentId = :contentId")
+    void deleteRevisions(@Param("contentType") String contentType, @Param("contentId") Long contentId);
+}
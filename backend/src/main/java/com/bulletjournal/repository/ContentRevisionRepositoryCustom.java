@@ -0,0 +1,21 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+
+import java.util.Collection;
+
+public interface ContentRevisionRepositoryCustom {
+
+    /**
+     * Delete revisions of all contents of project items, before the project items are deleted
+     *
+     * @param contentType    TASK, NOTE or TRANSACTION
+     * @param projectItemIds ids of tasks, notes or transactions
+     */
+    void deleteByProjectItems(ContentType contentType, Collection<Long> projectItemIds);
+
+    /**
+     * Delete revisions of all contents of tasks, notes and transactions in projects, before the projects are deleted
+     */
+    void deleteByProjects(Collection<Long> projectIds);
+}
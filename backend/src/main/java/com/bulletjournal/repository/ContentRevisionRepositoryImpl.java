@@ -0,0 +1,65 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Repository
+@Transactional
+public class ContentRevisionRepositoryImpl implements ContentRevisionRepositoryCustom {
+
+    // project item table, content table and its project item column
+    private static final Map<ContentType, String[]> TABLES = new EnumMap<>(ContentType.class);
+
+    static {
+        TABLES.put(ContentType.TASK, new String[]{"tasks", "task_contents", "task_id"});
+        TABLES.put(ContentType.NOTE, new String[]{"notes", "note_contents", "note_id"});
+        TABLES.put(ContentType.TRANSACTION, new String[]{"transactions", "transaction_contents", "transaction_id"});
+    }
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void deleteByProjectItems(ContentType contentType, Collection<Long> projectItemIds) {
+        String[] tables = getTables(contentType);
+        if (projectItemIds.isEmpty()) {
+            return;
+        }
+        entityManager.createNativeQuery("DELETE FROM content_revisions WHERE content_type = :contentType"
+                + " AND content_id IN (SELECT c.id FROM " + tables[1] + " c WHERE c." + tables[2] + " IN (:ids))")
+                .setParameter("contentType", contentType.name())
+                .setParameter("ids", projectItemIds)
+                .executeUpdate();
+    }
+
+    @Override
+    public void deleteByProjects(Collection<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<ContentType, String[]> entry : TABLES.entrySet()) {
+            String[] tables = entry.getValue();
+            entityManager.createNativeQuery("DELETE FROM content_revisions WHERE content_type = :contentType"
+                    + " AND content_id IN (SELECT c.id FROM " + tables[1] + " c JOIN " + tables[0]
+                    + " i ON i.id = c." + tables[2] + " WHERE i.project_id IN (:ids))")
+                    .setParameter("contentType", entry.getKey().name())
+                    .setParameter("ids", projectIds)
+                    .executeUpdate();
+        }
+    }
+
+    private static String[] getTables(ContentType contentType) {
+        String[] tables = TABLES.get(contentType);
+        if (tables == null) {
+            throw new IllegalArgumentException("Invalid ContentType " + contentType);
+        }
+        return tables;
+    }
+}
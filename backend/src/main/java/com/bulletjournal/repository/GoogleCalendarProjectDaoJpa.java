@@ -21,14 +21,14 @@ public class GoogleCalendarProjectDaoJpa {
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public GoogleCalendarProject create(String calendarId, Long projectId, String channelId,
-                                        String channel, String requester) {
+                                        String channel, String syncToken, String requester) {
         Project project = this.projectDaoJpa.getProject(projectId, requester);
         ProjectType projectType = ProjectType.getType(project.getType());
         if (!ProjectType.TODO.equals(projectType)) {
             throw new BadRequestException("Invalid project type " + projectType);
         }
         GoogleCalendarProject googleCalendarProject = new GoogleCalendarProject(
-                calendarId, project, channelId, channel);
+                calendarId, project, channelId, channel, requester, syncToken);
         return this.googleCalendarProjectRepository.save(googleCalendarProject);
     }
 
@@ -39,6 +39,19 @@ public class GoogleCalendarProjectDaoJpa {
         return calendarProject;
     }
 
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public GoogleCalendarProject getByChannelId(String channelId) {
+        return this.googleCalendarProjectRepository.findByChannelId(channelId)
+                .orElseThrow(() -> new ResourceNotFoundException("Channel " + channelId + " not found"));
+    }
+
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void setSyncToken(String calendarId, String syncToken) {
+        GoogleCalendarProject calendarProject = get(calendarId);
+        calendarProject.setSyncToken(syncToken);
+        this.googleCalendarProjectRepository.save(calendarProject);
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void delete(String calendarId) {
         this.googleCalendarProjectRepository.delete(get(calendarId));
@@ -4,6 +4,10 @@ import com.bulletjournal.repository.models.GoogleCalendarProject;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface GoogleCalendarProjectRepository extends JpaRepository<GoogleCalendarProject, String> {
+
+    Optional<GoogleCalendarProject> findByChannelId(String channelId);
 }
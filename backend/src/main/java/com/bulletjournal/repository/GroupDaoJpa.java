@@ -6,6 +6,7 @@ import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.AddUserGroupParams;
 import com.bulletjournal.controller.models.RemoveUserGroupParams;
 import com.bulletjournal.controller.models.UpdateGroupParams;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
@@ -22,10 +23,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 
@@ -44,6 +42,12 @@ public class GroupDaoJpa {
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private EtagRegistry etagRegistry;
+
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Group create(String name, String owner) {
         User user = this.userDaoJpa.getByName(owner);
@@ -57,6 +61,7 @@ public class GroupDaoJpa {
         }
         group = this.groupRepository.save(group);
         this.userGroupRepository.save(new UserGroup(user, group, true));
+        this.etagRegistry.bump(EtagRegistry.Resource.GROUPS, owner);
         return group;
     }
 
@@ -81,15 +86,19 @@ public class GroupDaoJpa {
         }
 
         List<Event> events = new ArrayList<>();
+        List<String> users = new ArrayList<>();
         for (UserGroup userGroup : group.getUsers()) {
             this.userGroupRepository.delete(userGroup);
             String targetUser = userGroup.getUser().getName();
+            users.add(targetUser);
             if (!Objects.equals(targetUser, requester)) {
                 events.add(new Event(targetUser, userGroup.getGroup().getId(), userGroup.getGroup().getName()));
             }
         }
 
         this.groupRepository.delete(group);
+        this.groupMembershipCache.invalidate(groupId);
+        bumpMembershipEtags(groupId, users);
         return events;
     }
 
@@ -114,6 +123,7 @@ public class GroupDaoJpa {
         DaoHelper.updateIfPresent(
                 updateGroupParams.hasName(), updateGroupParams.getName(), (value) -> group.setName(value));
 
+        bumpMembershipEtags(groupId, Collections.emptyList());
         return this.groupRepository.save(group);
     }
 
@@ -193,6 +203,8 @@ public class GroupDaoJpa {
             User user = this.userDaoJpa.getByName(username);
             events.add(new Event(username, groupId, group.getName()));
             this.userGroupRepository.save(new UserGroup(user, group, false));
+            this.groupMembershipCache.invalidate(groupId);
+            bumpMembershipEtags(groupId, Collections.singletonList(username));
         }
 
         return new JoinGroupEvent(events, owner);
@@ -216,7 +228,9 @@ public class GroupDaoJpa {
             return null;
         }
         this.userGroupRepository.save(new UserGroup(user, group, false));
+        this.groupMembershipCache.invalidate(groupId);
 
+        bumpMembershipEtags(groupId, Collections.singletonList(username));
         return new JoinGroupEvent(new Event(username, groupId, group.getName()), owner);
     }
 
@@ -252,8 +266,23 @@ public class GroupDaoJpa {
                     .orElseThrow(() ->
                             new ResourceNotFoundException("UserGroupKey not found"));
             this.userGroupRepository.delete(userGroup);
+            this.groupMembershipCache.invalidate(groupId);
+            bumpMembershipEtags(groupId, Collections.singletonList(username));
             events.add(new Event(username, groupId, group.getName()));
         }
         return events;
     }
+
+    /**
+     * Group changes affect groups and shared projects of its members, invited ones included
+     *
+     * @param groupId the group id
+     * @param users   users just added to or removed from the group
+     */
+    public void bumpMembershipEtags(Long groupId, Collection<String> users) {
+        Set<String> members = new HashSet<>(users);
+        members.addAll(this.userGroupRepository.findUsernamesByGroupId(groupId));
+        this.etagRegistry.bump(EtagRegistry.Resource.GROUPS, members);
+        this.etagRegistry.bump(EtagRegistry.Resource.PROJECTS, members);
+    }
 }
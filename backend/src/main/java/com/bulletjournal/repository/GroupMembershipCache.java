@@ -0,0 +1,78 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.config.AuthzCacheConfig;
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches accepted members of each group, so authorization and event fan-out do not walk
+ * group.getUsers() lazily.
+ * <p>
+ * Membership writes call {@link #invalidate(Long)}, which drops the group once the transaction
+ * commits. A load racing with an invalidation is not cached. Entries also expire a while after
+ * loading, in case an invalidation is missed.
+ */
+@Component
+public class GroupMembershipCache {
+
+    private static final long MAX_CACHED_GROUPS = 10000;
+
+    private final AtomicLong generation = new AtomicLong();
+    private Cache<Long, Set<String>> cache;
+
+    @Autowired
+    private UserGroupRepository userGroupRepository;
+
+    @Autowired
+    private AuthzCacheConfig authzCacheConfig;
+
+    @PostConstruct
+    public void postConstruct() {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_GROUPS)
+                .expireAfterWrite(this.authzCacheConfig.getGroupMembersExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * @param groupId the group id
+     * @return usernames of accepted members
+     */
+    public Set<String> getAcceptedUsers(Long groupId) {
+        Set<String> users = this.cache.getIfPresent(groupId);
+        if (users != null) {
+            return users;
+        }
+        long loadedAt = this.generation.get();
+        users = ImmutableSet.copyOf(this.userGroupRepository.findAcceptedUsernamesByGroupId(groupId));
+        this.cache.put(groupId, users);
+        if (this.generation.get() != loadedAt) {
+            // invalidated while loading, may be stale
+            this.cache.invalidate(groupId);
+        }
+        return users;
+    }
+
+    public boolean isAcceptedUser(Long groupId, String username) {
+        return getAcceptedUsers(groupId).contains(username);
+    }
+
+    /**
+     * Drop group after current transaction commits
+     */
+    public void invalidate(Long groupId) {
+        DaoHelper.afterCommit(() -> {
+            this.generation.incrementAndGet();
+            this.cache.invalidate(groupId);
+        });
+    }
+}
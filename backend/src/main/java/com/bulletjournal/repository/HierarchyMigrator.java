@@ -0,0 +1,113 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.config.HierarchyConfig;
+import com.bulletjournal.hierarchy.HierarchyIndex;
+import com.bulletjournal.hierarchy.HierarchyItem;
+import com.bulletjournal.hierarchy.HierarchyPositions;
+import com.bulletjournal.hierarchy.PositionedItem;
+import com.bulletjournal.repository.models.Note;
+import com.bulletjournal.repository.models.Project;
+import com.bulletjournal.repository.models.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One-off migration of tasks/notes hierarchy from JSON documents
+ * (user_project_tasks, user_project_notes) into parent_id/position columns.
+ * <p>
+ * Each project is migrated in its own transaction. Projects that already have
+ * positioned items are skipped, so the migration can be re-run safely.
+ */
+@Component
+public class HierarchyMigrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HierarchyMigrator.class);
+
+    @Autowired
+    private HierarchyConfig hierarchyConfig;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private ProjectTasksRepository projectTasksRepository;
+    @Autowired
+    private ProjectNotesRepository projectNotesRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private NoteRepository noteRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (this.hierarchyConfig.isMigrate()) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        int tasks = 0;
+        for (Long projectId : this.projectTasksRepository.findAllProjectIds()) {
+            tasks += transactionTemplate.execute(status -> migrateProjectTasks(projectId));
+        }
+        int notes = 0;
+        for (Long projectId : this.projectNotesRepository.findAllProjectIds()) {
+            notes += transactionTemplate.execute(status -> migrateProjectNotes(projectId));
+        }
+        LOGGER.info("Hierarchy migration done: {} tasks and {} notes positioned", tasks, notes);
+    }
+
+    private int migrateProjectTasks(Long projectId) {
+        Project project = this.projectRepository.findById(projectId).orElse(null);
+        if (project == null) {
+            return 0;
+        }
+        List<Task> tasks = this.taskRepository.findTaskByProject(project);
+        List<Task> changed = assignPositions(
+                tasks, this.projectTasksRepository.findById(projectId).get().getTasks());
+        this.taskRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private int migrateProjectNotes(Long projectId) {
+        Project project = this.projectRepository.findById(projectId).orElse(null);
+        if (project == null) {
+            return 0;
+        }
+        List<Note> notes = this.noteRepository.findNoteByProject(project);
+        List<Note> changed = assignPositions(
+                notes, this.projectNotesRepository.findById(projectId).get().getNotes());
+        this.noteRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private static <T extends PositionedItem> List<T> assignPositions(List<T> items, String relations) {
+        if (items.stream().anyMatch(item -> item.getPosition() != null)) {
+            // already migrated
+            return new ArrayList<>();
+        }
+
+        Map<Long, T> itemMap = items.stream().collect(Collectors.toMap(PositionedItem::getId, Function.identity()));
+        HierarchyIndex index = HierarchyIndex.fromJson(relations, null);
+        // items missing from the JSON document are appended at root level
+        for (T item : items) {
+            if (!index.contains(item.getId())) {
+                index.addItem(new HierarchyItem(item.getId()));
+            }
+        }
+        return HierarchyPositions.assignPositions(index.getRoots(), itemMap);
+    }
+}
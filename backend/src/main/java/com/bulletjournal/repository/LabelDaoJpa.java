@@ -6,7 +6,10 @@ import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.ProjectItemType;
 import com.bulletjournal.controller.models.ProjectItems;
 import com.bulletjournal.controller.models.UpdateLabelParams;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.controller.utils.ProjectItemsGrouper;
+import com.bulletjournal.daemon.LabelCleaner;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.repository.models.*;
@@ -23,6 +26,17 @@ import java.util.stream.Collectors;
 @Repository
 public class LabelDaoJpa {
 
+    private static final long MAX_CACHED_LABELS = 100000;
+
+    private final LabelDictionary labelDictionary = new LabelDictionary(MAX_CACHED_LABELS,
+            ids -> this.labelRepository.findAllById(ids).stream()
+                    .map(Label::toPresentationModel)
+                    .collect(Collectors.toList()),
+            owner -> this.labelRepository.findByOwner(owner).stream()
+                    .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt()))
+                    .map(Label::toPresentationModel)
+                    .collect(Collectors.toList()));
+
     @Autowired
     private LabelRepository labelRepository;
 
@@ -38,6 +52,21 @@ public class LabelDaoJpa {
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private EtagRegistry etagRegistry;
+
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+
+    @Autowired
+    private LabelTombstoneRepository labelTombstoneRepository;
+
+    @Autowired
+    private LabelCleaner labelCleaner;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Label create(String name, String owner, String icon) {
         Label label = new Label();
@@ -50,6 +79,7 @@ public class LabelDaoJpa {
         }
 
         label = this.labelRepository.save(label);
+        this.labelDictionary.invalidate(owner, label.getId());
         return label;
     }
 
@@ -72,10 +102,15 @@ public class LabelDaoJpa {
 
         DaoHelper.updateIfPresent(updateLabelParams.hasValue(), updateLabelParams.getValue(),
                 label::setName);
+        if (updateLabelParams.hasValue()) {
+            this.searchIndexer.enqueueLabel(labelId);
+        }
 
         DaoHelper.updateIfPresent(updateLabelParams.hasIcon(), updateLabelParams.getIcon(),
                 label::setIcon);
 
+        bumpLabeledItemEtags();
+        this.labelDictionary.invalidate(label.getOwner(), labelId);
         return this.labelRepository.save(label);
     }
 
@@ -86,13 +121,12 @@ public class LabelDaoJpa {
         return label;
     }
 
+    /**
+     * @return labels of owner, most recently updated first
+     */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<Label> getLabels(String owner) {
-        List<Label> labels = this.labelRepository.findByOwner(owner)
-                .stream()
-                .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt()))
-                .collect(Collectors.toList());
-        return labels;
+    public List<com.bulletjournal.controller.models.Label> getLabels(String owner) {
+        return this.labelDictionary.getOwnerLabels(owner);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -104,32 +138,29 @@ public class LabelDaoJpa {
                 ContentType.LABEL, Operation.DELETE, labelId);
 
         this.labelRepository.delete(label);
+        this.labelDictionary.invalidate(label.getOwner(), labelId);
+        this.searchIndexer.enqueueLabel(labelId);
+        // project items referencing the label are cleaned in background
+        this.labelTombstoneRepository.save(new LabelTombstone(labelId, label.getOwner()));
+        DaoHelper.afterCommit(this.labelCleaner::schedule);
+        bumpLabeledItemEtags();
+    }
 
-        List<Task> tasks = this.taskRepository.findTasksByLabelId(labelId);
-        tasks.stream().forEach(
-                task -> task.setLabels(
-                        task.getLabels().stream().filter(id
-                                -> id != labelId).collect(Collectors.toList())));
-        this.taskRepository.saveAll(tasks);
-
-        List<Transaction> transactions = this.transactionRepository.findTransactionsByLabelId(labelId);
-        transactions.stream().forEach(
-                transaction -> transaction.setLabels(
-                        transaction.getLabels().stream().filter(id
-                                -> id != labelId).collect(Collectors.toList())));
-        this.transactionRepository.saveAll(transactions);
-
-        List<Note> notes = this.noteRepository.findNotesByLabelId(labelId);
-        notes.stream().forEach(
-                note -> note.setLabels(
-                        note.getLabels().stream().filter(id
-                                -> id != labelId).collect(Collectors.toList())));
-        this.noteRepository.saveAll(notes);
+    /**
+     * Tasks and notes embed their labels
+     */
+    private void bumpLabeledItemEtags() {
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.TASKS);
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.NOTES);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public List<ProjectItems> getItemsByLabels(String timezone, List<Long> labels, String requester) {
         List<Label> l = this.labelRepository.findAllById(labels);
+        if (l.size() < new HashSet<>(labels).size()) {
+            // deleted labels are no longer carried by any item, even if not cleaned yet
+            return new ArrayList<>();
+        }
 
         Map<ZonedDateTime, ProjectItems> projectItemsMap = new HashMap<>();
         List<Task> tasks = this.taskRepository.findTasksByLabelIds(labels);
@@ -165,8 +196,7 @@ public class LabelDaoJpa {
 
     private <T extends ProjectItemModel> List<T> filter(List<T> projectItems, String requester) {
         return projectItems.stream().filter(
-                item -> item.getProject().getGroup().getUsers().stream().anyMatch(
-                        u -> requester.equals(u.getUser().getName()))
+                item -> this.groupMembershipCache.isAcceptedUser(item.getProject().getGroup().getId(), requester)
         ).collect(Collectors.toList());
     }
 
@@ -174,23 +204,17 @@ public class LabelDaoJpa {
     public List<ProjectItems> getLabelsForProjectItems(
             List<ProjectItems> projectItems,
             Map<ProjectItemType, Map<Long, List<Long>>> labelIds) {
-        Map<Long, Label> labelMap = new HashMap<>();
-        projectItems.forEach(p -> {
-            p.getTasks().forEach(t -> labelMap.put(t.getId(), null));
-            p.getTransactions().forEach(t -> labelMap.put(t.getId(), null));
-            p.getNotes().forEach(n -> labelMap.put(n.getId(), null));
-        });
-
-        List<Label> labels = this.labelRepository.findAllById(labelMap.keySet());
-        for (Label label : labels) {
-            labelMap.put(label.getId(), label);
-        }
+        Set<Long> ids = new HashSet<>();
+        labelIds.values().forEach(itemLabels -> itemLabels.values().forEach(ids::addAll));
+        Map<Long, com.bulletjournal.controller.models.Label> labels = getLabelMap(ids);
 
         projectItems.forEach(p -> {
-            p.getTasks().forEach(t -> t.setLabels(getLabels(labelIds.get(ProjectItemType.TASK).get(t.getId()))));
-            p.getTransactions().forEach(t ->
-                    t.setLabels(getLabels(labelIds.get(ProjectItemType.TRANSACTION).get(t.getId()))));
-            p.getNotes().forEach(t -> t.setLabels(getLabels(labelIds.get(ProjectItemType.NOTE).get(t.getId()))));
+            p.getTasks().forEach(t -> t.setLabels(
+                    toLabels(labelIds.get(ProjectItemType.TASK).get(t.getId()), labels)));
+            p.getTransactions().forEach(t -> t.setLabels(
+                    toLabels(labelIds.get(ProjectItemType.TRANSACTION).get(t.getId()), labels)));
+            p.getNotes().forEach(t -> t.setLabels(
+                    toLabels(labelIds.get(ProjectItemType.NOTE).get(t.getId()), labels)));
         });
         return projectItems;
     }
@@ -198,13 +222,43 @@ public class LabelDaoJpa {
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     protected <T extends ProjectItemModel> List<com.bulletjournal.controller.models.Label> getLabels(
             final List<Long> labels) {
-        List<com.bulletjournal.controller.models.Label> labelsForPresentation = new ArrayList<>();
-        if (labels != null && !labels.isEmpty()) {
-            labelsForPresentation = this.labelRepository.findAllById(labels).stream()
-                    .sorted(Comparator.comparingInt(label -> labels.indexOf(label.getId())))
-                    .map(Label::toPresentationModel)
-                    .collect(Collectors.toList());
+        if (labels == null || labels.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return toLabels(labels, getLabelMap(labels));
+    }
+
+    /**
+     * Resolve many labels at once, loading the ones not cached in one query
+     *
+     * @param ids the label ids
+     * @return label id -> label
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Map<Long, com.bulletjournal.controller.models.Label> getLabelMap(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return this.labelDictionary.getLabelMap(ids);
+    }
+
+    /**
+     * @param ids    label ids of an item, in its order
+     * @param labels resolved labels from {@link #getLabelMap(Collection)}
+     * @return labels of item, skipping the ones that do not exist
+     */
+    public static List<com.bulletjournal.controller.models.Label> toLabels(
+            List<Long> ids, Map<Long, com.bulletjournal.controller.models.Label> labels) {
+        List<com.bulletjournal.controller.models.Label> result = new ArrayList<>();
+        if (ids == null) {
+            return result;
+        }
+        for (Long id : ids) {
+            com.bulletjournal.controller.models.Label label = labels.get(id);
+            if (label != null) {
+                result.add(label);
+            }
         }
-        return labelsForPresentation;
+        return result;
     }
 }
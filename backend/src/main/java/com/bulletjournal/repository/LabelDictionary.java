@@ -0,0 +1,89 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caches labels by id and each owner's label list, as presentation models.
+ * <p>
+ * Lookups of many ids load all misses in one query. Label writes call
+ * {@link #invalidate(String, Long)}, which drops the label and its owner's list once the
+ * transaction commits. A load racing with an invalidation is not cached.
+ */
+public class LabelDictionary {
+
+    private final Cache<Long, Label> labels;
+    private final Cache<String, List<Label>> ownerLabels;
+    private final Function<Collection<Long>, List<Label>> labelsLoader;
+    private final Function<String, List<Label>> ownerLabelsLoader;
+    private final AtomicLong generation = new AtomicLong();
+
+    public LabelDictionary(long maximumSize,
+                           Function<Collection<Long>, List<Label>> labelsLoader,
+                           Function<String, List<Label>> ownerLabelsLoader) {
+        this.labels = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.ownerLabels = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.labelsLoader = labelsLoader;
+        this.ownerLabelsLoader = ownerLabelsLoader;
+    }
+
+    /**
+     * @param ids the label ids
+     * @return label id -> label, missing for labels that do not exist
+     */
+    public Map<Long, Label> getLabelMap(Collection<Long> ids) {
+        Map<Long, Label> result = new HashMap<>(this.labels.getAllPresent(ids));
+        Set<Long> misses = new HashSet<>(ids);
+        misses.removeAll(result.keySet());
+        if (misses.isEmpty()) {
+            return result;
+        }
+        long loadedAt = this.generation.get();
+        Map<Long, Label> loaded = new HashMap<>();
+        this.labelsLoader.apply(misses).forEach(label -> loaded.put(label.getId(), label));
+        this.labels.putAll(loaded);
+        if (this.generation.get() != loadedAt) {
+            // invalidated while loading, may be stale
+            this.labels.invalidateAll(loaded.keySet());
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * @param owner the label owner
+     * @return labels of owner, most recently updated first
+     */
+    public List<Label> getOwnerLabels(String owner) {
+        List<Label> result = this.ownerLabels.getIfPresent(owner);
+        if (result != null) {
+            return result;
+        }
+        long loadedAt = this.generation.get();
+        result = Collections.unmodifiableList(new ArrayList<>(this.ownerLabelsLoader.apply(owner)));
+        this.ownerLabels.put(owner, result);
+        if (this.generation.get() != loadedAt) {
+            this.ownerLabels.invalidate(owner);
+        }
+        return result;
+    }
+
+    /**
+     * Drop label and its owner's list after current transaction commits
+     */
+    public void invalidate(String owner, Long labelId) {
+        DaoHelper.afterCommit(() -> {
+            this.generation.incrementAndGet();
+            this.ownerLabels.invalidate(owner);
+            if (labelId != null) {
+                this.labels.invalidate(labelId);
+            }
+        });
+    }
+}
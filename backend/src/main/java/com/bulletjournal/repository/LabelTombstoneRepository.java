@@ -0,0 +1,18 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.repository.models.LabelTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface LabelTombstoneRepository extends JpaRepository<LabelTombstone, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE LabelTombstone t SET t.cleanedItems = t.cleanedItems + :cleaned WHERE t.labelId = :labelId")
+    void addCleanedItems(@Param("labelId") Long labelId, @Param("cleaned") long cleaned);
+}
@@ -0,0 +1,173 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.authz.AuthorizationService;
+import com.bulletjournal.authz.Operation;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.ProjectType;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.bulletjournal.ledger.FrequencyType;
+import com.bulletjournal.ledger.LedgerAggregator;
+import com.bulletjournal.ledger.LedgerSummaryType;
+import com.bulletjournal.ledger.Money;
+import com.bulletjournal.repository.models.LedgerRollup;
+import com.bulletjournal.repository.models.LedgerRollupKey;
+import com.bulletjournal.repository.models.Project;
+import com.bulletjournal.repository.models.Transaction;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Maintains ledger_rollups, the per project and period sums of transactions, and answers
+ * MONTHLY and YEARLY summaries from them without reading transactions.
+ */
+@Repository
+public class LedgerRollupDaoJpa {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerRollupDaoJpa.class);
+
+    private static final List<FrequencyType> PERIOD_TYPES = ImmutableList.of(
+            FrequencyType.MONTHLY, FrequencyType.YEARLY);
+
+    @Autowired
+    private LedgerRollupRepository ledgerRollupRepository;
+
+    @Autowired
+    private ProjectDaoJpa projectDaoJpa;
+
+    @Autowired
+    private LabelDaoJpa labelDaoJpa;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Add transaction to (sign 1) or remove it from (sign -1) the rollups of its project
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void update(Transaction transaction, int sign) {
+        Long projectId = transaction.getProject().getId();
+        int transactionType = transaction.getTransactionType().getValue();
+        long amount = Math.multiplyExact(sign, transaction.getAmountMinorUnits());
+        String payer = transaction.getPayer() == null ? "" : transaction.getPayer();
+        Map<LedgerRollupKey, LedgerRollup> deltas = new HashMap<>();
+        for (FrequencyType periodType : PERIOD_TYPES) {
+            long periodKey = LedgerAggregator.getPeriodKey(periodType, transaction.getDate());
+            addDelta(deltas, new LedgerRollupKey(projectId, periodType.name(), periodKey, transactionType,
+                    LedgerRollup.Dimension.PERIOD.name(), ""), amount, sign);
+            addDelta(deltas, new LedgerRollupKey(projectId, periodType.name(), periodKey, transactionType,
+                    LedgerRollup.Dimension.PAYER.name(), payer), amount, sign);
+            for (Long labelId : transaction.getLabels()) {
+                addDelta(deltas, new LedgerRollupKey(projectId, periodType.name(), periodKey, transactionType,
+                        LedgerRollup.Dimension.LABEL.name(), String.valueOf(labelId)), amount, sign);
+            }
+        }
+        this.ledgerRollupRepository.addAll(deltas.values());
+    }
+
+    private static void addDelta(Map<LedgerRollupKey, LedgerRollup> deltas, LedgerRollupKey key,
+                                 long amount, int count) {
+        LedgerRollup delta = deltas.computeIfAbsent(key, k -> new LedgerRollup(k, 0, 0));
+        delta.setAmountMinorUnits(Money.add(delta.getAmountMinorUnits(), amount));
+        delta.setCount(delta.getCount() + count);
+    }
+
+    /**
+     * Aggregate rollups of the periods containing startDate through endDate
+     *
+     * @param startDate first date in "yyyy-MM-dd"
+     * @param endDate   last date in "yyyy-MM-dd"
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public LedgerAggregator aggregate(String requester, Long projectId, LedgerSummaryType ledgerSummaryType,
+                                      FrequencyType frequencyType, String startDate, String endDate) {
+        if (!PERIOD_TYPES.contains(frequencyType)) {
+            throw new BadRequestException("Ledger rollups only support " + PERIOD_TYPES);
+        }
+        Project project = getLedgerProject(projectId, requester);
+
+        Set<String> dimensions = new HashSet<>();
+        dimensions.add(LedgerRollup.Dimension.PERIOD.name());
+        if (ledgerSummaryType != LedgerSummaryType.DEFAULT) {
+            dimensions.add(ledgerSummaryType.name());
+        }
+        List<LedgerRollup> rollups = this.ledgerRollupRepository.findRollups(project.getId(),
+                frequencyType.name(),
+                LedgerAggregator.getPeriodKey(frequencyType, startDate),
+                LedgerAggregator.getPeriodKey(frequencyType, endDate),
+                dimensions);
+
+        Set<Long> labelIds = new HashSet<>();
+        rollups.stream().filter(r -> LedgerRollup.Dimension.LABEL.name().equals(r.getId().getDimension()))
+                .forEach(r -> labelIds.add(Long.valueOf(r.getId().getDimensionKey())));
+        Map<Long, Label> labels = this.labelDaoJpa.getLabelMap(labelIds);
+
+        LedgerAggregator aggregator = new LedgerAggregator(EnumSet.of(ledgerSummaryType), frequencyType);
+        for (LedgerRollup rollup : rollups) {
+            LedgerRollupKey key = rollup.getId();
+            int transactionType = key.getTransactionType();
+            switch (LedgerRollup.Dimension.valueOf(key.getDimension())) {
+                case PERIOD:
+                    aggregator.addTotal(transactionType, rollup.getAmountMinorUnits());
+                    if (ledgerSummaryType == LedgerSummaryType.DEFAULT) {
+                        aggregator.addPeriod(key.getPeriodKey(), transactionType, rollup.getAmountMinorUnits(),
+                                rollup.getCount());
+                    }
+                    break;
+                case PAYER:
+                    String payer = key.getDimensionKey().isEmpty() ? null : key.getDimensionKey();
+                    aggregator.addPayer(payer, transactionType, rollup.getAmountMinorUnits(), rollup.getCount());
+                    break;
+                case LABEL:
+                    // deleted labels are skipped until the label cleaner drops their rollups
+                    Label label = labels.get(Long.valueOf(key.getDimensionKey()));
+                    if (label != null) {
+                        aggregator.addLabel(label.getValue(), transactionType, rollup.getAmountMinorUnits(),
+                                rollup.getCount());
+                    }
+                    break;
+            }
+        }
+        return aggregator;
+    }
+
+    /**
+     * Recompute rollups of project from its transactions, e.g. after rows were changed outside this DAO
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void rebuild(String requester, Long projectId) {
+        Project project = getLedgerProject(projectId, requester);
+        this.authorizationService.checkAuthorizedToOperateOnContent(project.getOwner(), requester,
+                ContentType.PROJECT, Operation.UPDATE, projectId);
+        this.ledgerRollupRepository.rebuild(projectId);
+    }
+
+    /**
+     * Build missing rollups, e.g. of the sample transactions in data.sql, each project in its own transaction
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<Long> projectIds = this.ledgerRollupRepository.findProjectIdsWithoutRollups();
+        projectIds.forEach(this.ledgerRollupRepository::rebuild);
+        if (!projectIds.isEmpty()) {
+            LOGGER.info("Built ledger rollups of {} projects", projectIds.size());
+        }
+    }
+
+    private Project getLedgerProject(Long projectId, String requester) {
+        Project project = this.projectDaoJpa.getProject(projectId, requester);
+        if (!ProjectType.LEDGER.equals(ProjectType.getType(project.getType()))) {
+            throw new BadRequestException("Project Type expected to be LEDGER while request is " + project.getType());
+        }
+        return project;
+    }
+}
@@ -0,0 +1,38 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.repository.models.LedgerRollup;
+import com.bulletjournal.repository.models.LedgerRollupKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LedgerRollupRepository extends JpaRepository<LedgerRollup, LedgerRollupKey>,
+        LedgerRollupRepositoryCustom {
+
+    @Query("SELECT r FROM LedgerRollup r WHERE r.id.projectId = :projectId AND r.id.periodType = :periodType " +
+            "AND r.id.periodKey BETWEEN :fromKey AND :toKey AND r.id.dimension IN :dimensions")
+    List<LedgerRollup> findRollups(@Param("projectId") Long projectId,
+                                   @Param("periodType") String periodType,
+                                   @Param("fromKey") Long fromKey,
+                                   @Param("toKey") Long toKey,
+                                   @Param("dimensions") Collection<String> dimensions);
+
+    /**
+     * @return ids of projects with transactions but no rollups, e.g. rows inserted by data.sql
+     */
+    @Query(value = "SELECT DISTINCT t.project_id FROM transactions t WHERE NOT EXISTS " +
+            "(SELECT 1 FROM ledger_rollups r WHERE r.project_id = t.project_id)", nativeQuery = true)
+    List<Long> findProjectIdsWithoutRollups();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LedgerRollup r WHERE r.id.dimension = 'LABEL' AND r.id.dimensionKey = :labelId")
+    void deleteLabel(@Param("labelId") String labelId);
+}
@@ -0,0 +1,20 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.repository.models.LedgerRollup;
+
+import java.util.Collection;
+
+public interface LedgerRollupRepositoryCustom {
+
+    /**
+     * Add amounts and counts to rollups, creating missing ones and dropping the ones left empty
+     *
+     * @param deltas rollup deltas with distinct keys
+     */
+    void addAll(Collection<LedgerRollup> deltas);
+
+    /**
+     * Recompute all rollups of project from its transactions
+     */
+    void rebuild(Long projectId);
+}
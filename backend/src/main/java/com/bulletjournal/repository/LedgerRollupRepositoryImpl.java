@@ -0,0 +1,91 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.ledger.FrequencyType;
+import com.bulletjournal.repository.models.LedgerRollup;
+import com.bulletjournal.repository.models.LedgerRollupKey;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.util.*;
+
+@Repository
+@Transactional
+public class LedgerRollupRepositoryImpl implements LedgerRollupRepositoryCustom {
+
+    private static final String COLUMNS = "(project_id, period_type, period_key, transaction_type, "
+            + "dimension, dimension_key, amount, item_count)";
+
+    private static final Map<FrequencyType, String> PERIOD_KEYS = new EnumMap<>(FrequencyType.class);
+
+    private static final Map<LedgerRollup.Dimension, String> DIMENSION_KEYS = new EnumMap<>(LedgerRollup.Dimension.class);
+
+    static {
+        // same keys as LedgerAggregator.getPeriodKey
+        PERIOD_KEYS.put(FrequencyType.YEARLY, "CAST(substring(t.date, 1, 4) AS bigint)");
+        PERIOD_KEYS.put(FrequencyType.MONTHLY,
+                "CAST(substring(t.date, 1, 4) AS bigint) * 12 + CAST(substring(t.date, 6, 2) AS bigint) - 1");
+        DIMENSION_KEYS.put(LedgerRollup.Dimension.PERIOD, "''");
+        DIMENSION_KEYS.put(LedgerRollup.Dimension.PAYER, "COALESCE(t.payer, '')");
+        DIMENSION_KEYS.put(LedgerRollup.Dimension.LABEL, "CAST(l.label_id AS varchar)");
+    }
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void addAll(Collection<LedgerRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        StringBuilder queryString = new StringBuilder("INSERT INTO ledger_rollups ").append(COLUMNS).append(" VALUES ");
+        queryString.append(String.join(", ", Collections.nCopies(deltas.size(), "(?, ?, ?, ?, ?, ?, ?, ?)")));
+        queryString.append(" ON CONFLICT (project_id, period_type, period_key, transaction_type, dimension, dimension_key)")
+                .append(" DO UPDATE SET amount = ledger_rollups.amount + EXCLUDED.amount,")
+                .append(" item_count = ledger_rollups.item_count + EXCLUDED.item_count");
+        Query query = entityManager.createNativeQuery(queryString.toString());
+        int i = 1;
+        Set<Long> projectIds = new HashSet<>();
+        for (LedgerRollup delta : deltas) {
+            LedgerRollupKey key = delta.getId();
+            query.setParameter(i++, key.getProjectId());
+            query.setParameter(i++, key.getPeriodType());
+            query.setParameter(i++, key.getPeriodKey());
+            query.setParameter(i++, key.getTransactionType());
+            query.setParameter(i++, key.getDimension());
+            query.setParameter(i++, key.getDimensionKey());
+            query.setParameter(i++, delta.getAmount());
+            query.setParameter(i++, delta.getCount());
+            projectIds.add(key.getProjectId());
+        }
+        query.executeUpdate();
+
+        entityManager.createNativeQuery("DELETE FROM ledger_rollups WHERE project_id IN (:projectIds) AND item_count <= 0")
+                .setParameter("projectIds", projectIds)
+                .executeUpdate();
+    }
+
+    @Override
+    public void rebuild(Long projectId) {
+        entityManager.createNativeQuery("DELETE FROM ledger_rollups WHERE project_id = ?1")
+                .setParameter(1, projectId)
+                .executeUpdate();
+        for (Map.Entry<FrequencyType, String> period : PERIOD_KEYS.entrySet()) {
+            for (Map.Entry<LedgerRollup.Dimension, String> dimension : DIMENSION_KEYS.entrySet()) {
+                String from = dimension.getKey() == LedgerRollup.Dimension.LABEL
+                        ? "transactions t CROSS JOIN LATERAL unnest(t.labels) AS l(label_id)" : "transactions t";
+                String groupBy = dimension.getKey() == LedgerRollup.Dimension.PERIOD ? "1, 3, 4" : "1, 3, 4, 6";
+                String queryString = "INSERT INTO ledger_rollups " + COLUMNS
+                        + " SELECT t.project_id, '" + period.getKey().name() + "', " + period.getValue()
+                        + ", t.transaction_type, '" + dimension.getKey().name() + "', " + dimension.getValue()
+                        + ", SUM(t.amount), COUNT(*) FROM " + from
+                        + " WHERE t.project_id = ?1 GROUP BY " + groupBy;
+                entityManager.createNativeQuery(queryString)
+                        .setParameter(1, projectId)
+                        .executeUpdate();
+            }
+        }
+    }
+}
@@ -2,19 +2,23 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
+import com.bulletjournal.config.HierarchyConfig;
 import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.controller.models.CreateNoteParams;
 import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.controller.models.UpdateNoteParams;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
+import com.bulletjournal.hierarchy.HierarchyIndex;
+import com.bulletjournal.hierarchy.HierarchyIndexCache;
 import com.bulletjournal.hierarchy.HierarchyItem;
-import com.bulletjournal.hierarchy.HierarchyProcessor;
+import com.bulletjournal.hierarchy.HierarchyPositions;
 import com.bulletjournal.hierarchy.NoteRelationsProcessor;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
-import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -28,7 +32,8 @@ import java.util.stream.Collectors;
 @Repository
 public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
-    private static final Gson GSON = new Gson();
+    private static final long MAX_CACHED_HIERARCHIES = 1000;
+    private final HierarchyIndexCache hierarchyIndexCache = new HierarchyIndexCache(MAX_CACHED_HIERARCHIES);
     @Autowired
     private NoteRepository noteRepository;
     @Autowired
@@ -41,6 +46,15 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
     private NoteContentRepository noteContentRepository;
     @Autowired
     private SharedProjectItemDaoJpa sharedProjectItemDaoJpa;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private HierarchyConfig hierarchyConfig;
+
+    @Autowired
+    private EtagRegistry etagRegistry;
+    @Autowired
+    private SearchIndexer searchIndexer;
 
     @Override
     public JpaRepository getJpaRepository() {
@@ -54,6 +68,17 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
             return this.sharedProjectItemDaoJpa.getSharedProjectItems(requester, ProjectType.NOTE);
         }
 
+        if (this.hierarchyConfig.isColumnStorage()) {
+            List<Note> notes = this.noteRepository.findNoteByProjectOrderByPositionAsc(project);
+            final Map<Long, Note> notesMap = notes.stream().collect(Collectors.toMap(Note::getId, n -> n));
+            final Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap =
+                    getLabelsToProjectItems(notes);
+            return NoteRelationsProcessor.processRelations(notesMap, HierarchyPositions.buildHierarchy(notes))
+                    .stream()
+                    .map(note -> addLabels(note, labelsMap))
+                    .collect(Collectors.toList());
+        }
+
         Optional<ProjectNotes> projectNotesOptional = this.projectNotesRepository.findById(projectId);
         if (!projectNotesOptional.isPresent()) {
             return Collections.emptyList();
@@ -61,19 +86,20 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         ProjectNotes projectNotes = projectNotesOptional.get();
         final Map<Long, Note> notesMap = this.noteRepository.findNoteByProject(project)
                 .stream().collect(Collectors.toMap(n -> n.getId(), n -> n));
+        final Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap =
+                getLabelsToProjectItems(notesMap.values());
         return NoteRelationsProcessor.processRelations(notesMap, projectNotes.getNotes())
                 .stream()
-                .map(note -> addLabels(note, notesMap))
+                .map(note -> addLabels(note, labelsMap))
                 .collect(Collectors.toList());
     }
 
     private com.bulletjournal.controller.models.Note addLabels(
-            com.bulletjournal.controller.models.Note note, Map<Long, Note> notesMap) {
-        List<com.bulletjournal.controller.models.Label> labels =
-                getLabelsToProjectItem(notesMap.get(note.getId()));
-        note.setLabels(labels);
+            com.bulletjournal.controller.models.Note note,
+            Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap) {
+        note.setLabels(labelsMap.get(note.getId()));
         for (com.bulletjournal.controller.models.Note subNote : note.getSubNotes()) {
-            addLabels(subNote, notesMap);
+            addLabels(subNote, labelsMap);
         }
         return note;
     }
@@ -89,14 +115,30 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         note.setOwner(owner);
         note.setName(createNoteParams.getName());
         note = this.noteRepository.save(note);
-        final ProjectNotes projectNotes = this.projectNotesRepository.findById(projectId).orElseGet(ProjectNotes::new);
-        String newRelations = HierarchyProcessor.addItem(projectNotes.getNotes(), note.getId());
-        projectNotes.setNotes(newRelations);
-        projectNotes.setProjectId(projectId);
-        projectNotesRepository.save(projectNotes);
+        addToProjectNotes(projectId, note, new HierarchyItem(note.getId()));
+        this.searchIndexer.enqueue(note);
         return note;
     }
 
+    private void addToProjectNotes(Long projectId, Note note, HierarchyItem hierarchyItem) {
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTES, projectId);
+        if (this.hierarchyConfig.isColumnStorage()) {
+            note.setParentId(null);
+            note.setPosition(HierarchyPositions.nextPosition(this.noteRepository.findMaxRootPosition(projectId)));
+            this.noteRepository.save(note);
+            return;
+        }
+
+        final ProjectNotes projectNotes = this.projectNotesRepository.findById(projectId)
+                .orElseGet(() -> new ProjectNotes(projectId));
+        HierarchyIndex index = this.hierarchyIndexCache.checkout(
+                projectId, projectNotes.getVersion(), projectNotes.getNotes());
+        index.addItem(hierarchyItem);
+        projectNotes.setNotes(index.toJson());
+        this.projectNotesRepository.save(projectNotes);
+        this.hierarchyIndexCache.checkin(projectId, index, projectNotes::getVersion);
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Note partialUpdate(String requester, Long noteId, UpdateNoteParams updateNoteParams) {
         Note note = this.getProjectItem(noteId, requester);
@@ -107,7 +149,11 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
         DaoHelper.updateIfPresent(updateNoteParams.hasName(), updateNoteParams.getName(),
                 (value) -> note.setName(value));
+        if (updateNoteParams.hasName()) {
+            this.searchIndexer.enqueue(note);
+        }
 
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTES, note.getProject().getId());
         return this.noteRepository.save(note);
     }
 
@@ -120,13 +166,29 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void updateUserNotes(Long projectId, List<com.bulletjournal.controller.models.Note> notes) {
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTES, projectId);
+        Project project = this.projectRepository.findById(projectId)
+                .orElseThrow(() -> new ResourceNotFoundException("Project " + projectId + " not found"));
+        if (this.hierarchyConfig.isColumnStorage()) {
+            List<Note> projectNotes = this.noteRepository.findNoteByProjectOrderByPositionAsc(project);
+            Map<Long, Note> notesMap = projectNotes.stream().collect(Collectors.toMap(Note::getId, n -> n));
+            // only rows whose parent or position changed are written
+            this.noteRepository.saveAll(HierarchyPositions.assignPositions(
+                    HierarchyPositions.appendOmitted(NoteRelationsProcessor.toHierarchy(notes), projectNotes), notesMap));
+            return;
+        }
+
         Optional<ProjectNotes> projectNotesOptional = this.projectNotesRepository.findById(projectId);
         final ProjectNotes projectNotes = projectNotesOptional.isPresent() ?
                 projectNotesOptional.get() : new ProjectNotes();
 
-        projectNotes.setNotes(NoteRelationsProcessor.processRelations(notes));
+        List<Note> noteList = this.noteRepository.findNoteByProject(project);
+        noteList.sort(Comparator.comparing(Note::getId));
+        projectNotes.setNotes(new HierarchyIndex(
+                HierarchyPositions.appendOmitted(NoteRelationsProcessor.toHierarchy(notes), noteList), null).toJson());
         projectNotes.setProjectId(projectId);
         this.projectNotesRepository.save(projectNotes);
+        this.hierarchyIndexCache.invalidate(projectId);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -149,42 +211,44 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
         Long projectId = project.getId();
         this.authorizationService.checkAuthorizedToOperateOnContent(note.getOwner(), requester, ContentType.NOTE,
                 Operation.DELETE, projectId, project.getOwner());
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTES, projectId);
+        Consumer<List<Note>> deleteNotes = targetNotesOperator;
+        targetNotesOperator = targetNotes -> {
+            // revisions are found through contents, so go first
+            deleteContentRevisions(targetNotes);
+            deleteNotes.accept(targetNotes);
+        };
+        targetNotesOperator = targetNotesOperator.andThen(targetNotes -> this.searchIndexer.enqueue(targetNotes));
+
+        if (this.hierarchyConfig.isColumnStorage()) {
+            // delete notes and its subNotes
+            targetNotesOperator.accept(this.noteRepository.findSubNotes(note.getId()));
+            targetOperator.accept(new HierarchyItem(note.getId()));
+            return project;
+        }
 
         ProjectNotes projectNotes = this.projectNotesRepository.findById(projectId)
                 .orElseThrow(() -> new ResourceNotFoundException("ProjectTasks by " + projectId + " not found"));
 
-        String relations = projectNotes.getNotes();
+        HierarchyIndex index = this.hierarchyIndexCache.checkout(
+                projectId, projectNotes.getVersion(), projectNotes.getNotes());
 
         // delete notes and its subNotes
-        List<Note> targetNotes = this.noteRepository.findAllById(
-                HierarchyProcessor.getSubItems(relations, note.getId()));
+        List<Note> targetNotes = this.noteRepository.findAllById(index.getSubItems(note.getId()));
         targetNotesOperator.accept(targetNotes);
 
         // Update note relations
-        HierarchyItem[] target = new HierarchyItem[1];
-        List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, note.getId(), target);
-        targetOperator.accept(target[0]);
-
-        projectNotes.setNotes(GSON.toJson(hierarchy));
+        HierarchyItem target = index.removeTargetItem(note.getId());
+        projectNotes.setNotes(index.toJson());
         this.projectNotesRepository.save(projectNotes);
+        this.hierarchyIndexCache.checkin(projectId, index, projectNotes::getVersion);
 
+        targetOperator.accept(target);
         return project;
     }
 
     private List<Event> generateEvents(Note note, String requester, Project project) {
-        List<Event> events = new ArrayList<>();
-        for (UserGroup userGroup : project.getGroup().getUsers()) {
-            if (!userGroup.isAccepted()) {
-                continue;
-            }
-            // skip send event to self
-            String username = userGroup.getUser().getName();
-            if (userGroup.getUser().getName().equals(requester)) {
-                continue;
-            }
-            events.add(new Event(username, note.getId(), note.getName()));
-        }
-        return events;
+        return generateGroupEvents(requester, project.getGroup(), note.getId(), note.getName());
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -206,14 +270,7 @@ public class NoteDaoJpa extends ProjectItemDaoJpa<NoteContent> {
                     t.setProject(project);
                     this.noteRepository.save(t);
                 }),
-                (target) -> {
-                    final ProjectNotes projectNotes = this.projectNotesRepository.findById(targetProject)
-                            .orElseGet(ProjectNotes::new);
-                    String newRelations = HierarchyProcessor.addItem(projectNotes.getNotes(), target);
-                    projectNotes.setNotes(newRelations);
-                    projectNotes.setProjectId(targetProject);
-                    this.projectNotesRepository.save(projectNotes);
-                });
+                (target) -> addToProjectNotes(targetProject, note, target));
     }
 
     @Override
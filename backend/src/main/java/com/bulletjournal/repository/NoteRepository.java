@@ -3,6 +3,8 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.Note;
 import com.bulletjournal.repository.models.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +12,14 @@ import java.util.List;
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long>, NoteRepositoryCustom {
     List<Note> findNoteByProject(Project project);
+
+    List<Note> findNoteByProjectOrderByPositionAsc(Project project);
+
+    @Query("SELECT MAX(n.position) FROM Note n WHERE n.project.id = :projectId AND n.parentId IS NULL")
+    Double findMaxRootPosition(@Param("projectId") Long projectId);
+
+    @Query(value = "WITH RECURSIVE sub_notes(id) AS (SELECT id FROM notes WHERE id = :noteId " +
+            "UNION ALL SELECT notes.id FROM notes JOIN sub_notes ON notes.parent_id = sub_notes.id) " +
+            "SELECT notes.* FROM notes JOIN sub_notes ON notes.id = sub_notes.id", nativeQuery = true)
+    List<Note> findSubNotes(@Param("noteId") Long noteId);
 }
\ No newline at end of file
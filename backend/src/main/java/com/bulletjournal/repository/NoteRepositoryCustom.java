@@ -7,5 +7,10 @@ import java.util.List;
 public interface NoteRepositoryCustom {
     List<Note> findNotesByLabelIds(List<Long> labelIds);
 
-    List<Note> findNotesByLabelId(Long labelId);
+    /**
+     * Remove label from at most limit notes carrying it
+     *
+     * @return number of notes updated
+     */
+    int removeLabel(Long labelId, int limit);
 }
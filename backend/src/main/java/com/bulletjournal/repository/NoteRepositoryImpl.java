@@ -8,6 +8,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.transaction.Transactional;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
@@ -19,11 +20,13 @@ public class NoteRepositoryImpl implements NoteRepositoryCustom {
 
     @Override
     public List<Note> findNotesByLabelIds(List<Long> labelIds) {
-        StringBuilder queryString = new StringBuilder("SELECT * FROM notes WHERE ? = ANY(notes.labels)");
-        for (int i = 1; i < labelIds.size(); i++) {
-            queryString.append(" and ? = ANY(notes.labels)");
+        if (labelIds.isEmpty()) {
+            return ImmutableList.of();
         }
-        Query query = entityManager.createNativeQuery(queryString.toString(), Note.class);
+        // containment is answered by the GIN index on notes.labels
+        String queryString = "SELECT * FROM notes WHERE notes.labels @> CAST(ARRAY["
+                + String.join(", ", Collections.nCopies(labelIds.size(), "?")) + "] AS bigint[])";
+        Query query = entityManager.createNativeQuery(queryString, Note.class);
         for (int i = 1; i <= labelIds.size(); i++) {
             query.setParameter(i, labelIds.get(i - 1));
         }
@@ -31,7 +34,12 @@ public class NoteRepositoryImpl implements NoteRepositoryCustom {
     }
 
     @Override
-    public List<Note> findNotesByLabelId(Long labelId) {
-        return findNotesByLabelIds(ImmutableList.of(labelId));
+    public int removeLabel(Long labelId, int limit) {
+        Query query = entityManager.createNativeQuery("UPDATE notes SET labels = array_remove(labels, ?1), "
+                + "updated_at = now() WHERE id IN (SELECT id FROM notes "
+                + "WHERE labels @> CAST(ARRAY[?1] AS bigint[]) LIMIT ?2)");
+        query.setParameter(1, labelId);
+        query.setParameter(2, limit);
+        return query.executeUpdate();
     }
 }
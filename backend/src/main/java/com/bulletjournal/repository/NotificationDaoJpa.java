@@ -1,6 +1,8 @@
 package com.bulletjournal.repository;
 
 import com.bulletjournal.clients.UserClient;
+import com.bulletjournal.controller.models.User;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.notifications.Action;
 import com.bulletjournal.notifications.Informed;
 import com.bulletjournal.repository.models.Notification;
@@ -11,8 +13,10 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Repository
@@ -23,12 +27,16 @@ public class NotificationDaoJpa {
     private NotificationRepository notificationRepository;
     @Autowired
     private UserClient userClient;
+    @Autowired
+    private EtagRegistry etagRegistry;
 
     public List<com.bulletjournal.controller.models.Notification> getNotifications(String username) {
         List<Notification> notifications = this.notificationRepository.findByTargetUser(username);
+        Map<String, User> originators = this.userClient.getUsers(
+                notifications.stream().map(Notification::getOriginator).collect(Collectors.toSet()));
         List<com.bulletjournal.controller.models.Notification> returnNotifications = notifications.stream().map(n -> {
             com.bulletjournal.controller.models.Notification notification = n.toPresentationModel();
-            notification.setOriginator(this.userClient.getUser(n.getOriginator()));
+            notification.setOriginator(originators.get(n.getOriginator()));
             if (n.getActions() != null) {
                 Action[] actions = GSON.fromJson(n.getActions(), Action[].class);
                 notification.setActions(Arrays.asList(actions)
@@ -50,15 +58,21 @@ public class NotificationDaoJpa {
         return returnNotifications;
     }
 
+    /**
+     * Insert notifications of events in one transaction, batched by hibernate.jdbc.batch_size
+     */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void create(List<Informed> events) {
-        events.forEach(event -> {
-            event.toNotifications().forEach(n -> this.notificationRepository.save(n));
-        });
+        List<Notification> notifications = new ArrayList<>();
+        events.forEach(event -> notifications.addAll(event.toNotifications()));
+        this.notificationRepository.saveAll(notifications);
+        this.etagRegistry.bump(EtagRegistry.Resource.NOTIFICATIONS,
+                notifications.stream().map(Notification::getTargetUser).collect(Collectors.toSet()));
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void deleteAllExpiredNotifications(Timestamp expirationTime) {
         this.notificationRepository.deleteByUpdatedAtBefore(expirationTime);
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.NOTIFICATIONS);
     }
 }
@@ -4,6 +4,8 @@ import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
+import com.bulletjournal.controller.utils.EtagRegistry;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.ResourceAlreadyExistException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.hierarchy.HierarchyItem;
@@ -13,7 +15,6 @@ import com.bulletjournal.notifications.Event;
 import com.bulletjournal.repository.models.Group;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.User;
-import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
 import com.google.gson.Gson;
@@ -40,24 +41,50 @@ public class ProjectDaoJpa {
     @Autowired
     private AuthorizationService authorizationService;
     @Autowired
-    private UserGroupRepository userGroupRepository;
+    private EtagRegistry etagRegistry;
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+    @Autowired
+    private SearchIndexer searchIndexer;
+    @Autowired
+    private ContentRevisionDaoJpa contentRevisionDaoJpa;
 
+    /**
+     * Load owned and shared project trees of owner with one query for the accessible projects
+     * and one batch load of their owners' project relations
+     */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Projects getProjects(String owner) {
-        Projects result = new Projects();
-        Optional<UserProjects> userProjectsOptional = this.userProjectsRepository.findById(owner);
-        UserProjects userProjects;
-        if (userProjectsOptional.isPresent()) {
-            userProjects = userProjectsOptional.get();
-        } else {
+        User user = this.userDaoJpa.getByName(owner);
+
+        // project owner -> project id -> project
+        Map<String, Map<Long, Project>> projectsByOwner = new HashMap<>();
+        for (Project project : this.projectRepository.findAccessibleProjects(owner)) {
+            String projectOwner = project.getOwner();
+            if (project.isShared() && !Objects.equals(owner, projectOwner)) {
+                // skip shared projects
+                continue;
+            }
+            projectsByOwner.computeIfAbsent(projectOwner, k -> new HashMap<>()).put(project.getId(), project);
+        }
+
+        Set<String> owners = new HashSet<>(projectsByOwner.keySet());
+        owners.add(owner);
+        Map<String, UserProjects> userProjectsMap = this.userProjectsRepository.findAllById(owners)
+                .stream().collect(Collectors.toMap(UserProjects::getOwner, p -> p));
+        UserProjects userProjects = userProjectsMap.get(owner);
+        if (userProjects == null) {
             userProjects = new UserProjects(owner);
             this.userProjectsRepository.save(userProjects);
         }
 
-        result.setOwned(getOwnerProjects(userProjects, owner));
+        Projects result = new Projects();
+        result.setOwned(getOwnerProjects(userProjects,
+                projectsByOwner.getOrDefault(owner, Collections.emptyMap())));
 
         // projects that are shared with owner
-        result.setShared(getSharedProjects(userProjects, owner));
+        projectsByOwner.remove(owner);
+        result.setShared(getSharedProjects(userProjects, user, projectsByOwner, userProjectsMap));
 
         return result;
     }
@@ -71,29 +98,8 @@ public class ProjectDaoJpa {
     }
 
     private List<ProjectsWithOwner> getSharedProjects(
-            UserProjects userProjects, String owner) {
-        User user = this.userDaoJpa.getByName(owner);
-        // project owner -> project ids
-        Map<String, Set<Long>> projectIds = new HashMap<>();
-        for (UserGroup userGroup : user.getGroups()) {
-            Group group = userGroup.getGroup();
-            if (!userGroup.isAccepted()) {
-                continue;
-            }
-            for (Project project : group.getProjects()) {
-                if (project.isShared()) {
-                    // skip shared projects
-                    continue;
-                }
-                String projectOwner = project.getOwner();
-                if (Objects.equals(user.getName(), projectOwner)) {
-                    // skip projects owned by me
-                    continue;
-                }
-                projectIds.computeIfAbsent(projectOwner, k -> new HashSet<>()).add(project.getId());
-            }
-        }
-
+            UserProjects userProjects, User user, Map<String, Map<Long, Project>> projectsByOwner,
+            Map<String, UserProjects> userProjectsMap) {
         ProjectsWithOwner sharedItems = getSharedItems(user);
         String sharedProjectRelations = userProjects.getSharedProjects();
         List<String> owners = new ArrayList<>();
@@ -101,20 +107,19 @@ public class ProjectDaoJpa {
             owners = Arrays.asList(GSON.fromJson(sharedProjectRelations, String[].class));
         }
 
-        List<String> newOwners = new ArrayList<>();
         List<ProjectsWithOwner> result = new ArrayList<>();
         for (String projectOwner : owners) {
-            Set<Long> projectsByOwner = projectIds.remove(projectOwner);
-            if (Objects.equals(owner, projectOwner) && sharedItems != null) {
+            Map<Long, Project> projects = projectsByOwner.remove(projectOwner);
+            if (Objects.equals(user.getName(), projectOwner) && sharedItems != null) {
                 result.add(sharedItems);
             } else {
-                addProjectsByOwner(newOwners, projectOwner, projectsByOwner, result);
+                addProjectsByOwner(projectOwner, projects, userProjectsMap.get(projectOwner), result);
             }
         }
 
-        for (Map.Entry<String, Set<Long>> entry : projectIds.entrySet()) {
+        for (Map.Entry<String, Map<Long, Project>> entry : projectsByOwner.entrySet()) {
             String projectOwner = entry.getKey();
-            addProjectsByOwner(newOwners, projectOwner, entry.getValue(), result);
+            addProjectsByOwner(projectOwner, entry.getValue(), userProjectsMap.get(projectOwner), result);
         }
 
         if (sharedItems != null && !result.contains(sharedItems)) {
@@ -145,17 +150,13 @@ public class ProjectDaoJpa {
     }
 
     private void addProjectsByOwner(
-            List<String> newOwners, String o, Set<Long> projectsByOwner, List<ProjectsWithOwner> result) {
-        if (projectsByOwner == null) {
+            String o, Map<Long, Project> projects, UserProjects ownerProjects, List<ProjectsWithOwner> result) {
+        if (projects == null || ownerProjects == null || ownerProjects.getOwnedProjects() == null) {
             return;
         }
 
-        newOwners.add(o);
-        List<Project> projects = this.projectRepository.findAllById(new ArrayList<>(projectsByOwner));
-        String projectRelationsByOwner = this.userProjectsRepository.findById(o).get().getOwnedProjects();
         List<com.bulletjournal.controller.models.Project> l = ProjectRelationsProcessor.processRelations(
-                projects.stream().collect(Collectors.toMap(Project::getId, p -> p)),
-                projectRelationsByOwner, projectsByOwner);
+                projects, ownerProjects.getOwnedProjects(), projects.keySet());
 
         if (l.isEmpty()) {
             return;
@@ -165,12 +166,10 @@ public class ProjectDaoJpa {
     }
 
     private List<com.bulletjournal.controller.models.Project> getOwnerProjects(
-            UserProjects userProjects, String owner) {
+            UserProjects userProjects, Map<Long, Project> projects) {
         if (userProjects.getOwnedProjects() == null) {
             return Collections.emptyList();
         }
-        Map<Long, Project> projects = this.projectRepository.findByOwner(owner)
-                .stream().collect(Collectors.toMap(p -> p.getId(), p -> p));
         return ProjectRelationsProcessor.processRelations(
                 projects, userProjects.getOwnedProjects(), null);
     }
@@ -200,14 +199,15 @@ public class ProjectDaoJpa {
         userProjects.setOwnedProjects(newRelations);
         userProjects.setOwner(owner);
         this.userProjectsRepository.save(userProjects);
+        // project is shared with group members
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.PROJECTS);
         events.addAll(generateEvents(group, owner, project));
         return project;
     }
 
     private List<Event> generateEvents(Group group, String requester, Project project) {
         List<Event> events = new ArrayList<>();
-        for (UserGroup userGroup : group.getUsers()) {
-            String targetUser = userGroup.getUser().getName();
+        for (String targetUser : this.groupMembershipCache.getAcceptedUsers(group.getId())) {
             if (targetUser.equals(requester)) {
                 continue;
             }
@@ -244,13 +244,16 @@ public class ProjectDaoJpa {
                             new ResourceNotFoundException("Group " + updateProjectParams.getGroupId() + " not found"));
             project.setGroup(group);
 
-            Set<String> oldUsers = oldGroup.getUsers().stream().filter(u -> u.isAccepted()).map(u -> u.getUser().getName()).collect(Collectors.toSet());
-            Set<String> newUsers = group.getUsers().stream().filter(u -> u.isAccepted()).map(u -> u.getUser().getName()).collect(Collectors.toSet());
+            Set<String> oldUsers = this.groupMembershipCache.getAcceptedUsers(oldGroup.getId());
+            Set<String> newUsers = this.groupMembershipCache.getAcceptedUsers(group.getId());
 
             generateEvents(joined, removed, project, oldUsers, newUsers);
+            // search documents carry the group of their project
+            this.searchIndexer.enqueueProjects(Collections.singletonList(project.getId()));
 
         }
 
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.PROJECTS);
         return this.projectRepository.save(project);
     }
 
@@ -280,6 +283,7 @@ public class ProjectDaoJpa {
         userProjects.setOwner(user);
 
         this.userProjectsRepository.save(userProjects);
+        this.etagRegistry.bump(EtagRegistry.Resource.PROJECTS, user);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -294,6 +298,7 @@ public class ProjectDaoJpa {
                 (value) -> userProjects.setSharedProjects(GSON.toJson(value)));
         userProjects.setOwner(owner);
         this.userProjectsRepository.save(userProjects);
+        this.etagRegistry.bump(EtagRegistry.Resource.PROJECTS, owner);
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -313,12 +318,17 @@ public class ProjectDaoJpa {
         // delete project and its subProjects
         List<Project> targetProjects = this.projectRepository
                 .findAllById(HierarchyProcessor.getSubItems(relations, projectId));
+        List<Long> targetProjectIds = targetProjects.stream().map(Project::getId).collect(Collectors.toList());
+        this.searchIndexer.enqueueProjects(targetProjectIds);
+        // contents cascade with the projects, their revisions do not
+        this.contentRevisionDaoJpa.deleteProjectRevisions(targetProjectIds);
         this.projectRepository.deleteAll(targetProjects);
 
         // Update project relations
         List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, projectId);
         userProjects.setOwnedProjects(GSON.toJson(hierarchy));
         this.userProjectsRepository.save(userProjects);
+        this.etagRegistry.bumpAll(EtagRegistry.Resource.PROJECTS);
 
         // return generated events
         return generateEvents(requester, targetProjects);
@@ -328,10 +338,8 @@ public class ProjectDaoJpa {
         List<Event> events = new ArrayList<>();
         for (Project p : targetProjects) {
             Long groupId = p.getGroup().getId();
-            List<UserGroup> userGroups = this.userGroupRepository.findAllByGroupIdAndAccepted(groupId, true);
-            for (UserGroup userGroup : userGroups) {
+            for (String username : this.groupMembershipCache.getAcceptedUsers(groupId)) {
                 // skip send event to self
-                String username = userGroup.getUser().getName();
                 if (username.equals(owner)) {
                     continue;
                 }
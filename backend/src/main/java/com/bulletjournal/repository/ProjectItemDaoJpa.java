@@ -2,9 +2,10 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
-import com.bulletjournal.config.ContentRevisionConfig;
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.*;
+import com.bulletjournal.controller.utils.EtagRegistry;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.Event;
@@ -14,7 +15,6 @@ import com.bulletjournal.notifications.ShareProjectItemEvent;
 import com.bulletjournal.repository.models.ContentModel;
 import com.bulletjournal.repository.models.Group;
 import com.bulletjournal.repository.models.ProjectItemModel;
-import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.util.ContentDiffTool;
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
@@ -26,7 +26,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -46,9 +45,15 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
     @Autowired
     private PublicProjectItemDaoJpa publicProjectItemDaoJpa;
     @Autowired
-    private ContentRevisionConfig revisionConfig;
-    @Autowired
     private ContentDiffTool contentDiffTool;
+    @Autowired
+    private ContentRevisionDaoJpa contentRevisionDaoJpa;
+    @Autowired
+    private EtagRegistry etagRegistry;
+    @Autowired
+    private GroupMembershipCache groupMembershipCache;
+    @Autowired
+    private SearchIndexer searchIndexer;
 
     abstract <T extends ProjectItemModel> JpaRepository<T, Long> getJpaRepository();
 
@@ -74,16 +79,13 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
 
         if (shareProjectItemParams.getTargetGroup() != null) {
             Group group = this.groupDaoJpa.getGroup(shareProjectItemParams.getTargetGroup());
-            for (UserGroup userGroup : group.getUsers()) {
-                if (!userGroup.isAccepted()) {
-                    continue;
-                }
-
-                users.add(userGroup.getUser().getName());
-            }
+            users.addAll(this.groupMembershipCache.getAcceptedUsers(group.getId()));
         }
 
         ProjectType projectType = ProjectType.getType(projectItem.getProject().getType());
+        // shared projects of target users change
+        bumpAllEtags(projectItem);
+        this.etagRegistry.bump(EtagRegistry.Resource.PROJECTS, users);
         return this.sharedProjectItemDaoJpa.save(projectType, projectItem, users, requester);
     }
 
@@ -117,6 +119,7 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         String user = revokeProjectItemSharableParams.getUser();
         if (user != null) {
             this.sharedProjectItemDaoJpa.revokeSharableWithUser(projectItem, user);
+            bumpAllEtags(projectItem);
             return new RevokeSharableEvent(
                     new Event(user, projectItemId, projectItem.getName()), requester, projectItem.getContentType());
         }
@@ -130,11 +133,24 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         T projectItem = getProjectItem(projectItemId, owner);
         content.setProjectItem(projectItem);
         content.setOwner(owner);
-        updateRevision(content, content.getText(), owner);
         this.getContentJpaRepository().save(content);
+        this.contentRevisionDaoJpa.appendRevision(
+                projectItem.getContentType(), content, null, content.getText(), owner);
+        this.searchIndexer.enqueueContent(projectItem.getContentType(), content.getId());
         return content;
     }
 
+    /**
+     * Add contents to project items the caller has just created, without loading and authorizing each item
+     */
+    void addContents(ContentType contentType, List<K> contents, String owner) {
+        this.getContentJpaRepository().saveAll(contents);
+        for (K content : contents) {
+            this.contentRevisionDaoJpa.appendRevision(contentType, content, null, content.getText(), owner);
+            this.searchIndexer.enqueueContent(contentType, content.getId());
+        }
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public K getContent(Long contentId, String requester) {
         K content = this.getContentJpaRepository().findById(contentId)
@@ -154,9 +170,11 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         this.authorizationService.checkAuthorizedToOperateOnContent(
                 content.getOwner(), requester, ContentType.CONTENT, Operation.UPDATE, content.getId(),
                 projectItem.getOwner(), projectItem.getProject().getOwner(), projectItem);
-        updateRevision(content, updateContentParams.getText(), requester);
+        this.contentRevisionDaoJpa.appendRevision(
+                projectItem.getContentType(), content, content.getText(), updateContentParams.getText(), requester);
         content.setText(updateContentParams.getText());
         this.getContentJpaRepository().save(content);
+        this.searchIndexer.enqueueContent(projectItem.getContentType(), contentId);
         return content;
     }
 
@@ -171,6 +189,19 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
                 content.getOwner(), requester, ContentType.CONTENT, Operation.DELETE, content.getId(),
                 projectItem.getOwner(), projectItem.getProject().getOwner(), projectItem);
         this.getContentJpaRepository().delete(content);
+        this.contentRevisionDaoJpa.deleteRevisions(projectItem.getContentType(), contentId);
+        this.searchIndexer.enqueueContent(projectItem.getContentType(), contentId);
+    }
+
+    /**
+     * Delete revisions of contents of project items about to be deleted along with their contents
+     */
+    protected <T extends ProjectItemModel> void deleteContentRevisions(List<T> projectItems) {
+        if (projectItems.isEmpty()) {
+            return;
+        }
+        this.contentRevisionDaoJpa.deleteProjectItemRevisions(projectItems.get(0).getContentType(),
+                projectItems.stream().map(ProjectItemModel::getId).collect(Collectors.toList()));
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -186,22 +217,45 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         return this.labelDaoJpa.getLabels(projectItem.getLabels());
     }
 
+    /**
+     * Resolve labels of many project items in one pass
+     *
+     * @param projectItems the project items
+     * @return project item id -> labels of project item
+     */
+    protected <T extends ProjectItemModel> Map<Long, List<com.bulletjournal.controller.models.Label>> getLabelsToProjectItems(
+            Collection<T> projectItems) {
+        Set<Long> ids = new HashSet<>();
+        projectItems.stream().filter(item -> item.getLabels() != null).forEach(item -> ids.addAll(item.getLabels()));
+        Map<Long, com.bulletjournal.controller.models.Label> labels = this.labelDaoJpa.getLabelMap(ids);
+        Map<Long, List<com.bulletjournal.controller.models.Label>> result = new HashMap<>();
+        projectItems.forEach(item -> result.put(item.getId(), LabelDaoJpa.toLabels(item.getLabels(), labels)));
+        return result;
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public SetLabelEvent setLabels(String requester, Long projectItemId, List<Long> labels) {
         ProjectItemModel projectItem = getProjectItem(projectItemId, requester);
         projectItem.setLabels(labels);
-        Set<UserGroup> targetUsers = projectItem.getProject().getGroup().getUsers();
-        List<Event> events = new ArrayList<>();
-        for (UserGroup user : targetUsers) {
-            if (!Objects.equals(user.getUser().getName(), requester)) {
-                events.add(new Event(user.getUser().getName(), projectItemId, projectItem.getName()));
-            }
-        }
+        List<Event> events = generateGroupEvents(
+                requester, projectItem.getProject().getGroup(), projectItemId, projectItem.getName());
 
         this.getJpaRepository().save(projectItem);
+        this.searchIndexer.enqueue(projectItem);
+        EtagRegistry.Resource resource = EtagRegistry.Resource.of(projectItem.getContentType());
+        if (resource != null) {
+            this.etagRegistry.bump(resource, projectItem.getProject().getId());
+        }
         return new SetLabelEvent(events, requester, projectItem.getContentType());
     }
 
+    private <T extends ProjectItemModel> void bumpAllEtags(T projectItem) {
+        EtagRegistry.Resource resource = EtagRegistry.Resource.of(projectItem.getContentType());
+        if (resource != null) {
+            this.etagRegistry.bumpAll(resource);
+        }
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public <T extends ProjectItemModel> Revision getContentRevision(
         String requester, Long projectItemId, Long contentId, Long revisionId) {
@@ -210,6 +264,15 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         Preconditions.checkState(
             Objects.equals(projectItem.getId(), content.getProjectItem().getId()),
             "ProjectItem ID mismatch");
+        if (content.getRevisions() != null) {
+            // revisions not yet moved into revision store
+            return getLegacyContentRevision(content, revisionId);
+        }
+        return this.contentRevisionDaoJpa.getRevision(projectItem.getContentType(), contentId, revisionId);
+    }
+
+    private Revision getLegacyContentRevision(K content, Long revisionId) {
+        Long contentId = content.getId();
         Revision[] revisions = GSON.fromJson(content.getRevisions(), Revision[].class);
         Preconditions.checkNotNull(
                 revisions,
@@ -234,32 +297,6 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
         throw new IllegalStateException("Cannot reach here");
     }
 
-    private void updateRevision(K content, String newText, String requester) {
-        String revisionsJson = content.getRevisions();
-        if (revisionsJson == null) {
-            revisionsJson = "[]";
-        }
-        LinkedList<Revision> revisionList = new LinkedList<>(
-                Arrays.asList(GSON.fromJson(revisionsJson, Revision[].class)));
-        int maxRevisionNumber = revisionConfig.getMaxRevisionNumber();
-        long nextRevisionId;
-        if (revisionList.isEmpty()) {
-            content.setBaseText(content.getText());
-            nextRevisionId = 1;
-        } else {
-            nextRevisionId = revisionList.getLast().getId() + 1;
-            if (revisionList.size() == maxRevisionNumber) {
-                String oldBaseText = content.getBaseText();
-                String diffToMerge = revisionList.pollFirst().getDiff();
-                content.setBaseText(contentDiffTool.applyDiff(oldBaseText, diffToMerge));
-            }
-        }
-        String diff = contentDiffTool.computeDiff(content.getText(), newText);
-        Revision newRevision = new Revision(nextRevisionId, diff, Instant.now().toEpochMilli(), requester);
-        revisionList.offerLast(newRevision);
-        content.setRevisions(GSON.toJson(revisionList));
-    }
-
     /**
      * Get Contents for project
      *
@@ -274,4 +311,35 @@ abstract class ProjectItemDaoJpa<K extends ContentModel> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get Contents for project item, with their latest revisions
+     *
+     * @param projectItemId the project item id
+     * @param requester     the username of action requester
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public <T extends ProjectItemModel> List<Content> getContentsWithRevisions(Long projectItemId, String requester) {
+        T projectItem = getProjectItem(projectItemId, requester);
+        List<K> contents = this.getContents(projectItemId, requester);
+        Map<Long, List<Revision>> revisions = this.contentRevisionDaoJpa.getRevisions(
+                projectItem.getContentType(),
+                contents.stream().map(ContentModel::getId).collect(Collectors.toList()));
+        return contents.stream()
+                .map(content -> content.toPresentationModel(revisions.get(content.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Events for accepted members of group, except requester
+     */
+    protected List<Event> generateGroupEvents(String requester, Group group, Long itemId, String itemName) {
+        List<Event> events = new ArrayList<>();
+        for (String username : this.groupMembershipCache.getAcceptedUsers(group.getId())) {
+            // skip send event to self
+            if (!Objects.equals(username, requester)) {
+                events.add(new Event(username, itemId, itemName));
+            }
+        }
+        return events;
+    }
 }
@@ -2,8 +2,14 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.repository.models.ProjectNotes;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProjectNotesRepository extends JpaRepository<ProjectNotes, Long> {
+
+    @Query("SELECT p.projectId FROM ProjectNotes p")
+    List<Long> findAllProjectIds();
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.repository.models.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,11 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     List<Project> findByOwner(String owner);
 
     List<Project> findByNameAndOwner(String name, String owner);
+
+    /**
+     * Projects owned by user or in groups user has accepted to join
+     */
+    @Query("SELECT DISTINCT p FROM Project p JOIN FETCH p.group g WHERE p.owner = :user OR g.id IN " +
+            "(SELECT ug.group.id FROM UserGroup ug WHERE ug.user.name = :user AND ug.accepted = TRUE)")
+    List<Project> findAccessibleProjects(@Param("user") String user);
 }
\ No newline at end of file
@@ -2,8 +2,14 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.repository.models.ProjectTasks;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProjectTasksRepository extends JpaRepository<ProjectTasks, Long> {
+
+    @Query("SELECT p.projectId FROM ProjectTasks p")
+    List<Long> findAllProjectIds();
 }
\ No newline at end of file
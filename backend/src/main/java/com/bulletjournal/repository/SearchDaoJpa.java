@@ -0,0 +1,98 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.ProjectItem;
+import com.bulletjournal.controller.models.SearchResultItem;
+import com.bulletjournal.es.SearchDocument;
+import com.bulletjournal.es.SearchEngine;
+import com.bulletjournal.es.SearchMatch;
+import com.bulletjournal.repository.models.ProjectItemModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Repository
+public class SearchDaoJpa {
+
+    private static final int MAX_RESULTS = 50;
+
+    @Autowired(required = false)
+    private SearchEngine searchEngine;
+
+    @Autowired
+    private UserGroupRepository userGroupRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LabelDaoJpa labelDaoJpa;
+
+    /**
+     * Search project items of the groups requester has joined, by name, labels and contents
+     *
+     * @return matching project items, most relevant first, or empty list if search is not enabled
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<SearchResultItem> search(String requester, String term) throws IOException {
+        if (this.searchEngine == null) {
+            return Collections.emptyList();
+        }
+        Set<Long> groupIds = new HashSet<>(this.userGroupRepository.findAcceptedGroupIdsByUsername(requester));
+        List<SearchMatch> matches = this.searchEngine.search(term, groupIds, MAX_RESULTS);
+
+        // document id -> project item, skipping items deleted or regrouped since they were indexed
+        Map<String, ProjectItemModel> items = new HashMap<>();
+        matches.stream().collect(Collectors.groupingBy(SearchMatch::getContentType,
+                Collectors.mapping(SearchMatch::getItemId, Collectors.toSet())))
+                .forEach((contentType, ids) -> getJpaRepository(contentType).findAllById(ids).stream()
+                        .filter(item -> groupIds.contains(item.getProject().getGroup().getId()))
+                        .forEach(item -> items.put(SearchDocument.getId(contentType, item.getId()), item)));
+
+        Set<Long> labelIds = new HashSet<>();
+        items.values().forEach(item -> labelIds.addAll(item.getLabels()));
+        Map<Long, Label> labels = this.labelDaoJpa.getLabelMap(labelIds);
+
+        // an item matching through its name and several contents is ranked by its best match
+        Map<String, SearchResultItem> result = new LinkedHashMap<>();
+        for (SearchMatch match : matches) {
+            String id = SearchDocument.getId(match.getContentType(), match.getItemId());
+            ProjectItemModel item = items.get(id);
+            if (item == null) {
+                continue;
+            }
+            result.computeIfAbsent(id, k -> {
+                ProjectItem projectItem = item.toPresentationModel();
+                projectItem.setLabels(LabelDaoJpa.toLabels(item.getLabels(), labels));
+                return new SearchResultItem(projectItem);
+            }).getHighlights().addAll(match.getHighlights());
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private JpaRepository<? extends ProjectItemModel, Long> getJpaRepository(ContentType contentType) {
+        switch (contentType) {
+            case TASK:
+                return this.taskRepository;
+            case NOTE:
+                return this.noteRepository;
+            case TRANSACTION:
+                return this.transactionRepository;
+            default:
+                throw new IllegalArgumentException("Invalid ContentType " + contentType);
+        }
+    }
+}
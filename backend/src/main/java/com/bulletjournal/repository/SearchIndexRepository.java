@@ -0,0 +1,31 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.repository.models.SearchIndexEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface SearchIndexRepository extends JpaRepository<SearchIndexEntry, Long>, SearchIndexRepositoryCustom {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SearchIndexEntry e WHERE e.id IN :ids")
+    void deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Count a failed attempt and back off exponentially, moving the entries behind newer ones
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE search_index_outbox SET attempts = attempts + 1, next_attempt_at = now() + " +
+            "LEAST(:backoffSeconds * power(2, attempts), :maxBackoffSeconds) * interval '1 second' " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    void addAttempt(@Param("ids") Collection<Long> ids, @Param("backoffSeconds") int backoffSeconds,
+                    @Param("maxBackoffSeconds") int maxBackoffSeconds);
+}
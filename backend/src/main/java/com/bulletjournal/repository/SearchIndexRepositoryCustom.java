@@ -0,0 +1,67 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.models.SearchIndexEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SearchIndexRepositoryCustom {
+
+    /**
+     * Queue project items for indexing
+     *
+     * @param contentType TASK, NOTE or TRANSACTION
+     * @param contentIds  ids of project items
+     */
+    void enqueue(ContentType contentType, Collection<Long> contentIds);
+
+    /**
+     * Queue contents of project items for indexing
+     *
+     * @param contentType TASK, NOTE or TRANSACTION
+     * @param contentIds  ids of task, note or transaction contents
+     */
+    void enqueueContents(ContentType contentType, Collection<Long> contentIds);
+
+    /**
+     * Queue all tasks, notes and transactions of projects for indexing
+     */
+    void enqueueProjects(Collection<Long> projectIds);
+
+    /**
+     * Queue all tasks, notes and transactions carrying label for indexing
+     */
+    void enqueueLabel(Long labelId);
+
+    /**
+     * Queue all tasks, notes and transactions for indexing
+     */
+    void enqueueAll();
+
+    /**
+     * Claim due entries, oldest first. Claimed entries are pushed back by the lease, so other instances
+     * skip them until they are deleted, retried or the lease runs out.
+     *
+     * @param limit        maximum number of entries
+     * @param leaseSeconds time the entries stay claimed
+     * @return claimed entries ordered by id
+     */
+    List<SearchIndexEntry> claim(int limit, int leaseSeconds);
+
+    /**
+     * @return id, name, project id, project group id and newline separated label names of each
+     * project item still existing
+     */
+    List<Object[]> findDocuments(ContentType contentType, Collection<Long> contentIds);
+
+    /**
+     * @return id, project item id and text of each content of the project items
+     */
+    List<Object[]> findContents(ContentType contentType, Collection<Long> projectItemIds);
+
+    /**
+     * @return id, project item id, project id, project group id and text of each content still existing
+     */
+    List<Object[]> findContentDocuments(ContentType contentType, Collection<Long> contentIds);
+}
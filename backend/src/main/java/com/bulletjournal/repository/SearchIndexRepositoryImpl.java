@@ -0,0 +1,167 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.models.SearchIndexEntry;
+import com.google.common.collect.Lists;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.util.*;
+
+@Repository
+@Transactional
+public class SearchIndexRepositoryImpl implements SearchIndexRepositoryCustom {
+
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private static final String COLUMNS = "(id, content_type, content_id, is_content, attempts, next_attempt_at)";
+
+    private static final Map<ContentType, String> TABLES = new EnumMap<>(ContentType.class);
+
+    // content table and its project item column
+    private static final Map<ContentType, String[]> CONTENT_TABLES = new EnumMap<>(ContentType.class);
+
+    static {
+        TABLES.put(ContentType.TASK, "tasks");
+        TABLES.put(ContentType.NOTE, "notes");
+        TABLES.put(ContentType.TRANSACTION, "transactions");
+        CONTENT_TABLES.put(ContentType.TASK, new String[]{"task_contents", "task_id"});
+        CONTENT_TABLES.put(ContentType.NOTE, new String[]{"note_contents", "note_id"});
+        CONTENT_TABLES.put(ContentType.TRANSACTION, new String[]{"transaction_contents", "transaction_id"});
+    }
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void enqueue(ContentType contentType, Collection<Long> contentIds) {
+        insert(contentType, contentIds, false);
+    }
+
+    @Override
+    public void enqueueContents(ContentType contentType, Collection<Long> contentIds) {
+        insert(contentType, contentIds, true);
+    }
+
+    private void insert(ContentType contentType, Collection<Long> contentIds, boolean isContent) {
+        // stay below the bind parameter limit of a statement
+        for (List<Long> batch : Lists.partition(new ArrayList<>(contentIds), MAX_ROWS_PER_INSERT)) {
+            String queryString = "INSERT INTO search_index_outbox " + COLUMNS + " VALUES "
+                    + String.join(", ", Collections.nCopies(batch.size(),
+                    "(nextval('search_index_outbox_sequence'), ?, ?, " + isContent + ", 0, now())"));
+            Query query = entityManager.createNativeQuery(queryString);
+            int i = 1;
+            for (Long contentId : batch) {
+                query.setParameter(i++, contentType.name());
+                query.setParameter(i++, contentId);
+            }
+            query.executeUpdate();
+        }
+    }
+
+    @Override
+    public void enqueueProjects(Collection<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<ContentType, String> table : TABLES.entrySet()) {
+            entityManager.createNativeQuery(selectInto(table.getKey(), table.getValue())
+                    + " WHERE project_id IN (:projectIds)")
+                    .setParameter("projectIds", projectIds)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public void enqueueLabel(Long labelId) {
+        for (Map.Entry<ContentType, String> table : TABLES.entrySet()) {
+            entityManager.createNativeQuery(selectInto(table.getKey(), table.getValue())
+                    + " WHERE labels @> CAST(ARRAY[?1] AS bigint[])")
+                    .setParameter(1, labelId)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public void enqueueAll() {
+        for (Map.Entry<ContentType, String> table : TABLES.entrySet()) {
+            entityManager.createNativeQuery(selectInto(table.getKey(), table.getValue())).executeUpdate();
+        }
+    }
+
+    private static String selectInto(ContentType contentType, String table) {
+        return "INSERT INTO search_index_outbox " + COLUMNS
+                + " SELECT nextval('search_index_outbox_sequence'), '" + contentType.name() + "', id, false, 0, now() FROM " + table;
+    }
+
+    @Override
+    public List<SearchIndexEntry> claim(int limit, int leaseSeconds) {
+        // rows locked by a concurrent claim are skipped rather than waited for
+        List<SearchIndexEntry> entries = entityManager.createNativeQuery("UPDATE search_index_outbox"
+                + " SET next_attempt_at = now() + ?1 * interval '1 second' WHERE id IN (SELECT id FROM search_index_outbox"
+                + " WHERE next_attempt_at <= now() ORDER BY next_attempt_at, id LIMIT ?2 FOR UPDATE SKIP LOCKED)"
+                + " RETURNING *", SearchIndexEntry.class)
+                .setParameter(1, leaseSeconds)
+                .setParameter(2, limit)
+                .getResultList();
+        entries.sort(Comparator.comparing(SearchIndexEntry::getId));
+        return entries;
+    }
+
+    @Override
+    public List<Object[]> findDocuments(ContentType contentType, Collection<Long> contentIds) {
+        String table = getTable(contentType);
+        if (contentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createNativeQuery("SELECT i.id, i.name, p.id AS project_id, p.group_id, "
+                + "(SELECT string_agg(l.name, E'\\n') FROM labels l WHERE l.id = ANY(i.labels)) FROM " + table
+                + " i JOIN projects p ON p.id = i.project_id WHERE i.id IN (:ids)")
+                .setParameter("ids", contentIds)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> findContents(ContentType contentType, Collection<Long> projectItemIds) {
+        String[] contentTable = getContentTable(contentType);
+        if (projectItemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createNativeQuery("SELECT c.id, c." + contentTable[1] + ", c.text FROM "
+                + contentTable[0] + " c WHERE c." + contentTable[1] + " IN (:ids)")
+                .setParameter("ids", projectItemIds)
+                .getResultList();
+    }
+
+    @Override
+    public List<Object[]> findContentDocuments(ContentType contentType, Collection<Long> contentIds) {
+        String[] contentTable = getContentTable(contentType);
+        if (contentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createNativeQuery("SELECT c.id, i.id AS item_id, p.id AS project_id, p.group_id, c.text"
+                + " FROM " + contentTable[0] + " c JOIN " + getTable(contentType) + " i ON i.id = c." + contentTable[1]
+                + " JOIN projects p ON p.id = i.project_id WHERE c.id IN (:ids)")
+                .setParameter("ids", contentIds)
+                .getResultList();
+    }
+
+    private static String[] getContentTable(ContentType contentType) {
+        String[] contentTable = CONTENT_TABLES.get(contentType);
+        if (contentTable == null) {
+            throw new IllegalArgumentException("Invalid ContentType " + contentType);
+        }
+        return contentTable;
+    }
+
+    private static String getTable(ContentType contentType) {
+        String table = TABLES.get(contentType);
+        if (table == null) {
+            throw new IllegalArgumentException("Invalid ContentType " + contentType);
+        }
+        return table;
+    }
+}
@@ -1,11 +1,17 @@
 package com.bulletjournal.repository;
 
+import com.bulletjournal.authz.SharedProjectItemIndex;
+import com.bulletjournal.config.AuthzCacheConfig;
+import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.ProjectItem;
 import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.ShareProjectItemEvent;
 import com.bulletjournal.repository.models.*;
+import com.bulletjournal.repository.utils.DaoHelper;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +19,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -24,6 +31,12 @@ import java.util.stream.Collectors;
 public class SharedProjectItemDaoJpa {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SharedProjectItemDaoJpa.class);
+    private static final long MAX_CACHED_USERS = 10000;
+
+    private SharedProjectItemIndex sharedProjectItemIndex;
+
+    @Autowired
+    private AuthzCacheConfig authzCacheConfig;
 
     @Autowired
     private SharedProjectItemRepository sharedProjectItemsRepository;
@@ -40,6 +53,12 @@ public class SharedProjectItemDaoJpa {
     @Autowired
     private GroupDaoJpa groupDaoJpa;
 
+    @PostConstruct
+    public void postConstruct() {
+        this.sharedProjectItemIndex = new SharedProjectItemIndex(MAX_CACHED_USERS,
+                this.authzCacheConfig.getSharedItemsExpireSeconds(), this::loadSharedItemIds);
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public <T extends ProjectItem> List<T> getSharedProjectItems(
             String user, final ProjectType projectType) {
@@ -73,18 +92,44 @@ public class SharedProjectItemDaoJpa {
         return getSharedProjectItems(user, null);
     }
 
+    /**
+     * Check if project item is shared with user, served from {@link SharedProjectItemIndex}
+     */
+    public boolean isSharedWith(String user, ContentType contentType, Long itemId) {
+        return this.sharedProjectItemIndex.contains(user, contentType, itemId);
+    }
+
+    public <T extends ProjectItemModel> boolean isSharedWith(String user, T projectItem) {
+        return isSharedWith(user, projectItem.getContentType(), projectItem.getId());
+    }
+
+    private SetMultimap<ContentType, Long> loadSharedItemIds(String user) {
+        ImmutableSetMultimap.Builder<ContentType, Long> builder = ImmutableSetMultimap.builder();
+        for (Object[] ids : this.sharedProjectItemsRepository.findItemIdsByUsername(user)) {
+            if (ids[0] != null) {
+                builder.put(ContentType.TASK, (Long) ids[0]);
+            } else if (ids[1] != null) {
+                builder.put(ContentType.NOTE, (Long) ids[1]);
+            } else if (ids[2] != null) {
+                builder.put(ContentType.TRANSACTION, (Long) ids[2]);
+            }
+        }
+        return builder.build();
+    }
+
+    private void invalidateAfterCommit(String user) {
+        DaoHelper.afterCommit(() -> this.sharedProjectItemIndex.invalidate(user));
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public <T extends ProjectItemModel, K extends ProjectItem> ShareProjectItemEvent save(
+    public <T extends ProjectItemModel> ShareProjectItemEvent save(
             ProjectType projectType, T projectItem, List<String> users, String requester) {
         List<Event> events = new ArrayList<>();
         for (String user : new HashSet<>(users)) {
             if (Objects.equals(user, requester)) {
                 continue;
             }
-            List<K> existingItems = this.getSharedProjectItems(user);
-            if (existingItems.stream().anyMatch(existingItem ->
-                    Objects.equals(existingItem.getContentType(), projectItem.getContentType()) &&
-                            Objects.equals(existingItem.getId(), projectItem.getId()))) {
+            if (loadSharedItemIds(user).containsEntry(projectItem.getContentType(), projectItem.getId())) {
                 LOGGER.error(projectItem.getClass().getSimpleName() + " " + projectItem.getName() +
                         " (ID " + projectItem.getId() +
                         ") is already shared with User " + user);
@@ -122,6 +167,7 @@ public class SharedProjectItemDaoJpa {
                     throw new IllegalArgumentException();
             }
             sharedProjectItem = this.sharedProjectItemsRepository.save(sharedProjectItem);
+            invalidateAfterCommit(user);
             Event event = new Event(user, sharedProjectItem.getId(), projectItem.getName());
             events.add(event);
         }
@@ -170,5 +216,6 @@ public class SharedProjectItemDaoJpa {
                 .filter(item -> Objects.equals(item.getUsername(), user))
                 .findAny().orElseThrow(() -> new ResourceNotFoundException("User " + user + " not found"));
         this.sharedProjectItemsRepository.delete(sharedProjectItem);
+        invalidateAfterCommit(user);
     }
 }
@@ -2,27 +2,34 @@ package com.bulletjournal.repository;
 
 import com.bulletjournal.authz.AuthorizationService;
 import com.bulletjournal.authz.Operation;
+import com.bulletjournal.calendars.google.Converter;
+import com.bulletjournal.calendars.google.GoogleCalendarEvent;
+import com.bulletjournal.config.HierarchyConfig;
 import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.utils.EtagRegistry;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.exceptions.ResourceNotFoundException;
+import com.bulletjournal.hierarchy.HierarchyIndex;
+import com.bulletjournal.hierarchy.HierarchyIndexCache;
 import com.bulletjournal.hierarchy.HierarchyItem;
-import com.bulletjournal.hierarchy.HierarchyProcessor;
+import com.bulletjournal.hierarchy.HierarchyPositions;
 import com.bulletjournal.hierarchy.TaskRelationsProcessor;
 import com.bulletjournal.notifications.Event;
 import com.bulletjournal.notifications.UpdateTaskAssigneeEvent;
+import com.bulletjournal.reminders.Reminder;
+import com.bulletjournal.reminders.ReminderScheduler;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.Task;
-import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.utils.DaoHelper;
-import com.bulletjournal.util.BuJoRecurrenceRule;
+import com.bulletjournal.util.RecurrenceOccurrenceCache;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.dmfs.rfc5545.DateTime;
 import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
-import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,8 +42,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Pageable;
 
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -48,6 +58,14 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
 
     private static final Gson GSON_ALLOW_EXPOSE_ONLY = new GsonBuilder()
             .excludeFieldsWithoutExposeAnnotation().create();
+    private static final long MAX_CACHED_HIERARCHIES = 1000;
+
+    private static final long MAX_CACHED_RECURRING_TASKS = 10000;
+
+    private final HierarchyIndexCache hierarchyIndexCache = new HierarchyIndexCache(MAX_CACHED_HIERARCHIES);
+
+    private final RecurrenceOccurrenceCache recurrenceOccurrenceCache =
+            new RecurrenceOccurrenceCache(MAX_CACHED_RECURRING_TASKS);
 
     @Autowired
     private TaskRepository taskRepository;
@@ -58,6 +76,9 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     @Autowired
     private ProjectTasksRepository projectTasksRepository;
 
+    @Autowired
+    private ProjectRepository projectRepository;
+
     @Autowired
     private AuthorizationService authorizationService;
 
@@ -70,6 +91,18 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
     @Autowired
     private SharedProjectItemDaoJpa sharedProjectItemDaoJpa;
 
+    @Autowired
+    private HierarchyConfig hierarchyConfig;
+
+    @Autowired
+    private EtagRegistry etagRegistry;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Override
     public JpaRepository getJpaRepository() {
         return this.taskRepository;
@@ -89,33 +122,45 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
             return this.sharedProjectItemDaoJpa.getSharedProjectItems(requester, ProjectType.TODO);
         }
 
+        if (this.hierarchyConfig.isColumnStorage()) {
+            List<Task> tasks = this.taskRepository.findTaskByProjectOrderByPositionAsc(project);
+            final Map<Long, Task> tasksMap = tasks.stream().collect(Collectors.toMap(Task::getId, t -> t));
+            final Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap =
+                    getLabelsToProjectItems(tasks);
+            return TaskRelationsProcessor.processRelations(tasksMap, HierarchyPositions.buildHierarchy(tasks))
+                    .stream()
+                    .map(task -> addLabels(task, labelsMap))
+                    .collect(Collectors.toList());
+        }
+
         Optional<ProjectTasks> projectTasksOptional = this.projectTasksRepository.findById(projectId);
         if (!projectTasksOptional.isPresent()) {
             return Collections.emptyList();
         }
         ProjectTasks projectTasks = projectTasksOptional.get();
         final Map<Long, Task> tasksMap = this.taskRepository.findTaskByProject(project)
-                .stream().collect(Collectors.toMap(Task::getId, n -> n));
+                .stream().collect(Collectors.toMap(Task::getId, t -> t));
+        final Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap =
+                getLabelsToProjectItems(tasksMap.values());
         return TaskRelationsProcessor.processRelations(tasksMap, projectTasks.getTasks())
                 .stream()
-                .map(task -> addLabels(task, tasksMap))
+                .map(task -> addLabels(task, labelsMap))
                 .collect(Collectors.toList());
     }
 
     /**
      * Apply labels to tasks
      *
-     * @param task     the task object
-     * @param tasksMap the Map object mapping relationship between TaskId and Task Instance
+     * @param task      the task object
+     * @param labelsMap the Map object mapping relationship between TaskId and its labels
      * @return com.bulletjournal.controller.models.Task - task instance with labels
      */
     private com.bulletjournal.controller.models.Task addLabels(
-            com.bulletjournal.controller.models.Task task, Map<Long, Task> tasksMap) {
-        List<com.bulletjournal.controller.models.Label> labels =
-                getLabelsToProjectItem(tasksMap.get(task.getId()));
-        task.setLabels(labels);
+            com.bulletjournal.controller.models.Task task,
+            Map<Long, List<com.bulletjournal.controller.models.Label>> labelsMap) {
+        task.setLabels(labelsMap.get(task.getId()));
         for (com.bulletjournal.controller.models.Task subTask : task.getSubTasks()) {
-            addLabels(subTask, tasksMap);
+            addLabels(subTask, labelsMap);
         }
         return task;
     }
@@ -151,36 +196,6 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         return task;
     }
 
-    /**
-     * Get assignee's reminding tasks and recurring reminding tasks from database.
-     * <p>
-     * Reminding tasks qualifications:
-     * 1. Reminding Time is before current time.
-     * 2. Starting time is after the current time.
-     *
-     * @param assignee the username of task assignee
-     * @param now      the ZonedDateTime object of the current time
-     * @return List<com.bulletjournal.controller.models.Task> - a list of tasks to be reminded
-     */
-    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<com.bulletjournal.controller.models.Task> getRemindingTasks(String assignee, ZonedDateTime now) {
-        Timestamp currentTime = Timestamp.from(now.toInstant());
-
-        // Fetch regular reminding tasks
-        List<com.bulletjournal.controller.models.Task> regularTasks = this.taskRepository
-                .findRemindingTasks(assignee, currentTime.toString())
-                .stream()
-                .map(TaskModel::toPresentationModel)
-                .collect(Collectors.toList());
-
-        // Fetch recurring reminding tasks
-        List<com.bulletjournal.controller.models.Task> recurringTask = getRecurringTaskNeedReminding(assignee, now);
-
-        // Append recurring reminding tasks to regular reminding tasks
-        regularTasks.addAll(recurringTask);
-        return regularTasks;
-    }
-
     /**
      * Get user's tasks between the request start time and request end time.
      *
@@ -202,35 +217,12 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         return tasks;
     }
 
-    /**
-     * Get recurring reminding tasks from database.
-     * <p>
-     * Reminding tasks qualifications:
-     * 1. Reminding Time is before current time.
-     * 2. Starting time is after the current time.
-     *
-     * @param assignee the username of task assignee
-     * @param now      the ZonedDateTime object of the current time
-     * @return List<com.bulletjournal.controller.models.Task> - a list of tasks
-     */
-    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public List<com.bulletjournal.controller.models.Task> getRecurringTaskNeedReminding(
-            final String assignee, final ZonedDateTime now) {
-        ZonedDateTime maxRemindingTime = now.plusHours(ZonedDateTimeHelper.MAX_HOURS_BEFORE);
-        return this.getRecurringTasks(assignee, now, maxRemindingTime)
-                .stream()
-                .filter(t -> t.getReminderDateTime().before(ZonedDateTimeHelper.getTimestamp(now))
-                        && t.getStartTime().after(ZonedDateTimeHelper.getTimestamp(now)))
-                .map(TaskModel::toPresentationModel)
-                .collect(Collectors.toList());
-    }
-
     /**
      * Get all recurrent tasks of an assignee within requested start time and end time
      * <p>
      * Procedure:
      * 1. Fetch all tasks with recurrence rule
-     * 2. Obtain new DateTime instance by using RecurrenceRule iterator
+     * 2. Look up occurrences within time range from recurrenceOccurrenceCache
      * 3. Clone the original recurring task and set its start/end time and reminding setting
      *
      * @param assignee  the username of task assignee
@@ -240,40 +232,31 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public List<Task> getRecurringTasks(String assignee, ZonedDateTime startTime, ZonedDateTime endTime) {
+        return getOccurrences(
+                this.taskRepository.findTasksByAssigneesAndRecurrenceRuleNotNull(assignee), startTime, endTime);
+    }
+
+    /**
+     * Get occurrences of recurrent tasks within requested start time and end time
+     *
+     * @param recurrentTasks tasks with recurrence rule
+     * @param startTime      the ZonedDateTime object of start time
+     * @param endTime        the ZonedDateTime object of end time
+     * @return List<Task> - a list of cloned tasks, one per occurrence
+     */
+    private List<Task> getOccurrences(List<Task> recurrentTasks, ZonedDateTime startTime, ZonedDateTime endTime) {
         List<Task> recurringTasksBetween = new ArrayList<>();
-        List<Task> recurrentTasks = this.taskRepository.findTasksByAssigneesAndRecurrenceRuleNotNull(assignee);
-        DateTime startDateTime = ZonedDateTimeHelper.getDateTime(startTime);
-        DateTime endDateTime = ZonedDateTimeHelper.getDateTime(endTime);
+        // occurrences are at minute granularity, round window inwards
+        long startMinute = (startTime.toInstant().toEpochMilli() + TimeUnit.MINUTES.toMillis(1) - 1)
+                / TimeUnit.MINUTES.toMillis(1);
+        long endMinute = TimeUnit.MILLISECONDS.toMinutes(endTime.toInstant().toEpochMilli());
 
         for (Task t : recurrentTasks) {
             try {
-                String recurrenceRule = t.getRecurrenceRule();
-                String timezone = t.getTimezone();
-                Set<String> completedSlots = ZonedDateTimeHelper.parseDateTimeSet(t.getCompletedSlots());
-                BuJoRecurrenceRule rule = new BuJoRecurrenceRule(recurrenceRule, timezone);
-                RecurrenceRuleIterator it = rule.getIterator();
-                while (it.hasNext()) {
-                    DateTime currDateTime = it.nextDateTime();
-                    if (currDateTime.after(endDateTime)) {
-                        break;
-                    }
-                    if (currDateTime.before(startDateTime) || completedSlots.contains(currDateTime.toString())) {
-                        continue;
-                    }
-                    Task cloned = (Task) t.clone();
-
-                    String date = ZonedDateTimeHelper.getDate(currDateTime);
-                    String time = ZonedDateTimeHelper.getTime(currDateTime);
-
-                    cloned.setDueDate(date); // Set due date
-                    cloned.setDueTime(time); // Set due time
-
-                    // Set start time and end time
-                    cloned.setStartTime(Timestamp.from(ZonedDateTimeHelper.getStartTime(date, time, timezone).toInstant()));
-                    cloned.setEndTime(Timestamp.from(ZonedDateTimeHelper.getEndTime(date, time, timezone).toInstant()));
-
-                    cloned.setReminderSetting(t.getReminderSetting()); // Set reminding setting to cloned
-                    recurringTasksBetween.add(cloned);
+                int[] occurrences = this.recurrenceOccurrenceCache.getOccurrences(
+                        t.getId(), t.getRecurrenceRule(), t.getTimezone(), t.getCompletedSlots(), startMinute, endMinute);
+                for (int occurrence : occurrences) {
+                    recurringTasksBetween.add(t.getOccurrence(occurrence));
                 }
             } catch (InvalidRecurrenceRuleException | NumberFormatException e) {
                 throw new IllegalArgumentException("Recurrence rule format invalid");
@@ -284,6 +267,89 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         return recurringTasksBetween;
     }
 
+    /**
+     * Get reminders of all assignees' tasks and recurring task occurrences, which remind
+     * within [from, to) and start after now
+     * <p>
+     * Recurring tasks are found by the reminder time of their next occurrence, which is moved
+     * forward to the first occurrence starting after now once loaded.
+     *
+     * @param from reminder time lower bound in epoch millis, inclusive
+     * @param to   reminder time upper bound in epoch millis, exclusive
+     * @param now  current time in epoch millis
+     * @return List<Reminder> - a list of reminders
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<Reminder> getRemindersBetween(long from, long to, long now) {
+        List<Task> tasks = this.taskRepository.findTasksRemindingBetween(
+                new Timestamp(from), new Timestamp(to), new Timestamp(now));
+        List<Task> recurrentTasks = this.taskRepository.findTasksByNextReminderTimeBefore(new Timestamp(to));
+        tasks.addAll(recurrentTasks);
+        List<Reminder> reminders = toReminders(tasks, from, to, now);
+        for (Task task : recurrentTasks) {
+            Long next = task.getNextReminderTime(now);
+            Timestamp nextReminderTime = next == null ? null : new Timestamp(next);
+            if (!Objects.equals(nextReminderTime, task.getNextReminderTime())) {
+                // skipped if the task got written meanwhile, which computes it anew
+                this.taskRepository.updateNextReminderTime(task.getId(), task.getNextReminderTime(), nextReminderTime);
+            }
+        }
+        return reminders;
+    }
+
+    /**
+     * Get reminders of tasks, which remind within [from, to) and start after now.
+     * <p>
+     * Runs in its own transaction, as it is called after commit of task writes.
+     *
+     * @param taskIds the task ids, missing tasks are skipped
+     * @param from    reminder time lower bound in epoch millis, inclusive
+     * @param to      reminder time upper bound in epoch millis, exclusive
+     * @param now     current time in epoch millis
+     * @return List<Reminder> - a list of reminders
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRES_NEW)
+    public List<Reminder> getRemindersBetween(Collection<Long> taskIds, long from, long to, long now) {
+        return toReminders(this.taskRepository.findAllById(taskIds), from, to, now);
+    }
+
+    private List<Reminder> toReminders(List<Task> tasks, long from, long to, long now) {
+        List<Task> remindingTasks = new ArrayList<>();
+        List<Task> recurrentTasks = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getRecurrenceRule() != null) {
+                recurrentTasks.add(task);
+            } else if (task.getStartTime() != null && task.getReminderDateTime() != null) {
+                remindingTasks.add(task);
+            }
+        }
+
+        // occurrences are reminded at most MAX_HOURS_BEFORE ahead of their start
+        long maxBefore = TimeUnit.HOURS.toMillis(ZonedDateTimeHelper.MAX_HOURS_BEFORE);
+        List<Reminder> reminders = new ArrayList<>();
+        for (Task occurrence : getOccurrences(recurrentTasks,
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneOffset.UTC),
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(to + maxBefore), ZoneOffset.UTC))) {
+            Long reminderTime = occurrence.getOccurrenceReminderTime();
+            if (reminderTime != null) {
+                addReminder(reminders, occurrence, reminderTime, from, to, now);
+            }
+        }
+        for (Task task : remindingTasks) {
+            addReminder(reminders, task, task.getReminderDateTime().getTime(), from, to, now);
+        }
+        return reminders;
+    }
+
+    private static void addReminder(List<Reminder> reminders, Task task, long reminderTime,
+                                    long from, long to, long now) {
+        long startTime = task.getStartTime().getTime();
+        if (startTime > now && reminderTime >= from && reminderTime < to) {
+            reminders.add(new Reminder(task.getId(), task.getAssignees(), startTime, reminderTime,
+                    task.toPresentationModel()));
+        }
+    }
+
     /**
      * Create task based on CreateTaskParams
      *
@@ -294,21 +360,38 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public Task create(Long projectId, String owner, CreateTaskParams createTaskParams) {
+        Project project = getTodoProject(projectId, owner);
+
+        Task task = new Task();
+        task.setProject(project);
+        task.setOwner(owner);
+        task.setAssignees(createTaskParams.getAssignees());
+        setTaskParams(task, createTaskParams);
+        task = this.taskRepository.save(task);
+
+        addToProjectTasks(projectId, task, new HierarchyItem(task.getId()));
+        this.reminderScheduler.reschedule(Collections.singletonList(task.getId()));
+        this.searchIndexer.enqueue(task);
+        return task;
+    }
 
-        Project project = this.projectDaoJpa.getProject(projectId, owner);
+    private Project getTodoProject(Long projectId, String requester) {
+        Project project = this.projectDaoJpa.getProject(projectId, requester);
         if (!ProjectType.TODO.equals(ProjectType.getType(project.getType()))) {
             throw new BadRequestException("Project Type expected to be TODO while request is " + project.getType());
         }
+        return project;
+    }
 
-        Task task = new Task();
-        task.setProject(project);
+    /**
+     * Set name and schedule of task, leaving owner and assignees as they are
+     */
+    private void setTaskParams(Task task, CreateTaskParams createTaskParams) {
         task.setDueDate(createTaskParams.getDueDate());
         task.setDueTime(createTaskParams.getDueTime());
-        task.setOwner(owner);
         task.setName(createTaskParams.getName());
         task.setTimezone(createTaskParams.getTimezone());
         task.setDuration(createTaskParams.getDuration());
-        task.setAssignees(createTaskParams.getAssignees());
         task.setRecurrenceRule(createTaskParams.getRecurrenceRule());
 
         String date = createTaskParams.getDueDate();
@@ -317,30 +400,178 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         ReminderSetting reminderSetting = getReminderSetting(
                 date, task, time, timezone, createTaskParams.getRecurrenceRule(), createTaskParams.getReminderSetting());
         task.setReminderSetting(reminderSetting);
-        task = this.taskRepository.save(task);
+    }
 
-        final ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId).orElseGet(ProjectTasks::new);
+    /**
+     * Add task at root level of project's tasks
+     *
+     * @param projectId     the project id
+     * @param task          the task to add
+     * @param hierarchyItem the hierarchy item of task, with its sub items
+     */
+    private void addToProjectTasks(Long projectId, Task task, HierarchyItem hierarchyItem) {
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, projectId);
+        if (this.hierarchyConfig.isColumnStorage()) {
+            task.setParentId(null);
+            task.setPosition(HierarchyPositions.nextPosition(this.taskRepository.findMaxRootPosition(projectId)));
+            this.taskRepository.save(task);
+            return;
+        }
 
-        String newRelations = HierarchyProcessor.addItem(projectTasks.getTasks(), task.getId());
-        projectTasks.setProjectId(projectId);
-        projectTasks.setTasks(newRelations);
+        final ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId)
+                .orElseGet(() -> new ProjectTasks(projectId));
+        HierarchyIndex index = this.hierarchyIndexCache.checkout(
+                projectId, projectTasks.getVersion(), projectTasks.getTasks());
+        index.addItem(hierarchyItem);
+        projectTasks.setTasks(index.toJson());
         this.projectTasksRepository.save(projectTasks);
-        return task;
+        this.hierarchyIndexCache.checkin(projectId, index, projectTasks::getVersion);
     }
 
+    /**
+     * Add tasks at root level of project's tasks, in order
+     */
+    private void addAllToProjectTasks(Long projectId, List<Task> tasks) {
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, projectId);
+        if (this.hierarchyConfig.isColumnStorage()) {
+            Double position = this.taskRepository.findMaxRootPosition(projectId);
+            for (Task task : tasks) {
+                position = HierarchyPositions.nextPosition(position);
+                task.setParentId(null);
+                task.setPosition(position);
+            }
+            this.taskRepository.saveAll(tasks);
+            return;
+        }
+
+        final ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId)
+                .orElseGet(() -> new ProjectTasks(projectId));
+        HierarchyIndex index = this.hierarchyIndexCache.checkout(
+                projectId, projectTasks.getVersion(), projectTasks.getTasks());
+        tasks.forEach(task -> index.addItem(new HierarchyItem(task.getId())));
+        projectTasks.setTasks(index.toJson());
+        this.projectTasksRepository.save(projectTasks);
+        this.hierarchyIndexCache.checkin(projectId, index, projectTasks::getVersion);
+    }
+
+    /**
+     * Create tasks of Google Calendar events in project, with the event details as content
+     * <p>
+     * Tasks are matched to events by iCalUID in a single query. Tasks already created for events
+     * are updated if updateExisting, tasks of events created in another project are never touched.
+     *
+     * @param updateExisting whether to update tasks already created for events, or skip them
+     * @return tasks created or updated
+     */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
-    public void create(Long projectId, String owner, CreateTaskParams createTaskParams,
-                       String iCalUID, String text) {
-        // Skip duplicated iCalUID
-        if (this.taskRepository.findTaskByGoogleCalendarEventId(iCalUID).isPresent()) {
-            LOGGER.info("Task with iCalUID {} already exists", iCalUID);
+    public List<Task> upsertGoogleCalendarTasks(Long projectId, String owner, List<GoogleCalendarEvent> events,
+                                                boolean updateExisting) {
+        Project project = getTodoProject(projectId, owner);
+        // iCalUID -> event, the last change of an event wins
+        Map<String, GoogleCalendarEvent> eventsById = new LinkedHashMap<>();
+        events.forEach(event -> eventsById.put(event.getiCalUID(), event));
+        if (eventsById.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Task> existing = this.taskRepository.findTasksByGoogleCalendarEventIdIn(eventsById.keySet())
+                .stream().collect(Collectors.toMap(Task::getGoogleCalendarEventId, t -> t));
+
+        List<Task> created = new ArrayList<>();
+        List<TaskContent> contents = new ArrayList<>();
+        List<Task> updated = new ArrayList<>();
+        for (GoogleCalendarEvent event : eventsById.values()) {
+            CreateTaskParams createTaskParams = Converter.toCreateTaskParams(event);
+            Task task = existing.get(event.getiCalUID());
+            if (task == null) {
+                task = new Task();
+                task.setProject(project);
+                task.setOwner(owner);
+                task.setAssignees(createTaskParams.getAssignees());
+                task.setGoogleCalendarEventId(event.getiCalUID());
+                task.setGoogleEventId(event.getEventId());
+                setTaskParams(task, createTaskParams);
+                created.add(task);
+
+                TaskContent content = new TaskContent(Converter.toHtml(event.getContent().getText()));
+                content.setProjectItem(task);
+                content.setOwner(owner);
+                contents.add(content);
+            } else if (updateExisting && projectId.equals(task.getProject().getId())) {
+                task.setGoogleEventId(event.getEventId());
+                setTaskParams(task, createTaskParams);
+                this.recurrenceOccurrenceCache.invalidate(task.getId());
+                updated.add(task);
+            } else {
+                LOGGER.info("Task with iCalUID {} already exists", event.getiCalUID());
+            }
+        }
+
+        List<Task> tasks = new ArrayList<>(created);
+        tasks.addAll(updated);
+        if (tasks.isEmpty()) {
+            return tasks;
+        }
+        this.taskRepository.saveAll(tasks);
+        if (created.isEmpty()) {
+            this.etagRegistry.bump(EtagRegistry.Resource.TASKS, projectId);
+        } else {
+            addAllToProjectTasks(projectId, created);
+            addContents(ContentType.TASK, contents, owner);
+        }
+        this.reminderScheduler.reschedule(tasks.stream().map(Task::getId).collect(Collectors.toList()));
+        this.searchIndexer.enqueue(tasks);
+        return tasks;
+    }
+
+    /**
+     * Apply a page of Google Calendar changes to project in one transaction: upsert tasks of changed
+     * events and delete tasks of cancelled ones
+     *
+     * @param cancelled ids of cancelled events
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void applyGoogleCalendarChanges(Long projectId, String owner, List<GoogleCalendarEvent> changed,
+                                           Collection<String> cancelled) {
+        upsertGoogleCalendarTasks(projectId, owner, changed, true);
+        deleteGoogleCalendarTasks(projectId, owner, cancelled);
+    }
+
+    /**
+     * Delete tasks of cancelled Google Calendar events in project
+     *
+     * @param eventIds ids of cancelled events, ones without task are ignored
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteGoogleCalendarTasks(Long projectId, String requester, Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
             return;
         }
+        Project project = getTodoProject(projectId, requester);
+        deleteGoogleCalendarTasks(requester,
+                this.taskRepository.findTasksByProjectAndGoogleEventIdIn(project, eventIds));
+    }
 
-        Task task = create(projectId, owner, createTaskParams);
-        task.setGoogleCalendarEventId(iCalUID);
-        task = this.taskRepository.save(task);
-        addContent(task.getId(), owner, new TaskContent(text));
+    /**
+     * Delete tasks of Google Calendar events in project whose events are gone from the calendar
+     *
+     * @param eventIds ids of all events still in the calendar
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public void deleteGoogleCalendarTasksExcept(Long projectId, String requester, Collection<String> eventIds) {
+        Project project = getTodoProject(projectId, requester);
+        Set<String> remaining = new HashSet<>(eventIds);
+        deleteGoogleCalendarTasks(requester, this.taskRepository.findTasksByProjectAndGoogleEventIdNotNull(project)
+                .stream().filter(task -> !remaining.contains(task.getGoogleEventId())).collect(Collectors.toList()));
+    }
+
+    private void deleteGoogleCalendarTasks(String requester, List<Task> tasks) {
+        for (Task task : tasks) {
+            deleteTaskAndAdjustRelations(
+                    requester, task,
+                    (targetTasks) -> this.taskRepository.deleteAll(targetTasks),
+                    (target) -> {
+                    });
+        }
     }
 
     private ReminderSetting getReminderSetting(
@@ -383,6 +614,9 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
 
         DaoHelper.updateIfPresent(
                 updateTaskParams.hasName(), updateTaskParams.getName(), task::setName);
+        if (updateTaskParams.hasName()) {
+            this.searchIndexer.enqueue(task);
+        }
 
         updateAssignees(requester, updateTaskParams, task, events);
 
@@ -390,37 +624,36 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         String time = updateTaskParams.getDueTime();
         String timezone = updateTaskParams.getTimezone();
 
+        if (updateTaskParams.hasTimezone()) {
+            updateCompletedSlotsWithTimezone(task, timezone);
+        }
+
         DaoHelper.updateIfPresent(updateTaskParams.hasDueDate(), date, task::setDueDate);
         DaoHelper.updateIfPresent(updateTaskParams.hasDueTime(), time, task::setDueTime);
         DaoHelper.updateIfPresent(updateTaskParams.hasTimezone(), timezone, task::setTimezone);
         DaoHelper.updateIfPresent(updateTaskParams.hasRecurrenceRule(), updateTaskParams.getRecurrenceRule(), task::setRecurrenceRule);
         DaoHelper.updateIfPresent(updateTaskParams.hasDuration(), updateTaskParams.getDuration(), task::setDuration);
 
-        if (updateTaskParams.hasTimezone()) {
-            updateCompletedSlotsWithTimezone(task, timezone);
+        if (updateTaskParams.hasTimezone() || updateTaskParams.hasRecurrenceRule()) {
+            this.recurrenceOccurrenceCache.invalidate(taskId);
         }
 
         ReminderSetting reminderSetting = getReminderSetting(
                 date, task, time, timezone, updateTaskParams.getRecurrenceRule(), updateTaskParams.getReminderSetting());
         task.setReminderSetting(reminderSetting);
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, task.getProject().getId());
+        this.reminderScheduler.reschedule(Collections.singletonList(taskId));
         return this.taskRepository.save(task);
     }
 
     /**
-     * Update completed slots with target timezone
+     * Update completed slots with target timezone, before task timezone is updated
      *
      * @param task     the target task to be updated
      * @param timezone the timezone
      */
     private void updateCompletedSlotsWithTimezone(Task task, String timezone) {
-        List<DateTime> completedSlots = ZonedDateTimeHelper.parseDateTimeList(task.getCompletedSlots());
-        StringBuilder sb = new StringBuilder();
-        for (DateTime completedSlot : completedSlots) {
-            TimeZone convertedTimezone = TimeZone.getTimeZone(timezone);
-            DateTime shiftedDateTime = completedSlot.shiftTimeZone(convertedTimezone);
-            sb.append(shiftedDateTime.toString());
-        }
-        task.setCompletedSlots(sb.toString());
+        task.shiftCompletedSlots(timezone);
     }
 
     /**
@@ -517,18 +750,17 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public CompletedTask completeSingleRecurringTask(Task task, String dateTimeStr, String contents) {
-        Set<String> completedSlotsSet = ZonedDateTimeHelper.parseDateTimeSet(task.getCompletedSlots());
         String timezone = task.getTimezone();
         DateTime dateTime = ZonedDateTimeHelper.getDateTime(ZonedDateTimeHelper.convertDateTime(dateTimeStr, timezone));
 
-        if (completedSlotsSet.contains(dateTime.toString())) {
+        // Added target date time to the recurring task's completed slots
+        if (!task.addCompletedSlot(TimeUnit.MILLISECONDS.toMinutes(dateTime.getTimestamp()))) {
             throw new IllegalArgumentException("Duplicated task completed");
         }
-
-        // Added target date time to the recurring task's completed slots
-        task.setCompletedSlots(task.getCompletedSlots() == null ?
-                dateTime.toString() : task.getCompletedSlots() + "," + dateTime.toString());
         this.taskRepository.save(task);
+        this.recurrenceOccurrenceCache.invalidate(task.getId());
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, task.getProject().getId());
+        this.reminderScheduler.reschedule(Collections.singletonList(task.getId()));
 
         CompletedTask completedTask = new CompletedTask(task, contents);
         completedTask.setRecurrenceRule(null);
@@ -547,13 +779,29 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      */
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public void updateUserTasks(Long projectId, List<com.bulletjournal.controller.models.Task> tasks) {
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, projectId);
+        Project project = this.projectRepository.findById(projectId)
+                .orElseThrow(() -> new ResourceNotFoundException("Project " + projectId + " not found"));
+        if (this.hierarchyConfig.isColumnStorage()) {
+            List<Task> projectTasks = this.taskRepository.findTaskByProjectOrderByPositionAsc(project);
+            Map<Long, Task> tasksMap = projectTasks.stream().collect(Collectors.toMap(Task::getId, t -> t));
+            // only rows whose parent or position changed are written
+            this.taskRepository.saveAll(HierarchyPositions.assignPositions(
+                    HierarchyPositions.appendOmitted(TaskRelationsProcessor.toHierarchy(tasks), projectTasks), tasksMap));
+            return;
+        }
+
         Optional<ProjectTasks> projectTasksOptional = this.projectTasksRepository.findById(projectId);
         final ProjectTasks projectTasks = projectTasksOptional.orElseGet(ProjectTasks::new);
 
-        projectTasks.setTasks(TaskRelationsProcessor.processRelations(tasks));
+        List<Task> taskList = this.taskRepository.findTaskByProject(project);
+        taskList.sort(Comparator.comparing(Task::getId));
+        projectTasks.setTasks(new HierarchyIndex(
+                HierarchyPositions.appendOmitted(TaskRelationsProcessor.toHierarchy(tasks), taskList), null).toJson());
         projectTasks.setProjectId(projectId);
 
         this.projectTasksRepository.save(projectTasks);
+        this.hierarchyIndexCache.invalidate(projectId);
     }
 
     /**
@@ -592,25 +840,41 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
         Long projectId = project.getId();
         this.authorizationService.checkAuthorizedToOperateOnContent(task.getOwner(), requester, ContentType.TASK,
                 Operation.DELETE, projectId, project.getOwner());
+        this.etagRegistry.bump(EtagRegistry.Resource.TASKS, projectId);
+        Consumer<List<Task>> deleteTasks = targetTasksOperator;
+        targetTasksOperator = targetTasks -> {
+            // revisions are found through contents, so go first
+            deleteContentRevisions(targetTasks);
+            deleteTasks.accept(targetTasks);
+        };
+        targetTasksOperator = targetTasksOperator.andThen(targetTasks -> this.reminderScheduler.reschedule(
+                targetTasks.stream().map(Task::getId).collect(Collectors.toList())))
+                .andThen(targetTasks -> this.searchIndexer.enqueue(targetTasks));
+
+        if (this.hierarchyConfig.isColumnStorage()) {
+            // delete tasks and its subTasks
+            targetTasksOperator.accept(this.taskRepository.findSubTasks(task.getId()));
+            targetOperator.accept(new HierarchyItem(task.getId()));
+            return project;
+        }
 
         ProjectTasks projectTasks = this.projectTasksRepository.findById(projectId)
                 .orElseThrow(() -> new ResourceNotFoundException("ProjectTasks by " + projectId + " not found"));
 
-        String relations = projectTasks.getTasks();
+        HierarchyIndex index = this.hierarchyIndexCache.checkout(
+                projectId, projectTasks.getVersion(), projectTasks.getTasks());
 
         // delete tasks and its subTasks
-        List<Task> targetTasks = this.taskRepository.findAllById(
-                HierarchyProcessor.getSubItems(relations, task.getId()));
+        List<Task> targetTasks = this.taskRepository.findAllById(index.getSubItems(task.getId()));
         targetTasksOperator.accept(targetTasks);
 
         // Update task relations
-        HierarchyItem[] target = new HierarchyItem[1];
-        List<HierarchyItem> hierarchy = HierarchyProcessor.removeTargetItem(relations, task.getId(), target);
-        targetOperator.accept(target[0]);
-
-        projectTasks.setTasks(GSON.toJson(hierarchy));
+        HierarchyItem target = index.removeTargetItem(task.getId());
+        projectTasks.setTasks(index.toJson());
         this.projectTasksRepository.save(projectTasks);
+        this.hierarchyIndexCache.checkin(projectId, index, projectTasks::getVersion);
 
+        targetOperator.accept(target);
         return project;
     }
 
@@ -645,19 +909,7 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
      * @retVal List<Event> - a list of notification events
      */
     private List<Event> generateEvents(TaskModel task, String requester, Project project) {
-        List<Event> events = new ArrayList<>();
-        for (UserGroup userGroup : project.getGroup().getUsers()) {
-            if (!userGroup.isAccepted()) {
-                continue;
-            }
-            // skip send event to self
-            String username = userGroup.getUser().getName();
-            if (userGroup.getUser().getName().equals(requester)) {
-                continue;
-            }
-            events.add(new Event(username, task.getId(), task.getName()));
-        }
-        return events;
+        return generateGroupEvents(requester, project.getGroup(), task.getId(), task.getName());
     }
 
     /**
@@ -747,14 +999,7 @@ public class TaskDaoJpa extends ProjectItemDaoJpa<TaskContent> {
                     t.setProject(project);
                     this.taskRepository.save(t);
                 }),
-                (target) -> {
-                    final ProjectTasks projectTasks = this.projectTasksRepository.findById(targetProject)
-                            .orElseGet(ProjectTasks::new);
-                    String newRelations = HierarchyProcessor.addItem(projectTasks.getTasks(), target);
-                    projectTasks.setTasks(newRelations);
-                    projectTasks.setProjectId(targetProject);
-                    this.projectTasksRepository.save(projectTasks);
-                });
+                (target) -> addToProjectTasks(targetProject, task, target));
     }
 
     /**
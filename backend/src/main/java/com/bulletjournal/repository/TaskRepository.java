@@ -3,10 +3,14 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.Project;
 import com.bulletjournal.repository.models.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,14 +18,41 @@ import java.util.Optional;
 public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
     List<Task> findTaskByProject(Project project);
 
+    List<Task> findTaskByProjectOrderByPositionAsc(Project project);
+
+    @Query("SELECT MAX(t.position) FROM Task t WHERE t.project.id = :projectId AND t.parentId IS NULL")
+    Double findMaxRootPosition(@Param("projectId") Long projectId);
+
+    @Query(value = "WITH RECURSIVE sub_tasks(id) AS (SELECT id FROM tasks WHERE id = :taskId " +
+            "UNION ALL SELECT tasks.id FROM tasks JOIN sub_tasks ON tasks.parent_id = sub_tasks.id) " +
+            "SELECT tasks.* FROM tasks JOIN sub_tasks ON tasks.id = sub_tasks.id", nativeQuery = true)
+    List<Task> findSubTasks(@Param("taskId") Long taskId);
+
     @Query(value = "SELECT * FROM tasks WHERE :assignee = ANY(tasks.assignees) AND tasks.recurrence_rule IS NOT NULL", nativeQuery = true)
     List<Task> findTasksByAssigneesAndRecurrenceRuleNotNull(@Param("assignee") String assignee);
 
+    List<Task> findTasksByNextReminderTimeBefore(Timestamp toTime);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Task t SET t.nextReminderTime = :nextReminderTime" +
+            " WHERE t.id = :id AND t.nextReminderTime = :previous")
+    void updateNextReminderTime(@Param("id") Long id, @Param("previous") Timestamp previous,
+                                @Param("nextReminderTime") Timestamp nextReminderTime);
+
+    @Query("SELECT t FROM Task t WHERE t.recurrenceRule IS NULL AND t.startTime > :now" +
+            " AND t.reminderDateTime >= :fromTime AND t.reminderDateTime < :toTime")
+    List<Task> findTasksRemindingBetween(@Param("fromTime") Timestamp fromTime,
+                                         @Param("toTime") Timestamp toTime,
+                                         @Param("now") Timestamp now);
+
     Optional<Task> findTaskByGoogleCalendarEventId(String googleCalendarEventId);
 
-    @Query(value = "SELECT * FROM tasks WHERE :assignee = ANY(tasks.assignees) AND tasks.start_time IS NOT NULL AND tasks.reminder_date_time IS NOT NULL" +
-            " AND tasks.start_time >= to_timestamp(:now, 'YYYY-MM-DD HH24:MI:SS') AND tasks.reminder_date_time <= to_timestamp(:now, 'YYYY-MM-DD HH24:MI:SS')", nativeQuery = true)
-    List<Task> findRemindingTasks(@Param("assignee") String assignee, @Param("now") String now);
+    List<Task> findTasksByGoogleCalendarEventIdIn(Collection<String> googleCalendarEventIds);
+
+    List<Task> findTasksByProjectAndGoogleEventIdIn(Project project, Collection<String> googleEventIds);
+
+    List<Task> findTasksByProjectAndGoogleEventIdNotNull(Project project);
 
     @Query(value = "SELECT * FROM tasks WHERE :assignee = ANY(tasks.assignees) AND tasks.start_time IS NOT NULL AND " +
             "tasks.end_time IS NOT NULL AND " +
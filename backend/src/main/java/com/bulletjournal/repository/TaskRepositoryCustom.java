@@ -6,7 +6,12 @@ import java.util.List;
 
 public interface TaskRepositoryCustom {
 
-    List<Task> findTasksByLabelId(Long labelId);
-
     List<Task> findTasksByLabelIds(List<Long> labelIds);
+
+    /**
+     * Remove label from at most limit tasks carrying it
+     *
+     * @return number of tasks updated
+     */
+    int removeLabel(Long labelId, int limit);
 }
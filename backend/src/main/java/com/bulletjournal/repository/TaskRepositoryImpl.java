@@ -8,6 +8,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.transaction.Transactional;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
@@ -17,21 +18,28 @@ public class TaskRepositoryImpl implements TaskRepositoryCustom {
     @PersistenceContext
     EntityManager entityManager;
 
-    @Override
-    public List<Task> findTasksByLabelId(Long labelId) {
-        return findTasksByLabelIds(ImmutableList.of(labelId));
-    }
-
     @Override
     public List<Task> findTasksByLabelIds(List<Long> labelIds) {
-        StringBuilder queryString = new StringBuilder("SELECT * FROM tasks WHERE ? = ANY(tasks.labels)");
-        for (int i = 1; i < labelIds.size(); i++) {
-            queryString.append(" and ? = ANY(tasks.labels)");
+        if (labelIds.isEmpty()) {
+            return ImmutableList.of();
         }
-        Query query = entityManager.createNativeQuery(queryString.toString(), Task.class);
+        // containment is answered by the GIN index on tasks.labels
+        String queryString = "SELECT * FROM tasks WHERE tasks.labels @> CAST(ARRAY["
+                + String.join(", ", Collections.nCopies(labelIds.size(), "?")) + "] AS bigint[])";
+        Query query = entityManager.createNativeQuery(queryString, Task.class);
         for (int i = 1; i <= labelIds.size(); i++) {
             query.setParameter(i, labelIds.get(i - 1));
         }
         return query.getResultList();
     }
+
+    @Override
+    public int removeLabel(Long labelId, int limit) {
+        Query query = entityManager.createNativeQuery("UPDATE tasks SET labels = array_remove(labels, ?1), "
+                + "updated_at = now() WHERE id IN (SELECT id FROM tasks "
+                + "WHERE labels @> CAST(ARRAY[?1] AS bigint[]) LIMIT ?2)");
+        query.setParameter(1, labelId);
+        query.setParameter(2, limit);
+        return query.executeUpdate();
+    }
 }
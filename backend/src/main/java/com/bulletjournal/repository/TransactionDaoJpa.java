@@ -8,9 +8,11 @@ import com.bulletjournal.controller.models.Label;
 import com.bulletjournal.controller.models.ProjectType;
 import com.bulletjournal.controller.models.UpdateTransactionParams;
 import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.es.SearchIndexer;
 import com.bulletjournal.exceptions.BadRequestException;
 import com.bulletjournal.ledger.TransactionType;
 import com.bulletjournal.notifications.Event;
+import com.bulletjournal.notifications.SetLabelEvent;
 import com.bulletjournal.repository.models.*;
 import com.bulletjournal.repository.utils.DaoHelper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,7 +24,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -37,6 +41,10 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
     private AuthorizationService authorizationService;
     @Autowired
     private TransactionContentRepository transactionContentRepository;
+    @Autowired
+    private LedgerRollupDaoJpa ledgerRollupDaoJpa;
+    @Autowired
+    private SearchIndexer searchIndexer;
 
     @Override
     public JpaRepository getJpaRepository() {
@@ -57,11 +65,12 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
             Long projectId, ZonedDateTime startTime, ZonedDateTime endTime, String requester) {
         Project project = this.projectDaoJpa.getProject(projectId, requester);
 
-        return this.transactionRepository
-                .findTransactionsByProjectBetween(project, Timestamp.from(startTime.toInstant()), Timestamp.from(endTime.toInstant()))
-                .stream()
+        List<Transaction> transactions = this.transactionRepository
+                .findTransactionsByProjectBetween(project, Timestamp.from(startTime.toInstant()), Timestamp.from(endTime.toInstant()));
+        Map<Long, List<Label>> labelsMap = getLabelsToProjectItems(transactions);
+        return transactions.stream()
                 .sorted((a, b) -> b.getStartTime().compareTo(a.getStartTime()))
-                .map(transaction -> addLabels(transaction))
+                .map(transaction -> transaction.toPresentationModel(labelsMap.get(transaction.getId())))
                 .collect(Collectors.toList());
     }
 
@@ -122,7 +131,10 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
         transaction.setStartTime(Timestamp.from(ZonedDateTimeHelper.getStartTime(date, time, timezone).toInstant()));
         transaction.setEndTime(Timestamp.from(ZonedDateTimeHelper.getEndTime(date, time, timezone).toInstant()));
 
-        return this.transactionRepository.save(transaction);
+        transaction = this.transactionRepository.save(transaction);
+        this.ledgerRollupDaoJpa.update(transaction, 1);
+        this.searchIndexer.enqueue(transaction);
+        return transaction;
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -132,9 +144,13 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
         this.authorizationService.checkAuthorizedToOperateOnContent(
                 transaction.getOwner(), requester, ContentType.TRANSACTION, Operation.UPDATE,
                 transactionId, transaction.getProject().getOwner());
+        this.ledgerRollupDaoJpa.update(transaction, -1);
 
         DaoHelper.updateIfPresent(
                 updateTransactionParams.hasName(), updateTransactionParams.getName(), transaction::setName);
+        if (updateTransactionParams.hasName()) {
+            this.searchIndexer.enqueue(transaction);
+        }
 
         List<Event> events = this.updatePayer(requester, transactionId, updateTransactionParams, transaction);
 
@@ -166,6 +182,7 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
                 Timestamp.from(ZonedDateTimeHelper.getEndTime(date, time, timezone).toInstant()), transaction::setEndTime);
 
         this.transactionRepository.save(transaction);
+        this.ledgerRollupDaoJpa.update(transaction, 1);
         return events;
     }
 
@@ -199,23 +216,15 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
         this.authorizationService.checkAuthorizedToOperateOnContent(transaction.getOwner(), requester,
                 ContentType.TRANSACTION, Operation.DELETE, projectId, project.getOwner());
 
+        this.ledgerRollupDaoJpa.update(transaction, -1);
+        deleteContentRevisions(Collections.singletonList(transaction));
         this.transactionRepository.delete(transaction);
+        this.searchIndexer.enqueue(transaction);
         return generateEvents(transaction, requester, project);
     }
 
     private List<Event> generateEvents(Transaction transaction, String requester, Project project) {
-        List<Event> events = new ArrayList<>();
-        for (UserGroup userGroup : project.getGroup().getUsers()) {
-            if (!userGroup.isAccepted())
-                continue;
-
-            String username = userGroup.getUser().getName();
-            if (userGroup.getUser().getName().equals(requester))
-                continue;
-
-            events.add(new Event(username, transaction.getId(), transaction.getName()));
-        }
-        return events;
+        return generateGroupEvents(requester, project.getGroup(), transaction.getId(), transaction.getName());
     }
 
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
@@ -228,8 +237,22 @@ public class TransactionDaoJpa extends ProjectItemDaoJpa<TransactionContent> {
         }
         this.authorizationService.checkAuthorizedToOperateOnContent(projectItem.getOwner(), requester,
                 ContentType.TRANSACTION, Operation.UPDATE, targetProject, project.getOwner());
+        this.ledgerRollupDaoJpa.update(projectItem, -1);
         projectItem.setProject(project);
         this.getJpaRepository().save(projectItem);
+        this.ledgerRollupDaoJpa.update(projectItem, 1);
+        this.searchIndexer.enqueue(projectItem);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public SetLabelEvent setLabels(String requester, Long transactionId, List<Long> labels) {
+        Transaction transaction = this.getProjectItem(transactionId, requester);
+        this.ledgerRollupDaoJpa.update(transaction, -1);
+        SetLabelEvent event = super.setLabels(requester, transactionId, labels);
+        // same managed entity, now carrying the new labels
+        this.ledgerRollupDaoJpa.update(transaction, 1);
+        return event;
     }
 
     @Override
@@ -7,5 +7,10 @@ import java.util.List;
 public interface TransactionRepositoryCustom {
     List<Transaction> findTransactionsByLabelIds(List<Long> labelIds);
 
-    List<Transaction> findTransactionsByLabelId(Long labelId);
+    /**
+     * Remove label from at most limit transactions carrying it
+     *
+     * @return number of transactions updated
+     */
+    int removeLabel(Long labelId, int limit);
 }
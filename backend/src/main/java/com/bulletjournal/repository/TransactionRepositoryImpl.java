@@ -9,6 +9,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.transaction.Transactional;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
@@ -20,11 +21,13 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
 
     @Override
     public List<Transaction> findTransactionsByLabelIds(List<Long> labelIds) {
-        StringBuilder queryString = new StringBuilder("SELECT * FROM transactions WHERE ? = ANY(transactions.labels)");
-        for (int i = 1; i < labelIds.size(); i++) {
-            queryString.append(" and ? = ANY(transactions.labels)");
+        if (labelIds.isEmpty()) {
+            return ImmutableList.of();
         }
-        Query query = entityManager.createNativeQuery(queryString.toString(), Transaction.class);
+        // containment is answered by the GIN index on transactions.labels
+        String queryString = "SELECT * FROM transactions WHERE transactions.labels @> CAST(ARRAY["
+                + String.join(", ", Collections.nCopies(labelIds.size(), "?")) + "] AS bigint[])";
+        Query query = entityManager.createNativeQuery(queryString, Transaction.class);
         for (int i = 1; i <= labelIds.size(); i++) {
             query.setParameter(i, labelIds.get(i - 1));
         }
@@ -32,7 +35,12 @@ public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
     }
 
     @Override
-    public List<Transaction> findTransactionsByLabelId(Long labelId) {
-        return findTransactionsByLabelIds(ImmutableList.of(labelId));
+    public int removeLabel(Long labelId, int limit) {
+        Query query = entityManager.createNativeQuery("UPDATE transactions SET labels = array_remove(labels, ?1), "
+                + "updated_at = now() WHERE id IN (SELECT id FROM transactions "
+                + "WHERE labels @> CAST(ARRAY[?1] AS bigint[]) LIMIT ?2)");
+        query.setParameter(1, labelId);
+        query.setParameter(2, limit);
+        return query.executeUpdate();
     }
 }
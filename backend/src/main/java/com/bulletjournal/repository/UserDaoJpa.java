@@ -10,11 +10,15 @@ import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.utils.DaoHelper;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public class UserDaoJpa {
@@ -73,6 +77,27 @@ public class UserDaoJpa {
         return userList.get(0);
     }
 
+    /**
+     * @param names the usernames
+     * @return the ones that exist
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public Set<String> getExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(this.userRepository.findNamesIn(names));
+    }
+
+    /**
+     * @param limit maximum number of usernames
+     * @return usernames of most recently updated users first
+     */
+    @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
+    public List<String> getRecentNames(int limit) {
+        return this.userRepository.findNamesOrderByUpdatedAtDesc(PageRequest.of(0, limit));
+    }
+
     @Transactional(rollbackFor = Exception.class, propagation = Propagation.REQUIRED)
     public User updateMyself(String user, UpdateMyselfParams updateMyselfParams) {
         User self = getByName(user);
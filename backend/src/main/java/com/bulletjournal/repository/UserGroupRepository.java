@@ -3,6 +3,8 @@ package com.bulletjournal.repository;
 import com.bulletjournal.repository.models.UserGroup;
 import com.bulletjournal.repository.models.UserGroupKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +13,13 @@ import java.util.List;
 public interface UserGroupRepository extends JpaRepository<UserGroup, UserGroupKey> {
     List<UserGroup> findAllByGroupIdAndAccepted(Long groupId, Boolean accepted);
     List<UserGroup> findAllByUserId(Long userId);
+
+    @Query("SELECT u.name FROM UserGroup ug JOIN ug.user u WHERE ug.group.id = :groupId")
+    List<String> findUsernamesByGroupId(@Param("groupId") Long groupId);
+
+    @Query("SELECT u.name FROM UserGroup ug JOIN ug.user u WHERE ug.group.id = :groupId AND ug.accepted = true")
+    List<String> findAcceptedUsernamesByGroupId(@Param("groupId") Long groupId);
+
+    @Query("SELECT ug.group.id FROM UserGroup ug WHERE ug.user.name = :username AND ug.accepted = true")
+    List<Long> findAcceptedGroupIdsByUsername(@Param("username") String username);
 }
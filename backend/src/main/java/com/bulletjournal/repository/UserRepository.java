@@ -1,13 +1,23 @@
 package com.bulletjournal.repository;
 
 import com.bulletjournal.repository.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findByName(String name);
+
+    @Query("SELECT u.name FROM User u WHERE u.name IN :names")
+    List<String> findNamesIn(@Param("names") Collection<String> names);
+
+    @Query("SELECT u.name FROM User u ORDER BY u.updatedAt DESC")
+    List<String> findNamesOrderByUpdatedAtDesc(Pageable pageable);
 }
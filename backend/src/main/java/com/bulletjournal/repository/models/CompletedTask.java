@@ -45,6 +45,7 @@ public class CompletedTask extends TaskModel {
         this.setRecurrenceRule(task.getRecurrenceRule());
         this.setContents(contents);
         this.setGoogleCalendarEventId(task.getGoogleCalendarEventId());
+        this.setGoogleEventId(task.getGoogleEventId());
         this.setAssignees(task.getAssignees());
     }
 
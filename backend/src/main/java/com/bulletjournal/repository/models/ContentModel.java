@@ -1,12 +1,14 @@
 package com.bulletjournal.repository.models;
 
 import com.bulletjournal.controller.models.Content;
+import com.bulletjournal.controller.models.Revision;
 import com.google.gson.annotations.Expose;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
+import java.util.List;
 
 @MappedSuperclass
 public abstract class ContentModel<T extends ProjectItemModel> extends AuditModel {
@@ -72,4 +74,15 @@ public abstract class ContentModel<T extends ProjectItemModel> extends AuditMode
                 this.getUpdatedAt() == null ? null : this.getUpdatedAt().getTime(),
                 this.getRevisions());
     }
+
+    /**
+     * @param revisions revisions from revision store, null if content still keeps them in revisions column
+     */
+    public Content toPresentationModel(List<Revision> revisions) {
+        Content content = toPresentationModel();
+        if (revisions != null && !revisions.isEmpty()) {
+            content.setRevisions(revisions.toArray(new Revision[0]));
+        }
+        return content;
+    }
 }
@@ -0,0 +1,145 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.controller.models.Revision;
+
+import javax.persistence.*;
+
+/**
+ * One revision of a task/note/transaction content.
+ * <p>
+ * Keyframe revisions store the full text in snapshot. Other revisions store the diff
+ * from their previous revision, and point to the keyframe they are replayed from.
+ */
+@Entity
+@Table(name = "content_revisions",
+        indexes = {@Index(name = "content_revision_index",
+                columnList = "content_type, content_id, revision_id", unique = true)})
+public class ContentRevision {
+
+    @Id
+    @GeneratedValue(generator = "content_revision_generator")
+    @SequenceGenerator(
+            name = "content_revision_generator",
+            sequenceName = "content_revision_sequence",
+            initialValue = 100
+    )
+    private Long id;
+
+    /**
+     * Type of project item owning the content: TASK, NOTE or TRANSACTION
+     */
+    @Column(name = "content_type", length = 20, nullable = false)
+    private String contentType;
+
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "revision_id", nullable = false)
+    private Long revisionId;
+
+    @Column(name = "keyframe_id", nullable = false)
+    private Long keyframeId;
+
+    @Column(columnDefinition = "TEXT")
+    private String snapshot;
+
+    @Column(columnDefinition = "TEXT")
+    private String diff;
+
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Column(length = 100, nullable = false)
+    private String username;
+
+    public ContentRevision() {
+    }
+
+    public ContentRevision(String contentType, Long contentId, Long revisionId, Long createdAt, String username) {
+        this.contentType = contentType;
+        this.contentId = contentId;
+        this.revisionId = revisionId;
+        this.createdAt = createdAt;
+        this.username = username;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+
+    public Long getRevisionId() {
+        return revisionId;
+    }
+
+    public void setRevisionId(Long revisionId) {
+        this.revisionId = revisionId;
+    }
+
+    public Long getKeyframeId() {
+        return keyframeId;
+    }
+
+    public void setKeyframeId(Long keyframeId) {
+        this.keyframeId = keyframeId;
+    }
+
+    public boolean isKeyframe() {
+        return this.revisionId.equals(this.keyframeId);
+    }
+
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public String getDiff() {
+        return diff;
+    }
+
+    public void setDiff(String diff) {
+        this.diff = diff;
+    }
+
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Revision toPresentationModel() {
+        return new Revision(this.revisionId, this.diff, this.createdAt, this.username);
+    }
+}
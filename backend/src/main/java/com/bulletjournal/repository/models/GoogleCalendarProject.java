@@ -25,14 +25,29 @@ public class GoogleCalendarProject extends AuditModel {
     @Column(length = 5000)
     private String channel;
 
+    /**
+     * User who watched the calendar, whose credential fetches its changes
+     */
+    @Column(length = 100)
+    private String owner;
+
+    /**
+     * nextSyncToken of the last events listing, to list only events changed since
+     */
+    @Column(name = "sync_token", length = 1000)
+    private String syncToken;
+
     public GoogleCalendarProject() {
     }
 
-    public GoogleCalendarProject(String id, Project project, String channelId, String channel) {
+    public GoogleCalendarProject(String id, Project project, String channelId, String channel,
+                                 String owner, String syncToken) {
         this.id = id;
         this.project = project;
         this.channelId = channelId;
         this.channel = channel;
+        this.owner = owner;
+        this.syncToken = syncToken;
     }
 
     public String getId() {
@@ -67,6 +82,22 @@ public class GoogleCalendarProject extends AuditModel {
         this.channel = channel;
     }
 
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    public void setSyncToken(String syncToken) {
+        this.syncToken = syncToken;
+    }
+
     @Override
     public String toString() {
         return "GoogleCalendarProject{" +
@@ -74,6 +105,7 @@ public class GoogleCalendarProject extends AuditModel {
                 ", project=" + project +
                 ", channelId='" + channelId + '\'' +
                 ", channel='" + channel + '\'' +
+                ", owner='" + owner + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.bulletjournal.repository.models;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A deleted label whose id may still be referenced by tasks, notes or transactions.
+ * Removed once no project item carries the label any more.
+ */
+@Entity
+@Table(name = "label_tombstones")
+public class LabelTombstone extends AuditModel {
+
+    @Id
+    @Column(name = "label_id")
+    private Long labelId;
+
+    @Column(nullable = false)
+    private String owner;
+
+    /**
+     * Number of project items the label has been removed from so far
+     */
+    @Column(name = "cleaned_items", nullable = false)
+    private long cleanedItems;
+
+    public LabelTombstone() {
+    }
+
+    public LabelTombstone(Long labelId, String owner) {
+        this.labelId = labelId;
+        this.owner = owner;
+    }
+
+    public Long getLabelId() {
+        return labelId;
+    }
+
+    public void setLabelId(Long labelId) {
+        this.labelId = labelId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public long getCleanedItems() {
+        return cleanedItems;
+    }
+
+    public void setCleanedItems(long cleanedItems) {
+        this.cleanedItems = cleanedItems;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.ledger.Money;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Sum and count of a project's transactions in one period, per transaction type, for the whole
+ * period (PERIOD), one payer (PAYER) or one label (LABEL).
+ */
+@Entity
+@Table(name = "ledger_rollups")
+public class LedgerRollup {
+
+    public enum Dimension {
+        PERIOD,
+        PAYER,
+        LABEL
+    }
+
+    @EmbeddedId
+    private LedgerRollupKey id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("projectId")
+    @JoinColumn(name = "project_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+
+    @Column(nullable = false, precision = 19, scale = Money.SCALE)
+    private BigDecimal amount;
+
+    @Column(name = "item_count", nullable = false)
+    private int count;
+
+    public LedgerRollup() {
+    }
+
+    public LedgerRollup(LedgerRollupKey id, long amount, int count) {
+        this.id = id;
+        this.amount = Money.toDecimal(amount);
+        this.count = count;
+    }
+
+    public LedgerRollupKey getId() {
+        return id;
+    }
+
+    public void setId(LedgerRollupKey id) {
+        this.id = id;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return amount in minor units
+     */
+    public long getAmountMinorUnits() {
+        return Money.toMinorUnits(this.amount);
+    }
+
+    public void setAmountMinorUnits(long amount) {
+        this.amount = Money.toDecimal(amount);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
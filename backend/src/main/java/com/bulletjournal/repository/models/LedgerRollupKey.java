@@ -0,0 +1,99 @@
+package com.bulletjournal.repository.models;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class LedgerRollupKey implements Serializable {
+
+    @NotNull
+    @Column(name = "project_id")
+    private Long projectId;
+
+    /**
+     * FrequencyType name, MONTHLY or YEARLY
+     */
+    @NotNull
+    @Column(name = "period_type", length = 10)
+    private String periodType;
+
+    /**
+     * See LedgerAggregator.getPeriodKey
+     */
+    @NotNull
+    @Column(name = "period_key")
+    private Long periodKey;
+
+    @NotNull
+    @Column(name = "transaction_type")
+    private Integer transactionType;
+
+    @NotNull
+    @Column(length = 10)
+    private String dimension;
+
+    /**
+     * Empty for PERIOD, payer name for PAYER and label id for LABEL
+     */
+    @NotNull
+    @Column(name = "dimension_key", length = 100)
+    private String dimensionKey;
+
+    public LedgerRollupKey() {
+    }
+
+    public LedgerRollupKey(Long projectId, String periodType, Long periodKey, Integer transactionType,
+                           String dimension, String dimensionKey) {
+        this.projectId = projectId;
+        this.periodType = periodType;
+        this.periodKey = periodKey;
+        this.transactionType = transactionType;
+        this.dimension = dimension;
+        this.dimensionKey = dimensionKey;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public String getPeriodType() {
+        return periodType;
+    }
+
+    public Long getPeriodKey() {
+        return periodKey;
+    }
+
+    public Integer getTransactionType() {
+        return transactionType;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getDimensionKey() {
+        return dimensionKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LedgerRollupKey)) return false;
+        LedgerRollupKey that = (LedgerRollupKey) o;
+        return Objects.equals(projectId, that.projectId) &&
+                Objects.equals(periodType, that.periodType) &&
+                Objects.equals(periodKey, that.periodKey) &&
+                Objects.equals(transactionType, that.transactionType) &&
+                Objects.equals(dimension, that.dimension) &&
+                Objects.equals(dimensionKey, that.dimensionKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(projectId, periodType, periodKey, transactionType, dimension, dimensionKey);
+    }
+}
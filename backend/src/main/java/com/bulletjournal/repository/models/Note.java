@@ -2,6 +2,7 @@ package com.bulletjournal.repository.models;
 
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.hierarchy.PositionedItem;
 
 import javax.persistence.*;
 import java.util.Collections;
@@ -11,8 +12,9 @@ import java.util.List;
  * This class is for ProjectType.NOTE
  */
 @Entity
-@Table(name = "notes")
-public class Note extends ProjectItemModel {
+@Table(name = "notes",
+        indexes = {@Index(name = "note_project_parent_position_index", columnList = "project_id, parent_id, position")})
+public class Note extends ProjectItemModel implements PositionedItem {
     @Id
     @GeneratedValue(generator = "note_generator")
     @SequenceGenerator(
@@ -22,6 +24,18 @@ public class Note extends ProjectItemModel {
     )
     private Long id;
 
+    /**
+     * Parent in hierarchy, used when hierarchy.storage is columns
+     */
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    /**
+     * Position among siblings, used when hierarchy.storage is columns
+     */
+    @Column(name = "position")
+    private Double position;
+
     public Long getId() {
         return id;
     }
@@ -49,4 +63,24 @@ public class Note extends ProjectItemModel {
     public ContentType getContentType() {
         return ContentType.NOTE;
     }
+
+    @Override
+    public Long getParentId() {
+        return parentId;
+    }
+
+    @Override
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    @Override
+    public Double getPosition() {
+        return position;
+    }
+
+    @Override
+    public void setPosition(Double position) {
+        this.position = position;
+    }
 }
@@ -10,7 +10,8 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "projects",
-        indexes = {@Index(name = "project_owner_index", columnList = "owner")},
+        indexes = {@Index(name = "project_owner_index", columnList = "owner"),
+                @Index(name = "project_group_index", columnList = "group_id")},
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"owner", "name"})
         })
@@ -4,6 +4,7 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
 @Table(name = "user_project_notes")
@@ -18,6 +19,13 @@ public class ProjectNotes extends AuditModel {
     @Column(length = 10485760)
     private String notes;
 
+    /**
+     * Optimistic lock on hierarchy updates, null only until a new row is first saved
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     public ProjectNotes() {
     }
 
@@ -40,4 +48,12 @@ public class ProjectNotes extends AuditModel {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
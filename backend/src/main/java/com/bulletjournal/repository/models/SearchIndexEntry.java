@@ -0,0 +1,104 @@
+package com.bulletjournal.repository.models;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Outbox row recording that a task, note or transaction, or one of their contents, changed and its
+ * search document needs to be rewritten. Written in the transaction making the change and removed
+ * once indexed.
+ */
+@Entity
+@Table(name = "search_index_outbox",
+        indexes = {@Index(name = "search_index_outbox_next_attempt_at_index", columnList = "next_attempt_at, id")})
+public class SearchIndexEntry {
+
+    // allocationSize 1 as rows are also inserted by native queries calling nextval
+    @Id
+    @GeneratedValue(generator = "search_index_outbox_generator")
+    @SequenceGenerator(
+            name = "search_index_outbox_generator",
+            sequenceName = "search_index_outbox_sequence",
+            initialValue = 100,
+            allocationSize = 1
+    )
+    private Long id;
+
+    /**
+     * Type of project item: TASK, NOTE or TRANSACTION
+     */
+    @Column(name = "content_type", length = 20, nullable = false)
+    private String contentType;
+
+    /**
+     * Id of the project item, or of its content if isContent
+     */
+    @Column(name = "content_id", nullable = false)
+    private Long contentId;
+
+    @Column(name = "is_content", nullable = false)
+    private boolean isContent;
+
+    /**
+     * Number of failed attempts to index the item
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * Entry is not drained before this time, pushed back while claimed and after each failure
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Timestamp nextAttemptAt;
+
+    public SearchIndexEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+
+    public boolean isContent() {
+        return isContent;
+    }
+
+    public void setContent(boolean content) {
+        isContent = content;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Timestamp getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Timestamp nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+}
@@ -1,8 +1,18 @@
 package com.bulletjournal.repository.models;
 
 import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import com.bulletjournal.hierarchy.PositionedItem;
+import com.bulletjournal.util.BuJoRecurrenceRule;
+import com.bulletjournal.util.CompletedSlots;
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is for ProjectType.TODO
@@ -13,11 +23,14 @@ import javax.persistence.*;
                 @Index(name = "task_assignee_interval_index", columnList = "start_time, end_time"),
                 @Index(name = "task_assignee_reminder_date_time_index", columnList = "start_time, reminder_date_time"),
                 @Index(name = "task_assignee_recurrence_index", columnList = "recurrence_rule"),
+                @Index(name = "task_project_parent_position_index", columnList = "project_id, parent_id, position"),
+                @Index(name = "task_google_event_id_index", columnList = "google_event_id"),
+                @Index(name = "task_next_reminder_time_index", columnList = "next_reminder_time"),
         },
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"google_calendar_event_id"})
         })
-public class Task extends TaskModel {
+public class Task extends TaskModel implements PositionedItem {
     @Id
     @GeneratedValue(generator = "task_generator")
     @SequenceGenerator(
@@ -27,8 +40,39 @@ public class Task extends TaskModel {
     )
     private Long id;
 
+    /**
+     * Legacy comma-joined local date times of completed occurrences, moved into completedSlotMinutes on next update
+     */
     @Column(name = "completed_slots", columnDefinition = "TEXT")
-    private String completedSlots;
+    private String legacyCompletedSlots;
+
+    /**
+     * Completed occurrences of recurring task, encoded by {@link CompletedSlots}
+     */
+    @Type(type = "long-array")
+    @Column(name = "completed_slot_minutes", columnDefinition = "bigint[]")
+    private Long[] completedSlotMinutes;
+
+    @Transient
+    private CompletedSlots completedSlots;
+
+    /**
+     * Parent in hierarchy, used when hierarchy.storage is columns
+     */
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    /**
+     * Position among siblings, used when hierarchy.storage is columns
+     */
+    @Column(name = "position")
+    private Double position;
+
+    /**
+     * Reminder time of the next occurrence of recurring task, recomputed on every write and by reminder loading
+     */
+    @Column(name = "next_reminder_time")
+    private Timestamp nextReminderTime;
 
     @Override
     public Long getId() {
@@ -49,12 +93,147 @@ public class Task extends TaskModel {
         return ContentType.TASK;
     }
 
-    public String getCompletedSlots() {
-        return completedSlots;
+    public CompletedSlots getCompletedSlots() {
+        if (this.completedSlots == null) {
+            CompletedSlots slots = CompletedSlots.decode(this.completedSlotMinutes);
+            for (String slot : ZonedDateTimeHelper.parseDateTimeSet(this.legacyCompletedSlots)) {
+                DateTime dateTime = slot.endsWith("Z") ? DateTime.parse(slot) : DateTime.parse(this.getTimezone(), slot);
+                slots = slots.add(TimeUnit.MILLISECONDS.toMinutes(dateTime.getTimestamp()));
+            }
+            this.completedSlots = slots;
+        }
+        return this.completedSlots;
     }
 
-    public void setCompletedSlots(String completedSlots) {
+    public void setCompletedSlots(CompletedSlots completedSlots) {
         this.completedSlots = completedSlots;
+        this.completedSlotMinutes = completedSlots.encode();
+        this.legacyCompletedSlots = null;
+    }
+
+    public boolean isSlotCompleted(long epochMinute) {
+        return getCompletedSlots().contains(epochMinute);
+    }
+
+    /**
+     * @return false if slot is already completed
+     */
+    public boolean addCompletedSlot(long epochMinute) {
+        CompletedSlots slots = getCompletedSlots();
+        if (slots.contains(epochMinute)) {
+            return false;
+        }
+        setCompletedSlots(slots.add(epochMinute));
+        return true;
+    }
+
+    /**
+     * Keep local date and time of completed slots when task moves to another timezone.
+     * Called before the timezone is updated.
+     */
+    public void shiftCompletedSlots(String toTimezone) {
+        CompletedSlots slots = getCompletedSlots();
+        if (slots.size() > 0 && toTimezone != null && !toTimezone.equals(this.getTimezone())) {
+            setCompletedSlots(slots.shiftTimezone(this.getTimezone(), toTimezone));
+        }
+    }
+
+    public Timestamp getNextReminderTime() {
+        return nextReminderTime;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        Long next = getNextReminderTime(System.currentTimeMillis());
+        this.nextReminderTime = next == null ? null : new Timestamp(next);
+    }
+
+    /**
+     * Get reminder time of the first occurrence starting after now. Reminder time grows with start time,
+     * so no later occurrence reminds earlier.
+     *
+     * @param now current time in epoch millis
+     * @return reminder time in epoch millis, null if not recurring, without reminder or without upcoming occurrence
+     */
+    public Long getNextReminderTime(long now) {
+        if (this.getRecurrenceRule() == null) {
+            return null;
+        }
+        try {
+            RecurrenceRuleIterator it = new BuJoRecurrenceRule(this.getRecurrenceRule(), this.getTimezone())
+                    .getIterator(now);
+            while (it.hasNext()) {
+                long minute = TimeUnit.MILLISECONDS.toMinutes(it.nextMillis());
+                if (isSlotCompleted(minute)) {
+                    continue;
+                }
+                Task occurrence = getOccurrence(minute);
+                if (occurrence.getStartTime().getTime() > now) {
+                    return occurrence.getOccurrenceReminderTime();
+                }
+            }
+        } catch (InvalidRecurrenceRuleException | NumberFormatException | CloneNotSupportedException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Clone recurring task into one of its occurrences, with due date, start, end and reminder time of it
+     *
+     * @param epochMinute the occurrence in epoch minutes
+     * @return Task - the cloned task
+     */
+    public Task getOccurrence(long epochMinute) throws CloneNotSupportedException {
+        String timezone = this.getTimezone();
+        DateTime currDateTime = ZonedDateTimeHelper.getDateTime(TimeUnit.MINUTES.toMillis(epochMinute), timezone);
+        Task cloned = (Task) this.clone();
+
+        String date = ZonedDateTimeHelper.getDate(currDateTime);
+        String time = ZonedDateTimeHelper.getTime(currDateTime);
+
+        cloned.setDueDate(date); // Set due date
+        cloned.setDueTime(time); // Set due time
+
+        // Set start time and end time
+        cloned.setStartTime(Timestamp.from(ZonedDateTimeHelper.getStartTime(date, time, timezone).toInstant()));
+        cloned.setEndTime(Timestamp.from(ZonedDateTimeHelper.getEndTime(date, time, timezone).toInstant()));
+
+        cloned.setReminderSetting(this.getReminderSetting()); // Set reminding setting to cloned
+        return cloned;
+    }
+
+    /**
+     * @return reminder time of occurrence in epoch millis, at most MAX_HOURS_BEFORE ahead of its start,
+     * null if it has no reminder
+     */
+    public Long getOccurrenceReminderTime() {
+        if (this.getReminderDateTime() == null) {
+            return null;
+        }
+        long startTime = this.getStartTime().getTime();
+        return Math.max(this.getReminderDateTime().getTime(),
+                startTime - TimeUnit.HOURS.toMillis(ZonedDateTimeHelper.MAX_HOURS_BEFORE));
+    }
+
+    @Override
+    public Long getParentId() {
+        return parentId;
     }
 
+    @Override
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    @Override
+    public Double getPosition() {
+        return position;
+    }
+
+    @Override
+    public void setPosition(Double position) {
+        this.position = position;
+    }
 }
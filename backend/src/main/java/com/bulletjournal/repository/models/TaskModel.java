@@ -59,9 +59,14 @@ public abstract class TaskModel extends ProjectItemModel {
     @Column(name = "recurrence_rule")
     private String recurrenceRule;
 
+    // iCalUID of the Google Calendar event
     @Column(name = "google_calendar_event_id")
     private String googleCalendarEventId;
 
+    // id of the event in its Google Calendar, the only field cancelled events are sure to carry
+    @Column(name = "google_event_id")
+    private String googleEventId;
+
     @Type(type = "string-array")
     @Column(
             name = "assignees",
@@ -173,6 +178,14 @@ public abstract class TaskModel extends ProjectItemModel {
         this.googleCalendarEventId = googleCalendarEventId;
     }
 
+    public String getGoogleEventId() {
+        return googleEventId;
+    }
+
+    public void setGoogleEventId(String googleEventId) {
+        this.googleEventId = googleEventId;
+    }
+
     public List<String> getAssignees() {
         if (this.assignees == null) {
             return Collections.emptyList();
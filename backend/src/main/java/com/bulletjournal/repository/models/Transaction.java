@@ -2,12 +2,14 @@ package com.bulletjournal.repository.models;
 
 import com.bulletjournal.contents.ContentType;
 import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.ledger.Money;
 import com.bulletjournal.ledger.TransactionType;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.Collections;
 import java.util.List;
@@ -36,8 +38,8 @@ public class Transaction extends ProjectItemModel {
     private String payer;
 
     @NotNull
-    @Column(nullable = false)
-    private Double amount;
+    @Column(nullable = false, precision = 19, scale = Money.SCALE)
+    private BigDecimal amount;
 
     @NotNull
     @Column(nullable = false)
@@ -79,11 +81,18 @@ public class Transaction extends ProjectItemModel {
     }
 
     public Double getAmount() {
-        return amount;
+        return this.amount == null ? null : Money.toDouble(getAmountMinorUnits());
     }
 
+    /**
+     * @param amount amount, rounded half up to {@link Money#SCALE} digits
+     */
     public void setAmount(Double amount) {
-        this.amount = amount;
+        this.amount = amount == null ? null : Money.toDecimal(Money.toMinorUnits(amount));
+    }
+
+    public long getAmountMinorUnits() {
+        return Money.toMinorUnits(this.amount);
     }
 
     public TransactionType getTransactionType() {
@@ -1,5 +1,8 @@
 package com.bulletjournal.repository.utils;
 
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
 import java.util.function.Consumer;
 
 public class DaoHelper {
@@ -9,4 +12,20 @@ public class DaoHelper {
             getter.accept(value);
         }
     }
+
+    /**
+     * Run after current transaction commits, or right away if there is no transaction
+     */
+    public static void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
 }
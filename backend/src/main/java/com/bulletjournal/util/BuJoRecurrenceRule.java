@@ -1,15 +1,29 @@
 package com.bulletjournal.util;
 
 import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.Freq;
 import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
 import org.dmfs.rfc5545.recur.RecurrenceRule;
 import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Set;
+
 public class BuJoRecurrenceRule {
     private static final String DATETIME_START_KEY = "DTSTART:";
     private static final String DATETIME_END_KEY = "UTIL=";
     private static final String RECURRENCE_RULE_KEY = "RRULE:";
     private static final int RFC5545_DATETIME_LENGTH = 15;
+    private static final Set<RecurrenceRule.Part> NON_SEEKABLE_PARTS = EnumSet.of(
+            RecurrenceRule.Part.BYSECOND, RecurrenceRule.Part.BYMINUTE, RecurrenceRule.Part.BYHOUR,
+            RecurrenceRule.Part.BYDAY, RecurrenceRule.Part.BYMONTHDAY, RecurrenceRule.Part.BYYEARDAY,
+            RecurrenceRule.Part.BYWEEKNO, RecurrenceRule.Part.BYMONTH, RecurrenceRule.Part.BYSETPOS,
+            RecurrenceRule.Part.COUNT);
 
     private String recurInput;
     private DateTime start;
@@ -38,6 +52,73 @@ public class BuJoRecurrenceRule {
         return this.rrule.iterator(start);
     }
 
+    /**
+     * Get iterator whose first instance is the first occurrence not before windowStart.
+     * <p>
+     * Rules made of FREQ and INTERVAL only (DAILY and coarser) restart from the last whole interval
+     * before the window instead of DTSTART, so the cost follows the window and not the age of the rule.
+     * Other rules fast forward from DTSTART.
+     *
+     * @param windowStart window start in epoch millis
+     */
+    public RecurrenceRuleIterator getIterator(long windowStart) {
+        RecurrenceRuleIterator it = this.rrule.iterator(getSeekStart(windowStart));
+        it.fastForward(windowStart);
+        return it;
+    }
+
+    /**
+     * @return occurrence of simple rule at most one interval before the window, DTSTART if none can be computed
+     */
+    DateTime getSeekStart(long windowStart) {
+        ChronoUnit unit = getIntervalUnit();
+        if (unit == null || this.start.isAllDay() || windowStart <= this.start.getTimestamp()) {
+            return this.start;
+        }
+        LocalDateTime startLocal = LocalDateTime.of(this.start.getYear(), this.start.getMonth() + 1,
+                this.start.getDayOfMonth(), this.start.getHours(), this.start.getMinutes(), this.start.getSeconds());
+        LocalDate windowDate = Instant.ofEpochMilli(windowStart)
+                .atZone(this.start.getTimeZone() == null ? ZoneOffset.UTC : this.start.getTimeZone().toZoneId())
+                .toLocalDate();
+        long interval = this.rrule.getInterval();
+        // one interval of margin for time of day and DST shifts, fastForward covers the rest
+        long jumps = (unit.between(startLocal.toLocalDate(), windowDate) / interval - 1) * interval;
+        if (jumps <= 0) {
+            return this.start;
+        }
+        LocalDateTime seekLocal = startLocal.plus(jumps, unit);
+        if (seekLocal.getDayOfMonth() != startLocal.getDayOfMonth()) {
+            // e.g. 31st of a shorter month, which is not an occurrence
+            return this.start;
+        }
+        return new DateTime(this.start.getTimeZone(), seekLocal.getYear(), seekLocal.getMonthValue() - 1,
+                seekLocal.getDayOfMonth(), seekLocal.getHour(), seekLocal.getMinute(), seekLocal.getSecond());
+    }
+
+    /**
+     * @return unit of one interval if occurrences are exactly DTSTART plus whole intervals, null otherwise
+     */
+    private ChronoUnit getIntervalUnit() {
+        for (RecurrenceRule.Part part : NON_SEEKABLE_PARTS) {
+            if (this.rrule.hasPart(part)) {
+                return null;
+            }
+        }
+        Freq freq = this.rrule.getFreq();
+        switch (freq) {
+            case DAILY:
+                return ChronoUnit.DAYS;
+            case WEEKLY:
+                return ChronoUnit.WEEKS;
+            case MONTHLY:
+                return ChronoUnit.MONTHS;
+            case YEARLY:
+                return ChronoUnit.YEARS;
+            default:
+                return null;
+        }
+    }
+
     public RecurrenceRule getRrule() {
         return rrule;
     }
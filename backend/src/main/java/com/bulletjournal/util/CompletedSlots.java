@@ -0,0 +1,160 @@
+package com.bulletjournal.util;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completed occurrences of a recurring task, as a sorted set of epoch minutes.
+ * <p>
+ * Persisted as bigint[] in one of two encodings, whichever is shorter:
+ * <ul>
+ * <li>list: the sorted epoch minutes</li>
+ * <li>bitmap: [-stride, base, word...], where bit i of the words stands for minute base + i * stride.
+ * Dense rules, such as a daily task completed most days, take about one bit per occurrence.</li>
+ * </ul>
+ * Instances are immutable.
+ */
+public class CompletedSlots {
+
+    public static final CompletedSlots EMPTY = new CompletedSlots(new long[0]);
+
+    private final long[] minutes;
+
+    private CompletedSlots(long[] minutes) {
+        this.minutes = minutes;
+    }
+
+    public static CompletedSlots of(long... minutes) {
+        long[] sorted = Arrays.stream(minutes).sorted().distinct().toArray();
+        return sorted.length == 0 ? EMPTY : new CompletedSlots(sorted);
+    }
+
+    /**
+     * Decode persisted slots, null decodes to no slots
+     */
+    public static CompletedSlots decode(Long[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return EMPTY;
+        }
+        if (encoded[0] >= 0) {
+            long[] minutes = new long[encoded.length];
+            for (int i = 0; i < encoded.length; i++) {
+                minutes[i] = encoded[i];
+            }
+            return new CompletedSlots(minutes);
+        }
+        long stride = -encoded[0];
+        long base = encoded[1];
+        int size = 0;
+        for (int i = 2; i < encoded.length; i++) {
+            size += Long.bitCount(encoded[i]);
+        }
+        long[] minutes = new long[size];
+        int n = 0;
+        for (int i = 2; i < encoded.length; i++) {
+            long word = encoded[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                minutes[n++] = base + ((i - 2) * 64L + bit) * stride;
+                word &= word - 1;
+            }
+        }
+        return new CompletedSlots(minutes);
+    }
+
+    /**
+     * Encode for persistence, null for none
+     */
+    public Long[] encode() {
+        if (this.minutes.length == 0) {
+            return null;
+        }
+        long base = this.minutes[0];
+        long stride = 0;
+        for (long minute : this.minutes) {
+            stride = gcd(stride, minute - base);
+        }
+        long bits = stride == 0 ? 1 : (this.minutes[this.minutes.length - 1] - base) / stride + 1;
+        long words = (bits + 63) / 64;
+        if (stride == 0 || 2 + words >= this.minutes.length) {
+            return Arrays.stream(this.minutes).boxed().toArray(Long[]::new);
+        }
+
+        Long[] encoded = new Long[(int) (2 + words)];
+        Arrays.fill(encoded, 0L);
+        encoded[0] = -stride;
+        encoded[1] = base;
+        for (long minute : this.minutes) {
+            long bit = (minute - base) / stride;
+            encoded[(int) (2 + bit / 64)] |= 1L << (bit % 64);
+        }
+        return encoded;
+    }
+
+    public boolean contains(long minute) {
+        return Arrays.binarySearch(this.minutes, minute) >= 0;
+    }
+
+    /**
+     * @return slots with minute added, this if already contained
+     */
+    public CompletedSlots add(long minute) {
+        int index = Arrays.binarySearch(this.minutes, minute);
+        if (index >= 0) {
+            return this;
+        }
+        index = -index - 1;
+        long[] added = new long[this.minutes.length + 1];
+        System.arraycopy(this.minutes, 0, added, 0, index);
+        added[index] = minute;
+        System.arraycopy(this.minutes, index, added, index + 1, this.minutes.length - index);
+        return new CompletedSlots(added);
+    }
+
+    /**
+     * Move slots to another timezone keeping their local date and time, as occurrences of the
+     * recurrence rule do when the task timezone changes
+     */
+    public CompletedSlots shiftTimezone(String fromTimezone, String toTimezone) {
+        if (this.minutes.length == 0 || fromTimezone == null || toTimezone == null
+                || fromTimezone.equals(toTimezone)) {
+            return this;
+        }
+        ZoneId from = ZoneId.of(fromTimezone);
+        ZoneId to = ZoneId.of(toTimezone);
+        long[] shifted = new long[this.minutes.length];
+        for (int i = 0; i < this.minutes.length; i++) {
+            Instant instant = Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(this.minutes[i]));
+            shifted[i] = TimeUnit.SECONDS.toMinutes(
+                    instant.atZone(from).toLocalDateTime().atZone(to).toEpochSecond());
+        }
+        return of(shifted);
+    }
+
+    public int size() {
+        return this.minutes.length;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(this.minutes, ((CompletedSlots) o).minutes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.minutes);
+    }
+}
@@ -26,6 +26,37 @@ public class ContentDiffTool {
         );
     }
 
+    /**
+     * Compute diff within time and size budget
+     *
+     * @param oldText          text of previous revision
+     * @param newText          text of new revision
+     * @param timeoutMillis    time limit of diff computation, after which the diff found so far is used
+     * @param maxInputLength   texts longer than this are not diffed
+     * @param lineModeLength   texts longer than this are diffed line by line first
+     * @return diff, or null if texts are too large or diff is not smaller than newText
+     */
+    public String computeDiff(String oldText, String newText,
+                              int timeoutMillis, int maxInputLength, int lineModeLength) {
+        if (oldText == null || newText == null
+                || oldText.length() > maxInputLength || newText.length() > maxInputLength) {
+            return null;
+        }
+        // Diff_Timeout is per instance, so bounded diffs do not share the default one
+        DiffMatchPatch bounded = new DiffMatchPatch();
+        bounded.diffTimeout = timeoutMillis / 1000f;
+        boolean lineMode = oldText.length() > lineModeLength || newText.length() > lineModeLength;
+        String diff = bounded.patchToText(
+                bounded.patchMake(
+                        bounded.diffMain(oldText, newText, lineMode)
+                )
+        );
+        if (diff.length() >= newText.length()) {
+            return null;
+        }
+        return diff;
+    }
+
     public String applyDiff(String oldText, String diff) {
         List<DiffMatchPatch.Patch> patches = diffMatchPatch.patchFromText(diff);
         Object[] output = diffMatchPatch.patchApply(
@@ -0,0 +1,144 @@
+package com.bulletjournal.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches expanded occurrences of recurring tasks as sorted epoch-minute arrays.
+ * <p>
+ * Each task keeps the occurrences of a horizon around the last requested window. A window
+ * inside the horizon is answered by binary search; otherwise the horizon slides to the new
+ * window. Entries are only used while recurrence rule, timezone and completed slots of the
+ * task are unchanged, so any update to them takes effect on the next lookup.
+ */
+public class RecurrenceOccurrenceCache {
+
+    static final long HORIZON_BEFORE_MINUTES = TimeUnit.DAYS.toMinutes(7);
+    static final long HORIZON_AFTER_MINUTES = TimeUnit.DAYS.toMinutes(90);
+    static final int MAX_CACHED_OCCURRENCES = 4096;
+
+    private final Cache<Long, Occurrences> cache;
+
+    public RecurrenceOccurrenceCache(long maxSize) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * Get occurrences of recurring task in [startMinute, endMinute], excluding completed slots
+     *
+     * @param taskId         the task id
+     * @param recurrenceRule the recurrence rule of task
+     * @param timezone       the timezone of task
+     * @param completedSlots the completed slots of task
+     * @param startMinute    window start in epoch minutes, inclusive
+     * @param endMinute      window end in epoch minutes, inclusive
+     * @return sorted epoch minutes of occurrences
+     */
+    public int[] getOccurrences(Long taskId, String recurrenceRule, String timezone, CompletedSlots completedSlots,
+                                long startMinute, long endMinute) throws InvalidRecurrenceRuleException {
+        Occurrences occurrences = this.cache.getIfPresent(taskId);
+        if (occurrences == null || !occurrences.matches(recurrenceRule, timezone, completedSlots)
+                || !occurrences.covers(startMinute, endMinute)) {
+            occurrences = expand(recurrenceRule, timezone, completedSlots,
+                    startMinute - HORIZON_BEFORE_MINUTES,
+                    Math.max(endMinute, startMinute + HORIZON_AFTER_MINUTES),
+                    MAX_CACHED_OCCURRENCES);
+            this.cache.put(taskId, occurrences);
+        }
+        if (!occurrences.covers(startMinute, endMinute)) {
+            // window has more occurrences than an entry holds
+            return expand(recurrenceRule, timezone, completedSlots, startMinute, endMinute, Integer.MAX_VALUE)
+                    .between(startMinute, endMinute);
+        }
+        return occurrences.between(startMinute, endMinute);
+    }
+
+    public void invalidate(Long taskId) {
+        this.cache.invalidate(taskId);
+    }
+
+    static Occurrences expand(String recurrenceRule, String timezone, CompletedSlots completedSlots,
+                              long fromMinute, long toMinute, int limit) throws InvalidRecurrenceRuleException {
+        BuJoRecurrenceRule rule = new BuJoRecurrenceRule(recurrenceRule, timezone);
+        RecurrenceRuleIterator it = rule.getIterator(TimeUnit.MINUTES.toMillis(fromMinute));
+        int[] minutes = new int[16];
+        int size = 0;
+        long coveredTo = toMinute;
+        while (it.hasNext()) {
+            long minute = TimeUnit.MILLISECONDS.toMinutes(it.nextMillis());
+            if (minute > toMinute) {
+                break;
+            }
+            if (minute < fromMinute || completedSlots.contains(minute)) {
+                continue;
+            }
+            if (size == limit) {
+                // horizon ends before the first occurrence not kept
+                coveredTo = minute - 1;
+                break;
+            }
+            if (size == minutes.length) {
+                minutes = Arrays.copyOf(minutes, size * 2);
+            }
+            minutes[size++] = (int) minute;
+        }
+        return new Occurrences(recurrenceRule, timezone, completedSlots,
+                fromMinute, coveredTo, Arrays.copyOf(minutes, size));
+    }
+
+    static class Occurrences {
+        private final String recurrenceRule;
+        private final String timezone;
+        private final CompletedSlots completedSlots;
+        private final long fromMinute;
+        private final long toMinute;
+        private final int[] minutes;
+
+        Occurrences(String recurrenceRule, String timezone, CompletedSlots completedSlots,
+                    long fromMinute, long toMinute, int[] minutes) {
+            this.recurrenceRule = recurrenceRule;
+            this.timezone = timezone;
+            this.completedSlots = completedSlots;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.minutes = minutes;
+        }
+
+        boolean matches(String recurrenceRule, String timezone, CompletedSlots completedSlots) {
+            return Objects.equals(this.recurrenceRule, recurrenceRule)
+                    && Objects.equals(this.timezone, timezone)
+                    && Objects.equals(this.completedSlots, completedSlots);
+        }
+
+        boolean covers(long startMinute, long endMinute) {
+            return this.fromMinute <= startMinute && endMinute <= this.toMinute;
+        }
+
+        int[] between(long startMinute, long endMinute) {
+            return Arrays.copyOfRange(this.minutes, lowerBound(startMinute), lowerBound(endMinute + 1));
+        }
+
+        /**
+         * @return index of first occurrence not before minute
+         */
+        private int lowerBound(long minute) {
+            int lo = 0;
+            int hi = this.minutes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (this.minutes[mid] < minute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -259,13 +259,14 @@ VALUES (104, '2020-02-19 07:11:22.535000', '2020-02-20 08:11:22.535000', 'Note15
 INSERT INTO public.notes (id, created_at, updated_at, name, owner, project_id, labels)
 VALUES (105, '2020-02-20 07:11:22.535000', '2020-02-21 08:11:22.535000', 'Note16', 'BulletJournal', 12, '{1,2}');
 --update relation
-INSERT INTO public.user_project_tasks (project_id, created_at, updated_at, tasks)
-VALUES (11, '2020-03-31 22:31:08.476000', '2020-03-31 22:31:39.473000', '[{"id":8,"s":[]}]');
-INSERT INTO public.user_project_notes (project_id, created_at, updated_at, notes)
-VALUES (12, '2020-02-18 07:11:22.535000', '2020-02-19 07:11:22.535000', '[{"id":100,"s":[{"id":101,"s":[{"id":102,"s":[]}]},{"id":103,"s":[]}]},{"id":104,"s":[{"id":105,"s":[]}]}]');
-
-
-
-
-
-
+INSERT INTO public.user_project_tasks (project_id, created_at, updated_at, tasks, version)
+VALUES (11, '2020-03-31 22:31:08.476000', '2020-03-31 22:31:39.473000', '[{"id":8,"s":[]}]', 0);
+INSERT INTO public.user_project_notes (project_id, created_at, updated_at, notes, version)
+VALUES (12, '2020-02-18 07:11:22.535000', '2020-02-19 07:11:22.535000', '[{"id":100,"s":[{"id":101,"s":[{"id":102,"s":[]}]},{"id":103,"s":[]}]},{"id":104,"s":[{"id":105,"s":[]}]}]', 0);
+-- rows written before hierarchy versioning, a null version would make them look new
+UPDATE public.user_project_tasks SET version = 0 WHERE version IS NULL;
+UPDATE public.user_project_notes SET version = 0 WHERE version IS NULL;
+
+CREATE INDEX IF NOT EXISTS task_labels_gin_index ON public.tasks USING GIN (labels);
+CREATE INDEX IF NOT EXISTS note_labels_gin_index ON public.notes USING GIN (labels);
+CREATE INDEX IF NOT EXISTS transaction_labels_gin_index ON public.transactions USING GIN (labels);
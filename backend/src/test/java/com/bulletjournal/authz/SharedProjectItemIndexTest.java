@@ -0,0 +1,86 @@
+package com.bulletjournal.authz;
+
+import com.bulletjournal.contents.ContentType;
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link SharedProjectItemIndex}
+ */
+public class SharedProjectItemIndexTest {
+
+    @Test
+    public void testContains() {
+        SetMultimap<ContentType, Long> shared = HashMultimap.create();
+        shared.put(ContentType.TASK, 10L);
+        AtomicInteger loads = new AtomicInteger();
+        SharedProjectItemIndex index = new SharedProjectItemIndex(10, 60, user -> {
+            loads.incrementAndGet();
+            return ImmutableSetMultimap.copyOf(shared);
+        });
+
+        assertTrue(index.contains("u1", ContentType.TASK, 10L));
+        assertFalse(index.contains("u1", ContentType.NOTE, 10L));
+        assertFalse(index.contains("u1", ContentType.TASK, 11L));
+        assertEquals(1, loads.get());
+
+        shared.put(ContentType.NOTE, 10L);
+        assertFalse(index.contains("u1", ContentType.NOTE, 10L));
+        index.invalidate("u1");
+        assertTrue(index.contains("u1", ContentType.NOTE, 10L));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidateWhileLoading() {
+        SetMultimap<ContentType, Long> shared = HashMultimap.create();
+        SharedProjectItemIndex[] index = new SharedProjectItemIndex[1];
+        AtomicInteger loads = new AtomicInteger();
+        index[0] = new SharedProjectItemIndex(10, 60, user -> {
+            SetMultimap<ContentType, Long> loaded = ImmutableSetMultimap.copyOf(shared);
+            if (loads.incrementAndGet() == 1) {
+                // share commits after rows were read
+                shared.put(ContentType.TASK, 10L);
+                index[0].invalidate(user);
+            }
+            return loaded;
+        });
+
+        assertFalse(index[0].contains("u1", ContentType.TASK, 10L));
+        assertTrue(index[0].contains("u1", ContentType.TASK, 10L));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testExpireAfterWrite() {
+        SetMultimap<ContentType, Long> shared = HashMultimap.create();
+        AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+        SharedProjectItemIndex index = new SharedProjectItemIndex(10, 60, ticker,
+                user -> ImmutableSetMultimap.copyOf(shared));
+
+        assertFalse(index.contains("u1", ContentType.TASK, 10L));
+        // missed invalidation is picked up once the entry expires
+        shared.put(ContentType.TASK, 10L);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertFalse(index.contains("u1", ContentType.TASK, 10L));
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(index.contains("u1", ContentType.TASK, 10L));
+    }
+}
@@ -0,0 +1,182 @@
+package com.bulletjournal.calendars.google;
+
+import com.bulletjournal.clients.GoogleCalClient;
+import com.bulletjournal.repository.GoogleCalendarProjectDaoJpa;
+import com.bulletjournal.repository.TaskDaoJpa;
+import com.bulletjournal.repository.models.GoogleCalendarProject;
+import com.bulletjournal.repository.models.Project;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Events;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link GoogleCalendarSyncService} against a local stub of the Calendar API
+ */
+public class GoogleCalendarSyncServiceTest {
+
+    /**
+     * Calendar API stub answering events listings with the page selected by pageToken
+     */
+    private static class CalendarStub extends MockHttpTransport {
+        private final List<String> urls = new ArrayList<>();
+        // listings with this sync token answer 410 Gone
+        private String expiredSyncToken;
+
+        @Override
+        public LowLevelHttpRequest buildRequest(String method, String url) {
+            this.urls.add(url);
+            int statusCode = 200;
+            String content;
+            if (this.expiredSyncToken != null && url.contains("syncToken=" + this.expiredSyncToken)) {
+                statusCode = 410;
+                content = "{\"error\":{\"code\":410,\"message\":\"Sync token is no longer valid\"}}";
+            } else if (url.contains("pageToken=p2")) {
+                content = "{\"timeZone\":\"America/Los_Angeles\",\"nextSyncToken\":\"s2\",\"items\":["
+                        + "{\"id\":\"e3\",\"status\":\"cancelled\"}]}";
+            } else {
+                content = "{\"timeZone\":\"America/Los_Angeles\",\"nextPageToken\":\"p2\",\"items\":["
+                        + "{\"id\":\"e0\",\"iCalUID\":\"e0@outlook.com\",\"status\":\"confirmed\","
+                        + "\"summary\":\"Retro\",\"updated\":\"2020-05-01T00:00:00.000Z\"},"
+                        + "{\"id\":\"e1\",\"iCalUID\":\"e1@google.com\",\"status\":\"confirmed\","
+                        + "\"summary\":\"Standup\",\"updated\":\"2020-07-01T00:00:00.000Z\"},"
+                        + "{\"id\":\"e2_20200701\",\"recurringEventId\":\"e2\",\"status\":\"cancelled\"}]}";
+            }
+            return new MockLowLevelHttpRequest(url).setResponse(new MockLowLevelHttpResponse()
+                    .setStatusCode(statusCode).setContentType(Json.MEDIA_TYPE).setContent(content));
+        }
+    }
+
+    private final CalendarStub stub = new CalendarStub();
+
+    private final Calendar service = new Calendar.Builder(this.stub, JacksonFactory.getDefaultInstance(), null)
+            .setApplicationName("test").build();
+
+    private final GoogleCalClient googleCalClient = mock(GoogleCalClient.class);
+    private final GoogleCalendarProjectDaoJpa googleCalendarProjectDaoJpa = mock(GoogleCalendarProjectDaoJpa.class);
+    private final TaskDaoJpa taskDaoJpa = mock(TaskDaoJpa.class);
+    private final GoogleCalendarSyncService syncService =
+            new GoogleCalendarSyncService(this.googleCalClient, this.googleCalendarProjectDaoJpa, this.taskDaoJpa);
+
+    private void watch(String syncToken) throws Exception {
+        Project project = new Project();
+        project.setId(11L);
+        GoogleCalendarProject calendarProject =
+                new GoogleCalendarProject("primary", project, "c1", "{}", "BulletJournal", syncToken);
+        calendarProject.setCreatedAt(Timestamp.from(Instant.parse("2020-06-01T00:00:00Z")));
+        when(this.googleCalendarProjectDaoJpa.getByChannelId("c1")).thenReturn(calendarProject);
+        when(this.googleCalClient.getCalendarService("BulletJournal")).thenReturn(this.service);
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        watch("s1");
+        this.syncService.sync("c1");
+
+        // one call per page
+        verify(this.taskDaoJpa, times(2)).applyGoogleCalendarChanges(eq(11L), eq("BulletJournal"), any(), any());
+        verify(this.googleCalendarProjectDaoJpa).setSyncToken("primary", "s2");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSyncExpiredToken() throws Exception {
+        watch("s1");
+        this.stub.expiredSyncToken = "s1";
+        this.syncService.sync("c1");
+
+        // whole calendar is listed again, page by page
+        assertEquals(3, this.stub.urls.size());
+        assertFalse(this.stub.urls.get(1).contains("syncToken="));
+        assertFalse(this.stub.urls.get(1).contains("fields="));
+        assertTrue(this.stub.urls.get(2).contains("pageToken=p2"));
+
+        // events changed during the gap are applied, ones untouched since the watch are not
+        ArgumentCaptor<List> changed = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Collection> cancelled = ArgumentCaptor.forClass(Collection.class);
+        verify(this.taskDaoJpa, times(2)).applyGoogleCalendarChanges(
+                eq(11L), eq("BulletJournal"), changed.capture(), cancelled.capture());
+        List<GoogleCalendarEvent> firstPage = changed.getAllValues().get(0);
+        assertEquals(1, firstPage.size());
+        assertEquals("e1", firstPage.get(0).getEventId());
+        assertTrue(changed.getAllValues().get(1).isEmpty());
+        assertEquals(Arrays.asList(Collections.emptyList(), Collections.singletonList("e3")),
+                cancelled.getAllValues());
+
+        // tasks of events gone from the calendar are deleted
+        verify(this.taskDaoJpa).deleteGoogleCalendarTasksExcept(
+                11L, "BulletJournal", new HashSet<>(Arrays.asList("e0", "e1")));
+        verify(this.googleCalendarProjectDaoJpa).setSyncToken("primary", "s2");
+    }
+
+    @Test
+    public void testListChanges() throws Exception {
+        List<GoogleCalendarEvent> changed = new ArrayList<>();
+        List<String> cancelled = new ArrayList<>();
+        String syncToken = GoogleCalendarSyncService.listEvents(this.service, "primary", "s1",
+                events -> GoogleCalendarSyncService.classify(events, "BulletJournal", changed, cancelled));
+
+        assertEquals("s2", syncToken);
+        assertEquals(2, this.stub.urls.size());
+        this.stub.urls.forEach(url -> assertTrue(url, url.contains("syncToken=s1")));
+        assertTrue(this.stub.urls.get(1).contains("pageToken=p2"));
+
+        // cancelled occurrence of recurring event is skipped
+        assertEquals(2, changed.size());
+        assertEquals("e0@outlook.com", changed.get(0).getiCalUID());
+        assertEquals("e0", changed.get(0).getEventId());
+        assertEquals("e1@google.com", changed.get(1).getiCalUID());
+        assertEquals("Standup", changed.get(1).getTask().getName());
+        assertEquals("BulletJournal", changed.get(1).getTask().getOwner());
+        assertEquals("America/Los_Angeles", changed.get(1).getTask().getTimezone());
+        // cancelled events are matched by id only
+        assertEquals(Arrays.asList("e3"), cancelled);
+    }
+
+    @Test
+    public void testGetSyncToken() throws Exception {
+        assertEquals("s2", this.syncService.getSyncToken(this.service, "primary"));
+        this.stub.urls.forEach(url -> {
+            assertFalse(url, url.contains("syncToken="));
+            // events themselves are not transferred
+            assertTrue(url, url.contains("fields=nextPageToken"));
+        });
+    }
+
+    @Test
+    public void testExpiredSyncToken() throws Exception {
+        this.stub.expiredSyncToken = "s1";
+        try {
+            GoogleCalendarSyncService.listEvents(this.service, "primary", "s1", events -> fail());
+            fail();
+        } catch (GoogleJsonResponseException ex) {
+            assertEquals(410, ex.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testClassifyEmptyPage() {
+        List<GoogleCalendarEvent> changed = new ArrayList<>();
+        List<String> cancelled = new ArrayList<>();
+        GoogleCalendarSyncService.classify(new Events(), "BulletJournal", changed, cancelled);
+        assertTrue(changed.isEmpty());
+        assertTrue(cancelled.isEmpty());
+    }
+}
@@ -1,16 +1,19 @@
 package com.bulletjournal.clients;
 
 import com.bulletjournal.config.SSOConfig;
+import com.bulletjournal.config.UserCacheConfig;
 import com.bulletjournal.controller.models.User;
-import com.bulletjournal.redis.RedisUserRepository;
 import com.bulletjournal.repository.UserDaoJpa;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
 
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * Tests {@link UserClient}
@@ -18,18 +21,21 @@ import static org.mockito.Mockito.when;
 public class UserClientTests {
 
     @Test
+    @SuppressWarnings("unchecked")
     public void testGetUser() throws Exception {
 
         String username = "BulletJournal";
         String expectedThumbnail = "https://1o24bbs.com/user_avatar/1o24bbs.com/bulletjournal/37/15287_2.png";
         String expectedAvatar = "https://1o24bbs.com/user_avatar/1o24bbs.com/bulletjournal/75/15287_2.png";
 
-        RedisUserRepository redisUserRepository = mock(RedisUserRepository.class);
-        when(redisUserRepository.findById(username)).thenReturn(Optional.empty());
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Collections.singletonList(null));
         UserDaoJpa userDaoJpa = mock(UserDaoJpa.class);
 
         UserClient userClient = new UserClient(new SSOConfig(
-                "https://1o24bbs.com"), redisUserRepository, userDaoJpa);
+                "https://1o24bbs.com"), new UserCacheConfig(), redisTemplate, userDaoJpa);
 
         User user = userClient.getUser(username);
         Assert.assertEquals(username, user.getName());
@@ -39,4 +45,27 @@ public class UserClientTests {
                 user.getThumbnail());
         Assert.assertEquals(6475, user.getId().intValue());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetUsers() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList(
+                "{\"id\":1,\"name\":\"u1\",\"avatar\":\"a1\"}",
+                "{\"id\":2,\"name\":\"u2\",\"avatar\":\"a2\"}"));
+
+        UserClient userClient = new UserClient(new SSOConfig(
+                "https://1o24bbs.com"), new UserCacheConfig(), redisTemplate, mock(UserDaoJpa.class));
+
+        Map<String, User> users = userClient.getUsers(Arrays.asList("u1", "u2", "u1", null));
+        Assert.assertEquals(2, users.size());
+        Assert.assertEquals("a1", users.get("u1").getAvatar());
+        Assert.assertEquals("a2", users.get("u2").getAvatar());
+
+        // served from memory afterwards
+        Assert.assertEquals("a1", userClient.getUser("u1").getAvatar());
+        verify(valueOperations, times(1)).multiGet(anyCollection());
+    }
 }
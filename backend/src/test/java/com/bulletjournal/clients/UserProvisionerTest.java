@@ -0,0 +1,82 @@
+package com.bulletjournal.clients;
+
+import com.bulletjournal.controller.models.User;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link UserProvisioner}
+ */
+public class UserProvisionerTest {
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        List<User> provisioned = new ArrayList<>();
+        UserProvisioner provisioner = new UserProvisioner(2, 10, username -> {
+            fetches.incrementAndGet();
+            await(release);
+            return new User(1, username, null, null);
+        }, provisioned::add);
+
+        CompletableFuture<User> first = provisioner.provision("u1");
+        CompletableFuture<User> second = provisioner.provision("u1");
+        assertSame(first, second);
+        assertTrue(provisioner.isInFlight("u1"));
+
+        release.countDown();
+        assertEquals("u1", first.get().getName());
+        assertEquals(1, fetches.get());
+        assertEquals(1, provisioned.size());
+
+        // a later request fetches again
+        provisioner.provision("u1").get();
+        assertEquals(2, fetches.get());
+        assertFalse(provisioner.isInFlight("u1"));
+        provisioner.shutdown();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UserProvisioner provisioner = new UserProvisioner(1, 1, username -> {
+            await(release);
+            return new User(1, username, null, null);
+        }, user -> {
+        });
+
+        CompletableFuture<User> running = provisioner.provision("u1");
+        CompletableFuture<User> queued = provisioner.provision("u2");
+        CompletableFuture<User> rejected = provisioner.provision("u3");
+        try {
+            rejected.get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+        assertFalse(provisioner.isInFlight("u3"));
+
+        release.countDown();
+        assertEquals("u1", running.get().getName());
+        assertEquals("u2", queued.get().getName());
+        provisioner.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -4,6 +4,7 @@ package com.bulletjournal.controller;
 import com.bulletjournal.config.ContentRevisionConfig;
 import com.bulletjournal.controller.models.*;
 import com.bulletjournal.controller.utils.TestHelpers;
+import com.bulletjournal.repository.ContentRevisionRepository;
 import com.google.common.collect.ImmutableList;
 import org.junit.Before;
 import org.junit.Test;
@@ -46,6 +47,9 @@ public class TaskControllerTest {
     @Autowired
     private ContentRevisionConfig revisionConfig;
 
+    @Autowired
+    private ContentRevisionRepository contentRevisionRepository;
+
     @LocalServerPort
     int randomServerPort;
     private TestRestTemplate restTemplate = new TestRestTemplate();
@@ -173,6 +177,33 @@ public class TaskControllerTest {
 
     }
 
+    /**
+     * Create task with contents and revisions
+     * Delete task
+     * verify revisions of its contents are deleted
+     */
+    @Test
+    public void testDeleteTaskRevisions() {
+        Group group = createGroup("Group_TaskRevisions");
+        Project project = createProject("task_revisions_project", group, ProjectType.TODO);
+        Task task = createTask(project, new CreateTaskParams("task_revisions", "2021-01-01", null, null,
+                new ReminderSetting(), ImmutableList.of(USER), TIMEZONE, null));
+        Content content1 = addContent(task, "Content 1.");
+        Content content2 = addContent(task, "Content 2.");
+        updateContent(task.getId(), content1.getId(), "Content 1 updated.");
+        List<Long> contentIds = ImmutableList.of(content1.getId(), content2.getId());
+        assertEquals(3, this.contentRevisionRepository.findRevisionHeaders("TASK", contentIds).size());
+
+        ResponseEntity<Task[]> response = this.restTemplate.exchange(
+                ROOT_URL + randomServerPort + TaskController.TASK_ROUTE,
+                HttpMethod.DELETE,
+                TestHelpers.actAsOtherUser(null, USER),
+                Task[].class,
+                task.getId());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0, this.contentRevisionRepository.findRevisionHeaders("TASK", contentIds).size());
+    }
+
     private void testUpdateAssignees(Project p1, Task task, List<String> users) {
         users.remove("xlf");
         UpdateTaskParams updateTaskParams = new UpdateTaskParams(
@@ -309,7 +340,11 @@ public class TaskControllerTest {
     }
 
     private Group createGroup() {
-        CreateGroupParams group = new CreateGroupParams("Group_ProjectItem");
+        return createGroup("Group_ProjectItem");
+    }
+
+    private Group createGroup(String name) {
+        CreateGroupParams group = new CreateGroupParams(name);
 
         ResponseEntity<Group> response = this.restTemplate.exchange(
                 ROOT_URL + randomServerPort + GroupController.GROUPS_ROUTE,
@@ -320,7 +355,7 @@ public class TaskControllerTest {
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertNotNull(created);
-        assertEquals("Group_ProjectItem", created.getName());
+        assertEquals(name, created.getName());
         assertEquals(USER, created.getOwner());
 
         return created;
@@ -0,0 +1,60 @@
+package com.bulletjournal.controller.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link EtagRegistry}
+ */
+public class EtagRegistryTest {
+
+    @Test
+    public void testGetEtag() {
+        EtagRegistry registry = new EtagRegistry();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("e1", registry.getEtag(EtagRegistry.Resource.GROUPS, "u1",
+                () -> "e" + loads.incrementAndGet()));
+        // unchanged resource is not loaded again
+        assertEquals("e1", registry.getEtag(EtagRegistry.Resource.GROUPS, "u1",
+                () -> "e" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        // other scope and other resource are not affected
+        registry.bump(EtagRegistry.Resource.GROUPS, "u2");
+        registry.bump(EtagRegistry.Resource.PROJECTS, "u1");
+        assertEquals("e1", registry.getEtag(EtagRegistry.Resource.GROUPS, "u1",
+                () -> "e" + loads.incrementAndGet()));
+
+        registry.bump(EtagRegistry.Resource.GROUPS, Arrays.asList("u1", "u2"));
+        assertEquals("e2", registry.getEtag(EtagRegistry.Resource.GROUPS, "u1",
+                () -> "e" + loads.incrementAndGet()));
+
+        registry.bumpAll(EtagRegistry.Resource.GROUPS);
+        assertEquals("e3", registry.getEtag(EtagRegistry.Resource.GROUPS, "u1",
+                () -> "e" + loads.incrementAndGet()));
+    }
+
+    @Test
+    public void testProjectScope() {
+        EtagRegistry registry = new EtagRegistry();
+        assertEquals("t1", registry.getEtag(EtagRegistry.Resource.TASKS, 1L, () -> "t1"));
+        registry.bump(EtagRegistry.Resource.NOTES, 1L);
+        assertEquals("t1", registry.getEtag(EtagRegistry.Resource.TASKS, 1L, () -> "t2"));
+        registry.bump(EtagRegistry.Resource.TASKS, 1L);
+        assertEquals("t2", registry.getEtag(EtagRegistry.Resource.TASKS, 1L, () -> "t2"));
+    }
+
+    @Test
+    public void testValueEtag() {
+        EtagRegistry registry = new EtagRegistry();
+        String[] etags = {"owned", "shared"};
+        assertSame(etags, registry.getEtag(EtagRegistry.Resource.PROJECTS, "u1", () -> etags));
+        assertSame(etags, registry.getEtag(EtagRegistry.Resource.PROJECTS, "u1", () -> new String[]{"o2", "s2"}));
+    }
+}
@@ -0,0 +1,102 @@
+package com.bulletjournal.daemon;
+
+import com.bulletjournal.config.LabelCleanerConfig;
+import com.bulletjournal.controller.utils.EtagRegistry;
+import com.bulletjournal.repository.LabelTombstoneRepository;
+import com.bulletjournal.repository.LedgerRollupRepository;
+import com.bulletjournal.repository.NoteRepository;
+import com.bulletjournal.repository.TaskRepository;
+import com.bulletjournal.repository.TransactionRepository;
+import com.bulletjournal.repository.models.LabelTombstone;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link LabelCleaner}
+ */
+public class LabelCleanerTest {
+
+    private static final Long LABEL_ID = 1L;
+
+    private LabelTombstoneRepository labelTombstoneRepository;
+    private TaskRepository taskRepository;
+    private NoteRepository noteRepository;
+    private TransactionRepository transactionRepository;
+    private LedgerRollupRepository ledgerRollupRepository;
+    private EtagRegistry etagRegistry;
+    private LabelCleaner labelCleaner;
+    private LabelTombstone tombstone;
+
+    @Before
+    public void setUp() {
+        LabelCleanerConfig labelCleanerConfig = new LabelCleanerConfig();
+        labelCleanerConfig.setBatchSize(2);
+        labelCleanerConfig.setIntervalInSeconds(1);
+        this.labelTombstoneRepository = mock(LabelTombstoneRepository.class);
+        this.taskRepository = mock(TaskRepository.class);
+        this.noteRepository = mock(NoteRepository.class);
+        this.transactionRepository = mock(TransactionRepository.class);
+        this.ledgerRollupRepository = mock(LedgerRollupRepository.class);
+        this.etagRegistry = mock(EtagRegistry.class);
+        this.labelCleaner = new LabelCleaner(labelCleanerConfig, this.labelTombstoneRepository,
+                this.taskRepository, this.noteRepository, this.transactionRepository,
+                this.ledgerRollupRepository, this.etagRegistry);
+
+        this.tombstone = new LabelTombstone(LABEL_ID, "u1");
+        when(this.labelTombstoneRepository.findAll()).thenReturn(Collections.singletonList(this.tombstone));
+    }
+
+    @Test
+    public void testClean() {
+        when(this.taskRepository.removeLabel(LABEL_ID, 2)).thenReturn(2, 2, 1);
+        when(this.noteRepository.removeLabel(LABEL_ID, 2)).thenReturn(0);
+        when(this.transactionRepository.removeLabel(LABEL_ID, 2)).thenReturn(2, 0);
+
+        this.labelCleaner.clean();
+
+        // batches repeat until one is short of the limit
+        verify(this.taskRepository, times(3)).removeLabel(LABEL_ID, 2);
+        verify(this.noteRepository, times(1)).removeLabel(LABEL_ID, 2);
+        verify(this.transactionRepository, times(2)).removeLabel(LABEL_ID, 2);
+        verify(this.labelTombstoneRepository, times(3)).addCleanedItems(LABEL_ID, 2L);
+        verify(this.labelTombstoneRepository, times(1)).addCleanedItems(LABEL_ID, 1L);
+
+        verify(this.ledgerRollupRepository).deleteLabel("1");
+        verify(this.labelTombstoneRepository).delete(this.tombstone);
+        verify(this.etagRegistry).bumpAll(EtagRegistry.Resource.TASKS);
+        verify(this.etagRegistry).bumpAll(EtagRegistry.Resource.NOTES);
+    }
+
+    @Test
+    public void testCleanUnusedLabel() {
+        this.labelCleaner.clean();
+
+        verify(this.taskRepository, times(1)).removeLabel(LABEL_ID, 2);
+        verify(this.labelTombstoneRepository, never()).addCleanedItems(any(), anyLong());
+        verify(this.labelTombstoneRepository).delete(this.tombstone);
+        verify(this.etagRegistry, never()).bumpAll(any());
+    }
+
+    @Test
+    public void testFailureKeepsTombstones() {
+        LabelTombstone other = new LabelTombstone(2L, "u1");
+        when(this.labelTombstoneRepository.findAll()).thenReturn(Arrays.asList(this.tombstone, other));
+        when(this.taskRepository.removeLabel(LABEL_ID, 2)).thenReturn(2, 1);
+        when(this.noteRepository.removeLabel(LABEL_ID, 2)).thenThrow(new IllegalStateException("Connection lost"));
+
+        this.labelCleaner.clean();
+
+        // cleaned batches stay counted, both tombstones are retried next sweep
+        verify(this.labelTombstoneRepository).addCleanedItems(LABEL_ID, 2L);
+        verify(this.labelTombstoneRepository).addCleanedItems(LABEL_ID, 1L);
+        verify(this.labelTombstoneRepository, never()).delete(any());
+        verify(this.taskRepository, never()).removeLabel(2L, 2);
+    }
+}
@@ -0,0 +1,114 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.contents.ContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LuceneSearchEngine}
+ */
+public class LuceneSearchEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LuceneSearchEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        this.engine = new LuceneSearchEngine();
+        this.engine.open(this.folder.getRoot().toPath());
+
+        SearchDocument task = new SearchDocument(ContentType.TASK, 1L, 10L, 100L, "Buy groceries");
+        task.getLabels().add("shopping");
+        SearchDocument note = new SearchDocument(ContentType.NOTE, 2L, 11L, 100L, "Meeting notes");
+        SearchDocument content = SearchDocument.ofContent(ContentType.NOTE, 7L, 2L, 11L, 100L,
+                "<p>Discuss the <strong>quarterly</strong> budget &amp; hiring</p>");
+        SearchDocument other = new SearchDocument(ContentType.NOTE, 3L, 12L, 200L, "Budget of another group");
+        assertTrue(this.engine.write(Arrays.asList(task, note, content, other), Collections.emptyList()).isEmpty());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.engine.preDestroy();
+    }
+
+    @Test
+    public void testSearch() throws IOException {
+        assertEquals(Collections.singletonList("Task@1"), search("groceries", 100L));
+        // fuzzy match on label
+        assertEquals(Collections.singletonList("Task@1"), search("shoping", 100L));
+        assertEquals(Collections.singletonList("Note@2"), search("budget", 100L));
+        assertEquals(new HashSet<>(Arrays.asList("Note@2", "Note@3")), new HashSet<>(search("budget", 100L, 200L)));
+        assertEquals(Collections.emptyList(), search("budget"));
+    }
+
+    @Test
+    public void testHighlights() throws IOException {
+        List<SearchMatch> matches = this.engine.search("quartrly", Collections.singletonList(100L), 10);
+        assertEquals(1, matches.size());
+        assertEquals(Long.valueOf(2), matches.get(0).getItemId());
+        assertEquals(Collections.singletonList("Discuss the <em>quarterly</em> budget &amp; hiring"),
+                matches.get(0).getHighlights());
+
+        matches = this.engine.search("groceries", Collections.singletonList(100L), 10);
+        assertEquals(Collections.singletonList("Buy <em>groceries</em>"), matches.get(0).getHighlights());
+    }
+
+    @Test
+    public void testUpdateAndDelete() throws IOException {
+        SearchDocument renamed = new SearchDocument(ContentType.TASK, 1L, 10L, 100L, "Pay rent");
+        this.engine.write(Collections.singletonList(renamed), Collections.emptyList());
+        assertEquals(Collections.emptyList(), search("groceries", 100L));
+        assertEquals(Collections.singletonList("Task@1"), search("rent", 100L));
+
+        SearchDocument edited = SearchDocument.ofContent(ContentType.NOTE, 7L, 2L, 11L, 100L, "Hiring plan");
+        this.engine.write(Collections.singletonList(edited), Collections.emptyList());
+        assertEquals(Collections.emptyList(), search("budget", 100L));
+        assertEquals(Collections.singletonList("Note@2"), search("hiring", 100L));
+
+        // deleting the note deletes its contents
+        this.engine.write(Collections.emptyList(), Collections.singletonList("Note@2"));
+        assertEquals(Collections.emptyList(), search("hiring", 100L));
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        assertTrue(this.engine.isCreated());
+        this.engine.preDestroy();
+
+        this.engine = new LuceneSearchEngine();
+        this.engine.open(this.folder.getRoot().toPath());
+        assertFalse(this.engine.isCreated());
+        assertEquals(Collections.singletonList("Task@1"), search("groceries", 100L));
+    }
+
+    @Test
+    public void testToPlainText() {
+        assertEquals("Title first line & second", SearchDocument.toPlainText(
+                "<h1>Title</h1><p>first <em>line</em><br/>&amp; second</p><script>alert(1)</script>"));
+        assertEquals("", SearchDocument.toPlainText(null));
+        assertEquals("NoteContent@5", SearchDocument.getContentDocumentId(ContentType.NOTE, 5L));
+        assertEquals(ContentType.NOTE, SearchDocument.getContentType("NoteContent@5"));
+    }
+
+    private List<String> search(String term, Long... groupIds) throws IOException {
+        return this.engine.search(term, Arrays.asList(groupIds), 10).stream()
+                .map(match -> SearchDocument.getId(match.getContentType(), match.getItemId()))
+                .collect(Collectors.toList());
+    }
+}
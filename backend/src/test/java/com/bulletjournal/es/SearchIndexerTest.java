@@ -0,0 +1,192 @@
+package com.bulletjournal.es;
+
+import com.bulletjournal.config.SearchIndexerConfig;
+import com.bulletjournal.contents.ContentType;
+import com.bulletjournal.repository.SearchIndexRepository;
+import com.bulletjournal.repository.models.SearchIndexEntry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link SearchIndexer}
+ */
+public class SearchIndexerTest {
+
+    private StubSearchEngine searchEngine;
+    private SearchIndexRepository searchIndexRepository;
+    private SearchIndexer searchIndexer;
+
+    @Before
+    public void setUp() {
+        SearchIndexerConfig searchIndexerConfig = new SearchIndexerConfig();
+        searchIndexerConfig.setBatchSize(2);
+        searchIndexerConfig.setIntervalInSeconds(1);
+        searchIndexerConfig.setMaxAttempts(3);
+        searchIndexerConfig.setRetryBackoffSeconds(5);
+        searchIndexerConfig.setMaxRetryBackoffSeconds(60);
+        this.searchEngine = new StubSearchEngine();
+        this.searchIndexRepository = mock(SearchIndexRepository.class);
+        this.searchIndexer = new SearchIndexer(this.searchEngine, searchIndexerConfig, this.searchIndexRepository);
+
+        // notes 12 and 13 exist, note 12 has content 7
+        List<Object[]> notes = Arrays.asList(
+                new Object[]{12L, "Agenda", 11L, 100L, "work\nurgent"},
+                new Object[]{13L, "Minutes", 11L, 100L, null});
+        List<Object[]> contents = Collections.singletonList(new Object[]{7L, 12L, "<p>Quarterly budget</p>"});
+        when(this.searchIndexRepository.findDocuments(eq(ContentType.NOTE), any()))
+                .thenAnswer(invocation -> filter(notes, 0, invocation.getArguments()[1]));
+        when(this.searchIndexRepository.findContents(eq(ContentType.NOTE), any()))
+                .thenAnswer(invocation -> filter(contents, 1, invocation.getArguments()[1]));
+    }
+
+    @Test
+    public void testRepeatedEntriesCollapse() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(Arrays.asList(
+                entry(1L, ContentType.NOTE, 12L, 0),
+                entry(2L, ContentType.NOTE, 12L, 0)), Collections.emptyList());
+
+        this.searchIndexer.drain();
+
+        assertEquals(1, this.searchEngine.writes.size());
+        assertEquals(Arrays.asList("Note@12", "NoteContent@7"), this.searchEngine.getDocumentIds(0));
+        assertEquals(Arrays.asList("urgent", "work"), sorted(this.searchEngine.writes.get(0).documents.get(0)));
+        verify(this.searchIndexRepository).deleteByIds(Arrays.asList(1L, 2L));
+        verify(this.searchIndexRepository, never()).addAttempt(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testMissingItemDeleted() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(Arrays.asList(
+                entry(1L, ContentType.TASK, 5L, 0)));
+
+        this.searchIndexer.drain();
+
+        assertEquals(1, this.searchEngine.writes.size());
+        assertEquals(Collections.emptyList(), this.searchEngine.getDocumentIds(0));
+        assertEquals(Collections.singletonList("Task@5"), this.searchEngine.writes.get(0).deletedIds);
+        verify(this.searchIndexRepository).deleteByIds(Collections.singletonList(1L));
+    }
+
+    @Test
+    public void testPartialFailureRetried() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(Arrays.asList(
+                entry(1L, ContentType.NOTE, 12L, 0),
+                entry(2L, ContentType.NOTE, 13L, 1)), Collections.emptyList());
+        // failing content is retried through the entry of its item
+        this.searchEngine.failedIds.add("NoteContent@7");
+
+        this.searchIndexer.drain();
+
+        verify(this.searchIndexRepository).deleteByIds(Collections.singletonList(2L));
+        verify(this.searchIndexRepository).addAttempt(Collections.singletonList(1L), 5, 60);
+        // failed entry backs off, so draining goes on with the entries behind it
+        verify(this.searchIndexRepository, times(2)).claim(eq(2), anyInt());
+    }
+
+    @Test
+    public void testDroppedAfterMaxAttempts() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(Arrays.asList(
+                entry(1L, ContentType.NOTE, 12L, 2),
+                entry(2L, ContentType.NOTE, 13L, 1)), Collections.emptyList());
+        this.searchEngine.failedIds.addAll(Arrays.asList("Note@12", "Note@13"));
+
+        this.searchIndexer.drain();
+
+        verify(this.searchIndexRepository).deleteByIds(Collections.singletonList(1L));
+        verify(this.searchIndexRepository).addAttempt(Collections.singletonList(2L), 5, 60);
+    }
+
+    @Test
+    public void testWriteFailureRetriesAll() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(Arrays.asList(
+                entry(1L, ContentType.NOTE, 12L, 0),
+                entry(2L, ContentType.TASK, 5L, 0)));
+        this.searchEngine.writeFailure = true;
+
+        this.searchIndexer.drain();
+
+        verify(this.searchIndexRepository).addAttempt(Arrays.asList(1L, 2L), 5, 60);
+        verify(this.searchIndexRepository, never()).deleteByIds(any());
+        // engine down, full batch waits for next drain
+        verify(this.searchIndexRepository, times(1)).claim(eq(2), anyInt());
+    }
+
+    @Test
+    public void testFullBatchDrainsAgain() {
+        when(this.searchIndexRepository.claim(eq(2), anyInt())).thenReturn(
+                Arrays.asList(entry(1L, ContentType.NOTE, 12L, 0), entry(2L, ContentType.TASK, 5L, 0)),
+                Collections.singletonList(entry(3L, ContentType.TASK, 6L, 0)));
+
+        this.searchIndexer.drain();
+
+        assertEquals(2, this.searchEngine.writes.size());
+        assertEquals(Collections.singletonList("Task@6"), this.searchEngine.writes.get(1).deletedIds);
+        verify(this.searchIndexRepository, times(2)).claim(eq(2), anyInt());
+        verify(this.searchIndexRepository).deleteByIds(Arrays.asList(1L, 2L));
+        verify(this.searchIndexRepository).deleteByIds(Collections.singletonList(3L));
+    }
+
+    private static SearchIndexEntry entry(Long id, ContentType contentType, Long contentId, int attempts) {
+        SearchIndexEntry entry = new SearchIndexEntry();
+        entry.setId(id);
+        entry.setContentType(contentType.name());
+        entry.setContentId(contentId);
+        entry.setAttempts(attempts);
+        return entry;
+    }
+
+    private static List<Object[]> filter(List<Object[]> rows, int column, Object ids) {
+        return rows.stream().filter(row -> ((Collection<?>) ids).contains(row[column])).collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(SearchDocument document) {
+        return document.getLabels().stream().sorted().collect(Collectors.toList());
+    }
+
+    private static class Write {
+        private final List<SearchDocument> documents;
+        private final List<String> deletedIds;
+
+        private Write(Collection<SearchDocument> documents, Collection<String> deletedIds) {
+            this.documents = new ArrayList<>(documents);
+            this.deletedIds = new ArrayList<>(deletedIds);
+        }
+    }
+
+    private static class StubSearchEngine implements SearchEngine {
+        private final List<Write> writes = new ArrayList<>();
+        private final Set<String> failedIds = new HashSet<>();
+        private boolean writeFailure;
+
+        @Override
+        public Set<String> write(Collection<SearchDocument> documents, Collection<String> deletedIds)
+                throws IOException {
+            this.writes.add(new Write(documents, deletedIds));
+            if (this.writeFailure) {
+                throw new IOException("Index unavailable");
+            }
+            return documents.stream().map(SearchDocument::getId)
+                    .filter(this.failedIds::contains).collect(Collectors.toSet());
+        }
+
+        @Override
+        public List<SearchMatch> search(String term, Collection<Long> groupIds, int limit) {
+            return Collections.emptyList();
+        }
+
+        private List<String> getDocumentIds(int write) {
+            return this.writes.get(write).documents.stream().map(SearchDocument::getId)
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+}
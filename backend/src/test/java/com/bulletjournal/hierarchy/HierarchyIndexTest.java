@@ -0,0 +1,102 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.controller.models.Project;
+import com.bulletjournal.exceptions.BadRequestException;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link HierarchyIndex}
+ */
+public class HierarchyIndexTest {
+
+    private String createSampleRelations() {
+        List<Project> projects = new ArrayList<>();
+        for (long i = 1; i <= 6; i++) {
+            projects.add(new Project(i));
+        }
+        return ProjectRelationsProcessor.processRelations(
+                HierarchyProcessorProcessorTest.createSampleProjectRelations(
+                        projects.get(0), projects.get(1), projects.get(2),
+                        projects.get(3), projects.get(4), projects.get(5)));
+    }
+
+    @Test
+    public void testGetSubItems() {
+        String relations = createSampleRelations();
+        HierarchyIndex index = HierarchyIndex.fromJson(relations, 0L);
+        assertEquals(6, index.size());
+
+        List<Long> subItems = index.getSubItems(2L);
+        Collections.sort(subItems);
+        assertEquals(ImmutableList.of(2L, 3L), subItems);
+        assertEquals(HierarchyProcessor.getSubItems(relations, 1L), index.getSubItems(1L));
+        assertEquals(1L, index.getParent(2L).getId().longValue());
+        assertNull(index.getParent(5L));
+    }
+
+    @Test
+    public void testRemoveTargetItem() {
+        String relations = createSampleRelations();
+        HierarchyIndex index = HierarchyIndex.fromJson(relations, 0L);
+
+        HierarchyItem removed = index.removeTargetItem(2L);
+        assertEquals(2L, removed.getId().longValue());
+        assertEquals(3L, removed.getS().get(0).getId().longValue());
+        assertFalse(index.contains(2L));
+        assertFalse(index.contains(3L));
+        assertEquals(4, index.size());
+
+        List<HierarchyItem> expected = HierarchyProcessor.removeTargetItem(relations, 2L);
+        assertEquals(new com.google.gson.Gson().toJson(expected), index.toJson());
+
+        index.removeTargetItem(5L);
+        assertEquals(1, index.getRoots().size());
+        assertFalse(index.contains(6L));
+    }
+
+    @Test
+    public void testAddItem() {
+        HierarchyIndex index = HierarchyIndex.fromJson(null, null);
+        index.addItem(1L);
+        HierarchyItem moved = new HierarchyItem(2L);
+        moved.getS().add(new HierarchyItem(3L));
+        index.addItem(moved);
+
+        assertEquals(3, index.size());
+        assertEquals(2L, index.getParent(3L).getId().longValue());
+        assertEquals(HierarchyProcessor.addItem(HierarchyProcessor.addItem("[]", 1L), moved), index.toJson());
+
+        HierarchyIndex reloaded = HierarchyIndex.fromJson(index.toJson(), 1L);
+        assertEquals(ImmutableList.of(2L, 3L), reloaded.getSubItems(2L));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testMissingTarget() {
+        HierarchyIndex.fromJson(createSampleRelations(), 0L).removeTargetItem(7L);
+    }
+
+    @Test
+    public void testCacheVersioning() {
+        HierarchyIndexCache cache = new HierarchyIndexCache(10);
+        String relations = createSampleRelations();
+        HierarchyIndex index = cache.checkout(1L, 0L, relations);
+        index.removeTargetItem(5L);
+        cache.checkin(1L, index, () -> 1L);
+
+        // stale version rebuilds from relations
+        assertEquals(6, cache.checkout(1L, 0L, relations).size());
+
+        cache.checkin(1L, index, () -> 1L);
+        HierarchyIndex cached = cache.checkout(1L, 1L, relations);
+        assertSame(index, cached);
+        // checked out index is owned exclusively
+        assertNotSame(index, cache.checkout(1L, 1L, relations));
+    }
+}
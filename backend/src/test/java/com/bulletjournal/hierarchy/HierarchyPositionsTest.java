@@ -0,0 +1,133 @@
+package com.bulletjournal.hierarchy;
+
+import com.bulletjournal.repository.models.Task;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link HierarchyPositions}
+ */
+public class HierarchyPositionsTest {
+
+    private static Task createTask(long id, Long parentId, Double position) {
+        Task task = new Task();
+        task.setId(id);
+        task.setParentId(parentId);
+        task.setPosition(position);
+        return task;
+    }
+
+    private static Map<Long, Task> toMap(Task... tasks) {
+        Map<Long, Task> map = new HashMap<>();
+        for (Task task : tasks) {
+            map.put(task.getId(), task);
+        }
+        return map;
+    }
+
+    private static HierarchyItem item(long id, HierarchyItem... subItems) {
+        HierarchyItem item = new HierarchyItem(id);
+        item.setS(new ArrayList<>(Arrays.asList(subItems)));
+        return item;
+    }
+
+    @Test
+    public void testBuildHierarchy() {
+        List<Task> tasks = Arrays.asList(
+                createTask(1, null, 1.0),
+                createTask(3, 1L, 1.0),
+                createTask(2, null, 2.0),
+                createTask(4, 1L, 1.5),
+                createTask(5, 99L, 3.0));
+        List<HierarchyItem> hierarchy = HierarchyPositions.buildHierarchy(tasks);
+        assertEquals(3, hierarchy.size());
+        assertEquals(1L, hierarchy.get(0).getId().longValue());
+        assertEquals(3L, hierarchy.get(0).getS().get(0).getId().longValue());
+        assertEquals(4L, hierarchy.get(0).getS().get(1).getId().longValue());
+        assertEquals(2L, hierarchy.get(1).getId().longValue());
+        // orphan goes to root
+        assertEquals(5L, hierarchy.get(2).getId().longValue());
+    }
+
+    @Test
+    public void testAssignPositionsFromScratch() {
+        Map<Long, Task> tasks = toMap(createTask(1, null, null), createTask(2, null, null), createTask(3, null, null));
+        List<Task> changed = HierarchyPositions.assignPositions(
+                Arrays.asList(item(1, item(3)), item(2)), tasks);
+        assertEquals(3, changed.size());
+        assertEquals(1.0, tasks.get(1L).getPosition(), 0);
+        assertEquals(2.0, tasks.get(2L).getPosition(), 0);
+        assertEquals(1L, tasks.get(3L).getParentId().longValue());
+        assertNull(tasks.get(1L).getParentId());
+    }
+
+    @Test
+    public void testReorderTouchesOnlyMovedItem() {
+        Map<Long, Task> tasks = toMap(
+                createTask(1, null, 1.0), createTask(2, null, 2.0),
+                createTask(3, null, 3.0), createTask(4, null, 4.0));
+        // move 4 between 1 and 2
+        List<Task> changed = HierarchyPositions.assignPositions(
+                Arrays.asList(item(1), item(4), item(2), item(3)), tasks);
+        assertEquals(1, changed.size());
+        assertEquals(4L, changed.get(0).getId().longValue());
+        assertEquals(1.5, tasks.get(4L).getPosition(), 0);
+
+        // nest 3 under 1
+        changed = HierarchyPositions.assignPositions(
+                Arrays.asList(item(1, item(3)), item(4), item(2)), tasks);
+        assertEquals(1, changed.size());
+        assertEquals(1L, tasks.get(3L).getParentId().longValue());
+
+        List<HierarchyItem> hierarchy = HierarchyPositions.buildHierarchy(sorted(tasks));
+        assertEquals(Arrays.asList(1L, 4L, 2L), ids(hierarchy));
+        assertEquals(Collections.singletonList(3L), ids(hierarchy.get(0).getS()));
+    }
+
+    @Test
+    public void testRenumberWhenNoRoomLeft() {
+        double lower = 1.0;
+        double upper = Math.nextUp(lower);
+        Map<Long, Task> tasks = toMap(createTask(1, null, lower), createTask(2, null, upper), createTask(3, null, 5.0));
+        List<Task> changed = HierarchyPositions.assignPositions(
+                Arrays.asList(item(1), item(3), item(2)), tasks);
+        assertFalse(changed.isEmpty());
+        assertEquals(Arrays.asList(1L, 3L, 2L), ids(HierarchyPositions.buildHierarchy(sorted(tasks))));
+    }
+
+    @Test
+    public void testAppendOmitted() {
+        Task task1 = createTask(1, null, 1.0);
+        Task task2 = createTask(2, null, 2.0);
+        Task task3 = createTask(3, null, 3.0);
+        Task task4 = createTask(4, 3L, 1.0);
+        Map<Long, Task> tasks = toMap(task1, task2, task3, task4);
+        // payload nests 1 under 2 and leaves out 3 and its child 4
+        List<HierarchyItem> hierarchy = HierarchyPositions.appendOmitted(
+                Collections.singletonList(item(2, item(1))), Arrays.asList(task1, task4, task2, task3));
+        assertEquals(Arrays.asList(2L, 3L), ids(hierarchy));
+        assertEquals(Collections.singletonList(4L), ids(hierarchy.get(1).getS()));
+
+        List<Task> changed = HierarchyPositions.assignPositions(hierarchy, tasks);
+        assertEquals(2L, tasks.get(1L).getParentId().longValue());
+        assertEquals(Collections.singletonList(task1), changed);
+        assertEquals(Arrays.asList(2L, 3L), ids(HierarchyPositions.buildHierarchy(sorted(tasks))));
+    }
+
+    private static List<Task> sorted(Map<Long, Task> tasks) {
+        List<Task> list = new ArrayList<>(tasks.values());
+        list.sort(Comparator.comparing(Task::getPosition));
+        return list;
+    }
+
+    private static List<Long> ids(List<HierarchyItem> items) {
+        List<Long> ids = new ArrayList<>();
+        for (HierarchyItem item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+}
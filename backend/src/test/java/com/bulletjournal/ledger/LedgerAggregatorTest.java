@@ -0,0 +1,126 @@
+package com.bulletjournal.ledger;
+
+import com.bulletjournal.controller.models.Label;
+import com.bulletjournal.controller.models.TransactionsSummary;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link LedgerAggregator}
+ */
+public class LedgerAggregatorTest {
+
+    private static final int INCOME = TransactionType.INCOME.getValue();
+    private static final int EXPENSE = TransactionType.EXPENSE.getValue();
+
+    @Test
+    public void testAllTypesInOnePass() {
+        LedgerAggregator aggregator = new LedgerAggregator(
+                EnumSet.allOf(LedgerSummaryType.class), FrequencyType.MONTHLY);
+        Label food = new Label(1L, "food", null);
+        Label travel = new Label(2L, "travel", null);
+        aggregator.add(INCOME, 100_00, "2020-03-05", "a", ImmutableList.of(food, travel));
+        aggregator.add(EXPENSE, 40_00, "2020-03-25", "b", ImmutableList.of(food));
+        aggregator.add(EXPENSE, 10_00, "2019-12-01", "a", ImmutableList.of());
+
+        assertEquals(100_00, aggregator.getTotalIncome());
+        assertEquals(50_00, aggregator.getTotalExpense());
+
+        List<TransactionsSummary> periods = aggregator.getTransactionsSummaries(LedgerSummaryType.DEFAULT);
+        assertEquals(2, periods.size());
+        assertEquals("2019 DECEMBER", periods.get(0).getName());
+        assertEquals("2019-12", periods.get(0).getMetadata());
+        assertEquals("2020 MARCH", periods.get(1).getName());
+        assertEquals("2020-03", periods.get(1).getMetadata());
+        assertEquals(60, periods.get(1).getBalance(), 0);
+        assertEquals(120, periods.get(1).getBalancePercentage(), 0);
+        assertEquals(1, (int) periods.get(1).getIncomeCount());
+        assertEquals(1, (int) periods.get(1).getExpenseCount());
+
+        List<TransactionsSummary> labels = aggregator.getTransactionsSummaries(LedgerSummaryType.LABEL);
+        assertEquals(2, labels.size());
+        assertEquals("food", labels.get(0).getName());
+        assertEquals(40, labels.get(0).getExpense(), 0);
+        assertEquals("travel", labels.get(1).getName());
+
+        List<TransactionsSummary> payers = aggregator.getTransactionsSummaries(LedgerSummaryType.PAYER);
+        assertEquals(2, payers.size());
+        assertEquals("a", payers.get(0).getName());
+        assertEquals(90, payers.get(0).getBalance(), 0);
+    }
+
+    @Test
+    public void testWeekly() {
+        LedgerAggregator aggregator = new LedgerAggregator(
+                EnumSet.of(LedgerSummaryType.DEFAULT), FrequencyType.WEEKLY);
+        aggregator.add(EXPENSE, 1_00, "2020-03-29", "a", ImmutableList.of());
+        aggregator.add(EXPENSE, 2_00, "2020-03-31", "a", ImmutableList.of());
+        aggregator.add(EXPENSE, 4_00, "2020-04-01", "a", ImmutableList.of());
+
+        // a week crossing months is split by month
+        List<TransactionsSummary> weeks = aggregator.getTransactionsSummaries(LedgerSummaryType.DEFAULT);
+        assertEquals(2, weeks.size());
+        weeks.sort((a, b) -> a.getName().compareTo(b.getName()));
+        assertEquals("2020 APRIL Week 1", weeks.get(0).getName());
+        assertEquals("2020-03-29 2020-04-04", weeks.get(0).getMetadata());
+        assertEquals(4, weeks.get(0).getExpense(), 0);
+        assertEquals("2020 MARCH Week 5", weeks.get(1).getName());
+        assertEquals("2020-03-29 2020-04-04", weeks.get(1).getMetadata());
+        assertEquals(3, weeks.get(1).getExpense(), 0);
+    }
+
+    @Test
+    public void testPreAggregated() {
+        LedgerAggregator aggregator = new LedgerAggregator(
+                EnumSet.of(LedgerSummaryType.DEFAULT), FrequencyType.YEARLY);
+        long year = LedgerAggregator.getPeriodKey(FrequencyType.YEARLY, "2020-03-05");
+        assertEquals(2020, year);
+        aggregator.addTotal(INCOME, 300_00);
+        aggregator.addPeriod(year, INCOME, 300_00, 3);
+        aggregator.addTotal(EXPENSE, 100_00);
+        aggregator.addPeriod(year, EXPENSE, 100_00, 2);
+
+        List<TransactionsSummary> periods = aggregator.getTransactionsSummaries(LedgerSummaryType.DEFAULT);
+        assertEquals(1, periods.size());
+        assertEquals("2020", periods.get(0).getName());
+        assertEquals(200, periods.get(0).getBalance(), 0);
+        assertEquals(3, (int) periods.get(0).getIncomeCount());
+        assertEquals(2, (int) periods.get(0).getExpenseCount());
+        assertEquals(24242, LedgerAggregator.getPeriodKey(FrequencyType.MONTHLY, "2020-03-05"));
+    }
+
+    @Test
+    public void testExactSums() {
+        LedgerAggregator aggregator = new LedgerAggregator(
+                EnumSet.of(LedgerSummaryType.PAYER), FrequencyType.MONTHLY);
+        for (int i = 0; i < 1000; i++) {
+            aggregator.add(INCOME, Money.toMinorUnits(0.1), "2020-03-05", "a", ImmutableList.of());
+        }
+        aggregator.add(EXPENSE, Money.toMinorUnits(33.33), "2020-03-05", "b", ImmutableList.of());
+        assertEquals(100_00, aggregator.getTotalIncome());
+
+        List<TransactionsSummary> payers = aggregator.getTransactionsSummaries(LedgerSummaryType.PAYER);
+        assertEquals(100.0, payers.get(0).getIncome(), 0);
+        assertEquals(100.0, payers.get(0).getIncomePercentage(), 0);
+        assertEquals(149.99, payers.get(0).getBalancePercentage(), 0);
+        assertEquals(-49.99, payers.get(1).getBalancePercentage(), 0);
+    }
+
+    @Test
+    public void testPercentage() {
+        assertEquals(0.0, Money.percentage(1, 0), 0);
+        assertEquals(33.33, Money.percentage(1, 3), 0);
+        assertEquals(66.67, Money.percentage(2, 3), 0);
+        assertEquals(-12.5, Money.percentage(-1, 8), 0);
+        assertEquals(-50.0, Money.percentage(5, -10), 0);
+        // beyond part * 20000 fitting in a long
+        assertEquals(33.33, Money.percentage(1_000_000_000_000_000L, 3_000_000_000_000_000L), 0);
+        assertEquals(50.0, Money.percentage(Long.MAX_VALUE / 2, Long.MAX_VALUE - 1), 0);
+        assertEquals(100.0, Money.percentage(Long.MIN_VALUE, Long.MIN_VALUE), 0);
+    }
+}
@@ -1,11 +1,23 @@
 package com.bulletjournal.notifications;
 
+import com.bulletjournal.config.NotificationConfig;
 import com.bulletjournal.controller.models.Notification;
+import com.bulletjournal.repository.NotificationDaoJpa;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 /**
  * Tests {@link NotificationService}
@@ -15,7 +27,8 @@ public class NotificationServiceTest {
     @Test
     public void testGetUser() {
         MockedNotificationDaoJpa mockedNotificationDaoJpa = new MockedNotificationDaoJpa();
-        NotificationService notificationService = new NotificationService(mockedNotificationDaoJpa);
+        NotificationService notificationService = new NotificationService(
+                mockedNotificationDaoJpa, new NotificationConfig(), new SimpleMeterRegistry());
         notificationService.postConstruct();
         String originator = "BulletJournal";
         String targetUser = "u1";
@@ -36,4 +49,149 @@ public class NotificationServiceTest {
         Assert.assertEquals(200, notifications.size());
         notificationService.preDestroy();
     }
+
+    @Test
+    public void testFlushFullBatch() throws InterruptedException {
+        NotificationConfig config = new NotificationConfig();
+        config.getPipeline().setBatchSize(3);
+        config.getPipeline().setFlushIntervalMillis(2000);
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        NotificationService notificationService = new NotificationService(
+                mockNotificationDaoJpa(batches, null, null), config, new SimpleMeterRegistry());
+        notificationService.postConstruct();
+
+        long start = System.nanoTime();
+        inform(notificationService, "G1", "G2", "G3");
+        waitForBatches(batches, 1);
+        // full batch does not wait for flush interval
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+        Assert.assertEquals(Arrays.asList("G1", "G2", "G3"), batches.get(0));
+        notificationService.preDestroy();
+    }
+
+    @Test
+    public void testFlushInterval() throws InterruptedException {
+        NotificationConfig config = new NotificationConfig();
+        config.getPipeline().setBatchSize(100);
+        config.getPipeline().setFlushIntervalMillis(100);
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        NotificationService notificationService = new NotificationService(
+                mockNotificationDaoJpa(batches, null, null), config, new SimpleMeterRegistry());
+        notificationService.postConstruct();
+
+        inform(notificationService, "G1", "G2");
+        waitForBatches(batches, 1);
+        Assert.assertEquals(Arrays.asList("G1", "G2"), batches.get(0));
+
+        inform(notificationService, "G3");
+        waitForBatches(batches, 2);
+        Assert.assertEquals(Arrays.asList("G3"), batches.get(1));
+        notificationService.preDestroy();
+    }
+
+    @Test
+    public void testOverflowDrop() throws InterruptedException {
+        testOverflow(NotificationConfig.OverflowPolicy.DROP);
+    }
+
+    @Test
+    public void testOverflowBlock() throws InterruptedException {
+        testOverflow(NotificationConfig.OverflowPolicy.BLOCK);
+    }
+
+    private void testOverflow(NotificationConfig.OverflowPolicy overflowPolicy) throws InterruptedException {
+        NotificationConfig config = new NotificationConfig();
+        config.getPipeline().setQueueCapacity(1);
+        config.getPipeline().setOverflowPolicy(overflowPolicy);
+        config.getPipeline().setOfferTimeoutMillis(50);
+        config.getPipeline().setBatchSize(1);
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationService notificationService = new NotificationService(
+                mockNotificationDaoJpa(batches, flushing, release), config, meterRegistry);
+        notificationService.postConstruct();
+
+        // worker is busy persisting G1 while G2 fills the queue
+        inform(notificationService, "G1");
+        Assert.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        inform(notificationService, "G2", "G3");
+        Assert.assertEquals(1.0, meterRegistry.counter("notification.queue.dropped").count(), 0);
+
+        release.countDown();
+        notificationService.preDestroy();
+        Assert.assertEquals(Arrays.asList(Arrays.asList("G1"), Arrays.asList("G2")), batches);
+    }
+
+    @Test
+    public void testDrainOnPreDestroy() throws InterruptedException {
+        NotificationConfig config = new NotificationConfig();
+        config.getPipeline().setBatchSize(2);
+        config.getPipeline().setFlushIntervalMillis(60000);
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NotificationService notificationService = new NotificationService(
+                mockNotificationDaoJpa(batches, flushing, release), config, meterRegistry);
+        notificationService.postConstruct();
+
+        inform(notificationService, "G1", "G2");
+        Assert.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        inform(notificationService, "G3", "G4", "G5");
+
+        Thread shutdown = new Thread(notificationService::preDestroy);
+        shutdown.start();
+        // stopped once waiting for worker to terminate
+        while (shutdown.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(10);
+        }
+        inform(notificationService, "G6");
+        Assert.assertEquals(1.0, meterRegistry.counter("notification.queue.dropped").count(), 0);
+        release.countDown();
+        shutdown.join(TimeUnit.SECONDS.toMillis(5));
+
+        // queued informed are persisted without waiting for flush interval
+        Assert.assertFalse(shutdown.isAlive());
+        Assert.assertEquals(Arrays.asList(Arrays.asList("G1", "G2"), Arrays.asList("G3", "G4"),
+                Arrays.asList("G5")), batches);
+    }
+
+    /**
+     * @param batches  content names of each persisted batch
+     * @param flushing counted down when the first batch is being persisted, if not null
+     * @param release  awaited before persisting the first batch, if not null
+     */
+    @SuppressWarnings("unchecked")
+    private static NotificationDaoJpa mockNotificationDaoJpa(
+            List<List<String>> batches, CountDownLatch flushing, CountDownLatch release) {
+        NotificationDaoJpa notificationDaoJpa = mock(NotificationDaoJpa.class);
+        doAnswer(invocation -> {
+            if (release != null && batches.isEmpty()) {
+                flushing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            List<Informed> events = (List<Informed>) invocation.getArguments()[0];
+            batches.add(events.stream().flatMap(informed -> informed.getEvents().stream())
+                    .map(Event::getContentName).collect(Collectors.toList()));
+            return null;
+        }).when(notificationDaoJpa).create(any());
+        return notificationDaoJpa;
+    }
+
+    private static void inform(NotificationService notificationService, String... groupNames) {
+        for (String groupName : groupNames) {
+            List<Event> events = new ArrayList<>(Arrays.asList(new Event("u1", 1L, groupName)));
+            notificationService.inform(new JoinGroupEvent(events, "BulletJournal"));
+        }
+    }
+
+    private static void waitForBatches(List<List<String>> batches, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (batches.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(size, batches.size());
+    }
 }
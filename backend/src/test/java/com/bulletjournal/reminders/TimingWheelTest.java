@@ -0,0 +1,58 @@
+package com.bulletjournal.reminders;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TimingWheel}
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testAdvance() {
+        // levels span 40, 160 and 640 millis
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 1003);
+        List<Long> expirations = Arrays.asList(1005L, 1035L, 1045L, 1200L, 1639L, 2500L, 1200L);
+        for (Long expiration : expirations) {
+            assertTrue(wheel.add(new TimingWheel.Entry<>(expiration, expiration)));
+        }
+        TimingWheel.Entry<Long> cancelled = new TimingWheel.Entry<>(1100L, 1100L);
+        assertTrue(wheel.add(cancelled));
+        cancelled.cancel();
+        assertFalse(wheel.add(new TimingWheel.Entry<>(999L, 999L)));
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 1000; now <= 3000; now++) {
+            long time = now;
+            wheel.advance(now, expiration -> {
+                // never early, at most one tick late
+                assertTrue(expiration <= time);
+                assertTrue(time - expiration <= 10);
+                fired.add(expiration);
+            });
+        }
+        List<Long> expected = new ArrayList<>(expirations);
+        Collections.sort(expected);
+        assertEquals(expected, fired);
+    }
+
+    @Test
+    public void testAdvanceAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 0);
+        assertTrue(wheel.add(new TimingWheel.Entry<>(5000L, 5000L)));
+        List<Long> fired = new ArrayList<>();
+        wheel.advance(4999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(10000, fired::add);
+        assertEquals(Collections.singletonList(5000L), fired);
+        assertEquals(10000, wheel.getCurrentTime());
+    }
+}
@@ -0,0 +1,69 @@
+package com.bulletjournal.repository;
+
+import com.bulletjournal.controller.models.Label;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LabelDictionary}
+ */
+public class LabelDictionaryTest {
+
+    @Test
+    public void testGetLabelMap() {
+        Map<Long, Label> stored = new HashMap<>();
+        stored.put(1L, new Label(1L, "a", null));
+        stored.put(2L, new Label(2L, "b", null));
+        List<Collection<Long>> queries = new ArrayList<>();
+        LabelDictionary dictionary = new LabelDictionary(10, ids -> {
+            queries.add(new HashSet<>(ids));
+            return ids.stream().filter(stored::containsKey).map(stored::get).collect(Collectors.toList());
+        }, owner -> ImmutableList.of());
+
+        Map<Long, Label> labels = dictionary.getLabelMap(ImmutableList.of(1L, 3L));
+        assertEquals(1, labels.size());
+        assertEquals("a", labels.get(1L).getValue());
+
+        labels = dictionary.getLabelMap(ImmutableList.of(1L, 2L));
+        assertEquals(2, labels.size());
+        // only the miss is loaded
+        assertEquals(ImmutableList.of(new HashSet<>(ImmutableList.of(1L, 3L)), Collections.singleton(2L)),
+                queries);
+
+        assertEquals(ImmutableList.of(stored.get(2L), stored.get(1L)),
+                LabelDaoJpa.toLabels(ImmutableList.of(2L, 3L, 1L), labels));
+    }
+
+    @Test
+    public void testInvalidate() {
+        Map<Long, Label> stored = new HashMap<>();
+        stored.put(1L, new Label(1L, "a", null));
+        AtomicInteger ownerLoads = new AtomicInteger();
+        LabelDictionary dictionary = new LabelDictionary(10,
+                ids -> ids.stream().map(stored::get).collect(Collectors.toList()),
+                owner -> {
+                    ownerLoads.incrementAndGet();
+                    return new ArrayList<>(stored.values());
+                });
+
+        assertEquals(1, dictionary.getOwnerLabels("u1").size());
+        dictionary.getLabelMap(ImmutableList.of(1L));
+
+        stored.put(1L, new Label(1L, "b", null));
+        assertEquals("a", dictionary.getLabelMap(ImmutableList.of(1L)).get(1L).getValue());
+        assertEquals(1, ownerLoads.get());
+
+        dictionary.invalidate("u1", 1L);
+        assertEquals("b", dictionary.getLabelMap(ImmutableList.of(1L)).get(1L).getValue());
+        assertEquals("b", dictionary.getOwnerLabels("u1").get(0).getValue());
+        assertEquals(2, ownerLoads.get());
+        assertTrue(dictionary.getLabelMap(ImmutableList.of()).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package com.bulletjournal.repository.models;
+
+import com.bulletjournal.controller.models.ReminderSetting;
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests {@link Task}
+ */
+public class TaskTest {
+
+    private static final String TIMEZONE = "America/Los_Angeles";
+    private static final String DAILY_RULE = "DTSTART:20200101T100000Z RRULE:FREQ=DAILY;INTERVAL=1";
+
+    private static long toMillis(String dateTime) {
+        return ZonedDateTimeHelper.convertDateTime(dateTime, TIMEZONE).toInstant().toEpochMilli();
+    }
+
+    private static Task createTask(String recurrenceRule, int before) {
+        Task task = new Task();
+        task.setTimezone(TIMEZONE);
+        task.setRecurrenceRule(recurrenceRule);
+        task.setReminderSetting(new ReminderSetting(null, null, before));
+        return task;
+    }
+
+    @Test
+    public void testGetNextReminderTime() {
+        // reminded 30 minutes before each occurrence at 02:00
+        Task task = createTask(DAILY_RULE, 3);
+        assertEquals(Long.valueOf(toMillis("2020-03-01 01:30")), task.getNextReminderTime(toMillis("2020-03-01 01:00")));
+        // occurrence starting now is not upcoming
+        assertEquals(Long.valueOf(toMillis("2020-03-02 01:30")), task.getNextReminderTime(toMillis("2020-03-01 02:00")));
+
+        task.addCompletedSlot(TimeUnit.MILLISECONDS.toMinutes(toMillis("2020-03-02 02:00")));
+        assertEquals(Long.valueOf(toMillis("2020-03-03 01:30")), task.getNextReminderTime(toMillis("2020-03-01 02:00")));
+    }
+
+    @Test
+    public void testGetNextReminderTimeWithoutReminder() {
+        assertNull(createTask(DAILY_RULE, 6).getNextReminderTime(toMillis("2020-03-01 01:00")));
+        assertNull(createTask(null, 3).getNextReminderTime(toMillis("2020-03-01 01:00")));
+        assertNull(createTask("DTSTART:20200101T100000Z RRULE:FREQ=DAILY;COUNT=2", 3)
+                .getNextReminderTime(toMillis("2020-03-01 01:00")));
+    }
+}
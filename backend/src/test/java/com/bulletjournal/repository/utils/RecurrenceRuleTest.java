@@ -1,10 +1,17 @@
 package com.bulletjournal.repository.utils;
 
+import com.bulletjournal.util.BuJoRecurrenceRule;
 import org.dmfs.rfc5545.DateTime;
 import org.dmfs.rfc5545.recur.RecurrenceRule;
 import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 /**
  * https://github.com/dmfs/lib-recur
  */
@@ -21,4 +28,52 @@ public class RecurrenceRuleTest {
             System.out.println(nextInstance);
         }
     }
+
+    @Test
+    public void testWindowIterator() throws Exception {
+        String[] rules = {
+                "DTSTART:20100115T093000Z RRULE:FREQ=DAILY;INTERVAL=1",
+                "DTSTART:20100115T093000Z RRULE:FREQ=DAILY;INTERVAL=3",
+                "DTSTART:20100115T093000Z RRULE:FREQ=WEEKLY;INTERVAL=2",
+                "DTSTART:20100131T093000Z RRULE:FREQ=MONTHLY;INTERVAL=1",
+                "DTSTART:20080229T093000Z RRULE:FREQ=YEARLY;INTERVAL=1",
+                "DTSTART:20100115T093000Z RRULE:FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,WE",
+                "DTSTART:20100115T093000Z RRULE:FREQ=DAILY;INTERVAL=1;COUNT=5000",
+                "DTSTART:20100115T093000Z RRULE:FREQ=DAILY;INTERVAL=1;UNTIL=20200310T000000Z"
+        };
+        String[] timezones = {"America/Los_Angeles", "Asia/Shanghai"};
+        // window across DST change in Los Angeles
+        DateTime windowStart = new DateTime(2020, 2, 1);
+        long from = windowStart.getTimestamp();
+        long to = from + 40L * 24 * 3600 * 1000;
+
+        for (String timezone : timezones) {
+            for (String recurrenceRule : rules) {
+                BuJoRecurrenceRule rule = new BuJoRecurrenceRule(recurrenceRule, timezone);
+                assertEquals(recurrenceRule, collect(rule.getIterator(), from, to),
+                        collect(rule.getIterator(from), from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testWindowIteratorAfterUntil() throws Exception {
+        BuJoRecurrenceRule rule = new BuJoRecurrenceRule(
+                "DTSTART:20100115T093000Z RRULE:FREQ=DAILY;INTERVAL=1;UNTIL=20150101T000000Z", "UTC");
+        assertFalse(rule.getIterator(new DateTime(2020, 0, 1).getTimestamp()).hasNext());
+    }
+
+    private static List<String> collect(RecurrenceRuleIterator it, long from, long to) {
+        List<String> result = new ArrayList<>();
+        while (it.hasNext()) {
+            DateTime dateTime = it.nextDateTime();
+            if (dateTime.getTimestamp() > to) {
+                break;
+            }
+            if (dateTime.getTimestamp() >= from) {
+                result.add(dateTime.toString());
+            }
+        }
+        return result;
+    }
 }
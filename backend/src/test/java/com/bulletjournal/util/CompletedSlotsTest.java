@@ -0,0 +1,63 @@
+package com.bulletjournal.util;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link CompletedSlots}
+ */
+public class CompletedSlotsTest {
+
+    private static long toMinute(String dateTime, String timezone) {
+        return TimeUnit.SECONDS.toMinutes(LocalDateTime.parse(dateTime).atZone(ZoneId.of(timezone)).toEpochSecond());
+    }
+
+    @Test
+    public void testAdd() {
+        CompletedSlots slots = CompletedSlots.EMPTY.add(300).add(100).add(200);
+        assertSame(slots, slots.add(200));
+        assertTrue(slots.contains(100));
+        assertFalse(slots.contains(150));
+        assertEquals(CompletedSlots.of(100, 200, 300), slots);
+        assertNull(CompletedSlots.EMPTY.encode());
+        assertEquals(CompletedSlots.EMPTY, CompletedSlots.decode(null));
+    }
+
+    @Test
+    public void testEncode() {
+        // sparse slots are stored as list
+        CompletedSlots sparse = CompletedSlots.of(1000, 1007, 5000000);
+        assertEquals(3, sparse.encode().length);
+        assertEquals(sparse, CompletedSlots.decode(sparse.encode()));
+
+        // a year of daily slots across DST changes is stored as bitmap
+        CompletedSlots daily = CompletedSlots.EMPTY;
+        LocalDateTime dateTime = LocalDateTime.parse("2020-01-01T10:00");
+        for (int day = 0; day < 365; day++) {
+            if (day % 10 != 3) {
+                daily = daily.add(toMinute(dateTime.plusDays(day).toString(), "America/Los_Angeles"));
+            }
+        }
+        Long[] encoded = daily.encode();
+        assertTrue(encoded[0] < 0);
+        assertTrue(encoded.length < daily.size() / 2);
+        assertEquals(daily, CompletedSlots.decode(encoded));
+    }
+
+    @Test
+    public void testShiftTimezone() {
+        CompletedSlots slots = CompletedSlots.of(toMinute("2020-03-02T10:00", "America/Los_Angeles"));
+        CompletedSlots shifted = slots.shiftTimezone("America/Los_Angeles", "Asia/Shanghai");
+        assertEquals(CompletedSlots.of(toMinute("2020-03-02T10:00", "Asia/Shanghai")), shifted);
+        assertSame(slots, slots.shiftTimezone("Asia/Shanghai", "Asia/Shanghai"));
+    }
+}
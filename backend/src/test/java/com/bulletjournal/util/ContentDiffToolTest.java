@@ -56,4 +56,25 @@ public class ContentDiffToolTest {
         String result34 = contentDiffTool.applyDiff(text3, diff34);
         Assert.assertEquals(text4, result34);
     }
+
+    @Test
+    public void testComputeBoundedDiff() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        String text1 = builder.toString();
+        String text2 = text1.replace("line 1000\n", "line 1000 changed\n");
+
+        // line mode for large text
+        String diff12 = contentDiffTool.computeDiff(text1, text2, 500, text1.length() * 2, 1000);
+        Assert.assertNotNull(diff12);
+        Assert.assertEquals(text2, contentDiffTool.applyDiff(text1, diff12));
+
+        // text exceeds max input length
+        Assert.assertNull(contentDiffTool.computeDiff(text1, text2, 500, 1000, 1000));
+
+        // diff not smaller than new text
+        Assert.assertNull(contentDiffTool.computeDiff(text1, "", 500, text1.length(), 1000));
+    }
 }
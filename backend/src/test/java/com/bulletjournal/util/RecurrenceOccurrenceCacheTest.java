@@ -0,0 +1,63 @@
+package com.bulletjournal.util;
+
+import com.bulletjournal.controller.utils.ZonedDateTimeHelper;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link RecurrenceOccurrenceCache}
+ */
+public class RecurrenceOccurrenceCacheTest {
+
+    private static final String TIMEZONE = "America/Los_Angeles";
+    private static final String DAILY_RULE = "DTSTART:20200101T100000Z RRULE:FREQ=DAILY;INTERVAL=1";
+
+    private static long toMinute(String dateTime) {
+        return TimeUnit.MILLISECONDS.toMinutes(
+                ZonedDateTimeHelper.convertDateTime(dateTime, TIMEZONE).toInstant().toEpochMilli());
+    }
+
+    @Test
+    public void testGetOccurrences() throws Exception {
+        RecurrenceOccurrenceCache cache = new RecurrenceOccurrenceCache(10);
+        long start = toMinute("2020-03-01 00:00");
+        long end = toMinute("2020-03-07 23:59");
+
+        int[] occurrences = cache.getOccurrences(1L, DAILY_RULE, TIMEZONE, CompletedSlots.EMPTY, start, end);
+        assertEquals(7, occurrences.length);
+        assertEquals(toMinute("2020-03-01 10:00"), occurrences[0]);
+        assertEquals(TimeUnit.DAYS.toMinutes(1), occurrences[1] - occurrences[0]);
+
+        // window inside horizon is served from cache
+        assertArrayEquals(RecurrenceOccurrenceCache.expand(
+                DAILY_RULE, TIMEZONE, CompletedSlots.EMPTY, start, end, Integer.MAX_VALUE).between(start, end),
+                cache.getOccurrences(1L, DAILY_RULE, TIMEZONE, CompletedSlots.EMPTY, start, end));
+
+        // window end is inclusive
+        assertEquals(1, cache.getOccurrences(1L, DAILY_RULE, TIMEZONE, CompletedSlots.EMPTY,
+                toMinute("2020-03-02 00:00"), toMinute("2020-03-02 10:00")).length);
+    }
+
+    @Test
+    public void testCompletedSlotsChange() throws Exception {
+        RecurrenceOccurrenceCache cache = new RecurrenceOccurrenceCache(10);
+        long start = toMinute("2020-03-01 00:00");
+        long end = toMinute("2020-03-03 23:59");
+        assertEquals(3, cache.getOccurrences(1L, DAILY_RULE, TIMEZONE, CompletedSlots.EMPTY, start, end).length);
+        CompletedSlots completedSlots = CompletedSlots.of(toMinute("2020-03-02 10:00"));
+        assertEquals(2, cache.getOccurrences(1L, DAILY_RULE, TIMEZONE, completedSlots, start, end).length);
+    }
+
+    @Test
+    public void testWindowLargerThanEntry() throws Exception {
+        RecurrenceOccurrenceCache cache = new RecurrenceOccurrenceCache(10);
+        String minutely = "DTSTART:20200101T000000Z RRULE:FREQ=MINUTELY;INTERVAL=1";
+        long start = toMinute("2020-01-02 00:00");
+        long end = start + TimeUnit.DAYS.toMinutes(3) - 1;
+        assertEquals(3 * 24 * 60, cache.getOccurrences(1L, minutely, TIMEZONE, CompletedSlots.EMPTY, start, end).length);
+    }
+}
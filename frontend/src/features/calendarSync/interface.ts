@@ -21,4 +21,5 @@ export interface GoogleCalendarEvent {
     task: Task;
     content: Content;
     iCalUID: string;
+    eventId: string;
 }
\ No newline at end of file